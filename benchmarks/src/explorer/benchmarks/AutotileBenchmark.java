@@ -0,0 +1,80 @@
+package explorer.benchmarks;
+
+import com.badlogic.gdx.math.Vector2;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import explorer.world.ChunkDataProvider;
+import explorer.world.World;
+import explorer.world.chunk.ChunkBlocks;
+import explorer.world.chunk.NeighbourEdges;
+import explorer.world.chunk.TileHolderTools;
+
+/**
+ * Calculating textures of all tiles (both layers) of generated chunk by TileHolderTools.getTileTextureID(), same work as STEP_TEXTURES of chunk loading
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AutotileBenchmark {
+
+    /**
+     * Chunk y (1 = World.CHUNK_WORLD_SIZE), 3 is around ground level, 0 is full of dirt
+     */
+    @Param({ "3", "0" })
+    public int chunk_y;
+
+    private World world;
+
+    private ChunkBlocks blocks;
+    private NeighbourEdges edges;
+
+    @Setup
+    public void setup() {
+        world = HeadlessFixture.getWorld();
+
+        ChunkDataProvider.ChunkData data = world.getPlanetProperties().PLANET_TYPE.PLANET_GENERATOR.getChunkData(new Vector2(2 * World.CHUNK_WORLD_SIZE, chunk_y * World.CHUNK_WORLD_SIZE));
+
+        blocks = new ChunkBlocks(world.getBlocks(), world.getBlocks().AIR.getBlockID());
+        blocks.load(data.foreground_blocks, data.background_blocks);
+
+        //chunk without loaded neighbours
+        edges = new NeighbourEdges();
+    }
+
+    @TearDown
+    public void tearDown() {
+        HeadlessFixture.exit();
+    }
+
+    @Benchmark
+    public int autotileChunk() {
+        int sum = 0;
+
+        for(int i = 0; i < World.CHUNK_SIZE; i++) {
+            for(int j = 0; j < World.CHUNK_SIZE; j++) {
+                sum += TileHolderTools.getTileTextureID(blocks, blocks.getForegroundBlock(i, j), i, j, false, edges, world);
+                sum += TileHolderTools.getTileTextureID(blocks, blocks.getBackgroundBlock(i, j), i, j, true, edges, world);
+            }
+        }
+
+        return sum;
+    }
+}
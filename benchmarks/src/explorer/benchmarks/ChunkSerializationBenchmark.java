@@ -0,0 +1,108 @@
+package explorer.benchmarks;
+
+import com.badlogic.gdx.math.Vector2;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import explorer.game.framework.Game;
+import explorer.network.world.NetworkChunkDataProvider;
+import explorer.world.ChunkDataProvider;
+import explorer.world.ChunkDataSerializer;
+import explorer.world.World;
+import explorer.world.codec.ChunkCodec;
+
+/**
+ * Encoding and decoding of chunk bytes (same format as chunk files / region records, see ChunkDataSerializer) with every codec,
+ * and parsing chunk bytes received from network (NetworkChunkDataProvider.parseData())
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChunkSerializationBenchmark {
+
+    /**
+     * Gives access to parseData()
+     */
+    private static class ParsingProvider extends NetworkChunkDataProvider {
+        boolean parse(ChunkDataProvider.ChunkData data, byte[] bytes, Vector2 chunk_position, World world, Game game) {
+            return parseData(data, bytes, chunk_position, world, game);
+        }
+    }
+
+    @Param({ "raw", "lz4", "deflate", "deflate:1" })
+    public String codec_name;
+
+    /**
+     * Chunk y (1 = World.CHUNK_WORLD_SIZE), 3 is around ground level (mixed blocks, objects), 0 is full of dirt
+     */
+    @Param({ "3", "0" })
+    public int chunk_y;
+
+    private World world;
+    private Game game;
+
+    private ChunkCodec codec;
+    private Vector2 chunk_position;
+    private ChunkDataProvider.ChunkData data;
+    private byte[] bytes;
+
+    private ParsingProvider provider;
+
+    @Setup
+    public void setup() throws IOException {
+        world = HeadlessFixture.getWorld();
+        game = HeadlessFixture.getGame();
+
+        codec = ChunkCodec.forName(codec_name);
+        chunk_position = new Vector2(2 * World.CHUNK_WORLD_SIZE, chunk_y * World.CHUNK_WORLD_SIZE);
+
+        data = world.getPlanetProperties().PLANET_TYPE.PLANET_GENERATOR.getChunkData(chunk_position);
+        bytes = encode();
+
+        provider = new ParsingProvider();
+    }
+
+    @TearDown
+    public void tearDown() {
+        HeadlessFixture.exit();
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return ChunkDataSerializer.toBytes(data.foreground_blocks, data.background_blocks, data.objects, (int) chunk_position.x / World.CHUNK_WORLD_SIZE, chunk_y, true, codec);
+    }
+
+    @Benchmark
+    public ChunkDataProvider.ChunkData decode() throws IOException, InterruptedException {
+        ChunkDataProvider.ChunkData out = new ChunkDataProvider.ChunkData();
+        ChunkDataSerializer.fromBytes(bytes, out, world, game);
+
+        return out;
+    }
+
+    @Benchmark
+    public ChunkDataProvider.ChunkData networkParse() {
+        ChunkDataProvider.ChunkData out = new ChunkDataProvider.ChunkData();
+        provider.parse(out, bytes, chunk_position, world, game);
+
+        return out;
+    }
+}
@@ -0,0 +1,60 @@
+package explorer.benchmarks;
+
+import com.badlogic.gdx.math.Vector2;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import explorer.world.ChunkDataProvider;
+import explorer.world.World;
+import explorer.world.planet.generator.WorldGenerator;
+
+/**
+ * Generating whole chunk by planet generator (TestWorldGenerator.getChunkData())
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GenerationBenchmark {
+
+    /**
+     * Chunk y (1 = World.CHUNK_WORLD_SIZE), 3 is around ground level (objects, caves, plants), 0 is full of dirt
+     */
+    @Param({ "3", "0" })
+    public int chunk_y;
+
+    private WorldGenerator generator;
+    private Vector2 chunk_position;
+
+    @Setup
+    public void setup() {
+        generator = HeadlessFixture.getWorld().getPlanetProperties().PLANET_TYPE.PLANET_GENERATOR;
+        chunk_position = new Vector2(2 * World.CHUNK_WORLD_SIZE, chunk_y * World.CHUNK_WORLD_SIZE);
+    }
+
+    @TearDown
+    public void tearDown() {
+        HeadlessFixture.exit();
+    }
+
+    @Benchmark
+    public ChunkDataProvider.ChunkData generateChunk() {
+        return generator.getChunkData(chunk_position);
+    }
+}
@@ -0,0 +1,104 @@
+package explorer.benchmarks;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+
+import java.util.concurrent.CountDownLatch;
+
+import explorer.game.framework.Game;
+import explorer.world.World;
+
+/**
+ * Game and world instances created without window (headless backend with HeadlessGL20), shared by all benchmarks in one JVM
+ * World is initialized only for generating and decoding chunks (see World.initGeneratorOnly()), assets are loaded from working directory (android/assets)
+ */
+
+public class HeadlessFixture {
+
+    /**
+     * Seed of benchmarked planet
+     */
+    public static final int PLANET_SEED = 1234;
+
+    /**
+     * Game which creates world right after engine stuff is created
+     */
+    private static class BenchmarkGame extends Game {
+
+        private final CountDownLatch created = new CountDownLatch(1);
+
+        private World world;
+        private Throwable error;
+
+        @Override
+        public void create() {
+            try {
+                Gdx.gl = Gdx.gl20 = HeadlessGL20.create();
+
+                super.create();
+            } catch(Throwable t) {
+                error = t;
+            } finally {
+                created.countDown();
+            }
+        }
+
+        @Override
+        protected void initGame() {
+            world = new World(this, PLANET_SEED);
+            world.initGeneratorOnly();
+        }
+
+        @Override
+        public void render() {}
+    }
+
+    private static BenchmarkGame game;
+    private static HeadlessApplication application;
+
+    /**
+     * Create game and world if they weren't created yet
+     */
+    public static synchronized void init() {
+        if(game != null)
+            return;
+
+        BenchmarkGame new_game = new BenchmarkGame();
+
+        HeadlessApplicationConfiguration config = new HeadlessApplicationConfiguration();
+        config.renderInterval = 1f / 30f;
+        application = new HeadlessApplication(new_game, config);
+
+        try {
+            new_game.created.await();
+        } catch(InterruptedException e) {
+            throw new IllegalStateException("Interrupted while waiting for headless game", e);
+        }
+
+        if(new_game.error != null)
+            throw new IllegalStateException("Failed to create headless game", new_game.error);
+
+        game = new_game;
+    }
+
+    /**
+     * Stop headless application loop (game and world instances stay usable)
+     */
+    public static synchronized void exit() {
+        if(application != null)
+            application.exit();
+
+        application = null;
+    }
+
+    public static Game getGame() {
+        init();
+        return game;
+    }
+
+    public static World getWorld() {
+        init();
+        return game.world;
+    }
+}
@@ -0,0 +1,57 @@
+package explorer.benchmarks;
+
+import com.badlogic.gdx.graphics.GL20;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.IntBuffer;
+
+/**
+ * GL20 which does nothing but tells everyone that shaders compiled and frame buffers are complete,
+ * so engine classes that create shaders, textures and batches can be created without window
+ */
+
+public class HeadlessGL20 {
+
+    /**
+     * @return new GL20 instance
+     */
+    public static GL20 create() {
+        return (GL20) Proxy.newProxyInstance(GL20.class.getClassLoader(), new Class<?>[] { GL20.class }, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                String name = method.getName();
+
+                //compile/link status
+                if((name.equals("glGetShaderiv") || name.equals("glGetProgramiv")) && args[2] instanceof IntBuffer) {
+                    int parameter = (Integer) args[1];
+
+                    if(parameter == GL20.GL_COMPILE_STATUS || parameter == GL20.GL_LINK_STATUS)
+                        ((IntBuffer) args[2]).put(0, 1);
+
+                    return null;
+                }
+
+                if(name.equals("glCheckFramebufferStatus"))
+                    return GL20.GL_FRAMEBUFFER_COMPLETE;
+
+                //every created GL object gets same non zero handle
+                if(name.equals("glCreateShader") || name.equals("glCreateProgram") || name.startsWith("glGen"))
+                    return 1;
+
+                Class<?> type = method.getReturnType();
+                if(type == int.class)
+                    return 0;
+                else if(type == boolean.class)
+                    return false;
+                else if(type == float.class)
+                    return 0f;
+                else if(type == String.class)
+                    return "";
+
+                return null;
+            }
+        });
+    }
+}
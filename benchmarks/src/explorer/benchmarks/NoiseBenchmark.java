@@ -0,0 +1,99 @@
+package explorer.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import explorer.game.framework.utils.math.FastNoise;
+import explorer.world.World;
+import explorer.world.planet.generator.ColumnHeightsCache;
+import explorer.world.planet.generator.HeightsGenerator;
+
+/**
+ * Noise functions used by generators, every benchmark samples one chunk worth of values (64 columns or 64x64 tiles)
+ * Doesn't need game instance so it runs without headless fixture
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NoiseBenchmark {
+
+    private HeightsGenerator heights_generator;
+    private ColumnHeightsCache heights_cache;
+    private FastNoise noise;
+
+    /**
+     * Chunk x of sampled chunk
+     */
+    private int chunk_x;
+
+    @Setup
+    public void setup() {
+        //same range of parameters as TestWorldGenerator uses
+        heights_generator = new HeightsGenerator(75f, 6, .3f, HeadlessFixture.PLANET_SEED);
+        heights_cache = new ColumnHeightsCache(heights_generator, 30);
+        noise = new FastNoise(HeadlessFixture.PLANET_SEED);
+
+        chunk_x = 2;
+    }
+
+    @Benchmark
+    public float heightsChunkColumns() {
+        float sum = 0;
+
+        for(int i = 0; i < World.CHUNK_SIZE; i++)
+            sum += heights_generator.generateHeight(i + chunk_x * World.CHUNK_SIZE, 0);
+
+        return sum;
+    }
+
+    @Benchmark
+    public float cachedHeightsChunkColumns() {
+        float sum = 0;
+
+        //same lookups as TestWorldGenerator does (column and its neighbours), chunk column is computed only in first call
+        for(int i = 0; i < World.CHUNK_SIZE; i++) {
+            int x = i + chunk_x * World.CHUNK_SIZE;
+            sum += heights_cache.getHeight(x) + heights_cache.getHeight(x - 1) + heights_cache.getHeight(x + 1);
+        }
+
+        return sum;
+    }
+
+    @Benchmark
+    public float fastNoiseChunk() {
+        float sum = 0;
+
+        for(int i = 0; i < World.CHUNK_SIZE; i++) {
+            for(int j = 0; j < World.CHUNK_SIZE; j++)
+                sum += noise.GetNoise(i + chunk_x * World.CHUNK_SIZE, j);
+        }
+
+        return sum;
+    }
+
+    @Benchmark
+    public float fastPerlinChunk() {
+        float sum = 0;
+
+        for(int i = 0; i < World.CHUNK_SIZE; i++) {
+            for(int j = 0; j < World.CHUNK_SIZE; j++)
+                sum += noise.GetPerlin(i + chunk_x * World.CHUNK_SIZE, j);
+        }
+
+        return sum;
+    }
+}
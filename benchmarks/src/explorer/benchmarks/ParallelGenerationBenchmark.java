@@ -0,0 +1,92 @@
+package explorer.benchmarks;
+
+import com.badlogic.gdx.math.Vector2;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import explorer.world.World;
+import explorer.world.planet.generator.WorldGenerator;
+
+/**
+ * Generating block of PLANET_WIDTH x generator max height chunks on given amount of threads sharing one generator instance,
+ * time should go down with threads count as long as there are free cores (generator is reentrant, see WorldGenerator)
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParallelGenerationBenchmark {
+
+    /**
+     * Width of generated block in chunks (smallest planet size)
+     */
+    public static final int PLANET_WIDTH = 10;
+
+    @Param({ "1", "2", "4", "8" })
+    public int threads;
+
+    private WorldGenerator generator;
+    private ExecutorService executor;
+
+    private List<Runnable> tasks;
+
+    @Setup
+    public void setup() {
+        generator = HeadlessFixture.getWorld().getPlanetProperties().PLANET_TYPE.PLANET_GENERATOR;
+        executor = Executors.newFixedThreadPool(threads);
+
+        tasks = new ArrayList<Runnable>();
+        for(int i = 0; i < PLANET_WIDTH; i++) {
+            for(int j = 0; j < generator.getMaxHeight(); j++) {
+                final Vector2 chunk_position = new Vector2(i * World.CHUNK_WORLD_SIZE, j * World.CHUNK_WORLD_SIZE);
+
+                tasks.add(new Runnable() {
+                    @Override
+                    public void run() {
+                        generator.getChunkData(chunk_position);
+                    }
+                });
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdownNow();
+        HeadlessFixture.exit();
+    }
+
+    @Benchmark
+    public int generatePlanetPart() throws ExecutionException, InterruptedException {
+        List<Future<?>> futures = new ArrayList<Future<?>>(tasks.size());
+        for(int i = 0; i < tasks.size(); i++)
+            futures.add(executor.submit(tasks.get(i)));
+
+        for(int i = 0; i < futures.size(); i++)
+            futures.get(i).get();
+
+        return futures.size();
+    }
+}
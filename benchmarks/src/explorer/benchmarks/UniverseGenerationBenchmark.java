@@ -0,0 +1,71 @@
+package explorer.benchmarks;
+
+import com.badlogic.gdx.math.Vector2;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import explorer.game.framework.Game;
+import explorer.universe.generator.BasicUniverseGenerator;
+import explorer.universe.generator.UniverseChunkDataProvider;
+
+/**
+ * Generating one universe chunk by BasicUniverseGenerator (includes handing task to thread pool and back)
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UniverseGenerationBenchmark {
+
+    private Game game;
+    private BasicUniverseGenerator generator;
+
+    private Vector2 chunk_position;
+    private UniverseChunkDataProvider.UniverseChunkData last_data;
+
+    private UniverseChunkDataProvider.UniverseChunkDataLoaded callback;
+
+    @Setup
+    public void setup() {
+        game = HeadlessFixture.getGame();
+        generator = new BasicUniverseGenerator();
+
+        chunk_position = new Vector2();
+
+        callback = new UniverseChunkDataProvider.UniverseChunkDataLoaded() {
+            @Override
+            public void loaded(UniverseChunkDataProvider.UniverseChunkData data) {
+                last_data = data;
+            }
+        };
+    }
+
+    @TearDown
+    public void tearDown() {
+        HeadlessFixture.exit();
+    }
+
+    @Benchmark
+    public UniverseChunkDataProvider.UniverseChunkData generateChunk() throws ExecutionException, InterruptedException {
+        //universe instance is used only by created objects, they don't need it until they are added to universe
+        generator.getUniverseChunkData(callback, chunk_position, null, game).get();
+
+        return last_data;
+    }
+}
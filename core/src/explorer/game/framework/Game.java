@@ -14,6 +14,7 @@ import java.util.HashMap;
 
 import explorer.game.framework.utils.RenderCallsCounterSpriteBatch;
 import explorer.game.framework.utils.ShaderFactory;
+import explorer.game.framework.utils.metrics.Metrics;
 import explorer.game.screen.Screen;
 import explorer.game.screen.gui.dialog.DialogHandler;
 import explorer.game.screen.screens.Screens;
@@ -21,6 +22,7 @@ import explorer.game.screen.screens.planet.PlanetScreen;
 import explorer.network.NetworkHelper;
 import explorer.network.client.GameClient;
 import explorer.network.server.GameServer;
+import explorer.world.ChunkIOScheduler;
 
 public abstract class Game extends ApplicationAdapter {
 
@@ -34,6 +36,7 @@ public abstract class Game extends ApplicationAdapter {
 	private AssetsManager assets_manager;
 
 	private explorer.game.framework.utils.ThreadPool thread_pool;
+	private ChunkIOScheduler chunk_io_scheduler;
 
 	//array that holds all screens
 	private HashMap<String, Screen> screens;
@@ -76,6 +79,7 @@ public abstract class Game extends ApplicationAdapter {
 		batch = new explorer.game.framework.utils.RenderCallsCounterSpriteBatch();
 
 		thread_pool = new explorer.game.framework.utils.ThreadPool();
+		chunk_io_scheduler = new ChunkIOScheduler();
 
 		//
 		input_engine = new InputEngine();
@@ -200,6 +204,8 @@ public abstract class Game extends ApplicationAdapter {
 		 + ((IS_CLIENT) ? " Ping: " + getGameClient().getClient().getReturnTripTime() : ""));
 
 		((RenderCallsCounterSpriteBatch) batch).resetCounter();
+
+		Metrics.sampleFrame(this);
 	}
 	
 	@Override
@@ -214,6 +220,9 @@ public abstract class Game extends ApplicationAdapter {
 		getGameClient().dispose();
 		getGameServer().dispose();
 
+		//after everything that could save chunks
+		getChunkIOScheduler().dispose();
+
 		//dispose shaders
 		ShaderFactory.disposeAll();
 	}
@@ -270,6 +279,14 @@ public abstract class Game extends ApplicationAdapter {
 		return thread_pool;
 	}
 
+	/**
+	 * Get instance of chunk I/O scheduler
+	 * @return instance of scheduler (for loading, saving and sending chunks with priorities)
+	 */
+	public ChunkIOScheduler getChunkIOScheduler() {
+		return chunk_io_scheduler;
+	}
+
 	/**
 	 * Get main world camera
 	 * @return world camera
@@ -88,6 +88,13 @@ public class ThreadPool {
 		return (int) (executor_pool.getTaskCount() - executor_pool.getCompletedTaskCount());
 	}
 	
+	/**
+	 * func that returns how many tasks are waiting in queue for free worker thread
+	 */
+	public int getQueuedCount() {
+		return executor_pool.getQueue().size();
+	}
+	
 	public void dispose() {
 		executor_pool.shutdown();
 	}
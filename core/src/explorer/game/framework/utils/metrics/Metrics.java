@@ -0,0 +1,236 @@
+package explorer.game.framework.utils.metrics;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+import com.esotericsoftware.minlog.Log;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+import explorer.game.framework.Game;
+
+/**
+ * Registry of game metrics measured as rolling histograms (see {@link RollingHistogram}), read by debug overlay (PlanetGUIScreen)
+ * and dumped to CSV/JSON files by dump()
+ *
+ * Times are recorded in microseconds, sampled values (queue depths, network bytes) once per frame by sampleFrame()
+ */
+
+public class Metrics {
+
+    /**
+     * Per frame times
+     */
+    public static final String WORLD_TICK = "world.tick";
+    public static final String PHYSICS_TICK = "physics.tick";
+    public static final String LIGHT_RENDER = "light.render";
+    public static final String CHUNKS_RENDER = "chunks.render";
+
+    /**
+     * Chunk loading (from request to publishing), decoding chunk bytes, calculating textures of loaded chunk, writing chunk save and generating chunk on demand
+     */
+    public static final String CHUNK_LOAD = "chunk.load";
+    public static final String CHUNK_DECODE = "chunk.decode";
+    public static final String CHUNK_AUTOTILE = "chunk.autotile";
+    public static final String CHUNK_SAVE = "chunk.save";
+    public static final String CHUNK_GENERATE = "chunk.generate";
+
+    /**
+     * Per frame samples
+     */
+    public static final String THREAD_POOL_QUEUE = "thread_pool.queue";
+    public static final String CHUNK_IO_QUEUE = "chunk_io.queue";
+    public static final String NETWORK_BYTES_IN = "network.bytes_in";
+    public static final String NETWORK_BYTES_OUT = "network.bytes_out";
+
+    /**
+     * Directory (local storage) where dump() writes files
+     */
+    public static final String DUMP_DIR = "metrics/";
+
+    private static final LinkedHashMap<String, RollingHistogram> histograms = new LinkedHashMap<String, RollingHistogram>();
+
+    /**
+     * Network bytes since last sampleFrame() (see MeteredKryoSerialization)
+     */
+    private static final AtomicLong network_bytes_in = new AtomicLong();
+    private static final AtomicLong network_bytes_out = new AtomicLong();
+
+    private static volatile boolean overlay_visible;
+
+    static {
+        register(WORLD_TICK, "us");
+        register(PHYSICS_TICK, "us");
+        register(LIGHT_RENDER, "us");
+        register(CHUNKS_RENDER, "us");
+
+        register(CHUNK_LOAD, "us");
+        register(CHUNK_DECODE, "us");
+        register(CHUNK_AUTOTILE, "us");
+        register(CHUNK_SAVE, "us");
+        register(CHUNK_GENERATE, "us");
+
+        register(THREAD_POOL_QUEUE, "tasks");
+        register(CHUNK_IO_QUEUE, "tasks");
+        register(NETWORK_BYTES_IN, "bytes");
+        register(NETWORK_BYTES_OUT, "bytes");
+    }
+
+    /**
+     * Get histogram by name, new one is created if there is no histogram with this name
+     * @param name metric name
+     * @param unit unit of samples (used only when histogram is created)
+     * @return histogram instance
+     */
+    public static synchronized RollingHistogram register(String name, String unit) {
+        RollingHistogram histogram = histograms.get(name);
+
+        if(histogram == null) {
+            histogram = new RollingHistogram(name, unit);
+            histograms.put(name, histogram);
+        }
+
+        return histogram;
+    }
+
+    /**
+     * @param name metric name
+     * @return histogram or null if there is no metric with given name
+     */
+    public static synchronized RollingHistogram get(String name) {
+        return histograms.get(name);
+    }
+
+    /**
+     * @return all histograms in registration order
+     */
+    public static synchronized Array<RollingHistogram> getAll() {
+        Array<RollingHistogram> out = new Array<RollingHistogram>(histograms.size());
+        for(RollingHistogram histogram : histograms.values())
+            out.add(histogram);
+
+        return out;
+    }
+
+    /**
+     * @return start time for recordTime()
+     */
+    public static long startTimer() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Record time elapsed since start
+     * @param name metric name
+     * @param start_time value returned by startTimer()
+     */
+    public static void recordTime(String name, long start_time) {
+        recordNanos(name, System.nanoTime() - start_time);
+    }
+
+    /**
+     * Record time
+     * @param name metric name
+     * @param nanos time in nanoseconds
+     */
+    public static void recordNanos(String name, long nanos) {
+        record(name, nanos / 1000);
+    }
+
+    /**
+     * Record sample
+     * @param name metric name
+     * @param value sample value
+     */
+    public static void record(String name, long value) {
+        RollingHistogram histogram = get(name);
+
+        if(histogram != null)
+            histogram.record(value);
+    }
+
+    /**
+     * Count received network bytes
+     */
+    public static void addNetworkBytesIn(int bytes) {
+        network_bytes_in.addAndGet(bytes);
+    }
+
+    /**
+     * Count sent network bytes
+     */
+    public static void addNetworkBytesOut(int bytes) {
+        network_bytes_out.addAndGet(bytes);
+    }
+
+    /**
+     * Record per frame samples (queue depths, network bytes since last frame), called once per frame by Game.render()
+     * @param game game instance
+     */
+    public static void sampleFrame(Game game) {
+        record(THREAD_POOL_QUEUE, game.getThreadPool().getQueuedCount());
+        record(CHUNK_IO_QUEUE, game.getChunkIOScheduler().getQueuedCount());
+
+        record(NETWORK_BYTES_IN, network_bytes_in.getAndSet(0));
+        record(NETWORK_BYTES_OUT, network_bytes_out.getAndSet(0));
+    }
+
+    public static boolean isOverlayVisible() {
+        return overlay_visible;
+    }
+
+    public static void setOverlayVisible(boolean visible) {
+        overlay_visible = visible;
+    }
+
+    /**
+     * Write current statistics of all metrics to DUMP_DIR as CSV and JSON file (metrics-time.csv, metrics-time.json)
+     * @return path of written files without extension or null if writing failed
+     */
+    public static String dump() {
+        String path = DUMP_DIR + "metrics-" + System.currentTimeMillis();
+
+        try {
+            Array<RollingHistogram> all = getAll();
+            RollingHistogram.Snapshot snapshot = new RollingHistogram.Snapshot();
+
+            StringBuilder csv = new StringBuilder();
+            StringBuilder json = new StringBuilder();
+
+            csv.append("name,unit,count,total_count,min,max,mean,p50,p95,p99\n");
+            json.append("{\n  \"timestamp\": ").append(System.currentTimeMillis()).append(",\n  \"metrics\": [\n");
+
+            for(int i = 0; i < all.size; i++) {
+                RollingHistogram histogram = all.get(i);
+                histogram.snapshot(snapshot);
+
+                csv.append(histogram.getName()).append(',').append(histogram.getUnit()).append(',').append(snapshot.count).append(',').append(snapshot.total_count).append(',')
+                        .append(snapshot.min).append(',').append(snapshot.max).append(',').append(String.format(Locale.US, "%.2f", snapshot.mean)).append(',')
+                        .append(snapshot.p50).append(',').append(snapshot.p95).append(',').append(snapshot.p99).append('\n');
+
+                json.append("    {\"name\": \"").append(histogram.getName()).append("\", \"unit\": \"").append(histogram.getUnit())
+                        .append("\", \"count\": ").append(snapshot.count).append(", \"total_count\": ").append(snapshot.total_count)
+                        .append(", \"min\": ").append(snapshot.min).append(", \"max\": ").append(snapshot.max)
+                        .append(", \"mean\": ").append(String.format(Locale.US, "%.2f", snapshot.mean))
+                        .append(", \"p50\": ").append(snapshot.p50).append(", \"p95\": ").append(snapshot.p95).append(", \"p99\": ").append(snapshot.p99)
+                        .append((i < all.size - 1) ? "},\n" : "}\n");
+            }
+
+            json.append("  ]\n}\n");
+
+            FileHandle csv_handle = Gdx.files.local(path + ".csv");
+            csv_handle.writeString(csv.toString(), false);
+
+            FileHandle json_handle = Gdx.files.local(path + ".json");
+            json_handle.writeString(json.toString(), false);
+        } catch(Exception e) {
+            Log.error("(Metrics) Failed to dump metrics to " + path, e);
+            return null;
+        }
+
+        Log.info("(Metrics) Metrics dumped to " + path + ".csv/.json");
+        return path;
+    }
+}
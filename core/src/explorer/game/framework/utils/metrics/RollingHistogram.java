@@ -0,0 +1,124 @@
+package explorer.game.framework.utils.metrics;
+
+import java.util.Arrays;
+
+/**
+ * Keeps last WINDOW_SIZE samples of one metric (ring buffer) and calculates statistics of them, so old spikes disappear from statistics after some time
+ * Thread safe, recording sample doesn't allocate
+ */
+
+public class RollingHistogram {
+
+    /**
+     * Amount of samples kept (10 seconds of frames at 60 FPS)
+     */
+    public static final int WINDOW_SIZE = 600;
+
+    /**
+     * Statistics of samples in window at time of snapshot() call
+     */
+    public static class Snapshot {
+        public int count;
+        public long total_count;
+
+        public long min;
+        public long max;
+        public double mean;
+
+        public long p50;
+        public long p95;
+        public long p99;
+    }
+
+    private final String name;
+    private final String unit;
+
+    private final long[] samples;
+    private int next;
+    private int size;
+    private long total_count;
+
+    /**
+     * @param name metric name
+     * @param unit unit of samples (used by overlay and dumps)
+     */
+    public RollingHistogram(String name, String unit) {
+        this.name = name;
+        this.unit = unit;
+
+        samples = new long[WINDOW_SIZE];
+    }
+
+    /**
+     * Add new sample, oldest sample is removed when window is full
+     * @param value sample value
+     */
+    public synchronized void record(long value) {
+        samples[next] = value;
+        next = (next + 1) % samples.length;
+
+        if(size < samples.length)
+            size++;
+
+        total_count++;
+    }
+
+    /**
+     * Calculate statistics of samples in window
+     * @param out snapshot that will be filled
+     * @return out
+     */
+    public Snapshot snapshot(Snapshot out) {
+        long[] sorted;
+
+        synchronized (this) {
+            sorted = Arrays.copyOf(samples, size);
+            out.total_count = total_count;
+        }
+
+        Arrays.sort(sorted);
+        out.count = sorted.length;
+
+        if(sorted.length == 0) {
+            out.min = out.max = out.p50 = out.p95 = out.p99 = 0;
+            out.mean = 0;
+            return out;
+        }
+
+        long sum = 0;
+        for(int i = 0; i < sorted.length; i++)
+            sum += sorted[i];
+
+        out.min = sorted[0];
+        out.max = sorted[sorted.length - 1];
+        out.mean = (double) sum / sorted.length;
+
+        out.p50 = percentile(sorted, .5f);
+        out.p95 = percentile(sorted, .95f);
+        out.p99 = percentile(sorted, .99f);
+
+        return out;
+    }
+
+    /**
+     * Remove all samples
+     */
+    public synchronized void clear() {
+        next = 0;
+        size = 0;
+        total_count = 0;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getUnit() {
+        return unit;
+    }
+
+    private static long percentile(long[] sorted, float percentile) {
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+}
@@ -5,8 +5,11 @@ import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.TimeUtils;
 
 import explorer.game.framework.Game;
+import explorer.game.framework.utils.metrics.Metrics;
+import explorer.game.framework.utils.metrics.RollingHistogram;
 import explorer.game.screen.Screen;
 import explorer.game.screen.gui.GUIComponent;
 import explorer.game.screen.gui.TextureButton;
@@ -40,6 +43,22 @@ public class PlanetGUIScreen extends Screen {
 
     private PlanetScreen planet_screen;
 
+    /**
+     * Time between refreshes of metrics overlay lines in milliseconds, snapshotting all histograms every frame costs more than it shows
+     */
+    private static final long METRICS_REFRESH_INTERVAL = 250;
+
+    /**
+     * Temp snapshot used by metrics overlay
+     */
+    private RollingHistogram.Snapshot metrics_snapshot;
+
+    /**
+     * Metrics overlay lines (one per histogram) from last refresh and time of that refresh
+     */
+    private Array<String> metrics_lines;
+    private long metrics_refresh_time;
+
     /**
      * Construct new screen instance
      *
@@ -52,6 +71,9 @@ public class PlanetGUIScreen extends Screen {
 
         debug_font = game.getAssetsManager().getFont("fonts/pixel_font.ttf", 15);
 
+        metrics_snapshot = new RollingHistogram.Snapshot();
+        metrics_lines = new Array<String>();
+
         NAME = Screens.PLANET_GUI_SCREEN_NAME;
 
         block_pointer = new PlayerBlockSelectorGUIComponent(game.getGUIViewport(), planet_screen, game);
@@ -231,6 +253,9 @@ public class PlanetGUIScreen extends Screen {
         batch.setProjectionMatrix(game.getGUICamera().combined);
         renderComponents(batch);
 
+        if(Metrics.isOverlayVisible())
+            renderMetrics(batch);
+
         /*if (Game.IS_HOST || Game.IS_CLIENT) {
             renderPlayers((Game.IS_HOST) ? game.getGameServer().getPlayers() : game.getGameClient().getPlayers(), batch);
         }
@@ -246,6 +271,7 @@ public class PlanetGUIScreen extends Screen {
         AssetsManager.font.draw(batch, "Drawn lights:" + world.getLightEngine().getDrawnLightsCount(), -620, 330);
         AssetsManager.font.draw(batch, "Total ground lights:" + world.getLightEngine().getGroundLineRenderer().getPositions().size, -620, 310);
         AssetsManager.font.draw(batch, "Current tasks: " + game.getThreadPool().getActuallyTasksRunningCount(), -620, 290);
+        AssetsManager.font.draw(batch, "Chunk I/O queue: " + game.getChunkIOScheduler().getQueuedCount(), -450, 290);
 
         AssetsManager.font.draw(batch, "Chunk x: " + ((world.getPlayer().getPosition().x / World.CHUNK_WORLD_SIZE) % world.getPlanetProperties().PLANET_SIZE), -620, 270);
         AssetsManager.font.draw(batch, "Chunk x: " + ((world.getPlayer().getPosition().x / World.CHUNK_WORLD_SIZE)), -450, 270);
@@ -261,6 +287,35 @@ public class PlanetGUIScreen extends Screen {
         */
     }
 
+    /**
+     * Render metrics overlay (toggled by F3, see Player)
+     */
+    private void renderMetrics(SpriteBatch batch) {
+        if(TimeUtils.timeSinceMillis(metrics_refresh_time) >= METRICS_REFRESH_INTERVAL)
+            refreshMetricsLines();
+
+        debug_font.draw(batch, "Metric (last " + RollingHistogram.WINDOW_SIZE + " samples): mean / p95 / max", -620, 350);
+        for(int i = 0; i < metrics_lines.size; i++)
+            debug_font.draw(batch, metrics_lines.get(i), -620, 330 - (i * 20));
+    }
+
+    /**
+     * Snapshot all histograms and build metrics overlay lines from them
+     */
+    private void refreshMetricsLines() {
+        Array<RollingHistogram> histograms = Metrics.getAll();
+
+        metrics_lines.clear();
+        for(int i = 0; i < histograms.size; i++) {
+            RollingHistogram histogram = histograms.get(i);
+            histogram.snapshot(metrics_snapshot);
+
+            metrics_lines.add(histogram.getName() + ": " + (long) metrics_snapshot.mean + " / " + metrics_snapshot.p95 + " / " + metrics_snapshot.max + " " + histogram.getUnit());
+        }
+
+        metrics_refresh_time = TimeUtils.millis();
+    }
+
     private void renderPlayers(Array<ServerPlayer> players, SpriteBatch batch) {
         debug_font.draw(batch, "Players list:", 180, 350);
         for (int i = 0; i < players.size; i++) {
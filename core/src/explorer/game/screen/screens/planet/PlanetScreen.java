@@ -8,6 +8,7 @@ import com.esotericsoftware.minlog.Log;
 
 import explorer.game.framework.AssetsManager;
 import explorer.game.framework.Game;
+import explorer.game.framework.utils.metrics.Metrics;
 import explorer.game.screen.Screen;
 import explorer.game.screen.screens.Screens;
 import explorer.game.screen.screens.universe.UniverseScreen;
@@ -87,8 +88,11 @@ public class PlanetScreen extends Screen {
         //if(world.isGenerating())
         //    setVisible(false);
 
-        if(world != null)
+        if(world != null) {
+            long tick_start = Metrics.startTimer();
             world.tick(delta);
+            Metrics.recordTime(Metrics.WORLD_TICK, tick_start);
+        }
     }
 
     @Override
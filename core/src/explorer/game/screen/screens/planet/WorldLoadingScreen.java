@@ -45,6 +45,9 @@ public class WorldLoadingScreen extends Screen {
         //calc progress
         explorer.game.screen.screens.planet.PlanetScreen game_screen = game.getScreen(Screens.PLANET_SCREEN_NAME, explorer.game.screen.screens.planet.PlanetScreen.class);
 
+        //world is not ticking while this screen is visible so chunks that finished loading have to be swapped in here
+        game_screen.getWorld().publishLoadedChunks();
+
         int not_dirty_count = 0;
         for(int i = 0; i < game_screen.getWorld().getWorldChunks().length; i++) {
             for(int j = 0; j < game_screen.getWorld().getWorldChunks()[0].length; j++) {
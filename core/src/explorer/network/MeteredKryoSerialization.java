@@ -0,0 +1,32 @@
+package explorer.network;
+
+import com.esotericsoftware.kryonet.Connection;
+import com.esotericsoftware.kryonet.KryoSerialization;
+
+import java.nio.ByteBuffer;
+
+import explorer.game.framework.utils.metrics.Metrics;
+
+/**
+ * Kryo serialization which counts bytes of sent and received objects (see Metrics.NETWORK_BYTES_IN/OUT)
+ */
+
+public class MeteredKryoSerialization extends KryoSerialization {
+
+    @Override
+    public synchronized void write(Connection connection, ByteBuffer buffer, Object object) {
+        int start = buffer.position();
+        super.write(connection, buffer, object);
+
+        Metrics.addNetworkBytesOut(buffer.position() - start + getLengthLength());
+    }
+
+    @Override
+    public synchronized Object read(Connection connection, ByteBuffer buffer) {
+        int start = buffer.position();
+        Object object = super.read(connection, buffer);
+
+        Metrics.addNetworkBytesIn(buffer.position() - start + getLengthLength());
+        return object;
+    }
+}
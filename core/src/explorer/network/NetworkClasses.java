@@ -10,6 +10,7 @@ import java.util.HashMap;
 
 import explorer.game.framework.Game;
 import explorer.world.ChunkDataProvider;
+import explorer.world.World;
 import explorer.world.object.WorldObject;
 import explorer.world.object.objects.player.Player;
 
@@ -134,6 +135,7 @@ public class NetworkClasses {
         public float x, y;
         public int direction;
         public float center_chunk_x, center_chunk_y;
+        public int chunks_radius = World.DEFAULT_CHUNKS_RADIUS;
         public float on_current_chunk_time;
     }
 
@@ -167,6 +169,59 @@ public class NetworkClasses {
         public int new_block_id;
     }
 
+    /**
+     * Many changed blocks in one packet (see BlockEditBatch), i-th change is described by i-th element of every array
+     */
+    public static class BlocksChangedPacket {
+        public int[] chunks_x;
+        public int[] chunks_y;
+
+        /**
+         * Local block position and layer packed by pack()
+         */
+        public short[] blocks;
+        public int[] new_block_ids;
+
+        /**
+         * Pack local block position and layer into short (x * CHUNK_SIZE + y, highest bit = background)
+         */
+        public static short pack(int x, int y, boolean background) {
+            return (short) ((x * World.CHUNK_SIZE + y) | ((background) ? 0x8000 : 0));
+        }
+
+        public static int unpackX(short packed) {
+            return (packed & 0x7FFF) / World.CHUNK_SIZE;
+        }
+
+        public static int unpackY(short packed) {
+            return (packed & 0x7FFF) % World.CHUNK_SIZE;
+        }
+
+        public static boolean unpackBackground(short packed) {
+            return (packed & 0x8000) != 0;
+        }
+
+        /**
+         * @return true if every array is present, all arrays have same length and every block position is inside of chunk
+         */
+        public boolean isValid() {
+            if(chunks_x == null || chunks_y == null || blocks == null || new_block_ids == null)
+                return false;
+
+            int count = new_block_ids.length;
+            if(chunks_x.length != count || chunks_y.length != count || blocks.length != count)
+                return false;
+
+            //y is always in chunk because of modulo, x is not
+            for(int i = 0; i < count; i++) {
+                if(unpackX(blocks[i]) >= World.CHUNK_SIZE)
+                    return false;
+            }
+
+            return true;
+        }
+    }
+
     public static class ChunkDataPacket {
         public byte[] file_bytes;
         public int request_id;
@@ -200,6 +255,9 @@ public class NetworkClasses {
         kryo.register(byte[].class);
 
         kryo.register(BlockChangedPacket.class);
+        kryo.register(BlocksChangedPacket.class);
+        kryo.register(int[].class);
+        kryo.register(short[].class);
 
         kryo.register(ObjectBoundPacket.class);
         kryo.register(ObjectRemovedPacket.class);
@@ -14,6 +14,7 @@ import explorer.game.framework.Game;
 import explorer.game.screen.gui.dialog.YesNoDialog;
 import explorer.game.screen.screens.Screens;
 import explorer.game.screen.screens.planet.PlanetScreen;
+import explorer.network.MeteredKryoSerialization;
 import explorer.network.server.GameServer;
 import explorer.network.NetworkClasses;
 import explorer.world.object.WorldObject;
@@ -62,7 +63,7 @@ public class GameClient {
         this.game = game;
 
         //write buffer, read buffer sizes
-        client = new Client(65536, 65536);
+        client = new Client(65536, 65536, new MeteredKryoSerialization());
 
         //register all classes that are send over network
         NetworkClasses.register(client.getKryo(), game);
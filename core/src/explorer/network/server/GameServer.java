@@ -10,6 +10,7 @@ import java.io.IOException;
 
 import explorer.game.framework.Game;
 import explorer.game.screen.screens.planet.PlanetScreen;
+import explorer.network.MeteredKryoSerialization;
 import explorer.network.NetworkClasses;
 import explorer.network.client.ServerPlayer;
 
@@ -56,7 +57,7 @@ public class GameServer {
     private VotingHandler voting_handler;
 
     public void start(GameServerCreatedCallback callback, final PlanetScreen planet_screen, final Game game) {
-        server = new Server(65536 * 5, 65536 * 5);
+        server = new Server(65536 * 5, 65536 * 5, new MeteredKryoSerialization());
         new Thread(server).start();
 
         voting_handler = new VotingHandler(game);
@@ -1,21 +1,26 @@
 package explorer.network.world;
 
-import com.badlogic.gdx.Gdx;
-import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.IntIntMap;
+import com.badlogic.gdx.utils.IntMap;
 import com.esotericsoftware.minlog.Log;
 
+import java.io.IOException;
+import java.util.ArrayDeque;
+
 import explorer.game.framework.Game;
 import explorer.network.NetworkClasses;
 import explorer.network.server.GameServer;
-import explorer.world.FileChunkDataProvider;
+import explorer.world.ChunkIOScheduler;
+import explorer.world.ChunkSaveQueue;
+import explorer.world.RegionChunkDataProvider;
 import explorer.world.World;
 import explorer.world.chunk.WorldChunk;
 import explorer.world.object.objects.player.Player;
 
 /**
  * Class used in World class responsible for sending response to clients for their ChunkDataRequestPacket requests
- * So this class reads chunk files from disk or send this task to other clients which have to send data to request sender
+ * So this class reads chunks from region files or send this task to other clients which have to send data to request sender
  * Created by RYZEN on 27.12.2017.
  */
 
@@ -36,6 +41,27 @@ public class ChunkDataRequestsHandler {
      */
     private static final float MUST_BE_ON_CHUNK_TO_REQUEST_DATA = 2000f;
 
+    /**
+     * Max amount of requests of one connection that can wait in REMOTE lane of chunk I/O scheduler (or run) at once,
+     * other requests of that connection wait in handler so one client can't fill whole lane
+     */
+    public static final int MAX_QUEUED_REQUESTS_PER_CONNECTION = 16;
+
+    /**
+     * Max amount of requests of one connection waiting in handler, requests above this are dropped (no legit client needs that many chunks at once)
+     */
+    public static final int MAX_WAITING_REQUESTS_PER_CONNECTION = 256;
+
+    /**
+     * Amount of requests of every connection that were submitted to chunk I/O scheduler and didn't finish yet, guarded by this
+     */
+    private final IntIntMap queued_requests = new IntIntMap();
+
+    /**
+     * Requests that couldn't be submitted yet (connection quota, full REMOTE lane or world is generating) by connection id, guarded by this
+     */
+    private final IntMap<ArrayDeque<NetworkClasses.ChunkDataRequestPacket>> waiting_requests = new IntMap<ArrayDeque<NetworkClasses.ChunkDataRequestPacket>>();
+
     /**
      * Construct new Chunk data request handler
      * @param world world instance
@@ -47,23 +73,126 @@ public class ChunkDataRequestsHandler {
     }
 
     /**
-     * Handle client request for chunk data
+     * Handle client request for chunk data, never blocks (called from network thread)
      * @param request request packet
      */
     public void handleRequest(final NetworkClasses.ChunkDataRequestPacket request) {
+        synchronized (this) {
+            ArrayDeque<NetworkClasses.ChunkDataRequestPacket> waiting = waiting_requests.get(request.connection_id);
+
+            //keep order of requests of one connection
+            if(waiting == null || waiting.isEmpty()) {
+                if(submitRequest(request))
+                    return;
+            }
+
+            if(waiting == null) {
+                waiting = new ArrayDeque<NetworkClasses.ChunkDataRequestPacket>();
+                waiting_requests.put(request.connection_id, waiting);
+            }
+
+            if(waiting.size() >= MAX_WAITING_REQUESTS_PER_CONNECTION) {
+                Log.error("(ChunkDataRequestsHandler) Too many chunk requests from connection " + request.connection_id + ", request is dropped");
+                return;
+            }
+
+            waiting.addLast(request);
+        }
+    }
+
+    /**
+     * Forget requests of connection that was closed
+     * @param connection_id connection id
+     */
+    public synchronized void connectionClosed(int connection_id) {
+        waiting_requests.remove(connection_id);
+    }
+
+    /**
+     * Submit requests that wait because world was generating, called after generation finished
+     */
+    public synchronized void generationFinished() {
+        submitWaitingRequests();
+    }
+
+    /**
+     * Submit request to REMOTE lane of chunk I/O scheduler if world isn't generating, connection didn't use its quota and lane isn't full,
+     * has to be called with this lock held
+     * @param request request packet
+     * @return true if request was submitted
+     */
+    private boolean submitRequest(NetworkClasses.ChunkDataRequestPacket request) {
+        //chunks of generated world aren't there yet, request waits for generationFinished()
+        if(world.isGenerating())
+            return false;
+
+        int queued = queued_requests.get(request.connection_id, 0);
+        if(queued >= MAX_QUEUED_REQUESTS_PER_CONNECTION)
+            return false;
+
+        if(game.getChunkIOScheduler().submit(createRequestTask(request), ChunkIOScheduler.Priority.REMOTE) == null)
+            return false;
+
+        queued_requests.put(request.connection_id, queued + 1);
+        return true;
+    }
+
+    /**
+     * Called after request task finished, submits waiting requests (of every connection, lane slot could be freed for anyone)
+     */
+    private synchronized void requestFinished(int connection_id) {
+        int queued = queued_requests.get(connection_id, 0) - 1;
+        if(queued > 0)
+            queued_requests.put(connection_id, queued);
+        else
+            queued_requests.remove(connection_id, 0);
+
+        submitWaitingRequests();
+    }
+
+    /**
+     * Return request which was submitted before world started generating back to waiting requests, it is submitted again after generation
+     * @param request request packet
+     */
+    private synchronized void requeueRequest(NetworkClasses.ChunkDataRequestPacket request) {
+        ArrayDeque<NetworkClasses.ChunkDataRequestPacket> waiting = waiting_requests.get(request.connection_id);
+        if(waiting == null) {
+            waiting = new ArrayDeque<NetworkClasses.ChunkDataRequestPacket>();
+            waiting_requests.put(request.connection_id, waiting);
+        }
+
+        //it came before requests that are waiting now
+        waiting.addFirst(request);
+    }
+
+    /**
+     * Submit waiting requests of every connection while they can be submitted, has to be called with this lock held
+     */
+    private void submitWaitingRequests() {
+        for(IntMap.Entry<ArrayDeque<NetworkClasses.ChunkDataRequestPacket>> entry : waiting_requests.entries()) {
+            ArrayDeque<NetworkClasses.ChunkDataRequestPacket> waiting = entry.value;
+
+            while(!waiting.isEmpty() && submitRequest(waiting.peekFirst()))
+                waiting.pollFirst();
+        }
+    }
+
+    /**
+     * Create task which finds chunk data for request and sends it to requester
+     * @param request request packet
+     * @return task for chunk I/O worker
+     */
+    private Runnable createRequestTask(final NetworkClasses.ChunkDataRequestPacket request) {
         //just load file as bytes and send it over network
         //client have to parse it so this is faster method for host
         Runnable r = new Runnable() {
             @Override
             public void run() {
                 try {
-                    //if world is not generated yet wait until it will be generated
-                    while (world.isGenerating()) {
-                        try {
-                            Thread.sleep(100);
-                        } catch (InterruptedException e) {
-                            //just ignore
-                        }
+                    //world started generating after request was submitted, don't hold REMOTE worker until it finishes
+                    if(world.isGenerating()) {
+                        requeueRequest(request);
+                        return;
                     }
 
                     //calc chunk x & y
@@ -90,7 +219,7 @@ public class ChunkDataRequestsHandler {
                             int player_x = (int) clone.getCurrentCenterChunkPosition().x / World.CHUNK_WORLD_SIZE;
                             int player_y = (int) clone.getCurrentCenterChunkPosition().y / World.CHUNK_WORLD_SIZE;
 
-                            if (canSendData(x, y, player_x, player_y) && clone.getRepresentingPlayer().connection_id != request.connection_id
+                            if (canSendData(x, y, player_x, player_y, clone.getCurrentChunksRadius()) && clone.getRepresentingPlayer().connection_id != request.connection_id
                                     && clone.getRepresentingPlayer().connection_id != request.rejected_id && clone.getOnCurrentChunkTime() > MUST_BE_ON_CHUNK_TO_REQUEST_DATA) {
 
                                 game.getGameServer().getServer().sendToTCP(clone.getRepresentingPlayer().connection_id, request);
@@ -102,21 +231,19 @@ public class ChunkDataRequestsHandler {
 
                     //check if host player can give data if byte data is still null
                     if(chunk_data == null && request.connection_id != GameServer.SERVER_CONNECTION_ID && request.rejected_id != GameServer.SERVER_CONNECTION_ID && world.getPlayer().getOnCurrentChunkTime() > MUST_BE_ON_CHUNK_TO_REQUEST_DATA) {
-                        int host_player_x = (int) world.getWorldChunks()[1][1].getPosition().x / World.CHUNK_WORLD_SIZE;
-                        int host_player_y = (int) world.getWorldChunks()[1][1].getPosition().y / World.CHUNK_WORLD_SIZE;
+                        int host_player_x = (int) world.getCenterChunk().getPosition().x / World.CHUNK_WORLD_SIZE;
+                        int host_player_y = (int) world.getCenterChunk().getPosition().y / World.CHUNK_WORLD_SIZE;
 
                         loop:
-                        if (canSendData(x, y, host_player_x, host_player_y)) {
+                        if (canSendData(x, y, host_player_x, host_player_y, world.getChunksRadius())) {
                             for (int i = 0; i < world.getWorldChunks().length; i++) {
                                 for (int j = 0; j < world.getWorldChunks()[0].length; j++) {
                                     WorldChunk chunk = world.getWorldChunks()[i][j];
                                     int chx = (int) chunk.getPosition().x / World.CHUNK_WORLD_SIZE;
                                     int chy = (int) chunk.getPosition().y / World.CHUNK_WORLD_SIZE;
 
-                                    if (x == chx && y == chy) {
-                                        //wait until chunk will be fully loaded
-                                        while (chunk.isDirty());
-
+                                    //chunk that is still loading is probably waiting for same chunk I/O workers, so don't wait for it and read file instead
+                                    if (x == chx && y == chy && !chunk.isDirty()) {
                                         //parse this chunk data to byte array
                                         chunk_data = world.getClientChunkDataRequestHandler().getChunkBytes(chunk);
                                         break loop;
@@ -126,9 +253,9 @@ public class ChunkDataRequestsHandler {
                         }
                     }
 
-                    //if chunk data is still null just load it from file
+                    //if chunk data is still null just load it from region file
                     if(chunk_data == null)
-                        chunk_data = getChunkBytesFromFile(x, y);
+                        chunk_data = getChunkBytesFromStorage(x, y);
 
                     //fill packet with data
                     NetworkClasses.ChunkDataPacket data_packet = new NetworkClasses.ChunkDataPacket();
@@ -143,31 +270,49 @@ public class ChunkDataRequestsHandler {
                     }
                 } catch(Exception e) {
                     Log.error("(Chunk Data Requests Handler) loading chunk file for client failed! ("+e.getClass().getSimpleName()+ "):", e);
+                } finally {
+                    requestFinished(request.connection_id);
                 }
             }
         };
 
-        //run task on main engine thread pool
-        game.getThreadPool().runTask(r);
+        return r;
     }
 
     /**
-     * Method that reads chunk file into byte array
+     * Method that reads chunk from region files of planet (chunks saved by players are checked first in save requests handler, see handleRequest())
      * @param chunk_x chunk x ( 1 = World.CHUNK_WORLD_SIZE)
      * @param chunk_y chunk y
-     * @return byte array containing whole chunk file
+     * @return chunk bytes or null if chunk doesn't exist (and can't be generated)
+     * @throws IOException when chunk can't be read
      */
-    private byte[] getChunkBytesFromFile(int chunk_x, int chunk_y) {
-        String world_dir = World.getWorldDirectory(world.getPlanetProperties().PLANET_SEED);
-        final String path = FileChunkDataProvider.getPathToChunkFile(world_dir, new Vector2(chunk_x * World.CHUNK_WORLD_SIZE, chunk_y * World.CHUNK_WORLD_SIZE));
-        FileHandle handle = Gdx.files.local(path);
+    private byte[] getChunkBytesFromStorage(int chunk_x, int chunk_y) throws IOException {
+        RegionChunkDataProvider storage = world.getChunkStorage();
+
+        //chunk could be generated by storage itself and not written to region yet
+        byte[] chunk_bytes = storage.getSaveQueue().getPending(chunk_x, chunk_y);
+        if(chunk_bytes == null)
+            chunk_bytes = storage.readChunkBytes(chunk_x, chunk_y);
 
-        //well if chunk file don't exists yet just return null
-        if(!handle.exists()) {
-            return null;
+        if(chunk_bytes != null)
+            return chunk_bytes;
+
+        //chunk is requested for the first time so generate it now (chunks above or below planet are just air)
+        if(world.getChunksDataProvider().isGeneratingMissingChunks() && chunk_y >= 0 && chunk_y < world.getPlanetProperties().PLANET_TYPE.PLANET_GENERATOR.getMaxHeight()) {
+            chunk_bytes = world.getPlanetProperties().PLANET_TYPE.PLANET_GENERATOR.generateChunkBytes(new Vector2(chunk_x * World.CHUNK_WORLD_SIZE, chunk_y * World.CHUNK_WORLD_SIZE));
+
+            //other request of same chunk could generate and save it meanwhile, every player has to get same objects
+            ChunkSaveQueue save_queue = world.getServerSaveChunkDataRequestsHandler().getSaveQueue();
+            synchronized (save_queue) {
+                byte[] saved_bytes = save_queue.getPending(chunk_x, chunk_y);
+                if(saved_bytes != null)
+                    return saved_bytes;
+
+                save_queue.put(chunk_x, chunk_y, chunk_bytes);
+            }
         }
 
-        return handle.readBytes();
+        return chunk_bytes;
     }
 
     /**
@@ -176,15 +321,16 @@ public class ChunkDataRequestsHandler {
      * @param chunk_y chunk y ( 1 = World.CHUNK_WORLD_SIZE)
      * @param player_x player x ( 1 = World.CHUNK_WORLD_SIZE)
      * @param player_y player y ( 1 = World.CHUNK_WORLD_SIZE)
+     * @param chunks_radius radius of player chunks window
      * @return
      */
-    private boolean canSendData(int chunk_x, int chunk_y, int player_x, int player_y) {
-        //so because we know that player have 3 x 3 chunks grid in memory we can calculate if he can give us data
-        int max_x = player_x + 1;
-        int min_x = player_x - 1;
+    private boolean canSendData(int chunk_x, int chunk_y, int player_x, int player_y, int chunks_radius) {
+        //so because we know that player have (radius * 2 + 1) x (radius * 2 + 1) chunks grid in memory we can calculate if he can give us data
+        int max_x = player_x + chunks_radius;
+        int min_x = player_x - chunks_radius;
 
-        int max_y = player_y + 1;
-        int min_y = player_y - 1;
+        int max_y = player_y + chunks_radius;
+        int min_y = player_y - chunks_radius;
 
         if(chunk_x >= min_x && chunk_x <= max_x) {
             if(chunk_y >= min_y && chunk_y <= max_y) {
@@ -1,25 +1,17 @@
 package explorer.network.world;
 
-import com.badlogic.gdx.Gdx;
-import com.badlogic.gdx.files.FileHandle;
-import com.badlogic.gdx.math.Vector2;
-import com.badlogic.gdx.utils.Array;
 import com.esotericsoftware.minlog.Log;
 
-import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ThreadFactory;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.io.IOException;
 
 import explorer.game.framework.Game;
 import explorer.network.NetworkClasses;
-import explorer.world.FileChunkDataProvider;
+import explorer.world.ChunkSaveQueue;
 import explorer.world.World;
 
 /**
- * Class that saves received chunk data in byte array to disk, use different thread to not block everything
+ * Class that saves received chunk data in byte array to region files of planet (same ones single player uses, see World.getChunkStorage()),
+ * saves go through ChunkSaveQueue so they are written in background and many saves of same chunk (players walking around chunk border) end up as one disk write
  * Created by RYZEN on 31.01.2018.
  */
 
@@ -32,76 +24,45 @@ public class ChunkDataSaveRequestsHandler {
     private World world;
 
     /**
-     * Array that contains all pending save requests
+     * Queue that contains all pending save requests and writes them to disk
      */
-    private Array<NetworkClasses.ChunkDataSaveRequestPacket> save_requests;
-
-    /**
-     * Worker service to save all data to disk in background
-     */
-    private ExecutorService worker_pool;
+    private ChunkSaveQueue save_queue;
 
     public ChunkDataSaveRequestsHandler(World world, Game game) {
         this.world = world;
         this.game = game;
 
-        save_requests = new Array<NetworkClasses.ChunkDataSaveRequestPacket>();
-
-        createWorkerPool();
-    }
-
-    private void createWorkerPool() {
-        final ThreadFactory thread_factory = new ThreadFactory() {
-
-            AtomicInteger index = new AtomicInteger();
-
+        ChunkSaveQueue.ChunkWriter writer = new ChunkSaveQueue.ChunkWriter() {
             @Override
-            public Thread newThread(Runnable runnable) {
-                Thread out = new Thread(runnable);
-                out.setDaemon(true);
-                out.setName("Server-ChunkDataSaveRequestsHandler-" + index.getAndIncrement());
-
-                return out;
+            public void write(int chunk_x, int chunk_y, byte[] chunk_bytes) throws IOException {
+                saveToDisk(chunk_x, chunk_y, chunk_bytes);
             }
         };
-
-        worker_pool = Executors.newSingleThreadExecutor(thread_factory);
+        save_queue = new ChunkSaveQueue("Server", writer, game.getChunkIOScheduler());
     }
 
     /**
-     * Method that saved received bytes into disk to store data
-     * @param packet packet with new data
+     * Method that saves received bytes into region file of chunk (with checksum)
+     * @param chunk_x chunk x
+     * @param chunk_y chunk y
+     * @param chunk_data chunk bytes
+     * @throws IOException when region can't be written (save stays in queue for next flush)
      */
-    private void saveToDisk(NetworkClasses.ChunkDataSaveRequestPacket packet) {
-        int x = (int) packet.position.x / World.CHUNK_WORLD_SIZE;
-        int y = (int) packet.position.y / World.CHUNK_WORLD_SIZE;
-
-        String world_dir = World.getWorldDirectory(world.getPlanetProperties().PLANET_SEED);
-        final String path = FileChunkDataProvider.getPathToChunkFile(world_dir, new Vector2(x * World.CHUNK_WORLD_SIZE, y * World.CHUNK_WORLD_SIZE));
-        FileHandle handle = Gdx.files.local(path);
-
-        handle.writeBytes(packet.chunk_data, false);
+    private void saveToDisk(int chunk_x, int chunk_y, byte[] chunk_data) throws IOException {
+        world.getChunkStorage().writeChunkBytes(chunk_x, chunk_y, chunk_data);
     }
 
     /**
      * Method responsible for handling ChunkDataSaveRequestPacket packet when server receives it
      * @param packet new packet instance
      */
-    public synchronized void handleRequest(final NetworkClasses.ChunkDataSaveRequestPacket packet) {
-        synchronized (save_requests) {
-            Log.debug("(ChunkDataSaveRequestsHandler) New save request! From con_id: " + packet.connection_id);
-            save_requests.add(packet);
-
-            Runnable r = new Runnable() {
-                @Override
-                public void run() {
-                    saveToDisk(packet);
-                    save_requests.removeValue(packet, true);
-                    Log.debug("(ChunkDataSaveRequestsHandler) Save request done! From con_id: " + packet.connection_id);
-                }
-            };
-            worker_pool.submit(r);
-        }
+    public void handleRequest(final NetworkClasses.ChunkDataSaveRequestPacket packet) {
+        Log.debug("(ChunkDataSaveRequestsHandler) New save request! From con_id: " + packet.connection_id);
+
+        int x = (int) packet.position.x / World.CHUNK_WORLD_SIZE;
+        int y = (int) packet.position.y / World.CHUNK_WORLD_SIZE;
+
+        save_queue.put(x, y, packet.chunk_data);
     }
 
     /**
@@ -109,37 +70,25 @@ public class ChunkDataSaveRequestsHandler {
      * @param chunk_x local chunk x
      * @param chunk_y local chunk y
      * @return chunk data in byte array, could be null!
+     * @throws IOException
      */
-    public synchronized byte[] getPendingData(int chunk_x, int chunk_y) {
-        synchronized (save_requests) {
-            for(int i = 0; i < save_requests.size; i++) {
-                NetworkClasses.ChunkDataSaveRequestPacket packet = save_requests.get(i);
-
-                if(packet == null)
-                    continue;
-
-                int x = (int) packet.position.x / World.CHUNK_WORLD_SIZE;
-                int y = (int) packet.position.y / World.CHUNK_WORLD_SIZE;
+    public byte[] getPendingData(int chunk_x, int chunk_y) throws IOException {
+        return save_queue.getPending(chunk_x, chunk_y);
+    }
 
-                if(x == chunk_x && y == chunk_y)
-                    return packet.chunk_data;
-            }
-        }
-        return null;
+    /**
+     * @return queue used to store pending saves
+     */
+    public ChunkSaveQueue getSaveQueue() {
+        return save_queue;
     }
 
     /**
-     * Dispose (= save all pending save requests and shutdown thread pool)
+     * Dispose (= save all pending save requests and stop background flushing)
      */
     public void dispose() {
-        Log.info("(ChunkDataSaveRequestsHandler) Stopping ChunkDataSaveRequestsHandler worker");
-        List<Runnable> pending_tasks = worker_pool.shutdownNow();
-        if(pending_tasks.size() > 0) {
-            Log.info("(ChunkDataSaveRequestsHandler) Saving pending chunks (size: " + pending_tasks.size() + ")");
-
-            for(Runnable r : pending_tasks)
-                r.run();
-        }
+        Log.info("(ChunkDataSaveRequestsHandler) Saving pending chunks (size: " + save_queue.getPendingCount() + ")");
+        save_queue.dispose();
         Log.info("(ChunkDataSaveRequestsHandler) Stopped!");
     }
 }
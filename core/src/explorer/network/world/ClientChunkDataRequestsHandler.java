@@ -5,15 +5,13 @@ import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.utils.Array;
 import com.esotericsoftware.minlog.Log;
 
-import java.io.ByteArrayOutputStream;
-import java.io.DataOutputStream;
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.zip.DeflaterOutputStream;
 
 import explorer.game.framework.Game;
 import explorer.network.NetworkClasses;
+import explorer.world.ChunkDataSerializer;
 import explorer.world.World;
+import explorer.world.chunk.PalettedBlockLayer;
 import explorer.world.chunk.WorldChunk;
 import explorer.world.object.WorldObject;
 import explorer.world.object.objects.player.Player;
@@ -133,85 +131,17 @@ public class ClientChunkDataRequestsHandler {
      */
     public byte[] getChunkBytes(WorldChunk chunk) {
         //because I want to save in background we have to copy chunk data here
-        final int[][] foreground_blocks = new int[World.CHUNK_SIZE][World.CHUNK_SIZE];
-        final int[][] background_blocks = new int[World.CHUNK_SIZE][World.CHUNK_SIZE];
-
-        for(int i = 0; i < foreground_blocks.length; i++) {
-            for(int j = 0; j < foreground_blocks[0].length; j++) {
-                foreground_blocks[i][j] = chunk.getBlocks()[i][j].getForegroundBlock().getBlockID();
-                background_blocks[i][j] = chunk.getBlocks()[i][j].getBackgroundBlock().getBlockID();
-            }
-        }
+        final PalettedBlockLayer foreground_blocks = chunk.getBlocks().toPalettedLayer(false);
+        final PalettedBlockLayer background_blocks = chunk.getBlocks().toPalettedLayer(true);
 
         //copy chunk objects and chunk position
         final Array<WorldObject> objects = new Array<WorldObject>(chunk.getObjects());
         final Vector2 chunk_position = new Vector2(chunk.getPosition());
 
         try {
-            ByteArrayOutputStream byte_output = new ByteArrayOutputStream(512);
-            DeflaterOutputStream output = new DeflaterOutputStream(byte_output);
-            DataOutputStream data_output = new DataOutputStream(output);
-
-            //at first save chunk position at
+            //this chunk is sent straight from player memory so send every object no matter if it is saveable or not
             chunk_position.x %= world.getPlanetProperties().PLANET_SIZE * World.CHUNK_WORLD_SIZE;
-            data_output.writeInt((int) chunk_position.x / World.CHUNK_WORLD_SIZE);
-            data_output.writeInt((int) chunk_position.y / World.CHUNK_WORLD_SIZE);
-
-            //save blocks
-            for(int i = 0; i < foreground_blocks.length; i++) {
-                for(int j = 0; j < foreground_blocks[0].length; j++) {
-                    data_output.writeInt(foreground_blocks[i][j]);
-                    data_output.writeInt(background_blocks[i][j]);
-
-                    if (WorldChunk.YIELD) {
-                        Thread.yield();
-                    }
-                }
-            }
-
-            //objects part, when sending to other player we don't care about non saveable objects
-            int objects_count = objects.size;
-            data_output.writeInt(objects_count);
-
-            for(WorldObject object : objects) {
-                String class_name = object.getClass().getName();
-                data_output.writeUTF(class_name);
-
-                //save position
-                data_output.writeFloat(object.getPosition().x);
-                data_output.writeFloat(object.getPosition().y);
-
-                //save object id
-                data_output.writeInt(object.OBJECT_ID);
-
-                //check if we have to save properties
-                if(object.getObjectProperties() == null) {
-                    //save info that this object does not contain any properties
-                    data_output.writeBoolean(false);
-                } else {
-                    //save info that this object have some properties that were saved
-                    data_output.writeBoolean(true);
-
-                    //write info about amount of properties
-                    data_output.writeInt(object.getObjectProperties().size());
-
-                    HashMap<String, String> properties = object.getObjectProperties();
-                    for(String key : properties.keySet()) {
-                        String val = properties.get(key);
-
-                        //save key, val couple
-                        data_output.writeUTF(key);
-                        data_output.writeUTF(val);
-                    }
-                }
-
-                if(WorldChunk.YIELD) {
-                    Thread.yield();
-                }
-            }
-
-            output.close();
-            return byte_output.toByteArray();
+            return ChunkDataSerializer.toBytes(foreground_blocks, background_blocks, objects, (int) chunk_position.x / World.CHUNK_WORLD_SIZE, (int) chunk_position.y / World.CHUNK_WORLD_SIZE, false, world.getChunkCodec());
         } catch (IOException e) {
             e.printStackTrace();
         }
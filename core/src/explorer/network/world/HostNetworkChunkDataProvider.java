@@ -11,6 +11,7 @@ import explorer.game.framework.Game;
 import explorer.network.NetworkClasses;
 import explorer.network.server.GameServer;
 import explorer.world.World;
+import explorer.world.chunk.PalettedBlockLayer;
 import explorer.world.chunk.WorldChunk;
 import explorer.world.object.WorldObject;
 
@@ -112,15 +113,8 @@ public class HostNetworkChunkDataProvider extends NetworkChunkDataProvider {
         final Vector2 chunk_position = new Vector2(chunk_pos);
 
         //because I want to save in background we have to copy chunk data here
-        final int[][] foreground_blocks = new int[World.CHUNK_SIZE][World.CHUNK_SIZE];
-        final int[][] background_blocks = new int[World.CHUNK_SIZE][World.CHUNK_SIZE];
-
-        for(int i = 0; i < foreground_blocks.length; i++) {
-            for(int j = 0; j < foreground_blocks[0].length; j++) {
-                foreground_blocks[i][j] = chunk.getBlocks()[i][j].getForegroundBlock().getBlockID();
-                background_blocks[i][j] = chunk.getBlocks()[i][j].getBackgroundBlock().getBlockID();
-            }
-        }
+        final PalettedBlockLayer foreground_blocks = chunk.getBlocks().toPalettedLayer(false);
+        final PalettedBlockLayer background_blocks = chunk.getBlocks().toPalettedLayer(true);
 
         //copy chunk objects and chunk position
         final Array<WorldObject> objects = new Array<WorldObject>(chunk.getObjects());
@@ -6,28 +6,21 @@ import com.esotericsoftware.kryonet.Connection;
 import com.esotericsoftware.kryonet.Listener;
 import com.esotericsoftware.minlog.Log;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
 import java.io.EOFException;
 import java.io.IOException;
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
-import java.util.HashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.zip.DeflaterOutputStream;
-import java.util.zip.InflaterInputStream;
 
 import explorer.game.framework.Game;
 import explorer.network.NetworkClasses;
 import explorer.network.NetworkHelper;
 import explorer.world.ChunkDataProvider;
+import explorer.world.ChunkDataSerializer;
 import explorer.world.World;
+import explorer.world.chunk.PalettedBlockLayer;
 import explorer.world.chunk.WorldChunk;
 import explorer.world.object.WorldObject;
 
@@ -117,38 +110,6 @@ public class NetworkChunkDataProvider extends ChunkDataProvider {
         }
     }
 
-    /**
-     * Method to don't write same code every time when we want to create world object from class name & position
-     * @param class_name class name
-     * @param position position
-     * @param world world instance
-     * @param game game instance
-     * @return new world object instance
-     */
-    private WorldObject createInstanceFromClass(String class_name, Vector2 position, World world, Game game) {
-        try {
-            Class<?> clazz = Class.forName(class_name);
-
-            //so every saveable game object have to have constructor (Vector2, World, Game)!
-            Constructor<?> ctor = clazz.getConstructor(Vector2.class, World.class, Game.class);
-
-            Object object = ctor.newInstance(position, world, game);
-            return (WorldObject) object;
-        } catch (ClassNotFoundException e) {
-            e.printStackTrace();
-        } catch (NoSuchMethodException e) {
-            e.printStackTrace();
-        } catch (InstantiationException e) {
-            e.printStackTrace();
-        } catch (IllegalAccessException e) {
-            e.printStackTrace();
-        } catch (InvocationTargetException e) {
-            e.printStackTrace();
-        }
-
-        return null;
-    }
-
     /**
      * Empty constructor for HostNetworkChunkDataProvider
      */
@@ -208,94 +169,20 @@ public class NetworkChunkDataProvider extends ChunkDataProvider {
     }
 
     /**
-     * Basically this need to be same as in FileChunkDataProvider to make networking work!
+     * Parse chunk bytes received from server (same format as region records, see ChunkDataSerializer)
      */
     protected synchronized boolean parseData(ChunkData data, byte[] file_bytes, Vector2 chunk_position, World world, Game game) {
         try {
             //create new empty chunk if requested one don't exist yet
             if(file_bytes == null) {
                 data.chunk_loaded_position.set(chunk_position);
-                for(int i = 0; i < World.CHUNK_SIZE; i++) {
-                    for (int j = 0; j < World.CHUNK_SIZE; j++) {
-                        data.foreground_blocks[i][j] = world.getBlocks().AIR.getBlockID();
-                        data.background_blocks[i][j] = world.getBlocks().AIR.getBlockID();
-                    }
-                }
+                data.foreground_blocks.fill(world.getBlocks().AIR.getBlockID());
+                data.background_blocks.fill(world.getBlocks().AIR.getBlockID());
 
                 return true;
             }
 
-            InflaterInputStream input = new InflaterInputStream(new ByteArrayInputStream(file_bytes));
-            DataInputStream data_input = new DataInputStream(input);
-
-            int chunk_x = data_input.readInt() * World.CHUNK_WORLD_SIZE;
-            int chunk_y = data_input.readInt() * World.CHUNK_WORLD_SIZE;
-            data.chunk_loaded_position.set(chunk_x, chunk_y);
-
-            //load blocks
-            for (int i = 0; i < World.CHUNK_SIZE; i++) {
-                for (int j = 0; j < World.CHUNK_SIZE; j++) {
-                    int foreground_id = data_input.readInt();
-                    int background_id = data_input.readInt();
-
-                    data.foreground_blocks[i][j] = foreground_id;
-                    data.background_blocks[i][j] = background_id;
-
-                    if(WorldChunk.YIELD) {
-                        Thread.yield();
-                    }
-
-                    //check if loading is interrupted
-                    if(Thread.interrupted()) {
-                        throw new InterruptedException();
-                    }
-                }
-            }
-
-            //load objects
-            int objects_count = data_input.readInt();
-            for (int i = 0; i < objects_count; i++) {
-                String class_name = data_input.readUTF();
-
-                Vector2 position = new Vector2(data_input.readFloat(), data_input.readFloat());
-
-                int object_id = data_input.readInt();
-
-                WorldObject new_object = createInstanceFromClass(class_name, position, world, game);
-                if (new_object != null) {
-                    new_object.OBJECT_ID = object_id;
-
-                    boolean have_properties = data_input.readBoolean();
-
-                    if(have_properties) {
-                        HashMap<String, String> properties = new HashMap<String, String>();
-                        int properties_count = data_input.readInt();
-
-                        for(int j = 0; j < properties_count; j++) {
-                            String key = data_input.readUTF();
-                            String val = data_input.readUTF();
-                            properties.put(key, val);
-                        }
-
-                        //set object properties to new one
-                        new_object.setObjectProperties(properties);
-                    }
-
-                    //finally add out new object to chunk data
-                    data.objects.add(new_object);
-                }
-
-                if(WorldChunk.YIELD) {
-                    Thread.yield();
-                }
-
-                //check if loading is interrupted
-                if(Thread.interrupted()) {
-                    throw new InterruptedException();
-                }
-            }
-
-            input.close();
+            ChunkDataSerializer.fromBytes(file_bytes, data, world, game);
 
             return true;
         } catch(EOFException e) {
@@ -321,85 +208,17 @@ public class NetworkChunkDataProvider extends ChunkDataProvider {
 
     /**
      * Method that generates chunk data into byte[] array ready to send over network or save to file
-     * @param foreground_blocks foreground blocks array
-     * @param background_blocks background blocks array
+     * @param foreground_blocks foreground blocks layer
+     * @param background_blocks background blocks layer
      * @param objects objects array
      * @param chunk_position chunk position
      * @return byte array which contains chunk data
      */
-    protected byte[] getChunkData(int[][] foreground_blocks, int[][] background_blocks, Array<WorldObject> objects, Vector2 chunk_position, World world) {
+    protected byte[] getChunkData(PalettedBlockLayer foreground_blocks, PalettedBlockLayer background_blocks, Array<WorldObject> objects, Vector2 chunk_position, World world) {
         try {
-            ByteArrayOutputStream byte_output = new ByteArrayOutputStream(512);
-            DeflaterOutputStream output = new DeflaterOutputStream(byte_output);
-            DataOutputStream data_output = new DataOutputStream(output);
-
-            //at first save chunk position at
+            //when sending to other player we don't care about non saveable objects
             chunk_position.x %= world.getPlanetProperties().PLANET_SIZE * World.CHUNK_WORLD_SIZE;
-            data_output.writeInt((int) chunk_position.x / World.CHUNK_WORLD_SIZE);
-            data_output.writeInt((int) chunk_position.y / World.CHUNK_WORLD_SIZE);
-
-            //save blocks
-            for(int i = 0; i < foreground_blocks.length; i++) {
-                for(int j = 0; j < foreground_blocks[0].length; j++) {
-                    data_output.writeInt(foreground_blocks[i][j]);
-                    data_output.writeInt(background_blocks[i][j]);
-
-                    if (WorldChunk.YIELD) {
-                        Thread.yield();
-                    }
-                }
-            }
-
-            //objects part, when sending to other player we don't care about non saveable objects
-            int objects_count = 0;
-            for(int i = 0; i < objects.size; i++) {
-                if(objects.get(i).isSaveable())
-                    objects_count++;
-            }
-            data_output.writeInt(objects_count);
-
-            for(WorldObject object : objects) {
-                if(!object.isSaveable())
-                    continue;
-
-                String class_name = object.getClass().getName();
-                data_output.writeUTF(class_name);
-
-                //save position
-                data_output.writeFloat(object.getPosition().x);
-                data_output.writeFloat(object.getPosition().y);
-
-                //save object id
-                data_output.writeInt(object.OBJECT_ID);
-
-                //check if we have to save properties
-                if(object.getObjectProperties() == null) {
-                    //save info that this object does not contain any properties
-                    data_output.writeBoolean(false);
-                } else {
-                    //save info that this object have some properties that were saved
-                    data_output.writeBoolean(true);
-
-                    //write info about amount of properties
-                    data_output.writeInt(object.getObjectProperties().size());
-
-                    HashMap<String, String> properties = object.getObjectProperties();
-                    for(String key : properties.keySet()) {
-                        String val = properties.get(key);
-
-                        //save key, val couple
-                        data_output.writeUTF(key);
-                        data_output.writeUTF(val);
-                    }
-                }
-
-                if(WorldChunk.YIELD) {
-                    Thread.yield();
-                }
-            }
-
-            output.close();
-            return byte_output.toByteArray();
+            return ChunkDataSerializer.toBytes(foreground_blocks, background_blocks, objects, (int) chunk_position.x / World.CHUNK_WORLD_SIZE, (int) chunk_position.y / World.CHUNK_WORLD_SIZE, true, world.getChunkCodec());
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -429,15 +248,8 @@ public class NetworkChunkDataProvider extends ChunkDataProvider {
         final Vector2 chunk_position = new Vector2(chunk_pos);
 
         //because I want to save in background we have to copy chunk data here
-        final int[][] foreground_blocks = new int[World.CHUNK_SIZE][World.CHUNK_SIZE];
-        final int[][] background_blocks = new int[World.CHUNK_SIZE][World.CHUNK_SIZE];
-
-        for(int i = 0; i < foreground_blocks.length; i++) {
-            for(int j = 0; j < foreground_blocks[0].length; j++) {
-                foreground_blocks[i][j] = chunk.getBlocks()[i][j].getForegroundBlock().getBlockID();
-                background_blocks[i][j] = chunk.getBlocks()[i][j].getBackgroundBlock().getBlockID();
-            }
-        }
+        final PalettedBlockLayer foreground_blocks = chunk.getBlocks().toPalettedLayer(false);
+        final PalettedBlockLayer background_blocks = chunk.getBlocks().toPalettedLayer(true);
 
         //copy chunk objects and chunk position
         final Array<WorldObject> objects = new Array<WorldObject>(chunk.getObjects());
@@ -0,0 +1,175 @@
+package explorer.world;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.BooleanArray;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.ShortArray;
+
+import explorer.game.framework.Game;
+import explorer.network.NetworkClasses;
+import explorer.network.NetworkHelper;
+import explorer.world.chunk.WorldChunk;
+
+/**
+ * Many block changes applied at once (explosions, structures, blocks removed because block under/over them was removed),
+ * all changed blocks are sent to other players in one packet and textures / ground lights are recalculated once for all of them (see WorldChunk.updateChangedTiles())
+ *
+ * Usage: world.beginBlockEdit().setBlock(...).setBlock(...).apply(true)
+ */
+
+public class BlockEditBatch {
+
+    private World world;
+
+    /**
+     * Edits waiting for apply()
+     */
+    private Array<WorldChunk> chunks;
+    private IntArray blocks_x, blocks_y, new_ids;
+    private BooleanArray backgrounds;
+
+    /**
+     * Changes that were really applied (with changes caused by them) and will be sent to other players
+     */
+    private IntArray changed_chunks_x, changed_chunks_y, changed_ids;
+    private ShortArray changed_blocks;
+
+    BlockEditBatch(World world) {
+        this.world = world;
+
+        chunks = new Array<WorldChunk>();
+        blocks_x = new IntArray();
+        blocks_y = new IntArray();
+        new_ids = new IntArray();
+        backgrounds = new BooleanArray();
+
+        changed_chunks_x = new IntArray();
+        changed_chunks_y = new IntArray();
+        changed_ids = new IntArray();
+        changed_blocks = new ShortArray();
+    }
+
+    /**
+     * Add block change to batch
+     * @param chunk chunk of block
+     * @param x x in local cords
+     * @param y y in local cords
+     * @param new_id new block id
+     * @param background if true background block will be set to new one
+     * @return this batch
+     */
+    public BlockEditBatch setBlock(WorldChunk chunk, int x, int y, int new_id, boolean background) {
+        chunks.add(chunk);
+        blocks_x.add(x);
+        blocks_y.add(y);
+        new_ids.add(new_id);
+        backgrounds.add(background);
+
+        return this;
+    }
+
+    /**
+     * Add block change to batch
+     * @param world_x x in world cords
+     * @param world_y y in world cords
+     * @param new_id new block id
+     * @param background if true background block will be set to new one
+     * @return this batch, change out of loaded chunks is ignored
+     */
+    public BlockEditBatch setBlock(float world_x, float world_y, int new_id, boolean background) {
+        WorldChunk[][] world_chunks = world.getWorldChunks();
+
+        for(int i = 0; i < world_chunks.length; i++) {
+            for(int j = 0; j < world_chunks[0].length; j++) {
+                WorldChunk chunk = world_chunks[i][j];
+
+                float local_x = world_x - chunk.getPosition().x;
+                float local_y = world_y - chunk.getPosition().y;
+
+                if(local_x >= 0 && local_y >= 0 && local_x < World.CHUNK_WORLD_SIZE && local_y < World.CHUNK_WORLD_SIZE)
+                    return setBlock(chunk, (int) (local_x / World.BLOCK_SIZE), (int) (local_y / World.BLOCK_SIZE), new_id, background);
+            }
+        }
+
+        return this;
+    }
+
+    /**
+     * Apply all changes added to this batch, batch is empty after that and can be used again
+     * @param notify_network if true all changed blocks are sent to other players in one packet (if game is host or client)
+     * @return amount of changed blocks (with blocks removed because block under/over them was removed)
+     */
+    public int apply(boolean notify_network) {
+        for(int i = 0; i < chunks.size; i++)
+            chunks.get(i).setBlock(blocks_x.get(i), blocks_y.get(i), new_ids.get(i), backgrounds.get(i), this);
+
+        int changed_count = changed_ids.size;
+
+        if(notify_network)
+            sendChanges();
+
+        chunks.clear();
+        blocks_x.clear();
+        blocks_y.clear();
+        new_ids.clear();
+        backgrounds.clear();
+
+        clearChanges();
+
+        return changed_count;
+    }
+
+    /**
+     * Called by WorldChunk.setBlock() for every changed block
+     * @param chunk chunk of block
+     * @param x x in local cords
+     * @param y y in local cords
+     * @param new_id new block id
+     * @param background true if background block was changed
+     */
+    public void addAppliedChange(WorldChunk chunk, int x, int y, int new_id, boolean background) {
+        changed_chunks_x.add(chunk.getGlobalChunkXIndex());
+        changed_chunks_y.add(chunk.getGlobalChunkYIndex());
+        changed_blocks.add(NetworkClasses.BlocksChangedPacket.pack(x, y, background));
+        changed_ids.add(new_id);
+    }
+
+    /**
+     * Send applied changes to other players (one BlockChangedPacket for single change, BlocksChangedPacket for more) and forget them
+     */
+    public void sendChanges() {
+        if(changed_ids.size == 0 || (!Game.IS_HOST && !Game.IS_CLIENT)) {
+            clearChanges();
+            return;
+        }
+
+        if(changed_ids.size == 1) {
+            NetworkClasses.BlockChangedPacket block_changed_packet = new NetworkClasses.BlockChangedPacket();
+            block_changed_packet.chunk_x = changed_chunks_x.get(0);
+            block_changed_packet.chunk_y = changed_chunks_y.get(0);
+            block_changed_packet.block_x = NetworkClasses.BlocksChangedPacket.unpackX(changed_blocks.get(0));
+            block_changed_packet.block_y = NetworkClasses.BlocksChangedPacket.unpackY(changed_blocks.get(0));
+            block_changed_packet.background = NetworkClasses.BlocksChangedPacket.unpackBackground(changed_blocks.get(0));
+            block_changed_packet.new_block_id = changed_ids.get(0);
+
+            NetworkHelper.send(block_changed_packet);
+        } else {
+            NetworkClasses.BlocksChangedPacket blocks_changed_packet = new NetworkClasses.BlocksChangedPacket();
+            blocks_changed_packet.chunks_x = changed_chunks_x.toArray();
+            blocks_changed_packet.chunks_y = changed_chunks_y.toArray();
+            blocks_changed_packet.blocks = changed_blocks.toArray();
+            blocks_changed_packet.new_block_ids = changed_ids.toArray();
+
+            NetworkHelper.send(blocks_changed_packet);
+        }
+
+        clearChanges();
+    }
+
+    private void clearChanges() {
+        changed_chunks_x.clear();
+        changed_chunks_y.clear();
+        changed_blocks.clear();
+        changed_ids.clear();
+    }
+}
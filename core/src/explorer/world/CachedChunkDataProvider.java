@@ -0,0 +1,370 @@
+package explorer.world;
+
+import com.badlogic.gdx.math.Vector2;
+import com.esotericsoftware.minlog.Log;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import explorer.game.framework.Game;
+import explorer.world.chunk.PalettedBlockLayer;
+import explorer.world.chunk.WorldChunk;
+
+/**
+ * Chunk data provider that keeps recently loaded/saved chunks decoded in memory (LRU, limited by memory budget) and asks wrapped provider only on cache miss,
+ * so player going back and forth over chunk border costs just copying layers instead of reading disk and inflating data
+ *
+ * Cached entry stores copy of block layers and serialized objects (objects are always created again because they can't be shared between chunks)
+ * Every save goes through this provider so cache is never older than data in wrapped provider, don't use it when chunks can be changed by someone else (network games)
+ */
+
+public class CachedChunkDataProvider extends ChunkDataProvider {
+
+    /**
+     * Default memory budget in bytes
+     */
+    public static final long DEFAULT_MEMORY_BUDGET = 16 * 1024 * 1024;
+
+    /**
+     * System property which can be used to change memory budget in bytes (f.e. -Dexplorer.chunk_cache_size=33554432), 0 disables caching
+     */
+    public static final String MEMORY_BUDGET_PROPERTY = "explorer.chunk_cache_size";
+
+    /**
+     * Estimated size of entry without its data (objects headers, map entry, key)
+     */
+    private static final int ENTRY_OVERHEAD = 128;
+
+    /**
+     * One decoded chunk
+     */
+    private static class CacheEntry {
+        PalettedBlockLayer foreground_blocks;
+        PalettedBlockLayer background_blocks;
+        byte[] objects;
+
+        long size;
+    }
+
+    private final ChunkDataProvider provider;
+
+    /**
+     * Entries in access order (first = least recently used), guarded by this
+     */
+    private final LinkedHashMap<Long, CacheEntry> entries;
+
+    private final long memory_budget;
+    private long memory_usage;
+
+    /**
+     * Statistics
+     */
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong prefetches = new AtomicLong();
+
+    /**
+     * Create cache with memory budget from MEMORY_BUDGET_PROPERTY (or default one)
+     * @param provider provider that will be used on cache miss and to save chunks
+     */
+    public CachedChunkDataProvider(ChunkDataProvider provider) {
+        this(provider, Long.getLong(MEMORY_BUDGET_PROPERTY, DEFAULT_MEMORY_BUDGET));
+    }
+
+    /**
+     * Create cache
+     * @param provider provider that will be used on cache miss and to save chunks
+     * @param memory_budget max memory used by cached chunks in bytes
+     */
+    public CachedChunkDataProvider(ChunkDataProvider provider, long memory_budget) {
+        this.provider = provider;
+        this.memory_budget = memory_budget;
+
+        entries = new LinkedHashMap<Long, CacheEntry>(64, .75f, true);
+    }
+
+    @Override
+    public Future<?> getChunkData(final DataLoaded callback, final Vector2 chunk_position, final World world, final Game game) {
+        int x = (int) chunk_position.x / World.CHUNK_WORLD_SIZE;
+        final int y = (int) chunk_position.y / World.CHUNK_WORLD_SIZE;
+
+        int planet_width = world.getPlanetProperties().PLANET_SIZE;
+        final int chunk_x = x % planet_width;
+
+        final CacheEntry entry = get(chunk_x, y);
+
+        if(entry == null) {
+            misses.incrementAndGet();
+
+            //remember decoded data before chunk starts using it
+            DataLoaded caching_callback = new DataLoaded() {
+                @Override
+                public void loaded(ChunkData data) {
+                    int loaded_x = (int) data.chunk_loaded_position.x / World.CHUNK_WORLD_SIZE;
+                    int loaded_y = (int) data.chunk_loaded_position.y / World.CHUNK_WORLD_SIZE;
+
+                    try {
+                        //chunk could be saved while it was loading, then cache already has newer data
+                        put(loaded_x, loaded_y, data.foreground_blocks, data.background_blocks, ChunkDataSerializer.objectsToBytes(data.objects, true), true, true);
+                    } catch(IOException e) {
+                        Log.error("(CachedChunkDataProvider) Failed to cache chunk (" + loaded_x + ", " + loaded_y + ")", e);
+                    }
+
+                    callback.loaded(data);
+                }
+            };
+            return provider.getChunkData(caching_callback, chunk_position, world, game);
+        }
+
+        hits.incrementAndGet();
+
+        Runnable r = new Runnable() {
+            @Override
+            public void run() {
+                ChunkData data = new ChunkData();
+                data.foreground_blocks = new PalettedBlockLayer(entry.foreground_blocks);
+                data.background_blocks = new PalettedBlockLayer(entry.background_blocks);
+                data.chunk_loaded_position.set(chunk_x * World.CHUNK_WORLD_SIZE, y * World.CHUNK_WORLD_SIZE);
+
+                try {
+                    ChunkDataSerializer.objectsFromBytes(entry.objects, data, world, game);
+                } catch(IOException e) {
+                    //can't happen unless object properties can't be written, anyway just load chunk from provider
+                    Log.error("(CachedChunkDataProvider) Cached chunk (" + chunk_x + ", " + y + ") is broken", e);
+
+                    remove(chunk_x, y);
+                    provider.getChunkData(callback, chunk_position, world, game);
+                    return;
+                } catch(InterruptedException e) {
+                    //loading was cancelled (chunk moved somewhere else) so just drop this data
+                    return;
+                }
+
+                callback.loaded(data);
+            }
+        };
+        return game.getChunkIOScheduler().submit(r, ChunkIOScheduler.getLoadPriority(world, chunk_position));
+    }
+
+    @Override
+    public Future<?> prefetchChunkData(Vector2 chunk_position, World world, Game game) {
+        int x = (int) chunk_position.x / World.CHUNK_WORLD_SIZE;
+        final int y = (int) chunk_position.y / World.CHUNK_WORLD_SIZE;
+
+        int planet_width = world.getPlanetProperties().PLANET_SIZE;
+        final int chunk_x = x % planet_width;
+
+        if(get(chunk_x, y) != null)
+            return null;
+
+        prefetches.incrementAndGet();
+
+        //prefetch only decodes stored chunk, objects aren't created and missing chunks aren't generated (that is left for real load)
+        Runnable r = new Runnable() {
+            @Override
+            public void run() {
+                ChunkSnapshot snapshot;
+                try {
+                    snapshot = provider.readChunkSnapshot(chunk_x, y);
+                } catch(IOException e) {
+                    Log.debug("(CachedChunkDataProvider) Failed to prefetch chunk (" + chunk_x + ", " + y + "): " + e.getMessage());
+                    return;
+                }
+
+                if(snapshot == null || Thread.currentThread().isInterrupted())
+                    return;
+
+                //pending snapshot could be encoded meanwhile (then it doesn't have layers anymore), real load will cache that chunk
+                PalettedBlockLayer foreground_blocks = snapshot.getForegroundBlocks();
+                PalettedBlockLayer background_blocks = snapshot.getBackgroundBlocks();
+                byte[] objects = snapshot.getObjects();
+
+                //layers of snapshot are never changed so cache can share them
+                if(foreground_blocks != null && background_blocks != null && objects != null)
+                    put(chunk_x, y, foreground_blocks, background_blocks, objects, true, false);
+            }
+        };
+        return game.getChunkIOScheduler().submit(r, ChunkIOScheduler.Priority.PREFETCH);
+    }
+
+    @Override
+    public void saveChunkData(DataSaved callback, WorldChunk chunk, Vector2 chunk_position, World world, Game game) {
+        int x = (int) chunk_position.x / World.CHUNK_WORLD_SIZE;
+        int y = (int) chunk_position.y / World.CHUNK_WORLD_SIZE;
+
+        int planet_width = world.getPlanetProperties().PLANET_SIZE;
+        int chunk_x = x % planet_width;
+
+        //chunk is copied and its objects are written only once, cache keeps layers of snapshot and wrapped provider encodes same snapshot
+        ChunkSnapshot snapshot;
+        try {
+            snapshot = ChunkSnapshot.of(chunk, chunk_x, y, world.getChunkCodec());
+        } catch(IOException e) {
+            //cache can't be older than saved data
+            remove(chunk_x, y);
+
+            provider.saveChunkData(callback, chunk, chunk_position, world, game);
+            return;
+        }
+
+        put(chunk_x, y, snapshot.getForegroundBlocks(), snapshot.getBackgroundBlocks(), snapshot.getObjects(), false, false);
+
+        if(!provider.saveChunkSnapshot(callback, snapshot, chunk_x, y))
+            provider.saveChunkData(callback, chunk, chunk_position, world, game);
+    }
+
+    @Override
+    public boolean saveChunkSnapshot(DataSaved callback, ChunkSnapshot snapshot, int chunk_x, int chunk_y) {
+        PalettedBlockLayer foreground_blocks = snapshot.getForegroundBlocks();
+        PalettedBlockLayer background_blocks = snapshot.getBackgroundBlocks();
+        byte[] objects = snapshot.getObjects();
+
+        //snapshot could be already encoded and cache can't be older than saved data
+        if(foreground_blocks != null && background_blocks != null && objects != null)
+            put(chunk_x, chunk_y, foreground_blocks, background_blocks, objects, false, false);
+        else
+            remove(chunk_x, chunk_y);
+
+        return provider.saveChunkSnapshot(callback, snapshot, chunk_x, chunk_y);
+    }
+
+    @Override
+    public boolean generateChunkIfMissing(int chunk_x, int chunk_y, World world) throws IOException {
+        //cached chunk was loaded or saved so it exists
+        if(get(chunk_x, chunk_y) != null)
+            return false;
+
+        return provider.generateChunkIfMissing(chunk_x, chunk_y, world);
+    }
+
+    @Override
+    public void setGenerateMissingChunks(boolean generate) {
+        super.setGenerateMissingChunks(generate);
+        provider.setGenerateMissingChunks(generate);
+    }
+
+    @Override
+    public void dispose() {
+        Log.info("(CachedChunkDataProvider) Hits: " + getHitCount() + ", misses: " + getMissCount() + ", prefetches: " + getPrefetchCount() + ", cached chunks: " + getSize() + " (" + (getMemoryUsage() / 1024) + "KB)");
+
+        synchronized (this) {
+            entries.clear();
+            memory_usage = 0;
+        }
+
+        provider.dispose();
+    }
+
+    /**
+     * @return provider wrapped by this cache
+     */
+    public ChunkDataProvider getProvider() {
+        return provider;
+    }
+
+    private synchronized CacheEntry get(int chunk_x, int chunk_y) {
+        return entries.get(getKey(chunk_x, chunk_y));
+    }
+
+    /**
+     * Add chunk into cache
+     * @param only_if_absent if true chunk is added only when cache has no data for it (loaded data can't replace newer saved data)
+     * @param copy if false cache takes given layers as they are, they have to be compacted and nobody can change them anymore (f.e. layers of ChunkSnapshot)
+     */
+    private void put(int chunk_x, int chunk_y, PalettedBlockLayer foreground_blocks, PalettedBlockLayer background_blocks, byte[] objects, boolean only_if_absent, boolean copy) {
+        if(only_if_absent && get(chunk_x, chunk_y) != null)
+            return;
+
+        CacheEntry entry = new CacheEntry();
+        entry.objects = objects;
+
+        if(copy) {
+            entry.foreground_blocks = new PalettedBlockLayer(foreground_blocks);
+            entry.background_blocks = new PalettedBlockLayer(background_blocks);
+
+            entry.foreground_blocks.compact();
+            entry.background_blocks.compact();
+        } else {
+            entry.foreground_blocks = foreground_blocks;
+            entry.background_blocks = background_blocks;
+        }
+
+        entry.size = ENTRY_OVERHEAD + entry.foreground_blocks.getSizeInBytes() + entry.background_blocks.getSizeInBytes() + objects.length;
+
+        synchronized (this) {
+            if(only_if_absent && entries.containsKey(getKey(chunk_x, chunk_y)))
+                return;
+
+            if(entry.size > memory_budget) {
+                removeEntry(getKey(chunk_x, chunk_y));
+                return;
+            }
+
+            CacheEntry old = entries.put(getKey(chunk_x, chunk_y), entry);
+            if(old != null)
+                memory_usage -= old.size;
+
+            memory_usage += entry.size;
+
+            //remove least recently used chunks until we fit in budget
+            Iterator<Map.Entry<Long, CacheEntry>> iterator = entries.entrySet().iterator();
+            while(memory_usage > memory_budget && iterator.hasNext()) {
+                memory_usage -= iterator.next().getValue().size;
+                iterator.remove();
+            }
+        }
+    }
+
+    private synchronized void remove(int chunk_x, int chunk_y) {
+        removeEntry(getKey(chunk_x, chunk_y));
+    }
+
+    private void removeEntry(long key) {
+        CacheEntry old = entries.remove(key);
+        if(old != null)
+            memory_usage -= old.size;
+    }
+
+    /**
+     * @return amount of chunks loaded from cache
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * @return amount of chunks loaded from wrapped provider
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * @return amount of chunks loaded by prefetching
+     */
+    public long getPrefetchCount() {
+        return prefetches.get();
+    }
+
+    /**
+     * @return amount of cached chunks
+     */
+    public synchronized int getSize() {
+        return entries.size();
+    }
+
+    /**
+     * @return estimated memory used by cached chunks in bytes
+     */
+    public synchronized long getMemoryUsage() {
+        return memory_usage;
+    }
+
+    private static long getKey(int chunk_x, int chunk_y) {
+        return ((long) chunk_x << 32) | (chunk_y & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,105 @@
+package explorer.world;
+
+import java.io.IOException;
+import java.util.zip.CRC32;
+
+/**
+ * CRC32 trailer added to every stored chunk record (chunk files and region records)
+ *
+ * Record: encoded chunk bytes, CRC32 of these bytes (4 bytes, big endian), TRAILER_MAGIC (4 bytes, big endian)
+ * Records without magic at the end were written before checksums existed, they are accepted without validation only where such records can exist (old chunk files),
+ * region records always had trailer so record without it is corrupted
+ */
+
+public class ChunkChecksum {
+
+    /**
+     * "ECRC"
+     */
+    public static final int TRAILER_MAGIC = 0x45435243;
+
+    /**
+     * Size of trailer in bytes
+     */
+    public static final int TRAILER_SIZE = 8;
+
+    /**
+     * Create record from chunk bytes
+     * @param bytes encoded chunk bytes
+     * @return bytes with checksum trailer
+     */
+    public static byte[] append(byte[] bytes) {
+        byte[] out = new byte[bytes.length + TRAILER_SIZE];
+        System.arraycopy(bytes, 0, out, 0, bytes.length);
+
+        writeInt(out, bytes.length, calculate(bytes, bytes.length));
+        writeInt(out, bytes.length + 4, TRAILER_MAGIC);
+
+        return out;
+    }
+
+    /**
+     * Validate record and remove its trailer
+     * @param record record bytes (with or without trailer)
+     * @return chunk bytes without trailer
+     * @throws IOException when checksum doesn't match (record is corrupted or was written only partially)
+     */
+    public static byte[] strip(byte[] record) throws IOException {
+        return strip(record, false);
+    }
+
+    /**
+     * Validate record and remove its trailer
+     * @param record record bytes
+     * @param require_trailer if true record without trailer is corrupted, otherwise it is legacy record which is returned as it is
+     * @return chunk bytes without trailer
+     * @throws IOException when checksum doesn't match or record has no trailer and it is required
+     */
+    public static byte[] strip(byte[] record, boolean require_trailer) throws IOException {
+        if(!hasTrailer(record)) {
+            if(require_trailer)
+                throw new IOException("Chunk record has no checksum trailer");
+
+            return record;
+        }
+
+        int length = record.length - TRAILER_SIZE;
+
+        int stored_crc = readInt(record, length);
+        int crc = calculate(record, length);
+
+        if(stored_crc != crc)
+            throw new IOException("Chunk checksum mismatch (stored: " + Integer.toHexString(stored_crc) + ", calculated: " + Integer.toHexString(crc) + ")");
+
+        byte[] out = new byte[length];
+        System.arraycopy(record, 0, out, 0, length);
+
+        return out;
+    }
+
+    /**
+     * @param record record bytes
+     * @return true if record ends with checksum trailer
+     */
+    public static boolean hasTrailer(byte[] record) {
+        return record.length >= TRAILER_SIZE && readInt(record, record.length - 4) == TRAILER_MAGIC;
+    }
+
+    private static int calculate(byte[] bytes, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, length);
+
+        return (int) crc.getValue();
+    }
+
+    private static void writeInt(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) (value >>> 24);
+        bytes[offset + 1] = (byte) (value >>> 16);
+        bytes[offset + 2] = (byte) (value >>> 8);
+        bytes[offset + 3] = (byte) value;
+    }
+
+    private static int readInt(byte[] bytes, int offset) {
+        return ((bytes[offset] & 0xFF) << 24) | ((bytes[offset + 1] & 0xFF) << 16) | ((bytes[offset + 2] & 0xFF) << 8) | (bytes[offset + 3] & 0xFF);
+    }
+}
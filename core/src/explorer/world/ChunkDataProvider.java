@@ -3,9 +3,11 @@ package explorer.world;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.utils.Array;
 
+import java.io.IOException;
 import java.util.concurrent.Future;
 
 import explorer.game.framework.Game;
+import explorer.world.chunk.PalettedBlockLayer;
 import explorer.world.object.WorldObject;
 
 /**
@@ -18,8 +20,9 @@ public abstract class ChunkDataProvider {
      * Result of task
      */
     public static class ChunkData {
-        public int[][] foreground_blocks = new int[World.CHUNK_SIZE][World.CHUNK_SIZE];
-        public int[][] background_blocks = new int[World.CHUNK_SIZE][World.CHUNK_SIZE];
+        //paletted block layers, uniform ones (all air/all dirt) take just few bytes
+        public PalettedBlockLayer foreground_blocks = new PalettedBlockLayer(0);
+        public PalettedBlockLayer background_blocks = new PalettedBlockLayer(0);
 
         //coords system 1 = World.CHUNK_WORLD_SIZE
         public Vector2 chunk_loaded_position = new Vector2(-1, -1);
@@ -41,6 +44,12 @@ public abstract class ChunkDataProvider {
         void saved();
     }
 
+    /**
+     * If true chunks that weren't saved yet are generated (and saved) when they are requested for the first time instead of being returned as air,
+     * so planet doesn't have to be generated before player can play on it
+     */
+    protected volatile boolean generate_missing_chunks;
+
     /**
      * Call this function to get chunk data based on its position
      * @param callback callback which will revice chunk data
@@ -60,4 +69,80 @@ public abstract class ChunkDataProvider {
      */
     public abstract void saveChunkData(DataSaved callback, explorer.world.chunk.WorldChunk chunk, Vector2 chunk_position, World world, Game game);
 
+    /**
+     * Save chunk snapshot which was already taken (f.e. by chunk cache) so chunk isn't copied and serialized twice
+     * @param callback callback which will call when saving operation will be done
+     * @param snapshot chunk snapshot
+     * @param chunk_x chunk x (1 = World.CHUNK_WORLD_SIZE, already wrapped around planet)
+     * @param chunk_y chunk y (1 = World.CHUNK_WORLD_SIZE)
+     * @return true if snapshot was saved, false if provider can't save snapshots (chunk has to be saved by saveChunkData())
+     */
+    public boolean saveChunkSnapshot(DataSaved callback, ChunkSnapshot snapshot, int chunk_x, int chunk_y) {
+        return false;
+    }
+
+    /**
+     * Load chunk data in background before it is needed so later getChunkData() call for this chunk will be fast, providers without cache just ignore this
+     * @param chunk_position world pos of chunk (caller can reuse it after this returns, don't keep it)
+     * @param world world instance
+     * @param game game instance
+     * @return future of prefetching task (can be used to cancel it) or null if there is nothing to do
+     */
+    public Future<?> prefetchChunkData(Vector2 chunk_position, World world, Game game) {
+        return null;
+    }
+
+    /**
+     * Read stored chunk as block layers and objects bytes without creating its objects and without generating it (f.e. for prefetching into cache),
+     * called on chunk I/O worker
+     * @param chunk_x chunk x (1 = World.CHUNK_WORLD_SIZE, already wrapped around planet)
+     * @param chunk_y chunk y (1 = World.CHUNK_WORLD_SIZE)
+     * @return snapshot of stored chunk or null if chunk isn't stored yet (or provider doesn't store chunks, or chunk is stored in old format)
+     * @throws IOException when chunk can't be read or is corrupted
+     */
+    public ChunkSnapshot readChunkSnapshot(int chunk_x, int chunk_y) throws IOException {
+        return null;
+    }
+
+    /**
+     * Generate and save chunk if it wasn't saved yet, used by background pre-generation, providers which don't store chunks themselves just return false
+     * @param chunk_x chunk x (1 = World.CHUNK_WORLD_SIZE, already wrapped around planet)
+     * @param chunk_y chunk y (1 = World.CHUNK_WORLD_SIZE)
+     * @param world world instance
+     * @return true if chunk was generated, false if it already existed (or provider can't store it)
+     * @throws IOException when generated chunk can't be saved
+     */
+    public boolean generateChunkIfMissing(int chunk_x, int chunk_y, World world) throws IOException {
+        return false;
+    }
+
+    /**
+     * Turn on/off generating of chunks that weren't saved yet when they are requested (see generate_missing_chunks)
+     * @param generate true to generate missing chunks, false to return them as air
+     */
+    public void setGenerateMissingChunks(boolean generate) {
+        generate_missing_chunks = generate;
+    }
+
+    /**
+     * @return true if chunks that weren't saved yet are generated when they are requested
+     */
+    public boolean isGeneratingMissingChunks() {
+        return generate_missing_chunks;
+    }
+
+    /**
+     * @param chunk_y chunk y (1 = World.CHUNK_WORLD_SIZE)
+     * @param world world instance
+     * @return true if planet generator generates chunks at this height (chunks above or below are just air)
+     */
+    protected static boolean canGenerateChunk(int chunk_y, World world) {
+        return chunk_y >= 0 && chunk_y < world.getPlanetProperties().PLANET_TYPE.PLANET_GENERATOR.getMaxHeight();
+    }
+
+    /**
+     * Release resources used by provider (opened files etc.), called when world is disposed
+     */
+    public void dispose() {}
+
 }
@@ -0,0 +1,647 @@
+package explorer.world;
+
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ObjectIntMap;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.HashMap;
+
+import explorer.game.framework.Game;
+import explorer.game.framework.utils.metrics.Metrics;
+import explorer.world.chunk.PalettedBlockLayer;
+import explorer.world.codec.ChunkCodec;
+import explorer.world.object.WorldObject;
+
+/**
+ * One place that knows how chunk data is stored in bytes, used by region chunk provider, world generators and network chunk providers/handlers
+ * so chunk files & chunk network packets always have same format
+ *
+ * Format (before compression by {@link ChunkCodec}):
+ * - version 1 (legacy, no header): chunk x, chunk y (ints), then foreground & background block id (ints) for every block, then objects
+ * - version 2: MAGIC, version (ints), chunk x, chunk y (ints), foreground & background {@link PalettedBlockLayer}, then objects
+ * - version 3: MAGIC, version (ints), chunk x, chunk y (varints), foreground & background layer as runs of same block id
+ *   (varint run length, varint block id) going column by column (index order, see {@link explorer.world.chunk.ChunkBlocks#index(int, int)}),
+ *   then table of object class names and object records that point to that table (all counts & ids are varints)
+ */
+
+public class ChunkDataSerializer {
+
+    /**
+     * Header magic number, legacy files start with chunk x index which will never be that big
+     */
+    public static final int MAGIC = 0x45584348;
+
+    /**
+     * Known format versions
+     */
+    public static final int LEGACY_VERSION = 1;
+    public static final int PALETTE_VERSION = 2;
+    public static final int RLE_VERSION = 3;
+
+    /**
+     * Version used when writing new data
+     */
+    public static final int CURRENT_VERSION = RLE_VERSION;
+
+    /**
+     * Amount of blocks in one layer
+     */
+    private static final int BLOCKS_COUNT = World.CHUNK_SIZE * World.CHUNK_SIZE;
+
+    /**
+     * Write chunk data in current format
+     * @param output output stream
+     * @param foreground_blocks foreground blocks layer
+     * @param background_blocks background blocks layer
+     * @param objects chunk objects
+     * @param chunk_x chunk x index (in CHUNK_WORLD_SIZE units, already wrapped around planet)
+     * @param chunk_y chunk y index (in CHUNK_WORLD_SIZE units)
+     * @param only_saveable if true objects which are not saveable will be skipped
+     * @throws IOException
+     */
+    public static void write(DataOutputStream output, PalettedBlockLayer foreground_blocks, PalettedBlockLayer background_blocks, Array<WorldObject> objects, int chunk_x, int chunk_y, boolean only_saveable) throws IOException {
+        output.writeInt(MAGIC);
+        output.writeInt(CURRENT_VERSION);
+
+        //chunk position
+        writeVarInt(output, zigZag(chunk_x));
+        writeVarInt(output, zigZag(chunk_y));
+
+        //blocks
+        writeBlockRuns(output, foreground_blocks);
+        writeBlockRuns(output, background_blocks);
+
+        writeObjectRecords(output, objects, only_saveable);
+    }
+
+    /**
+     * Read chunk data written in any known format version
+     * @param input input stream
+     * @param data chunk data which will be filled
+     * @param world world instance
+     * @param game game instance
+     * @throws IOException when data is corrupted or has unknown version
+     * @throws InterruptedException when reading thread was interrupted
+     */
+    public static void read(DataInputStream input, ChunkDataProvider.ChunkData data, World world, Game game) throws IOException, InterruptedException {
+        int first = input.readInt();
+
+        if(first != MAGIC) {
+            //legacy file, first int is already chunk x
+            readLegacy(input, first, data, world, game);
+            return;
+        }
+
+        int version = input.readInt();
+        switch(version) {
+            case PALETTE_VERSION:
+                int chunk_x = input.readInt() * World.CHUNK_WORLD_SIZE;
+                int chunk_y = input.readInt() * World.CHUNK_WORLD_SIZE;
+                data.chunk_loaded_position.set(chunk_x, chunk_y);
+
+                data.foreground_blocks.read(input);
+                data.background_blocks.read(input);
+
+                readObjects(input, data, world, game);
+                break;
+            case RLE_VERSION:
+                int rle_chunk_x = unZigZag(readVarInt(input)) * World.CHUNK_WORLD_SIZE;
+                int rle_chunk_y = unZigZag(readVarInt(input)) * World.CHUNK_WORLD_SIZE;
+                data.chunk_loaded_position.set(rle_chunk_x, rle_chunk_y);
+
+                readBlockRuns(input, data.foreground_blocks);
+                readBlockRuns(input, data.background_blocks);
+
+                readObjectRecords(input, data, world, game);
+                break;
+            default:
+                throw new IOException("Unknown chunk format version: " + version);
+        }
+    }
+
+    /**
+     * Write chunk data in current format into byte array encoded by given codec (same bytes as chunk file content)
+     * @param foreground_blocks foreground blocks layer
+     * @param background_blocks background blocks layer
+     * @param objects chunk objects
+     * @param chunk_x chunk x index (in CHUNK_WORLD_SIZE units, already wrapped around planet)
+     * @param chunk_y chunk y index (in CHUNK_WORLD_SIZE units)
+     * @param only_saveable if true objects which are not saveable will be skipped
+     * @param codec codec used to compress data
+     * @return encoded chunk bytes
+     * @throws IOException
+     */
+    public static byte[] toBytes(PalettedBlockLayer foreground_blocks, PalettedBlockLayer background_blocks, Array<WorldObject> objects, int chunk_x, int chunk_y, boolean only_saveable, ChunkCodec codec) throws IOException {
+        ByteArrayOutputStream byte_output = new ByteArrayOutputStream(512);
+        DataOutputStream data_output = new DataOutputStream(byte_output);
+
+        write(data_output, foreground_blocks, background_blocks, objects, chunk_x, chunk_y, only_saveable);
+
+        data_output.close();
+        return encode(byte_output, chunk_x, chunk_y, codec);
+    }
+
+    /**
+     * Same as toBytes() but with objects already written by objectsToBytes() (f.e. on other thread than objects live)
+     * @param foreground_blocks foreground blocks layer
+     * @param background_blocks background blocks layer
+     * @param objects objects bytes written by objectsToBytes()
+     * @param chunk_x chunk x index (in CHUNK_WORLD_SIZE units, already wrapped around planet)
+     * @param chunk_y chunk y index (in CHUNK_WORLD_SIZE units)
+     * @param codec codec used to compress data
+     * @return encoded chunk bytes
+     * @throws IOException
+     */
+    public static byte[] toBytes(PalettedBlockLayer foreground_blocks, PalettedBlockLayer background_blocks, byte[] objects, int chunk_x, int chunk_y, ChunkCodec codec) throws IOException {
+        ByteArrayOutputStream byte_output = new ByteArrayOutputStream(512 + objects.length);
+        DataOutputStream data_output = new DataOutputStream(byte_output);
+
+        data_output.writeInt(MAGIC);
+        data_output.writeInt(CURRENT_VERSION);
+
+        writeVarInt(data_output, zigZag(chunk_x));
+        writeVarInt(data_output, zigZag(chunk_y));
+
+        writeBlockRuns(data_output, foreground_blocks);
+        writeBlockRuns(data_output, background_blocks);
+
+        //objects bytes are exactly object records of current format
+        data_output.write(objects);
+
+        data_output.close();
+        return encode(byte_output, chunk_x, chunk_y, codec);
+    }
+
+    private static byte[] encode(ByteArrayOutputStream byte_output, int chunk_x, int chunk_y, ChunkCodec codec) throws IOException {
+        if(byte_output.size() > ChunkCodec.MAX_DECODED_SIZE)
+            throw new IOException("Chunk " + chunk_x + ", " + chunk_y + " is too big to be saved (" + byte_output.size() + " bytes)");
+
+        return codec.encode(byte_output.toByteArray());
+    }
+
+    /**
+     * Read chunk data from encoded byte array created by toBytes() (or read from chunk file), codec is detected from data
+     * If bytes end with checksum trailer (see {@link ChunkChecksum}) it is validated first
+     * @param bytes encoded chunk bytes
+     * @param data chunk data which will be filled
+     * @param world world instance
+     * @param game game instance
+     * @throws IOException when data is corrupted (checksum mismatch, broken stream) or has unknown version
+     * @throws InterruptedException when reading thread was interrupted
+     */
+    public static void fromBytes(byte[] bytes, ChunkDataProvider.ChunkData data, World world, Game game) throws IOException, InterruptedException {
+        long decode_start = Metrics.startTimer();
+
+        DataInputStream data_input = new DataInputStream(new ByteArrayInputStream(ChunkCodec.decode(ChunkChecksum.strip(bytes))));
+
+        read(data_input, data, world, game);
+
+        data_input.close();
+
+        Metrics.recordTime(Metrics.CHUNK_DECODE, decode_start);
+    }
+
+    /**
+     * Decode chunk bytes into block layers and objects bytes (see objectsToBytes()) without creating objects, f.e. to fill chunk cache in background
+     * @param bytes encoded chunk bytes
+     * @return snapshot with layers, objects bytes and given bytes, or null if chunk was written in older format version (its objects can be read only by creating them)
+     * @throws IOException when data is corrupted
+     */
+    public static ChunkSnapshot snapshotFromBytes(byte[] bytes) throws IOException {
+        long decode_start = Metrics.startTimer();
+
+        ByteArrayInputStream byte_input = new ByteArrayInputStream(ChunkCodec.decode(ChunkChecksum.strip(bytes)));
+        DataInputStream data_input = new DataInputStream(byte_input);
+
+        if(data_input.readInt() != MAGIC || data_input.readInt() != RLE_VERSION)
+            return null;
+
+        //chunk position
+        readVarInt(data_input);
+        readVarInt(data_input);
+
+        PalettedBlockLayer foreground_blocks = new PalettedBlockLayer(0);
+        PalettedBlockLayer background_blocks = new PalettedBlockLayer(0);
+
+        readBlockRuns(data_input, foreground_blocks);
+        readBlockRuns(data_input, background_blocks);
+
+        foreground_blocks.compact();
+        background_blocks.compact();
+
+        //rest of data are object records, same as objectsToBytes() output
+        byte[] objects = new byte[byte_input.available()];
+        data_input.readFully(objects);
+
+        data_input.close();
+
+        Metrics.recordTime(Metrics.CHUNK_DECODE, decode_start);
+
+        return new ChunkSnapshot(foreground_blocks, background_blocks, objects, bytes);
+    }
+
+    /**
+     * Check that chunk bytes can be read (checksum, compression and whole structure of any known format version) without creating objects,
+     * f.e. before bytes written by older versions are moved somewhere where they get new checksum
+     * @param bytes encoded chunk bytes
+     * @throws IOException when data is corrupted or has unknown version
+     */
+    public static void validate(byte[] bytes) throws IOException {
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(ChunkCodec.decode(ChunkChecksum.strip(bytes))));
+
+        int first = input.readInt();
+        if(first != MAGIC) {
+            //legacy file, chunk y and foreground & background id of every block
+            input.readInt();
+            for(int i = 0; i < BLOCKS_COUNT * 2; i++)
+                input.readInt();
+
+            skipObjects(input);
+            return;
+        }
+
+        int version = input.readInt();
+        switch(version) {
+            case PALETTE_VERSION:
+                input.readInt();
+                input.readInt();
+
+                new PalettedBlockLayer(0).read(input);
+                new PalettedBlockLayer(0).read(input);
+
+                skipObjects(input);
+                break;
+            case RLE_VERSION:
+                readVarInt(input);
+                readVarInt(input);
+
+                PalettedBlockLayer layer = new PalettedBlockLayer(0);
+                readBlockRuns(input, layer);
+                readBlockRuns(input, layer);
+
+                skipObjectRecords(input);
+                break;
+            default:
+                throw new IOException("Unknown chunk format version: " + version);
+        }
+    }
+
+    /**
+     * Write only chunk objects (class names table and object records, same as in version 3 format), used by chunk cache to keep objects without keeping their instances
+     * @param objects chunk objects
+     * @param only_saveable if true objects which are not saveable will be skipped
+     * @return objects bytes (not compressed)
+     * @throws IOException
+     */
+    public static byte[] objectsToBytes(Array<WorldObject> objects, boolean only_saveable) throws IOException {
+        ByteArrayOutputStream byte_output = new ByteArrayOutputStream(64);
+        DataOutputStream data_output = new DataOutputStream(byte_output);
+
+        writeObjectRecords(data_output, objects, only_saveable);
+
+        data_output.close();
+        return byte_output.toByteArray();
+    }
+
+    /**
+     * Create objects from bytes written by objectsToBytes()
+     * @param bytes objects bytes
+     * @param data chunk data to which objects will be added
+     * @param world world instance
+     * @param game game instance
+     * @throws IOException when data is corrupted
+     * @throws InterruptedException when reading thread was interrupted
+     */
+    public static void objectsFromBytes(byte[] bytes, ChunkDataProvider.ChunkData data, World world, Game game) throws IOException, InterruptedException {
+        DataInputStream data_input = new DataInputStream(new ByteArrayInputStream(bytes));
+
+        readObjectRecords(data_input, data, world, game);
+
+        data_input.close();
+    }
+
+    /**
+     * Create object instance from its class name
+     * @param class_name full name of object class
+     * @param position object position
+     * @param world world instance
+     * @param game game instance
+     * @return new object or null if class doesn't exist or doesn't have (Vector2, World, Game) constructor
+     */
+    public static WorldObject createInstanceFromClass(String class_name, Vector2 position, World world, Game game) {
+        try {
+            Class<?> clazz = Class.forName(class_name);
+
+            //so every saveable game object have to have constructor (Vector2, World, Game)!
+            Constructor<?> ctor = clazz.getConstructor(Vector2.class, World.class, Game.class);
+
+            Object object = ctor.newInstance(position, world, game);
+            return (WorldObject) object;
+        } catch (ClassNotFoundException e) {
+            e.printStackTrace();
+        } catch (NoSuchMethodException e) {
+            e.printStackTrace();
+        } catch (InstantiationException e) {
+            e.printStackTrace();
+        } catch (IllegalAccessException e) {
+            e.printStackTrace();
+        } catch (InvocationTargetException e) {
+            e.printStackTrace();
+        }
+
+        return null;
+    }
+
+    private static void writeBlockRuns(DataOutputStream output, PalettedBlockLayer layer) throws IOException {
+        int run_start = 0;
+        int run_palette_index = layer.getPaletteIndex(0);
+
+        for(int i = 1; i <= BLOCKS_COUNT; i++) {
+            int palette_index = (i < BLOCKS_COUNT) ? layer.getPaletteIndex(i) : -1;
+
+            if(palette_index != run_palette_index) {
+                writeVarInt(output, i - run_start);
+                writeVarInt(output, layer.getPaletteEntry(run_palette_index));
+
+                run_start = i;
+                run_palette_index = palette_index;
+            }
+        }
+    }
+
+    private static void readBlockRuns(DataInputStream input, PalettedBlockLayer layer) throws IOException {
+        int index = 0;
+
+        while(index < BLOCKS_COUNT) {
+            int length = readVarInt(input);
+            int id = readVarInt(input);
+
+            if(length <= 0 || index + length > BLOCKS_COUNT)
+                throw new IOException("Invalid block run (index: " + index + " length: " + length + ")");
+
+            layer.fill(index, index + length, id);
+            index += length;
+        }
+    }
+
+    private static void writeObjectRecords(DataOutputStream output, Array<WorldObject> objects, boolean only_saveable) throws IOException {
+        //build class names table, every class name is written only once
+        ObjectIntMap<String> class_indices = new ObjectIntMap<String>();
+        Array<String> class_names = new Array<String>();
+
+        int objects_count = 0;
+        for(int i = 0; i < objects.size; i++) {
+            WorldObject object = objects.get(i);
+            if(only_saveable && !object.isSaveable())
+                continue;
+
+            String class_name = object.getClass().getName();
+            if(!class_indices.containsKey(class_name)) {
+                class_indices.put(class_name, class_names.size);
+                class_names.add(class_name);
+            }
+
+            objects_count++;
+        }
+
+        writeVarInt(output, class_names.size);
+        for(int i = 0; i < class_names.size; i++) {
+            output.writeUTF(class_names.get(i));
+        }
+
+        writeVarInt(output, objects_count);
+
+        for(int i = 0; i < objects.size; i++) {
+            WorldObject object = objects.get(i);
+            if(only_saveable && !object.isSaveable())
+                continue;
+
+            writeVarInt(output, class_indices.get(object.getClass().getName(), 0));
+
+            output.writeFloat(object.getPosition().x);
+            output.writeFloat(object.getPosition().y);
+
+            writeVarInt(output, zigZag(object.OBJECT_ID));
+
+            //properties count + 1, 0 means that object has no properties map at all
+            HashMap<String, String> properties = object.getObjectProperties();
+            if(properties == null) {
+                writeVarInt(output, 0);
+            } else {
+                writeVarInt(output, properties.size() + 1);
+
+                for(String key : properties.keySet()) {
+                    output.writeUTF(key);
+                    output.writeUTF(properties.get(key));
+                }
+            }
+        }
+    }
+
+    private static void readObjectRecords(DataInputStream input, ChunkDataProvider.ChunkData data, World world, Game game) throws IOException, InterruptedException {
+        int class_names_count = readVarInt(input);
+        String[] class_names = new String[class_names_count];
+
+        for(int i = 0; i < class_names_count; i++) {
+            class_names[i] = input.readUTF();
+        }
+
+        int objects_count = readVarInt(input);
+        for(int i = 0; i < objects_count; i++) {
+            int class_index = readVarInt(input);
+            if(class_index < 0 || class_index >= class_names_count)
+                throw new IOException("Invalid object class index: " + class_index);
+
+            Vector2 position = new Vector2(input.readFloat(), input.readFloat());
+            int object_id = unZigZag(readVarInt(input));
+
+            HashMap<String, String> properties = null;
+            int properties_count = readVarInt(input) - 1;
+
+            if(properties_count >= 0) {
+                properties = new HashMap<String, String>();
+
+                for(int j = 0; j < properties_count; j++) {
+                    String key = input.readUTF();
+                    String val = input.readUTF();
+                    properties.put(key, val);
+                }
+            }
+
+            WorldObject new_object = createInstanceFromClass(class_names[class_index], position, world, game);
+
+            if(new_object != null) {
+                new_object.OBJECT_ID = object_id;
+
+                if(properties != null)
+                    new_object.setObjectProperties(properties);
+
+                data.objects.add(new_object);
+            }
+
+            //check if loading is interrupted
+            if(Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+
+    private static void skipObjectRecords(DataInputStream input) throws IOException {
+        int class_names_count = readVarInt(input);
+        for(int i = 0; i < class_names_count; i++)
+            input.readUTF();
+
+        int objects_count = readVarInt(input);
+        for(int i = 0; i < objects_count; i++) {
+            int class_index = readVarInt(input);
+            if(class_index < 0 || class_index >= class_names_count)
+                throw new IOException("Invalid object class index: " + class_index);
+
+            input.readFloat();
+            input.readFloat();
+            readVarInt(input);
+
+            int properties_count = readVarInt(input) - 1;
+            for(int j = 0; j < properties_count; j++) {
+                input.readUTF();
+                input.readUTF();
+            }
+        }
+    }
+
+    /**
+     * Write int using 7 bits per byte (small values take just one byte)
+     * @param output output
+     * @param value value, negative values always take 5 bytes so use zigZag() for them
+     * @throws IOException
+     */
+    public static void writeVarInt(DataOutput output, int value) throws IOException {
+        while((value & ~0x7F) != 0) {
+            output.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+
+        output.writeByte(value);
+    }
+
+    /**
+     * Read int written by writeVarInt()
+     * @param input input
+     * @return value
+     * @throws IOException when varint is too long
+     */
+    public static int readVarInt(DataInput input) throws IOException {
+        int value = 0;
+
+        for(int shift = 0; shift < 35; shift += 7) {
+            int b = input.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+
+            if((b & 0x80) == 0)
+                return value;
+        }
+
+        throw new IOException("Varint is too long");
+    }
+
+    private static int zigZag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static int unZigZag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void readLegacy(DataInputStream input, int chunk_x_index, ChunkDataProvider.ChunkData data, World world, Game game) throws IOException, InterruptedException {
+        int chunk_x = chunk_x_index * World.CHUNK_WORLD_SIZE;
+        int chunk_y = input.readInt() * World.CHUNK_WORLD_SIZE;
+        data.chunk_loaded_position.set(chunk_x, chunk_y);
+
+        //load blocks
+        for (int i = 0; i < World.CHUNK_SIZE; i++) {
+            for (int j = 0; j < World.CHUNK_SIZE; j++) {
+                data.foreground_blocks.set(i, j, input.readInt());
+                data.background_blocks.set(i, j, input.readInt());
+            }
+
+            //check if loading is interrupted
+            if(Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+
+        readObjects(input, data, world, game);
+    }
+
+    private static void readObjects(DataInputStream input, ChunkDataProvider.ChunkData data, World world, Game game) throws IOException, InterruptedException {
+        int objects_count = input.readInt();
+        for (int i = 0; i < objects_count; i++) {
+            String class_name = input.readUTF();
+
+            Vector2 position = new Vector2(input.readFloat(), input.readFloat());
+
+            int object_id = input.readInt();
+
+            WorldObject new_object = createInstanceFromClass(class_name, position, world, game);
+
+            //properties flag (and properties) are always stored so read them even if object class is unknown to keep stream in sync
+            boolean have_properties = input.readBoolean();
+            HashMap<String, String> properties = null;
+
+            if(have_properties) {
+                properties = new HashMap<String, String>();
+                int properties_count = input.readInt();
+
+                for(int j = 0; j < properties_count; j++) {
+                    String key = input.readUTF();
+                    String val = input.readUTF();
+                    properties.put(key, val);
+                }
+            }
+
+            if (new_object != null) {
+                new_object.OBJECT_ID = object_id;
+
+                //set object properties to new one
+                if(properties != null)
+                    new_object.setObjectProperties(properties);
+
+                //finally add out new object to chunk data
+                data.objects.add(new_object);
+            }
+
+            //check if loading is interrupted
+            if(Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+
+    private static void skipObjects(DataInputStream input) throws IOException {
+        int objects_count = input.readInt();
+        for(int i = 0; i < objects_count; i++) {
+            input.readUTF();
+            input.readFloat();
+            input.readFloat();
+            input.readInt();
+
+            if(input.readBoolean()) {
+                int properties_count = input.readInt();
+
+                for(int j = 0; j < properties_count; j++) {
+                    input.readUTF();
+                    input.readUTF();
+                }
+            }
+        }
+    }
+}
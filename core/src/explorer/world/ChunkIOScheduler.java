@@ -0,0 +1,293 @@
+package explorer.world;
+
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+import com.esotericsoftware.minlog.Log;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import explorer.world.chunk.WorldChunk;
+
+/**
+ * Worker threads dedicated to chunk I/O (loading, prefetching, saving, serving chunks to other players) with priority lanes,
+ * worker always takes task from most important non empty lane so chunk player stands on is never waiting behind prefetching or saving
+ *
+ * Tasks never run on caller thread: when lane is full caller waits (BLOCK lanes) or task is rejected and submit() returns null (REJECT lanes)
+ * Cancelling returned future removes task from its lane right away (or interrupts it if it is already running)
+ */
+
+public class ChunkIOScheduler {
+
+    /**
+     * Lanes ordered from most important one
+     */
+    public enum Priority {
+        //chunk where player is
+        CENTER(Integer.MAX_VALUE, true),
+        //other chunks of chunks window
+        VISIBLE(Integer.MAX_VALUE, true),
+        //chunks requested by other players (network), never blocks because requests are submitted from network thread
+        REMOTE(64, false),
+        //chunks that player is going to see soon
+        PREFETCH(32, false),
+        //writing saved chunks to disk
+        SAVE(4, false);
+
+        /**
+         * Max amount of waiting tasks in lane
+         */
+        public final int capacity;
+
+        /**
+         * True if submit() waits when lane is full, false if task is rejected
+         */
+        public final boolean block_when_full;
+
+        Priority(int capacity, boolean block_when_full) {
+            this.capacity = capacity;
+            this.block_when_full = block_when_full;
+        }
+    }
+
+    /**
+     * Task which removes itself from its lane when cancelled
+     */
+    private class ChunkTask extends FutureTask<Object> {
+
+        private final Priority priority;
+
+        ChunkTask(Runnable runnable, Priority priority) {
+            super(runnable, null);
+            this.priority = priority;
+        }
+
+        @Override
+        public boolean cancel(boolean may_interrupt) {
+            boolean cancelled = super.cancel(may_interrupt);
+
+            if(cancelled)
+                removeTask(this);
+
+            return cancelled;
+        }
+    }
+
+    private final ArrayDeque<ChunkTask>[] lanes;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition not_empty = lock.newCondition();
+    private final Condition not_full = lock.newCondition();
+
+    private final Thread[] workers;
+    private volatile boolean disposed;
+
+    public ChunkIOScheduler() {
+        Priority[] priorities = Priority.values();
+
+        //generic arrays can't be created directly
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        ArrayDeque<ChunkTask>[] new_lanes = new ArrayDeque[priorities.length];
+
+        lanes = new_lanes;
+        for(int i = 0; i < lanes.length; i++)
+            lanes[i] = new ArrayDeque<ChunkTask>();
+
+        //one thread is busy with rendering, at least two workers so long task doesn't block center chunk
+        int threads_count = Math.min(4, Math.max(2, Runtime.getRuntime().availableProcessors() - 1));
+
+        final AtomicInteger index = new AtomicInteger();
+        Runnable worker_runnable = new Runnable() {
+            @Override
+            public void run() {
+                work();
+            }
+        };
+
+        workers = new Thread[threads_count];
+        for(int i = 0; i < threads_count; i++) {
+            workers[i] = new Thread(worker_runnable, "ChunkIO-Worker-" + index.getAndIncrement());
+            workers[i].setPriority(Thread.MIN_PRIORITY);
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+
+        Log.info("(ChunkIOScheduler) Started " + threads_count + " chunk I/O workers");
+    }
+
+    /**
+     * Add task to given lane
+     * @param runnable task
+     * @param priority lane
+     * @return task future or null if lane was full and task was rejected (or scheduler is disposed)
+     */
+    public Future<?> submit(Runnable runnable, Priority priority) {
+        ChunkTask task = new ChunkTask(runnable, priority);
+        ArrayDeque<ChunkTask> lane = lanes[priority.ordinal()];
+
+        lock.lock();
+        try {
+            while(lane.size() >= priority.capacity) {
+                if(!priority.block_when_full || disposed)
+                    return null;
+
+                not_full.await();
+            }
+
+            if(disposed)
+                return null;
+
+            lane.addLast(task);
+            not_empty.signal();
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } finally {
+            lock.unlock();
+        }
+
+        return task;
+    }
+
+    /**
+     * Choose lane for loading chunk at given position
+     * @param world world instance
+     * @param chunk_position world pos of chunk
+     * @return CENTER for center chunk, VISIBLE for other chunks of chunks window and PREFETCH for chunks out of window
+     */
+    public static Priority getLoadPriority(World world, Vector2 chunk_position) {
+        WorldChunk[][] chunks = world.getWorldChunks();
+
+        //chunks window is still being created
+        if(chunks == null || chunks[0][0] == null || world.getCenterChunk() == null)
+            return Priority.VISIBLE;
+
+        if(world.getCenterChunk().getPosition().equals(chunk_position))
+            return Priority.CENTER;
+
+        Vector2 zero_chunk_position = chunks[0][0].getPosition();
+
+        int x = (int) (chunk_position.x - zero_chunk_position.x) / World.CHUNK_WORLD_SIZE;
+        int y = (int) (chunk_position.y - zero_chunk_position.y) / World.CHUNK_WORLD_SIZE;
+
+        if(chunk_position.x >= zero_chunk_position.x && chunk_position.y >= zero_chunk_position.y && x < chunks.length && y < chunks[0].length)
+            return Priority.VISIBLE;
+
+        return Priority.PREFETCH;
+    }
+
+    /**
+     * @return amount of waiting tasks in all lanes
+     */
+    public int getQueuedCount() {
+        lock.lock();
+        try {
+            int count = 0;
+            for(int i = 0; i < lanes.length; i++)
+                count += lanes[i].size();
+
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param priority lane
+     * @return amount of waiting tasks in given lane
+     */
+    public int getQueuedCount(Priority priority) {
+        lock.lock();
+        try {
+            return lanes[priority.ordinal()].size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stop workers, waiting tasks are cancelled
+     */
+    public void dispose() {
+        Array<ChunkTask> waiting_tasks = new Array<ChunkTask>();
+
+        lock.lock();
+        try {
+            disposed = true;
+
+            for(int i = 0; i < lanes.length; i++) {
+                waiting_tasks.addAll(lanes[i].toArray(new ChunkTask[0]));
+                lanes[i].clear();
+            }
+
+            not_empty.signalAll();
+            not_full.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        for(int i = 0; i < waiting_tasks.size; i++)
+            waiting_tasks.get(i).cancel(false);
+
+        for(int i = 0; i < workers.length; i++)
+            workers[i].interrupt();
+    }
+
+    private void work() {
+        while(!disposed) {
+            ChunkTask task;
+
+            lock.lock();
+            try {
+                task = pollTask();
+
+                while(task == null) {
+                    if(disposed)
+                        return;
+
+                    not_empty.await();
+                    task = pollTask();
+                }
+            } catch(InterruptedException e) {
+                continue;
+            } finally {
+                lock.unlock();
+            }
+
+            task.run();
+
+            //don't let interrupt of cancelled task leak into next task
+            Thread.interrupted();
+        }
+    }
+
+    /**
+     * Take task from most important non empty lane, lock has to be held
+     */
+    private ChunkTask pollTask() {
+        for(int i = 0; i < lanes.length; i++) {
+            ChunkTask task = lanes[i].pollFirst();
+
+            if(task != null) {
+                not_full.signalAll();
+                return task;
+            }
+        }
+
+        return null;
+    }
+
+    private void removeTask(ChunkTask task) {
+        lock.lock();
+        try {
+            if(lanes[task.priority.ordinal()].remove(task))
+                not_full.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
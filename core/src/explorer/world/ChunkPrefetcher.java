@@ -0,0 +1,155 @@
+package explorer.world;
+
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.LongMap;
+import com.esotericsoftware.minlog.Log;
+
+import java.util.concurrent.Future;
+
+import explorer.game.framework.Game;
+import explorer.world.chunk.WorldChunk;
+import explorer.world.object.objects.player.Player;
+
+/**
+ * Looks at player velocity and when player is going to leave center chunk soon starts loading chunks that will enter chunks window after that
+ * (next column and/or row) through ChunkDataProvider.prefetchChunkData(), so when chunks window moves they are already decoded in cache
+ * Prefetching of chunks that are no longer ahead of player (player changed direction or stopped) is cancelled
+ */
+
+public class ChunkPrefetcher {
+
+    /**
+     * Player has to move faster than this (world units per second) on some axis to prefetch chunks in that direction
+     */
+    public static final float MIN_SPEED = 50f;
+
+    /**
+     * How much time ahead (in seconds) we look, it has to cover delay before chunks window moves (World.load_chunk_after) and loading time
+     */
+    public static final float LOOKAHEAD_TIME = 2.5f;
+
+    private World world;
+    private Game game;
+
+    /**
+     * Running prefetching tasks by chunk coords
+     */
+    private LongMap<Future<?>> pending;
+
+    /**
+     * Chunks that should be prefetched in current tick (chunk x already wrapped around planet)
+     */
+    private LongMap<Boolean> targets;
+
+    /**
+     * Position passed to prefetchChunkData(), reused for every target
+     */
+    private Vector2 target_position;
+
+    public ChunkPrefetcher(World world, Game game) {
+        this.world = world;
+        this.game = game;
+
+        pending = new LongMap<Future<?>>();
+        targets = new LongMap<Boolean>();
+        target_position = new Vector2();
+    }
+
+    /**
+     * Update prefetching, call it every world tick after chunks window was updated
+     * @param player player which movement is predicted
+     */
+    public void tick(Player player) {
+        targets.clear();
+
+        WorldChunk center_chunk = world.getCenterChunk();
+        int radius = world.getChunksRadius();
+
+        int center_x = (int) center_chunk.getPosition().x / World.CHUNK_WORLD_SIZE;
+        int center_y = (int) center_chunk.getPosition().y / World.CHUNK_WORLD_SIZE;
+
+        int direction_x = getDirection(player.getPosition().x, player.getVelocity().x, center_chunk.getPosition().x);
+        int direction_y = getDirection(player.getPosition().y, player.getVelocity().y, center_chunk.getPosition().y);
+
+        //column that will enter window after moving in x direction
+        if(direction_x != 0) {
+            for(int j = -radius; j <= radius; j++)
+                addTarget(center_x + direction_x * (radius + 1), center_y + j + direction_y);
+        }
+
+        //row that will enter window after moving in y direction
+        if(direction_y != 0) {
+            for(int i = -radius; i <= radius; i++)
+                addTarget(center_x + i + direction_x, center_y + direction_y * (radius + 1));
+        }
+
+        //cancel prefetching of chunks that are not ahead of player anymore and forget finished tasks
+        LongMap.Keys keys = pending.keys();
+        while(keys.hasNext) {
+            long key = keys.next();
+            Future<?> future = pending.get(key);
+
+            if(!targets.containsKey(key)) {
+                if(!future.isDone()) {
+                    Log.debug("(ChunkPrefetcher) Cancelling prefetch of chunk (" + (int) (key >> 32) + ", " + (int) key + ")");
+                    future.cancel(true);
+                }
+
+                keys.remove();
+            }
+        }
+
+        //start prefetching of new targets
+        LongMap.Keys target_keys = targets.keys();
+        while(target_keys.hasNext) {
+            long key = target_keys.next();
+            if(pending.containsKey(key))
+                continue;
+
+            target_position.set((int) (key >> 32) * World.CHUNK_WORLD_SIZE, (int) key * World.CHUNK_WORLD_SIZE);
+
+            Future<?> future = world.getChunksDataProvider().prefetchChunkData(target_position, world, game);
+            if(future != null)
+                pending.put(key, future);
+        }
+    }
+
+    /**
+     * Cancel all prefetching tasks
+     */
+    public void cancelAll() {
+        for(Future<?> future : pending.values())
+            future.cancel(true);
+
+        pending.clear();
+    }
+
+    /**
+     * @return -1/1 if player will leave center chunk in that direction in LOOKAHEAD_TIME, 0 otherwise
+     */
+    private static int getDirection(float position, float velocity, float chunk_start) {
+        if(Math.abs(velocity) < MIN_SPEED)
+            return 0;
+
+        float predicted_position = position + velocity * LOOKAHEAD_TIME;
+
+        if(velocity > 0 && predicted_position >= chunk_start + World.CHUNK_WORLD_SIZE)
+            return 1;
+        else if(velocity < 0 && predicted_position < chunk_start)
+            return -1;
+
+        return 0;
+    }
+
+    private void addTarget(int chunk_x, int chunk_y) {
+        //chunks window never goes into negative positions (see World.tick())
+        if(chunk_x < 0 || chunk_y < 0)
+            return;
+
+        //window can be past planet width, chunks there are same as at start of planet
+        chunk_x %= world.getPlanetProperties().PLANET_SIZE;
+
+        long key = ((long) chunk_x << 32) | (chunk_y & 0xFFFFFFFFL);
+        targets.put(key, Boolean.TRUE);
+    }
+}
@@ -0,0 +1,336 @@
+package explorer.world;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.LongMap;
+import com.esotericsoftware.minlog.Log;
+
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import explorer.game.framework.utils.metrics.Metrics;
+
+/**
+ * Write-behind queue for chunk saves
+ * Saves are stored in memory by chunk coords (newer save of same chunk replaces older one) and written to disk every flush interval (and on dispose),
+ * so player walking back and forth over chunk border doesn't write same chunk again and again, loads should ask getPending() first
+ * Saves can be snapshots that weren't encoded yet (see {@link ChunkSnapshot}), they are encoded by flush (or by first load that asks for them)
+ * After dispose nothing flushes queue anymore so late saves are written right away by thread that saves them
+ */
+
+public class ChunkSaveQueue {
+
+    /**
+     * Interface to class that really writes chunk bytes somewhere
+     */
+    public interface ChunkWriter {
+        void write(int chunk_x, int chunk_y, byte[] chunk_bytes) throws IOException;
+    }
+
+    /**
+     * Save waiting for flush with callbacks of every save request it replaced
+     */
+    private static class PendingSave {
+        final ChunkSnapshot snapshot;
+        Array<ChunkDataProvider.DataSaved> callbacks;
+
+        PendingSave(ChunkSnapshot snapshot) {
+            this.snapshot = snapshot;
+        }
+    }
+
+    /**
+     * Default time between flushes in milliseconds
+     */
+    public static final long DEFAULT_FLUSH_INTERVAL = 5000;
+
+    /**
+     * System property which can be used to change flush interval (f.e. -Dexplorer.chunk_save_interval=10000)
+     */
+    public static final String FLUSH_INTERVAL_PROPERTY = "explorer.chunk_save_interval";
+
+    private final String name;
+    private final ChunkWriter writer;
+
+    /**
+     * Saves that weren't written yet and saves that are being written right now by flush()
+     */
+    private LongMap<PendingSave> pending;
+    private LongMap<PendingSave> writing;
+
+    /**
+     * Only one flush can run at time
+     */
+    private final Object flush_lock = new Object();
+
+    private ScheduledExecutorService flusher;
+
+    /**
+     * True after dispose(), guarded by this
+     */
+    private boolean disposed;
+
+    /**
+     * Statistics
+     */
+    private final AtomicLong requested_count = new AtomicLong();
+    private final AtomicLong written_count = new AtomicLong();
+
+    /**
+     * Create new save queue with flush interval from FLUSH_INTERVAL_PROPERTY (or default one)
+     * @param name name used in logs and flusher thread name
+     * @param writer writer used to write chunk bytes
+     */
+    public ChunkSaveQueue(String name, ChunkWriter writer) {
+        this(name, writer, Long.getLong(FLUSH_INTERVAL_PROPERTY, DEFAULT_FLUSH_INTERVAL), null);
+    }
+
+    /**
+     * Create new save queue with flush interval from FLUSH_INTERVAL_PROPERTY (or default one) which writes chunks on SAVE lane of chunk I/O scheduler
+     * @param name name used in logs and flusher thread name
+     * @param writer writer used to write chunk bytes
+     * @param scheduler scheduler which runs periodic flushes
+     */
+    public ChunkSaveQueue(String name, ChunkWriter writer, ChunkIOScheduler scheduler) {
+        this(name, writer, Long.getLong(FLUSH_INTERVAL_PROPERTY, DEFAULT_FLUSH_INTERVAL), scheduler);
+    }
+
+    /**
+     * Create new save queue
+     * @param name name used in logs and flusher thread name
+     * @param writer writer used to write chunk bytes
+     * @param flush_interval time between flushes in milliseconds
+     * @param scheduler scheduler which runs periodic flushes (on SAVE lane, so writing never delays loading of chunks) or null to flush on flusher thread
+     */
+    public ChunkSaveQueue(final String name, ChunkWriter writer, long flush_interval, final ChunkIOScheduler scheduler) {
+        this.name = name;
+        this.writer = writer;
+
+        pending = new LongMap<PendingSave>();
+
+        flusher = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread out = new Thread(runnable);
+                out.setDaemon(true);
+                out.setName("ChunkSaveQueue-" + name);
+
+                return out;
+            }
+        });
+
+        final Runnable flush_runnable = new Runnable() {
+            @Override
+            public void run() {
+                flush();
+            }
+        };
+
+        Runnable timer_runnable = flush_runnable;
+        if(scheduler != null) {
+            timer_runnable = new Runnable() {
+                @Override
+                public void run() {
+                    //when SAVE lane is full (disk is busy) just wait for next interval, saves stay pending in memory
+                    if(scheduler.submit(flush_runnable, ChunkIOScheduler.Priority.SAVE) == null)
+                        Log.debug("(ChunkSaveQueue) " + name + ": flush postponed, chunk I/O is busy");
+                }
+            };
+        }
+        flusher.scheduleWithFixedDelay(timer_runnable, flush_interval, flush_interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Add chunk save, older not written save of same chunk is replaced
+     * @param chunk_x chunk x (1 = World.CHUNK_WORLD_SIZE)
+     * @param chunk_y chunk y (1 = World.CHUNK_WORLD_SIZE)
+     * @param chunk_bytes chunk bytes
+     */
+    public void put(int chunk_x, int chunk_y, byte[] chunk_bytes) {
+        put(chunk_x, chunk_y, new ChunkSnapshot(chunk_bytes), null);
+    }
+
+    /**
+     * Add chunk save which will be encoded later, older not written save of same chunk is replaced
+     * @param chunk_x chunk x (1 = World.CHUNK_WORLD_SIZE)
+     * @param chunk_y chunk y (1 = World.CHUNK_WORLD_SIZE)
+     * @param snapshot chunk snapshot
+     * @param callback callback called after chunk was written (or after newer save of same chunk was written), can be null
+     */
+    public void put(int chunk_x, int chunk_y, ChunkSnapshot snapshot, ChunkDataProvider.DataSaved callback) {
+        boolean write_now;
+
+        synchronized (this) {
+            PendingSave save = new PendingSave(snapshot);
+
+            //replaced save is never written, its callbacks wait for this one
+            PendingSave old = pending.put(getKey(chunk_x, chunk_y), save);
+            if(old != null && old.callbacks != null)
+                save.callbacks = old.callbacks;
+
+            if(callback != null) {
+                if(save.callbacks == null)
+                    save.callbacks = new Array<ChunkDataProvider.DataSaved>(1);
+
+                save.callbacks.add(callback);
+            }
+
+            requested_count.incrementAndGet();
+            write_now = disposed;
+        }
+
+        //no more periodic or final flushes will come, don't let save wait in memory forever
+        if(write_now) {
+            Log.warn("(ChunkSaveQueue) " + name + ": chunk (" + chunk_x + ", " + chunk_y + ") saved after dispose, writing it now");
+            flush();
+        }
+    }
+
+    /**
+     * Get bytes of chunk save which wasn't written yet, snapshot that wasn't encoded yet is encoded now on caller thread
+     * @param chunk_x chunk x (1 = World.CHUNK_WORLD_SIZE)
+     * @param chunk_y chunk y (1 = World.CHUNK_WORLD_SIZE)
+     * @return chunk bytes or null if there is no pending save of given chunk
+     * @throws IOException when pending snapshot can't be encoded
+     */
+    public byte[] getPending(int chunk_x, int chunk_y) throws IOException {
+        ChunkSnapshot snapshot = getPendingSnapshot(chunk_x, chunk_y);
+
+        //encode outside of queue lock so saving doesn't wait for it
+        return (snapshot != null) ? snapshot.getBytes() : null;
+    }
+
+    /**
+     * Get snapshot of chunk save which wasn't written yet
+     * @param chunk_x chunk x (1 = World.CHUNK_WORLD_SIZE)
+     * @param chunk_y chunk y (1 = World.CHUNK_WORLD_SIZE)
+     * @return snapshot or null if there is no pending save of given chunk
+     */
+    public synchronized ChunkSnapshot getPendingSnapshot(int chunk_x, int chunk_y) {
+        long key = getKey(chunk_x, chunk_y);
+
+        PendingSave save = pending.get(key);
+        if(save == null && writing != null)
+            save = writing.get(key);
+
+        return (save != null) ? save.snapshot : null;
+    }
+
+    /**
+     * Write all pending saves now
+     */
+    public void flush() {
+        synchronized (flush_lock) {
+            LongMap<PendingSave> to_write;
+
+            synchronized (this) {
+                if(pending.size == 0)
+                    return;
+
+                to_write = pending;
+                writing = to_write;
+                pending = new LongMap<PendingSave>();
+            }
+
+            for(LongMap.Entry<PendingSave> entry : to_write.entries()) {
+                int chunk_x = (int) (entry.key >> 32);
+                int chunk_y = (int) entry.key;
+
+                byte[] chunk_bytes;
+                try {
+                    chunk_bytes = entry.value.snapshot.getBytes();
+                } catch(IOException e) {
+                    //encoding again won't help, keep whatever is already on disk
+                    Log.error("(ChunkSaveQueue) " + name + ": failed to encode chunk (" + chunk_x + ", " + chunk_y + "), save is dropped", e);
+                    continue;
+                }
+
+                try {
+                    long write_start = Metrics.startTimer();
+                    writer.write(chunk_x, chunk_y, chunk_bytes);
+                    Metrics.recordTime(Metrics.CHUNK_SAVE, write_start);
+
+                    written_count.incrementAndGet();
+
+                    Array<ChunkDataProvider.DataSaved> callbacks = entry.value.callbacks;
+                    if(callbacks != null) {
+                        for(int i = 0; i < callbacks.size; i++)
+                            callbacks.get(i).saved();
+                    }
+                } catch(Exception e) {
+                    synchronized (this) {
+                        //there is no next flush after dispose, changes of this chunk are lost
+                        if(disposed) {
+                            Log.error("(ChunkSaveQueue) " + name + ": failed to write chunk (" + chunk_x + ", " + chunk_y + ") in final flush, chunk changes are LOST", e);
+                            continue;
+                        }
+
+                        Log.error("(ChunkSaveQueue) " + name + ": failed to write chunk (" + chunk_x + ", " + chunk_y + "), will try again on next flush", e);
+
+                        //keep data for next flush if there is no newer save of this chunk
+                        PendingSave newer = pending.get(entry.key);
+
+                        if(newer == null) {
+                            pending.put(entry.key, entry.value);
+                        } else if(entry.value.callbacks != null) {
+                            //newer save is written instead, it calls callbacks of this one too
+                            if(newer.callbacks == null)
+                                newer.callbacks = new Array<ChunkDataProvider.DataSaved>(entry.value.callbacks.size);
+
+                            newer.callbacks.addAll(entry.value.callbacks);
+                        }
+                    }
+                }
+            }
+
+            synchronized (this) {
+                writing = null;
+            }
+        }
+    }
+
+    /**
+     * Stop periodic flushing and write everything that is still pending, saves added after this are written right away
+     */
+    public void dispose() {
+        flusher.shutdownNow();
+
+        //flush that is already running still requeues failed writes, final flush comes after it
+        synchronized (flush_lock) {
+            synchronized (this) {
+                disposed = true;
+            }
+            flush();
+        }
+
+        Log.info("(ChunkSaveQueue) " + name + ": stopped (save requests: " + requested_count.get() + ", chunks written: " + written_count.get() + ")");
+    }
+
+    /**
+     * @return amount of chunks waiting for flush
+     */
+    public synchronized int getPendingCount() {
+        return pending.size;
+    }
+
+    /**
+     * @return amount of save requests since queue was created
+     */
+    public long getRequestedCount() {
+        return requested_count.get();
+    }
+
+    /**
+     * @return amount of chunk writes since queue was created (requested - written = saves saved by coalescing)
+     */
+    public long getWrittenCount() {
+        return written_count.get();
+    }
+
+    private static long getKey(int chunk_x, int chunk_y) {
+        return ((long) chunk_x << 32) | (chunk_y & 0xFFFFFFFFL);
+    }
+}
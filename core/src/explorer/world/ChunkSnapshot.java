@@ -0,0 +1,137 @@
+package explorer.world;
+
+import java.io.IOException;
+
+import explorer.world.chunk.PalettedBlockLayer;
+import explorer.world.chunk.WorldChunk;
+import explorer.world.codec.ChunkCodec;
+
+/**
+ * Saved state of chunk which is encoded into chunk bytes later on other thread
+ *
+ * Only cheap part of saving happens on thread that saves chunk (copying block layers and writing objects, objects can't be touched from other threads),
+ * serializing of blocks and compression are done when bytes are needed for the first time (by save queue flush or by load of same chunk)
+ * Layers of snapshot are never changed after it is created so they can be shared (f.e. with chunk cache) without copying
+ */
+
+public class ChunkSnapshot {
+
+    private final int chunk_x, chunk_y;
+    private final ChunkCodec codec;
+
+    private PalettedBlockLayer foreground_blocks;
+    private PalettedBlockLayer background_blocks;
+    private byte[] objects;
+
+    /**
+     * Encoded bytes, null until encode
+     */
+    private byte[] bytes;
+
+    /**
+     * Create snapshot from already encoded chunk bytes (f.e. chunk received from network)
+     * @param bytes encoded chunk bytes
+     */
+    public ChunkSnapshot(byte[] bytes) {
+        this.bytes = bytes;
+
+        chunk_x = 0;
+        chunk_y = 0;
+        codec = null;
+    }
+
+    /**
+     * Create snapshot from chunk data, given layers can't be changed after this
+     * @param foreground_blocks foreground blocks layer
+     * @param background_blocks background blocks layer
+     * @param objects objects bytes written by ChunkDataSerializer.objectsToBytes()
+     * @param chunk_x chunk x (1 = World.CHUNK_WORLD_SIZE, already wrapped around planet)
+     * @param chunk_y chunk y (1 = World.CHUNK_WORLD_SIZE)
+     * @param codec codec used to compress data
+     */
+    public ChunkSnapshot(PalettedBlockLayer foreground_blocks, PalettedBlockLayer background_blocks, byte[] objects, int chunk_x, int chunk_y, ChunkCodec codec) {
+        this.foreground_blocks = foreground_blocks;
+        this.background_blocks = background_blocks;
+        this.objects = objects;
+        this.chunk_x = chunk_x;
+        this.chunk_y = chunk_y;
+        this.codec = codec;
+    }
+
+    /**
+     * Create snapshot from decoded chunk bytes, both decoded and encoded data are available right away
+     * @param foreground_blocks foreground blocks layer
+     * @param background_blocks background blocks layer
+     * @param objects objects bytes
+     * @param bytes encoded chunk bytes which layers and objects come from
+     */
+    ChunkSnapshot(PalettedBlockLayer foreground_blocks, PalettedBlockLayer background_blocks, byte[] objects, byte[] bytes) {
+        this.foreground_blocks = foreground_blocks;
+        this.background_blocks = background_blocks;
+        this.objects = objects;
+        this.bytes = bytes;
+
+        chunk_x = 0;
+        chunk_y = 0;
+        codec = null;
+    }
+
+    /**
+     * Copy blocks and saveable objects of chunk, has to be called on thread that owns chunk
+     * @param chunk chunk
+     * @param chunk_x chunk x (1 = World.CHUNK_WORLD_SIZE, already wrapped around planet)
+     * @param chunk_y chunk y (1 = World.CHUNK_WORLD_SIZE)
+     * @param codec codec used to compress data
+     * @return new snapshot
+     * @throws IOException when objects can't be written
+     */
+    public static ChunkSnapshot of(WorldChunk chunk, int chunk_x, int chunk_y, ChunkCodec codec) throws IOException {
+        return new ChunkSnapshot(chunk.getBlocks().toPalettedLayer(false), chunk.getBlocks().toPalettedLayer(true), ChunkDataSerializer.objectsToBytes(chunk.getObjects(), true), chunk_x, chunk_y, codec);
+    }
+
+    /**
+     * Get encoded chunk bytes (same as ChunkDataSerializer.toBytes() output), encoded only once no matter how many threads ask for them
+     * Snapshot drops its layers after encoding so pending saves don't keep decoded chunks in memory
+     * @return encoded chunk bytes
+     * @throws IOException when chunk can't be encoded
+     */
+    public synchronized byte[] getBytes() throws IOException {
+        if(bytes == null) {
+            bytes = ChunkDataSerializer.toBytes(foreground_blocks, background_blocks, objects, chunk_x, chunk_y, codec);
+
+            foreground_blocks = null;
+            background_blocks = null;
+            objects = null;
+        }
+
+        return bytes;
+    }
+
+    /**
+     * @return foreground blocks layer (don't change it) or null if snapshot was already encoded or was created from encoded bytes
+     */
+    public synchronized PalettedBlockLayer getForegroundBlocks() {
+        return foreground_blocks;
+    }
+
+    /**
+     * @return background blocks layer (don't change it) or null if snapshot was already encoded or was created from encoded bytes
+     */
+    public synchronized PalettedBlockLayer getBackgroundBlocks() {
+        return background_blocks;
+    }
+
+    /**
+     * @return objects bytes (see ChunkDataSerializer.objectsToBytes()) or null if snapshot was already encoded or was created from encoded bytes
+     */
+    public synchronized byte[] getObjects() {
+        return objects;
+    }
+
+    /**
+     * @return true if snapshot was already encoded
+     */
+    public synchronized boolean isEncoded() {
+        return bytes != null;
+    }
+}
@@ -1,11 +1,11 @@
 package explorer.world;
 
 import com.badlogic.gdx.math.Vector2;
-import com.badlogic.gdx.utils.Array;
 
 import java.util.concurrent.Future;
 
 import explorer.game.framework.Game;
+import explorer.world.planet.generator.ColumnHeightsCache;
 import explorer.world.planet.generator.HeightsGenerator;
 import explorer.world.object.objects.TestObject;
 
@@ -15,8 +15,9 @@ import explorer.world.object.objects.TestObject;
 
 public class PerlinNoiseDataProvider extends ChunkDataProvider {
 
-    //private HeightsGenerator heights_generator;
-    private Array<HeightsGenerator> heights_generators;
+    //heights generator is reentrant so one instance is enough, its heights are computed once per chunk column
+    private HeightsGenerator heights_generator;
+    private ColumnHeightsCache heights_cache;
 
     private World world;
 
@@ -27,7 +28,8 @@ public class PerlinNoiseDataProvider extends ChunkDataProvider {
     public PerlinNoiseDataProvider(World world) {
         this.world = world;
 
-        heights_generators = new Array<HeightsGenerator>();
+        heights_generator = new HeightsGenerator(AMPLITUDE, OCTAVES, ROUGHNESS, world.getPlanetProperties().PLANET_SEED);
+        heights_cache = new ColumnHeightsCache(heights_generator, world.getPlanetProperties().PLANET_SIZE);
 
         //PlanetGeneratorProperties properties = world.getPlanetProperties().PLANET_TYPE.GENERATOR_PROPERTIES;
         //AMPLITUDE = (world.getPlanetProperties().random.nextFloat() * (properties.MAX_AMPLITUDE - properties.MIN_AMPLITUDE)) + properties.MIN_AMPLITUDE;
@@ -37,20 +39,6 @@ public class PerlinNoiseDataProvider extends ChunkDataProvider {
         System.out.println("A: " + AMPLITUDE + " O: " + OCTAVES + " R: " + ROUGHNESS);
     }
 
-    private synchronized HeightsGenerator get() {
-        if(heights_generators.size > 0) {
-            HeightsGenerator out = heights_generators.get(0);
-            heights_generators.removeIndex(0);
-
-            return out;
-        } else {
-            return new HeightsGenerator(AMPLITUDE, OCTAVES, ROUGHNESS, world.getPlanetProperties().PLANET_SEED);
-        }
-    }
-    private synchronized void free(HeightsGenerator generator) {
-        heights_generators.add(generator);
-    }
-
     @Override
     public Future<?> getChunkData(final DataLoaded callback, final Vector2 chunk_position, final World world, final Game game) {
         Runnable r = new Runnable() {
@@ -60,21 +48,19 @@ public class PerlinNoiseDataProvider extends ChunkDataProvider {
                 int chunk_pos_x = (int) chunk_position.x / World.CHUNK_WORLD_SIZE;
                 int chunk_pos_y = (int) chunk_position.y / World.CHUNK_WORLD_SIZE;
 
-                HeightsGenerator heights_generator = get();
-
                 int planet_width = world.getPlanetProperties().PLANET_SIZE;
                 chunk_pos_x %= planet_width;
 
-                for (int i = 0; i < out.foreground_blocks.length; i++) {
-                    int y = (int) heights_generator.generateHeight(i + (chunk_pos_x * World.CHUNK_SIZE), 0) + 100;
+                float[] heights = heights_cache.getChunkHeights(chunk_pos_x);
+
+                for (int i = 0; i < World.CHUNK_SIZE; i++) {
+                    int y = (int) heights[i] + 100;
 
-                    for (int j = 0; j < out.foreground_blocks[0].length; j++) {
-                        if ((j + (chunk_pos_y * World.CHUNK_SIZE)) > y)
-                            out.foreground_blocks[i][j] = 1;
-                        else
-                            out.foreground_blocks[i][j] = 2;
+                    for (int j = 0; j < World.CHUNK_SIZE; j++) {
+                        int block_id = ((j + (chunk_pos_y * World.CHUNK_SIZE)) > y) ? 1 : 2;
 
-                        out.background_blocks[i][j] = out.foreground_blocks[i][j];
+                        out.foreground_blocks.set(i, j, block_id);
+                        out.background_blocks.set(i, j, block_id);
 
                         if ((j + (chunk_pos_y * World.CHUNK_SIZE)) == y) {
                             //use some noise func to check if can spawn never again use random!
@@ -85,12 +71,14 @@ public class PerlinNoiseDataProvider extends ChunkDataProvider {
                     }
                 }
 
-                free(heights_generator);
+                out.foreground_blocks.compact();
+                out.background_blocks.compact();
+
                 callback.loaded(out);
             }
         };
 
-        return game.getThreadPool().runTaskFuture(r);
+        return game.getChunkIOScheduler().submit(r, ChunkIOScheduler.getLoadPriority(world, chunk_position));
     }
 
     @Override
@@ -0,0 +1,465 @@
+package explorer.world;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.LongMap;
+import com.badlogic.gdx.utils.TimeUtils;
+import com.esotericsoftware.minlog.Log;
+
+import java.io.IOException;
+import java.util.concurrent.Future;
+
+import explorer.game.framework.Game;
+import explorer.game.framework.utils.metrics.Metrics;
+import explorer.world.chunk.WorldChunk;
+
+/**
+ * Chunk data provider that stores chunks in region files (see {@link RegionFile}) instead of one file per chunk,
+ * so whole planet is just few files which stay open for whole game
+ */
+
+public class RegionChunkDataProvider extends ChunkDataProvider {
+
+    /**
+     * Directory (relative to world dir) where region files are stored
+     */
+    public static final String REGIONS_DIR = "regions/";
+
+    private String world_dir;
+
+    /**
+     * Currently opened region files by region coords
+     */
+    private final LongMap<RegionFile> regions;
+
+    /**
+     * Saves waiting to be written into regions
+     */
+    private final ChunkSaveQueue save_queue;
+
+    /**
+     * Corrupted chunks which couldn't be backed up, they are never written so corrupted record stays in region until someone recovers it, guarded by itself
+     */
+    private final LongMap<Boolean> unsaveable_chunks;
+
+    /**
+     * True after dispose(), regions are not opened again after that, guarded by regions
+     */
+    private boolean disposed;
+
+    /**
+     * Create new region chunk data provider
+     * @param world_dir world directory, this method assume that world_dir ends with "/" symbol
+     * @param scheduler chunk I/O scheduler which runs writing of saved chunks
+     */
+    public RegionChunkDataProvider(String world_dir, ChunkIOScheduler scheduler) {
+        this.world_dir = world_dir;
+
+        regions = new LongMap<RegionFile>();
+        unsaveable_chunks = new LongMap<Boolean>();
+
+        ChunkSaveQueue.ChunkWriter writer = new ChunkSaveQueue.ChunkWriter() {
+            @Override
+            public void write(int chunk_x, int chunk_y, byte[] chunk_bytes) throws IOException {
+                writeChunkBytes(chunk_x, chunk_y, chunk_bytes);
+            }
+        };
+        save_queue = new ChunkSaveQueue("Region", writer, scheduler);
+    }
+
+    /**
+     * @return queue used to store pending saves
+     */
+    public ChunkSaveQueue getSaveQueue() {
+        return save_queue;
+    }
+
+    public String getWorldDir() {
+        return world_dir;
+    }
+
+    /**
+     * Move every old x_y.chunk file from world directory into region files, chunk files are deleted after they are stored in region
+     * Files that can't be read are not migrated (they would get valid checksum in region), they are moved to REGIONS_DIR as .corrupt files
+     * same as corrupted region records so chunk is generated again and old file can still be recovered
+     * @return amount of migrated chunks
+     */
+    public int migrateChunkFiles() {
+        FileHandle dir = Gdx.files.local(world_dir);
+        if(!dir.exists())
+            return 0;
+
+        long start_time = System.currentTimeMillis();
+        int migrated = 0;
+
+        for(FileHandle handle : dir.list(".chunk")) {
+            String[] coords = handle.nameWithoutExtension().split("_");
+            if(coords.length != 2)
+                continue;
+
+            try {
+                int x = Integer.parseInt(coords[0]);
+                int y = Integer.parseInt(coords[1]);
+
+                byte[] bytes = handle.readBytes();
+
+                try {
+                    ChunkDataSerializer.validate(bytes);
+                } catch(IOException e) {
+                    Log.error("(RegionChunkDataProvider) Chunk file " + handle.name() + " is corrupted, it is not migrated", e);
+                    keepCorruptedChunkFile(handle, x, y);
+                    continue;
+                }
+
+                writeChunkBytes(x, y, ChunkChecksum.strip(bytes));
+                handle.delete();
+
+                migrated++;
+            } catch(NumberFormatException e) {
+                Log.error("(RegionChunkDataProvider) Unknown chunk file name: " + handle.name());
+            } catch(IOException e) {
+                Log.error("(RegionChunkDataProvider) Failed to migrate chunk file: " + handle.name(), e);
+            } catch(GdxRuntimeException e) {
+                Log.error("(RegionChunkDataProvider) Failed to read chunk file: " + handle.name(), e);
+            }
+        }
+
+        if(migrated > 0)
+            Log.info("(RegionChunkDataProvider) Migrated " + migrated + " chunk files into regions (Time: " + TimeUtils.timeSinceMillis(start_time) + "ms)");
+
+        return migrated;
+    }
+
+    /**
+     * Move corrupted chunk file next to corrupted region records backups (REGIONS_DIR/x_y_time.corrupt), if move fails file stays where it is
+     * @param handle chunk file
+     * @param chunk_x chunk x (1 = World.CHUNK_WORLD_SIZE)
+     * @param chunk_y chunk y (1 = World.CHUNK_WORLD_SIZE)
+     */
+    private void keepCorruptedChunkFile(FileHandle handle, int chunk_x, int chunk_y) {
+        try {
+            FileHandle backup = Gdx.files.local(world_dir + REGIONS_DIR + chunk_x + "_" + chunk_y + "_" + System.currentTimeMillis() + ".corrupt");
+            backup.parent().mkdirs();
+            handle.moveTo(backup);
+
+            Log.info("(RegionChunkDataProvider) Corrupted chunk file " + handle.name() + " was moved to " + backup.path());
+        } catch(GdxRuntimeException e) {
+            Log.error("(RegionChunkDataProvider) Failed to move corrupted chunk file " + handle.name() + ", it stays in world directory", e);
+        }
+    }
+
+    /**
+     * Read raw (compressed) chunk bytes
+     * @param chunk_x chunk x (1 = World.CHUNK_WORLD_SIZE, already wrapped around planet)
+     * @param chunk_y chunk y (1 = World.CHUNK_WORLD_SIZE)
+     * @return chunk bytes or null if chunk wasn't saved yet
+     * @throws IOException
+     */
+    public byte[] readChunkBytes(int chunk_x, int chunk_y) throws IOException {
+        while(true) {
+            RegionFile region = getRegion(chunk_x, chunk_y);
+
+            synchronized (region) {
+                //region could be closed by dispose() in meantime, then just open it again
+                if(region.isClosed())
+                    continue;
+
+                return region.read(getLocalCoord(chunk_x), getLocalCoord(chunk_y));
+            }
+        }
+    }
+
+    /**
+     * Write raw (compressed) chunk bytes
+     * @param chunk_x chunk x (1 = World.CHUNK_WORLD_SIZE, already wrapped around planet)
+     * @param chunk_y chunk y (1 = World.CHUNK_WORLD_SIZE)
+     * @param bytes chunk bytes
+     * @throws IOException
+     */
+    public void writeChunkBytes(int chunk_x, int chunk_y, byte[] bytes) throws IOException {
+        while(true) {
+            RegionFile region = getRegion(chunk_x, chunk_y);
+
+            synchronized (region) {
+                if(region.isClosed())
+                    continue;
+
+                region.write(getLocalCoord(chunk_x), getLocalCoord(chunk_y), bytes);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Write raw (compressed) chunk bytes only if region doesn't contain given chunk yet
+     * @param chunk_x chunk x (1 = World.CHUNK_WORLD_SIZE, already wrapped around planet)
+     * @param chunk_y chunk y (1 = World.CHUNK_WORLD_SIZE)
+     * @param bytes chunk bytes
+     * @return true if bytes were written
+     * @throws IOException
+     */
+    public boolean writeChunkBytesIfMissing(int chunk_x, int chunk_y, byte[] bytes) throws IOException {
+        while(true) {
+            RegionFile region = getRegion(chunk_x, chunk_y);
+
+            synchronized (region) {
+                if(region.isClosed())
+                    continue;
+
+                if(region.contains(getLocalCoord(chunk_x), getLocalCoord(chunk_y)))
+                    return false;
+
+                region.write(getLocalCoord(chunk_x), getLocalCoord(chunk_y), bytes);
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public Future<?> getChunkData(final DataLoaded callback, final Vector2 chunk_position, final World world, final Game game) {
+        int x = (int) chunk_position.x / World.CHUNK_WORLD_SIZE;
+        final int y = (int) chunk_position.y / World.CHUNK_WORLD_SIZE;
+
+        int planet_width = world.getPlanetProperties().PLANET_SIZE;
+        final int chunk_x = x % planet_width;
+
+        Runnable r = new Runnable() {
+            @Override
+            public void run() {
+                long loading_start = System.currentTimeMillis();
+
+                ChunkData data = new ChunkData();
+
+                try {
+                    //chunk could be saved recently and not written to region yet
+                    byte[] bytes = save_queue.getPending(chunk_x, y);
+                    if(bytes == null)
+                        bytes = readChunkBytes(chunk_x, y);
+
+                    if(bytes == null) {
+                        //chunk is requested for the first time so generate it now
+                        if(generate_missing_chunks && canGenerateChunk(y, world)) {
+                            callback.loaded(generateChunk(chunk_x, y, world, true));
+                            return;
+                        }
+
+                        //if this chunk wasn't saved yet return empty chunk with all blocks as air
+                        data.foreground_blocks.fill(world.getBlocks().AIR.getBlockID());
+                        data.background_blocks.fill(world.getBlocks().AIR.getBlockID());
+
+                        data.chunk_loaded_position = new Vector2(chunk_position);
+                        data.chunk_loaded_position.x %= world.getPlanetProperties().PLANET_SIZE * World.CHUNK_WORLD_SIZE;
+
+                        callback.loaded(data);
+                        return;
+                    }
+
+                    ChunkDataSerializer.fromBytes(bytes, data, world, game);
+                } catch(IOException e) {
+                    //never write over corrupted record before there is copy of it
+                    if(backupCorruptedChunk(chunk_x, y)) {
+                        Log.error("(RegionChunkDataProvider) Chunk (" + chunk_x + ", " + y + ") is corrupted, regenerating it", e);
+                        data = generateChunk(chunk_x, y, world, true);
+                    } else {
+                        Log.error("(RegionChunkDataProvider) Chunk (" + chunk_x + ", " + y + ") is corrupted and couldn't be backed up, it won't be saved", e);
+
+                        synchronized (unsaveable_chunks) {
+                            unsaveable_chunks.put(getKey(chunk_x, y), Boolean.TRUE);
+                        }
+                        data = generateChunk(chunk_x, y, world, false);
+                    }
+                } catch(InterruptedException e) {
+                    //loading was cancelled (chunk moved somewhere else) so just drop this data
+                    return;
+                }
+
+                Log.debug("(RegionChunkDataProvider) Reading chunk time: " + TimeUtils.timeSinceMillis(loading_start) + "ms");
+
+                //return loaded data to this method caller
+                callback.loaded(data);
+            }
+        };
+        return game.getChunkIOScheduler().submit(r, ChunkIOScheduler.getLoadPriority(world, chunk_position));
+    }
+
+    /**
+     * Copy corrupted record of chunk into REGIONS_DIR/x_y_time.corrupt file so it can be recovered after chunk is regenerated
+     * @param chunk_x chunk x (1 = World.CHUNK_WORLD_SIZE, already wrapped around planet)
+     * @param chunk_y chunk y (1 = World.CHUNK_WORLD_SIZE)
+     * @return true if record was copied (or region has no record of this chunk), false if chunk can't be written over
+     */
+    private boolean backupCorruptedChunk(int chunk_x, int chunk_y) {
+        try {
+            byte[] record;
+
+            while(true) {
+                RegionFile region = getRegion(chunk_x, chunk_y);
+
+                synchronized (region) {
+                    if(region.isClosed())
+                        continue;
+
+                    record = region.readRecord(getLocalCoord(chunk_x), getLocalCoord(chunk_y));
+                    break;
+                }
+            }
+
+            if(record == null)
+                return true;
+
+            FileHandle handle = Gdx.files.local(world_dir + REGIONS_DIR + chunk_x + "_" + chunk_y + "_" + System.currentTimeMillis() + ".corrupt");
+            handle.writeBytes(record, false);
+
+            Log.info("(RegionChunkDataProvider) Corrupted chunk (" + chunk_x + ", " + chunk_y + ") was copied to " + handle.path());
+            return true;
+        } catch(IOException e) {
+            Log.error("(RegionChunkDataProvider) Failed to read corrupted chunk (" + chunk_x + ", " + chunk_y + ")", e);
+        } catch(GdxRuntimeException e) {
+            Log.error("(RegionChunkDataProvider) Failed to back up corrupted chunk (" + chunk_x + ", " + chunk_y + ")", e);
+        }
+
+        return false;
+    }
+
+    /**
+     * Generate chunk (missing one or again instead of corrupted one) and store it through save queue, so loads that come after this see it right away
+     * @param chunk_x chunk x (1 = World.CHUNK_WORLD_SIZE, already wrapped around planet)
+     * @param chunk_y chunk y (1 = World.CHUNK_WORLD_SIZE)
+     * @param world world instance
+     * @param save true if new chunk should be stored
+     * @return new chunk data
+     */
+    private ChunkData generateChunk(int chunk_x, int chunk_y, World world, boolean save) {
+        long generate_start = Metrics.startTimer();
+
+        Vector2 chunk_position = new Vector2(chunk_x * World.CHUNK_WORLD_SIZE, chunk_y * World.CHUNK_WORLD_SIZE);
+        ChunkData data = world.getPlanetProperties().PLANET_TYPE.PLANET_GENERATOR.getChunkData(chunk_position);
+        data.chunk_loaded_position.set(chunk_position);
+
+        Metrics.recordTime(Metrics.CHUNK_GENERATE, generate_start);
+
+        if(save) {
+            try {
+                save_queue.put(chunk_x, chunk_y, ChunkDataSerializer.toBytes(data.foreground_blocks, data.background_blocks, data.objects, chunk_x, chunk_y, true, world.getChunkCodec()));
+            } catch(IOException e) {
+                Log.error("(RegionChunkDataProvider) Failed to save generated chunk (" + chunk_x + ", " + chunk_y + ")", e);
+            }
+        }
+
+        return data;
+    }
+
+    @Override
+    public ChunkSnapshot readChunkSnapshot(int chunk_x, int chunk_y) throws IOException {
+        //pending snapshot which wasn't encoded yet already has layers
+        ChunkSnapshot snapshot = save_queue.getPendingSnapshot(chunk_x, chunk_y);
+        if(snapshot != null && snapshot.getForegroundBlocks() != null)
+            return snapshot;
+
+        byte[] bytes = (snapshot != null) ? snapshot.getBytes() : readChunkBytes(chunk_x, chunk_y);
+
+        return (bytes != null) ? ChunkDataSerializer.snapshotFromBytes(bytes) : null;
+    }
+
+    @Override
+    public boolean generateChunkIfMissing(int chunk_x, int chunk_y, World world) throws IOException {
+        if(!canGenerateChunk(chunk_y, world) || save_queue.getPending(chunk_x, chunk_y) != null)
+            return false;
+
+        long generate_start = Metrics.startTimer();
+        byte[] bytes = world.getPlanetProperties().PLANET_TYPE.PLANET_GENERATOR.generateChunkBytes(new Vector2(chunk_x * World.CHUNK_WORLD_SIZE, chunk_y * World.CHUNK_WORLD_SIZE));
+        Metrics.recordTime(Metrics.CHUNK_GENERATE, generate_start);
+
+        return writeChunkBytesIfMissing(chunk_x, chunk_y, bytes);
+    }
+
+    @Override
+    public void saveChunkData(DataSaved callback, WorldChunk chunk, Vector2 chunk_pos, World world, Game game) {
+        int x = (int) chunk_pos.x / World.CHUNK_WORLD_SIZE;
+        int y = (int) chunk_pos.y / World.CHUNK_WORLD_SIZE;
+
+        int planet_width = world.getPlanetProperties().PLANET_SIZE;
+        int chunk_x = x % planet_width;
+
+        //only snapshot is taken here, it is encoded by save queue flush on chunk I/O worker (or by load of this chunk that comes before flush)
+        try {
+            saveChunkSnapshot(callback, ChunkSnapshot.of(chunk, chunk_x, y, world.getChunkCodec()), chunk_x, y);
+        } catch(IOException e) {
+            Log.error("(RegionChunkDataProvider) Failed to save chunk (" + chunk_x + ", " + y + ")", e);
+        }
+    }
+
+    @Override
+    public boolean saveChunkSnapshot(DataSaved callback, ChunkSnapshot snapshot, int chunk_x, int chunk_y) {
+        synchronized (unsaveable_chunks) {
+            if(unsaveable_chunks.containsKey(getKey(chunk_x, chunk_y))) {
+                Log.error("(RegionChunkDataProvider) Chunk (" + chunk_x + ", " + chunk_y + ") is not saved, its corrupted record couldn't be backed up");
+                return true;
+            }
+        }
+
+        save_queue.put(chunk_x, chunk_y, snapshot, callback);
+        return true;
+    }
+
+    @Override
+    public void dispose() {
+        //write everything that is still waiting before regions are closed
+        save_queue.dispose();
+
+        synchronized (regions) {
+            disposed = true;
+
+            for(RegionFile region : regions.values()) {
+                synchronized (region) {
+                    try {
+                        region.close();
+                    } catch (IOException e) {
+                        Log.error("(RegionChunkDataProvider) Failed to close region file", e);
+                    }
+                }
+            }
+
+            regions.clear();
+        }
+    }
+
+    private RegionFile getRegion(int chunk_x, int chunk_y) throws IOException {
+        int region_x = getRegionCoord(chunk_x);
+        int region_y = getRegionCoord(chunk_y);
+        long key = ((long) region_x << 32) | (region_y & 0xFFFFFFFFL);
+
+        synchronized (regions) {
+            //late SAVE or REMOTE task would open region again and nobody would ever close it
+            if(disposed)
+                throw new IOException("Chunk data provider is disposed, region (" + region_x + ", " + region_y + ") can't be opened");
+
+            RegionFile region = regions.get(key);
+
+            if(region == null || region.isClosed()) {
+                FileHandle handle = Gdx.files.local(world_dir + REGIONS_DIR + "r_" + region_x + "_" + region_y + ".region");
+                handle.parent().mkdirs();
+
+                region = new RegionFile(handle.file());
+                regions.put(key, region);
+            }
+
+            return region;
+        }
+    }
+
+    private static long getKey(int chunk_x, int chunk_y) {
+        return ((long) chunk_x << 32) | (chunk_y & 0xFFFFFFFFL);
+    }
+
+    private static int getRegionCoord(int chunk_coord) {
+        //round towards negative infinity so negative chunks get their own regions
+        return (chunk_coord >= 0) ? chunk_coord / RegionFile.REGION_SIZE : -((-chunk_coord - 1) / RegionFile.REGION_SIZE) - 1;
+    }
+
+    private static int getLocalCoord(int chunk_coord) {
+        return chunk_coord - getRegionCoord(chunk_coord) * RegionFile.REGION_SIZE;
+    }
+}
@@ -0,0 +1,249 @@
+package explorer.world;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.BitSet;
+
+/**
+ * One file that stores REGION_SIZE x REGION_SIZE chunks
+ * File starts with header (table of (first sector, length in bytes) pairs, one for each chunk) which is memory mapped,
+ * after it chunks data is stored in SECTOR_SIZE sectors, every chunk takes continuous run of sectors
+ *
+ * Every record ends with checksum trailer (see {@link ChunkChecksum}) and records are never overwritten in place,
+ * new data goes to free sectors and header starts pointing at it only after it was written,
+ * so crash during save leaves old record or record that fails checksum validation, never mix of both
+ * Record data is forced to disk before header points at it and header is forced before old sectors can be reused,
+ * so header on disk never points at unwritten sectors or at sectors of other chunk
+ */
+
+public class RegionFile {
+
+    /**
+     * Amount of chunks in one region side
+     */
+    public static final int REGION_SIZE = 16;
+
+    /**
+     * Size of one sector in bytes
+     */
+    public static final int SECTOR_SIZE = 512;
+
+    /**
+     * Amount of chunks in one region file
+     */
+    private static final int CHUNKS_COUNT = REGION_SIZE * REGION_SIZE;
+
+    /**
+     * Size of header in bytes (two ints per chunk) and in sectors
+     */
+    private static final int HEADER_SIZE = CHUNKS_COUNT * 8;
+    private static final int HEADER_SECTORS = HEADER_SIZE / SECTOR_SIZE;
+
+    private RandomAccessFile file;
+    private FileChannel channel;
+
+    /**
+     * Memory mapped header
+     */
+    private MappedByteBuffer header;
+
+    /**
+     * Sectors that are used by some chunk (or header)
+     */
+    private BitSet used_sectors;
+
+    private boolean closed;
+
+    /**
+     * Open (or create if it doesn't exist) region file
+     * @param path path to region file
+     * @throws IOException when file can't be opened or its header is broken
+     */
+    public RegionFile(File path) throws IOException {
+        file = new RandomAccessFile(path, "rw");
+        channel = file.getChannel();
+
+        //mapping also extends file to header size if file is new
+        header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+
+        used_sectors = new BitSet();
+        used_sectors.set(0, HEADER_SECTORS);
+
+        long file_sectors = (channel.size() + SECTOR_SIZE - 1) / SECTOR_SIZE;
+
+        for(int i = 0; i < CHUNKS_COUNT; i++) {
+            int sector = header.getInt(i * 8);
+            int length = header.getInt(i * 8 + 4);
+
+            if(length == 0)
+                continue;
+
+            int sectors = getSectorsCount(length);
+            if(sector < HEADER_SECTORS || length < 0 || sector + sectors > file_sectors) {
+                //entry points outside of file (f.e. game was killed while saving) so just forget about this chunk
+                header.putInt(i * 8, 0);
+                header.putInt(i * 8 + 4, 0);
+                continue;
+            }
+
+            used_sectors.set(sector, sector + sectors);
+        }
+    }
+
+    /**
+     * @param local_x chunk x inside region (0 - REGION_SIZE)
+     * @param local_y chunk y inside region (0 - REGION_SIZE)
+     * @return true if region contains data for given chunk
+     */
+    public synchronized boolean contains(int local_x, int local_y) {
+        return header.getInt(getEntryOffset(local_x, local_y) + 4) != 0;
+    }
+
+    /**
+     * Read chunk data and validate its checksum
+     * @param local_x chunk x inside region (0 - REGION_SIZE)
+     * @param local_y chunk y inside region (0 - REGION_SIZE)
+     * @return chunk bytes (without checksum trailer) or null if there is no data for given chunk
+     * @throws IOException when record can't be read or is corrupted
+     */
+    public synchronized byte[] read(int local_x, int local_y) throws IOException {
+        byte[] record = readRecord(local_x, local_y);
+
+        return (record != null) ? ChunkChecksum.strip(record, true) : null;
+    }
+
+    /**
+     * Read chunk record as it is stored (with checksum trailer), without any validation (f.e. to keep copy of corrupted record)
+     * @param local_x chunk x inside region (0 - REGION_SIZE)
+     * @param local_y chunk y inside region (0 - REGION_SIZE)
+     * @return record bytes or null if there is no data for given chunk
+     * @throws IOException when record can't be read
+     */
+    public synchronized byte[] readRecord(int local_x, int local_y) throws IOException {
+        int entry = getEntryOffset(local_x, local_y);
+        int sector = header.getInt(entry);
+        int length = header.getInt(entry + 4);
+
+        if(length == 0)
+            return null;
+
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        long position = (long) sector * SECTOR_SIZE;
+
+        while(buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+
+            if(read == -1)
+                throw new IOException("Unexpected end of region file (chunk: " + local_x + ", " + local_y + ")");
+        }
+
+        return buffer.array();
+    }
+
+    /**
+     * Write chunk data with checksum trailer, data always goes to first free run of sectors (or new sectors at end of file)
+     * and old sectors of this chunk are freed only after header that points to new ones is on disk
+     * @param local_x chunk x inside region (0 - REGION_SIZE)
+     * @param local_y chunk y inside region (0 - REGION_SIZE)
+     * @param data chunk bytes
+     * @throws IOException
+     */
+    public synchronized void write(int local_x, int local_y, byte[] data) throws IOException {
+        byte[] record = ChunkChecksum.append(data);
+
+        int entry = getEntryOffset(local_x, local_y);
+        int old_sector = header.getInt(entry);
+        int old_sectors = getSectorsCount(header.getInt(entry + 4));
+
+        int sectors = getSectorsCount(record.length);
+        int sector = findFreeSectors(sectors);
+
+        ByteBuffer buffer = ByteBuffer.wrap(record);
+        long position = (long) sector * SECTOR_SIZE;
+
+        while(buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+
+        //record has to be on disk before header points at it
+        channel.force(false);
+
+        used_sectors.set(sector, sector + sectors);
+
+        header.putInt(entry, sector);
+        header.putInt(entry + 4, record.length);
+
+        //now old record can be reused, but only after header on disk doesn't point at it anymore
+        if(old_sectors > 0) {
+            header.force();
+            used_sectors.clear(old_sector, old_sector + old_sectors);
+        }
+    }
+
+    /**
+     * Remove chunk data from region
+     * @param local_x chunk x inside region (0 - REGION_SIZE)
+     * @param local_y chunk y inside region (0 - REGION_SIZE)
+     */
+    public synchronized void remove(int local_x, int local_y) {
+        int entry = getEntryOffset(local_x, local_y);
+        int sector = header.getInt(entry);
+        int sectors = getSectorsCount(header.getInt(entry + 4));
+
+        header.putInt(entry, 0);
+        header.putInt(entry + 4, 0);
+
+        if(sectors > 0) {
+            header.force();
+            used_sectors.clear(sector, sector + sectors);
+        }
+    }
+
+    /**
+     * Flush header to disk and close file, region can't be used after this
+     * @throws IOException
+     */
+    public synchronized void close() throws IOException {
+        if(closed)
+            return;
+
+        closed = true;
+
+        header.force();
+        channel.force(false);
+        file.close();
+    }
+
+    /**
+     * @return true if this region file was closed
+     */
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+    private int findFreeSectors(int count) {
+        int start = used_sectors.nextClearBit(HEADER_SECTORS);
+
+        while(true) {
+            int next_used = used_sectors.nextSetBit(start);
+
+            //no used sector after this free one so we can just use end of file
+            if(next_used == -1 || next_used - start >= count)
+                return start;
+
+            start = used_sectors.nextClearBit(next_used);
+        }
+    }
+
+    private static int getSectorsCount(int length) {
+        return (length + SECTOR_SIZE - 1) / SECTOR_SIZE;
+    }
+
+    private static int getEntryOffset(int local_x, int local_y) {
+        return (local_x * REGION_SIZE + local_y) * 8;
+    }
+}
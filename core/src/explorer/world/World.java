@@ -18,14 +18,15 @@ import org.apache.commons.lang3.SerializationUtils;
 
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicInteger;
 
 import explorer.game.framework.AssetsManager;
 import explorer.game.framework.Game;
 import explorer.game.framework.utils.ShaderFactory;
+import explorer.game.framework.utils.metrics.Metrics;
 import explorer.game.screen.gui.dialog.InfoDialog;
 import explorer.game.screen.screens.planet.PlanetGUIScreen;
 import explorer.game.screen.screens.planet.PlanetScreen;
@@ -44,6 +45,7 @@ import explorer.network.world.ChunkDataRequestsHandler;
 import explorer.network.world.ClientChunkDataRequestsHandler;
 import explorer.world.block.Blocks;
 import explorer.world.chunk.WorldChunk;
+import explorer.world.codec.ChunkCodec;
 import explorer.world.lighting.LightEngine;
 import explorer.world.object.StaticWorldObject;
 import explorer.world.object.WorldObject;
@@ -66,20 +68,52 @@ public class World {
 
     public static final int CHUNK_WORLD_SIZE = CHUNK_SIZE * BLOCK_SIZE;
 
+    /**
+     * Default amount of chunks loaded around center chunk in every direction (1 = 3x3 chunks window)
+     */
+    public static final int DEFAULT_CHUNKS_RADIUS = 1;
+
+    /**
+     * System property which can be used to load bigger chunks window (f.e. -Dexplorer.chunks_radius=2 for 5x5 chunks)
+     */
+    public static final String CHUNKS_RADIUS_PROPERTY = "explorer.chunks_radius";
+
+    /**
+     * System property which makes new planets generated whole before player can play on them (-Dexplorer.pregenerate_planet=true),
+     * by default chunks are generated when they are requested for the first time
+     */
+    public static final String PREGENERATE_PLANET_PROPERTY = "explorer.pregenerate_planet";
+
+    /**
+     * System property with radius (in chunks) of area around player spawn which is generated in background after planet is loaded (f.e. -Dexplorer.pregenerate_radius=8), 0 turns it off
+     */
+    public static final String PREGENERATE_RADIUS_PROPERTY = "explorer.pregenerate_radius";
+    public static final int DEFAULT_PREGENERATE_RADIUS = 0;
+
     /**
      * Special variable that we take care of in world objects tick() method where we will calculate given world object behaviour or wait for it from network if given client is not 'local host of local region'
      */
     public static boolean SIMULATE_LOGIC = true;
 
     /**
-     * All chunks that are in memory
+     * All chunks that are in memory, chunks[i][j] is chunk at (i - chunks_radius, j - chunks_radius) from center chunk
      */
     private explorer.world.chunk.WorldChunk[][] chunks;
 
+    /**
+     * Amount of chunks loaded around center chunk in every direction
+     */
+    private int chunks_radius;
+
     /**
      * Determines in milis how long wait with chunks loading when player is on new chunk
      */
     private long load_chunk_after = 1000;
+
+    /**
+     * Loads chunks ahead of moving player so chunks window doesn't have to wait for them
+     */
+    private ChunkPrefetcher chunk_prefetcher;
     /**
      * Last time when player changed chunk
      */
@@ -109,6 +143,11 @@ public class World {
      */
     private AtomicBoolean generating;
 
+    /**
+     * Running (or finished) generation of this planet or of area around spawn, null if nothing had to be generated
+     */
+    private WorldGenerationJob generation_job;
+
     /**
      * Flat that determines if world is initializated
      */
@@ -145,6 +184,16 @@ public class World {
      */
     protected ChunkDataProvider data_provider;
 
+    /**
+     * Region files of this planet, used by single player provider (behind cache) and directly by host request handlers, null on clients
+     */
+    private RegionChunkDataProvider chunk_storage;
+
+    /**
+     * Codec used to compress chunk bytes (stored in world properties file)
+     */
+    private ChunkCodec chunk_codec = ChunkCodec.getDefault();
+
     /**
      * World light engine
      */
@@ -180,6 +229,11 @@ public class World {
      */
     private Array<Player> server_players;
 
+    /**
+     * Batch reused by every single block change that is sent to other players (see WorldChunk.setBlock()), guarded by itself
+     */
+    private final BlockEditBatch single_block_edit = new BlockEditBatch(this);
+
     /** DEBUG **/
     private ShapeRenderer shape_renderer;
 
@@ -218,16 +272,28 @@ public class World {
         //load blocks
         blocks = new Blocks(this, game);
 
+        //server (single player or host) stores chunks in region files
+        if(!Game.IS_CLIENT) {
+            chunk_storage = new RegionChunkDataProvider(getWorldDirectory(planet_seed), game.getChunkIOScheduler());
+
+            //move chunks saved by older versions (one file per chunk) into region files, after that chunk files are gone so this is done only once
+            chunk_storage.migrateChunkFiles();
+        }
+
         //create chunk data provider
         if(Game.IS_CLIENT) {
             data_provider = new NetworkChunkDataProvider(game, this);
         } else if(Game.IS_HOST) {
             data_provider = new HostNetworkChunkDataProvider(game, this);
         } else {
-            data_provider = new FileChunkDataProvider();
-            ((FileChunkDataProvider) data_provider).setWorldDir(getWorldDirectory(planet_seed));
+            //keep recently used chunks decoded in memory, in single player nobody else can change chunks behind cache back
+            data_provider = new CachedChunkDataProvider(chunk_storage);
         }
 
+        //server (single player or host) generates chunks when they are requested for the first time
+        if(!Game.IS_CLIENT)
+            data_provider.setGenerateMissingChunks(true);
+
         client_request_handler = new ClientChunkDataRequestsHandler(this, game);
 
         final World world = this;
@@ -255,6 +321,8 @@ public class World {
             listener = new Listener() {
                 @Override
                 public void disconnected(Connection connection) {
+                    server_request_handler.connectionClosed(connection.getID());
+
                     //destroy player clone
                     for(int i = 0; i < server_players.size; i++) {
                         if(server_players.get(i).getRepresentingPlayer().connection_id == connection.getID()) {
@@ -303,6 +371,10 @@ public class World {
                                 }
                             }
                         }
+                    } else if(o instanceof NetworkClasses.BlocksChangedPacket) {
+                        //apply it like client and send it to other players if it wasn't dropped
+                        if(applyBlocksChangedPacket((NetworkClasses.BlocksChangedPacket) o))
+                            game.getGameServer().getServer().sendToAllExceptTCP(connection.getID(), o);
                     } else if(o instanceof NetworkClasses.ObjectRemovedPacket) {
                         NetworkClasses.ObjectRemovedPacket removed_object_packet = (NetworkClasses.ObjectRemovedPacket) o;
 
@@ -358,7 +430,7 @@ public class World {
                         Runnable create_object_runnable = new Runnable() {
                             @Override
                             public void run() {
-                                WorldObject instance = FileChunkDataProvider.createInstanceFromClass(new_object_packet.new_object_class_name, new Vector2(new_object_packet.x, new_object_packet.y), World.this, game);
+                                WorldObject instance = ChunkDataSerializer.createInstanceFromClass(new_object_packet.new_object_class_name, new Vector2(new_object_packet.x, new_object_packet.y), World.this, game);
                                 if(instance != null) {
                                     instance.OBJECT_ID = new_object_packet.OBJECT_ID;
 
@@ -538,6 +610,8 @@ public class World {
                                 }
                             }
                         }
+                    } else if(o instanceof NetworkClasses.BlocksChangedPacket) {
+                        applyBlocksChangedPacket((NetworkClasses.BlocksChangedPacket) o);
                     } else if(o instanceof NetworkClasses.ObjectRemovedPacket) {
                         NetworkClasses.ObjectRemovedPacket removed_object_packet = (NetworkClasses.ObjectRemovedPacket) o;
 
@@ -568,7 +642,7 @@ public class World {
                         Runnable instantine_runnable = new Runnable() {
                             @Override
                             public void run() {
-                                WorldObject instance = FileChunkDataProvider.createInstanceFromClass(new_object_packet.new_object_class_name, new Vector2(new_object_packet.x, new_object_packet.y), World.this, game);
+                                WorldObject instance = ChunkDataSerializer.createInstanceFromClass(new_object_packet.new_object_class_name, new Vector2(new_object_packet.x, new_object_packet.y), World.this, game);
                                 if(instance != null) {
                                     instance.OBJECT_ID = new_object_packet.OBJECT_ID;
 
@@ -707,7 +781,8 @@ public class World {
         }
 
         //create chunks instances
-        chunks = new explorer.world.chunk.WorldChunk[3][3];
+        chunks_radius = Math.max(1, Integer.getInteger(CHUNKS_RADIUS_PROPERTY, DEFAULT_CHUNKS_RADIUS));
+        chunks = new explorer.world.chunk.WorldChunk[chunks_radius * 2 + 1][chunks_radius * 2 + 1];
 
         for(int i = 0; i < chunks.length; i++) {
             for(int j = 0; j < chunks[0].length; j++) {
@@ -715,6 +790,8 @@ public class World {
             }
         }
 
+        chunk_prefetcher = new ChunkPrefetcher(this, game);
+
         //generate world if there is need for it
         generateWorldIfHaveTo();
 
@@ -728,6 +805,18 @@ public class World {
         shape_renderer = new ShapeRenderer();
     }
 
+    /**
+     * Init only things needed to generate, encode and decode chunks (planet properties with its generator, blocks), without rendering, physics, networking and chunks window
+     * Used by tools which run without window (f.e. benchmarks), don't call init() after it
+     */
+    public void initGeneratorOnly() {
+        planet_properties = new PlanetProperties(this, game, planet_seed);
+
+        IDAssigner.init(game, this);
+
+        blocks = new Blocks(this, game);
+    }
+
     /**
      * Get planet directory by its seed
      * @param seed
@@ -739,22 +828,29 @@ public class World {
 
 
     /**
-     * Generate this planet and save to file if this planet wasnt generated before
+     * Prepare planet directory and world info, chunks of new planet are generated when they are requested for the first time (see ChunkDataProvider.setGenerateMissingChunks())
+     * Whole planet is generated before game starts only when PREGENERATE_PLANET_PROPERTY is set (unfinished generation is resumed),
+     * unfinished generation of planet loaded without that property is abandoned but object ids it used stay reserved
      */
     protected void generateWorldIfHaveTo() {
-        //first check if this planet folder exists
+        //planet exists when its world info was saved, it is saved right after new planet is created or after whole planet generation finished
         final String world_dir = getWorldDirectory(getPlanetProperties().PLANET_SEED);
+        boolean new_planet = !Gdx.files.local(world_dir + "world.properties").exists();
+        boolean unfinished_generation = WorldGenerationJob.hasProgress(world_dir);
 
         FileHandle handle = Gdx.files.local(world_dir);
-        if((!handle.exists()) && !Game.IS_CLIENT || true) {
+        if((new_planet || unfinished_generation) && !Game.IS_CLIENT && Boolean.getBoolean(PREGENERATE_PLANET_PROPERTY)) {
             //so we have to generate our world, first create dir for this planet
             handle.mkdirs();
 
             //set generating flag
             generating.set(true);
 
-            //reset indexing stuff
-            IDAssigner.set(0);
+            //reset indexing stuff (generation job restores it when it resumes unfinished generation)
+            if(new_planet)
+                IDAssigner.set(0);
+            else
+                loadWorldInfoFromFile();
 
             //set this screen visible to false and show loading screen
             final PlanetScreen game_screen = game.getScreen(Screens.PLANET_SCREEN_NAME, PlanetScreen.class);
@@ -762,104 +858,178 @@ public class World {
 
             game_screen.setVisible(false);
             generating_screen.setVisible(true);
+            generating_screen.setProgress(0);
 
-            //run multithreaded world generation
+            //run multithreaded world generation, one task per chunk
             Log.info("(World) ------------\nGenerating world:");
 
-            //first split work into parts
             int threads = Runtime.getRuntime().availableProcessors();
             threads = (threads <= 0) ? 1 : threads;
-            final int threads_num = threads;
-            Log.info("(World) Threads generating count: " + threads_num);
-
-            //calc how much every thread rows have to generate
-            final int one_thread_x_width = Math.round((float) getPlanetProperties().PLANET_SIZE / (float) threads_num);
-            Log.info("(World) Work per thread: "+one_thread_x_width);
-
-            //thread safe for assigning indexes for working runnables and progress calculating
-            final AtomicInteger index_integer = new AtomicInteger(0);
-            final AtomicInteger done_integer = new AtomicInteger(0);
-
-            //store when world generator was started
-            final long start_generating_time = System.currentTimeMillis();
-
-            for(int i = 0; i < threads_num; i++) {
-                Runnable generating_runnable = new Runnable() {
-                    @Override
-                    public void run() {
-                        final int idx = index_integer.getAndAdd(1);
-
-                        for(int i = 0; i < one_thread_x_width; i++) {
-                            for(int j = 0; j < getPlanetProperties().PLANET_TYPE.PLANET_GENERATOR.getMaxHeight(); j++) {
-                                int chunk_index = idx * one_thread_x_width + i;
-                                if(chunk_index >= getPlanetProperties().PLANET_SIZE) {
-                                    continue;
-                                }
+            Log.info("(World) Threads generating count: " + threads);
+
+            WorldGenerationJob.ChunkGenerator chunk_generator = new WorldGenerationJob.ChunkGenerator() {
+                @Override
+                public boolean generate(int chunk_x, int chunk_y) {
+                    return generateAndSaveChunk(world_dir, new Vector2(chunk_x * World.CHUNK_WORLD_SIZE, chunk_y * World.CHUNK_WORLD_SIZE));
+                }
+            };
 
-                                Vector2 chunk_pos = new Vector2(chunk_index * World.CHUNK_WORLD_SIZE, j * World.CHUNK_WORLD_SIZE);
+            WorldGenerationJob.Listener job_listener = new WorldGenerationJob.Listener() {
+                @Override
+                public void progress(int done, int total) {
+                    //update generating progress
+                    generating_screen.setProgress((float) done / (float) total);
+                }
 
-                                String chunk_path = FileChunkDataProvider.getPathToChunkFile(world_dir, chunk_pos);
-                                getPlanetProperties().PLANET_TYPE.PLANET_GENERATOR.generateAndSaveChunk(chunk_path, chunk_pos);
-                            }
+                @Override
+                public void finished(WorldGenerationJob job) {
+                    //save world info to file
+                    saveWorldInfoToFile();
+
+                    generating_screen.setProgress(1);
+                    generating_screen.setVisible(false);
+                    game_screen.setVisible(true);
+
+                    //move by 0,0 to force chunks to load
+                    for(int i = 0; i < chunks.length; i++) {
+                        for(int j = 0; j < chunks[0].length; j++) {
+                            chunks[i][j].move(0, 0);
                         }
+                    }
 
-                        //update generating progress
-                        generating_screen.setProgress((float) done_integer.addAndGet(1) / (float) threads_num);
+                    //if we are server send info about current id assigner id
+                    int acc_index = IDAssigner.accValue();
 
-                        //if this is the last generating runnable show game screen again
-                        if(done_integer.get() == threads_num) {
-                            //save world info to file
-                            saveWorldInfoToFile();
+                    if(Game.IS_HOST) {
+                        NetworkClasses.UpdateCurrentIDAssignerValuePacket update_assigner_id_packet = new NetworkClasses.UpdateCurrentIDAssignerValuePacket();
+                        update_assigner_id_packet.new_current_id = acc_index + 1;
+                        game.getGameServer().getServer().sendToAllTCP(update_assigner_id_packet);
 
-                            Log.info("(World) Generating time: " + TimeUtils.timeSinceMillis(start_generating_time) + " milis" + "\n------------");
+                        NetworkClasses.UpdateGameTimePacket update_time_packet = new NetworkClasses.UpdateGameTimePacket();
+                        update_time_packet.new_time = World.TIME;
+                        game.getGameServer().getServer().sendToAllTCP(update_time_packet);
+                    }
 
-                            generating_screen.setVisible(false);
-                            game_screen.setVisible(true);
+                    Log.info("(World) ------------");
+                    generating.set(false);
 
-                            //move by 0,0 to force chunks to load
-                            for(int i = 0; i < chunks.length; i++) {
-                                for(int j = 0; j < chunks[0].length; j++) {
-                                    chunks[i][j].move(0, 0);
-                                }
-                            }
+                    //clients requests of chunks waited for generation
+                    if(server_request_handler != null)
+                        server_request_handler.generationFinished();
+                }
+            };
 
-                            //if we are server send info about current id assigner id
-                            int acc_index = IDAssigner.accValue();
+            generation_job = new WorldGenerationJob(world_dir, getPlanetProperties().PLANET_SIZE, getPlanetProperties().PLANET_TYPE.PLANET_GENERATOR.getMaxHeight(), chunk_generator, job_listener);
+            generation_job.start(threads);
+        } else {
+            //if there is no need for generating world or we are client just force chunks to load themselves (new chunks are generated by data provider) and load world properties file
+            if(!Game.IS_CLIENT) {
+                if(new_planet) {
+                    handle.mkdirs();
+                    IDAssigner.set(0);
+
+                    //objects of chunks generated by cancelled generation already have ids
+                    WorldGenerationJob.abandonProgress(world_dir);
+
+                    saveWorldInfoToFile();
+                    Log.info("(World) New planet, chunks will be generated when they are needed");
+                } else {
+                    loadWorldInfoFromFile();
+
+                    if(WorldGenerationJob.abandonProgress(world_dir))
+                        saveWorldInfoToFile();
+                }
+            }
 
-                            if(Game.IS_HOST) {
-                                NetworkClasses.UpdateCurrentIDAssignerValuePacket update_assigner_id_packet = new NetworkClasses.UpdateCurrentIDAssignerValuePacket();
-                                update_assigner_id_packet.new_current_id = acc_index + 1;
-                                game.getGameServer().getServer().sendToAllTCP(update_assigner_id_packet);
+            for(int i = 0; i < chunks.length; i++) {
+                for(int j = 0; j < chunks[0].length; j++) {
+                    chunks[i][j].move(0, 0);
+                }
+            }
 
-                                NetworkClasses.UpdateGameTimePacket update_time_packet = new NetworkClasses.UpdateGameTimePacket();
-                                update_time_packet.new_time = World.TIME;
-                                game.getGameServer().getServer().sendToAllTCP(update_time_packet);
-                            }
+            if(!Game.IS_CLIENT)
+                pregenerateAroundSpawn(world_dir);
+        }
 
-                            generating.set(false);
-                        }
-                    }
-                };
-                game.getThreadPool().runTask(generating_runnable);
-            }
+    }
 
-            if(one_thread_x_width * threads_num < getPlanetProperties().PLANET_SIZE) {
-                int diff = getPlanetProperties().PLANET_SIZE - (one_thread_x_width * threads_num);
+    /**
+     * Generate chunks around player spawn which weren't generated yet in background (radius from PREGENERATE_RADIUS_PROPERTY),
+     * so walking away from spawn doesn't have to wait for generating of chunks
+     * @param world_dir world directory
+     */
+    private void pregenerateAroundSpawn(String world_dir) {
+        int radius = Integer.getInteger(PREGENERATE_RADIUS_PROPERTY, DEFAULT_PREGENERATE_RADIUS);
+        if(radius <= 0)
+            return;
 
-                Log.debug("(World) Have to generate: " + diff);
-            }
-        } else {
-            //if there is no need for generating world or we are client just force chunks to load themselves and load world properties file
-            if(!Game.IS_CLIENT)
-                loadWorldInfoFromFile();
+        final int planet_width = getPlanetProperties().PLANET_SIZE;
+        int max_height = getPlanetProperties().PLANET_TYPE.PLANET_GENERATOR.getMaxHeight();
 
-            for(int i = 0; i < chunks.length; i++) {
-                for(int j = 0; j < chunks[0].length; j++) {
-                    chunks[i][j].move(0, 0);
+        Vector2 spawn = getPlanetProperties().PLANET_TYPE.PLANET_GENERATOR.getPlayerSpawn();
+        int spawn_x = (int) spawn.x / CHUNK_WORLD_SIZE;
+        int spawn_y = (int) spawn.y / CHUNK_WORLD_SIZE;
+
+        int width = Math.min(radius * 2 + 1, planet_width);
+        int from_y = Math.max(0, spawn_y - radius);
+        int to_y = Math.min(max_height - 1, spawn_y + radius);
+
+        if(to_y < from_y)
+            return;
+
+        WorldGenerationJob.ChunkGenerator chunk_generator = new WorldGenerationJob.ChunkGenerator() {
+            @Override
+            public boolean generate(int chunk_x, int chunk_y) {
+                //area can go over planet start/end
+                chunk_x = ((chunk_x % planet_width) + planet_width) % planet_width;
+
+                try {
+                    chunk_storage.generateChunkIfMissing(chunk_x, chunk_y, World.this);
+                    return true;
+                } catch(IOException e) {
+                    Log.error("(World) Failed to pre-generate chunk (" + chunk_x + ", " + chunk_y + ")", e);
+                    return false;
                 }
             }
+        };
+
+        WorldGenerationJob.Listener job_listener = new WorldGenerationJob.Listener() {
+            @Override
+            public void progress(int done, int total) {}
+
+            @Override
+            public void finished(WorldGenerationJob job) {
+                Log.info("(World) Pre-generation around spawn finished");
+            }
+        };
+
+        //leave one core for rendering thread, workers run with low priority so game stays smooth
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+
+        generation_job = new WorldGenerationJob(world_dir, null, spawn_x - width / 2, from_y, width, to_y - from_y + 1, chunk_generator, job_listener);
+        generation_job.setWorkerPriority(Thread.MIN_PRIORITY);
+        generation_job.start(threads);
+    }
+
+    /**
+     * Generate chunk and save it into region files of this planet (single player provider and host request handlers read chunks from there)
+     * @param world_dir world directory
+     * @param chunk_pos world pos of chunk
+     * @return false if chunk couldn't be saved
+     */
+    private boolean generateAndSaveChunk(String world_dir, Vector2 chunk_pos) {
+        int x = (int) chunk_pos.x / World.CHUNK_WORLD_SIZE;
+        int y = (int) chunk_pos.y / World.CHUNK_WORLD_SIZE;
+
+        try {
+            byte[] chunk_bytes = getPlanetProperties().PLANET_TYPE.PLANET_GENERATOR.generateChunkBytes(chunk_pos);
+            chunk_storage.writeChunkBytes(x, y, chunk_bytes);
+        } catch (IOException e) {
+            Log.error("(World) Failed to save generated chunk (" + x + ", " + y + ")", e);
+            return false;
         }
 
+        return true;
     }
 
     /**
@@ -875,6 +1045,9 @@ public class World {
             //write value from IDAssigner to next time properly assign id's to objects
             writer.writeInt(IDAssigner.accValue());
 
+            //chunk codec used by this world
+            writer.writeUTF(chunk_codec.getName());
+
             writer.close();
             Log.info("(World) Saving world info done!");
         } catch (IOException e) {
@@ -893,6 +1066,18 @@ public class World {
             int acc_id = reader.readInt();
             IDAssigner.set(acc_id);
 
+            //world properties files saved before codecs existed end here, such worlds just keep default codec
+            try {
+                ChunkCodec codec = ChunkCodec.forName(reader.readUTF());
+
+                if(codec != null)
+                    chunk_codec = codec;
+                else
+                    Log.error("(World) Unknown chunk codec in world info file, using: " + chunk_codec.getName());
+            } catch (EOFException e) {
+                Log.info("(World) World info file without chunk codec, using: " + chunk_codec.getName());
+            }
+
             reader.close();
             Log.info("(World) World info read successful! (Time: " + (TimeUtils.timeSinceMillis(start_time)) + "ms");
         } catch (IOException e) {
@@ -948,11 +1133,83 @@ public class World {
             object.getParentChunk().removeObject(object, notify_network);
     }
 
+    /**
+     * Start batch of block changes (see {@link BlockEditBatch})
+     * @return new empty batch
+     */
+    public BlockEditBatch beginBlockEdit() {
+        return new BlockEditBatch(this);
+    }
+
+    /**
+     * Get batch shared by single block changes so they don't create new batch every time, synchronize on it while it is used and leave it empty
+     * @return shared batch
+     */
+    public BlockEditBatch getSingleBlockEdit() {
+        return single_block_edit;
+    }
+
+    /**
+     * Apply block changes received from other player, changes of chunks that are not loaded are skipped
+     * @param packet packet with changes
+     * @return false if packet is malformed and was dropped
+     */
+    private boolean applyBlocksChangedPacket(NetworkClasses.BlocksChangedPacket packet) {
+        //packet comes from other player, don't let broken one write out of chunk arrays
+        if(!packet.isValid()) {
+            Log.warn("(World) Dropped malformed blocks changed packet");
+            return false;
+        }
+
+        BlockEditBatch batch = beginBlockEdit();
+
+        for(int k = 0; k < packet.new_block_ids.length; k++) {
+            search_loop:
+            for(int i = 0; i < chunks.length; i++) {
+                for(int j = 0; j < chunks[0].length; j++) {
+                    WorldChunk chunk = chunks[i][j];
+
+                    if(chunk.getGlobalChunkXIndex() == packet.chunks_x[k] && chunk.getGlobalChunkYIndex() == packet.chunks_y[k]) {
+                        short block = packet.blocks[k];
+                        batch.setBlock(chunk, NetworkClasses.BlocksChangedPacket.unpackX(block), NetworkClasses.BlocksChangedPacket.unpackY(block), packet.new_block_ids[k], NetworkClasses.BlocksChangedPacket.unpackBackground(block));
+
+                        break search_loop;
+                    }
+                }
+            }
+        }
+
+        //don't notify network because these changes came from network
+        batch.apply(false);
+        return true;
+    }
+
+    /**
+     * Swap data of chunks that finished loading into them, has to be called from GL thread (also while loading screen is shown)
+     */
+    public void publishLoadedChunks() {
+        for (int i = 0; i < chunks.length; i++) {
+            for (int j = 0; j < chunks[0].length; j++) {
+                chunks[i][j].publishLoadedData();
+            }
+        }
+    }
+
     /**
      * Tick world
      * @param delta delta time
      */
     public void tick(float delta) {
+        //swap in chunks that finished loading in background
+        publishLoadedChunks();
+
+        //calculate textures & ground lights of changed blocks
+        for (int i = 0; i < chunks.length; i++) {
+            for (int j = 0; j < chunks[0].length; j++) {
+                chunks[i][j].updateChangedTiles();
+            }
+        }
+
         //first check status about chunks if more than 70% procents of them are loading hide planet screen and show loading screen and wait until everything will be ready for playing a game
         if(isInitializated()) {
             int dirty_count = 0;
@@ -976,9 +1233,9 @@ public class World {
                 return;
             }
 
-            //if 1, 1 chunk is dirty we have to stop the game because chunk 1,1 is chunk where player is so we have to stop game to prevent from bugs
-            if(chunks[1][1].isDirty()) {
-                Log.info("(World) Showing loading screen because (1, 1) chunk is dirty");
+            //if center chunk is dirty we have to stop the game because center chunk is chunk where player is so we have to stop game to prevent from bugs
+            if(getCenterChunk().isDirty()) {
+                Log.info("(World) Showing loading screen because center chunk is dirty");
 
                 PlanetScreen game_screen = game.getScreen(Screens.PLANET_SCREEN_NAME, PlanetScreen.class);
                 WorldLoadingScreen loading_screen = game.getScreen(Screens.WORLD_LOADING_SCREEN_NAME, WorldLoadingScreen.class);
@@ -1041,7 +1298,7 @@ public class World {
         }
 
         /* CHUNKS FOLLOWING MECHANISM */
-        explorer.world.chunk.WorldChunk center_chunk = chunks[1][1];
+        explorer.world.chunk.WorldChunk center_chunk = getCenterChunk();
 
         int center_chunk_pos_x = (int) center_chunk.getPosition().x / CHUNK_WORLD_SIZE;
         int center_chunk_pos_y = (int) center_chunk.getPosition().y / CHUNK_WORLD_SIZE;
@@ -1087,8 +1344,11 @@ public class World {
         }
 
         //if chunk that will be new center is not loaded yet show loading screen load it and then move
-        if(chunks.length > (1 + move_factor_x) && (1 + move_factor_x) >= 0) {
-            if(getWorldChunks()[1 + move_factor_x][1].isDirty()) {
+        int new_center_x = chunks_radius + move_factor_x;
+        int new_center_y = chunks_radius + move_factor_y;
+
+        if(new_center_x >= 0 && new_center_x < chunks.length && new_center_y >= 0 && new_center_y < chunks[0].length) {
+            if(chunks[new_center_x][new_center_y].isDirty()) {
                 PlanetScreen game_screen = game.getScreen(Screens.PLANET_SCREEN_NAME, PlanetScreen.class);
                 WorldLoadingScreen loading_screen = game.getScreen(Screens.WORLD_LOADING_SCREEN_NAME, WorldLoadingScreen.class);
 
@@ -1101,244 +1361,16 @@ public class World {
         if(can_move && (System.currentTimeMillis() - last_time_chunk_changed > load_chunk_after)) {
             long time_start = System.currentTimeMillis();
 
-            //if we can move check if we can copy some chunks to save processing time
-            if(move_factor_x == -1 && move_factor_y == 0) {
-                //so we move to the left
-                if(chunks[2][0].isSaveRequest())
-                    getChunksDataProvider().saveChunkData(null, chunks[2][0], chunks[2][0].getPosition(), this, game);
-                if(chunks[2][1].isSaveRequest())
-                    getChunksDataProvider().saveChunkData(null, chunks[2][1], chunks[2][1].getPosition(), this, game);
-                if(chunks[2][2].isSaveRequest())
-                    getChunksDataProvider().saveChunkData(null, chunks[2][2], chunks[2][2].getPosition(), this, game);
-
-                chunks[2][0].dispose();
-                chunks[2][1].dispose();
-                chunks[2][2].dispose();
-
-                chunks[2][0].moveAndCopy(move_factor_x, move_factor_y, chunks[1][0]);
-                chunks[2][1].moveAndCopy(move_factor_x, move_factor_y, chunks[1][1]);
-                chunks[2][2].moveAndCopy(move_factor_x, move_factor_y, chunks[1][2]);
-
-                chunks[1][0].moveAndCopy(move_factor_x, move_factor_y, chunks[0][0]);
-                chunks[1][1].moveAndCopy(move_factor_x, move_factor_y, chunks[0][1]);
-                chunks[1][2].moveAndCopy(move_factor_x, move_factor_y, chunks[0][2]);
-
-                chunks[0][0].move(move_factor_x, move_factor_y);
-                chunks[0][1].move(move_factor_x, move_factor_y);
-                chunks[0][2].move(move_factor_x, move_factor_y);
-            } else if(move_factor_x == 1 && move_factor_y == 0) {
-                //right
-                if(chunks[0][0].isSaveRequest())
-                    getChunksDataProvider().saveChunkData(null, chunks[0][0], chunks[0][0].getPosition(), this, game);
-                if(chunks[0][1].isSaveRequest())
-                    getChunksDataProvider().saveChunkData(null, chunks[0][1], chunks[0][1].getPosition(), this, game);
-                if(chunks[0][2].isSaveRequest())
-                    getChunksDataProvider().saveChunkData(null, chunks[0][2], chunks[0][2].getPosition(), this, game);
-
-                chunks[0][0].dispose();
-                chunks[0][1].dispose();
-                chunks[0][2].dispose();
-
-                chunks[0][0].moveAndCopy(move_factor_x, move_factor_y, chunks[1][0]);
-                chunks[0][1].moveAndCopy(move_factor_x, move_factor_y, chunks[1][1]);
-                chunks[0][2].moveAndCopy(move_factor_x, move_factor_y, chunks[1][2]);
-
-                chunks[1][0].moveAndCopy(move_factor_x, move_factor_y, chunks[2][0]);
-                chunks[1][1].moveAndCopy(move_factor_x, move_factor_y, chunks[2][1]);
-                chunks[1][2].moveAndCopy(move_factor_x, move_factor_y, chunks[2][2]);
-
-                chunks[2][0].move(move_factor_x, move_factor_y);
-                chunks[2][1].move(move_factor_x, move_factor_y);
-                chunks[2][2].move(move_factor_x, move_factor_y);
-            } else if(move_factor_x == 0 && move_factor_y == 1) {
-                //up
-                if(chunks[0][0].isSaveRequest())
-                    getChunksDataProvider().saveChunkData(null, chunks[0][0], chunks[0][0].getPosition(), this, game);
-                if(chunks[1][0].isSaveRequest())
-                    getChunksDataProvider().saveChunkData(null, chunks[1][0], chunks[1][0].getPosition(), this, game);
-                if(chunks[2][0].isSaveRequest())
-                    getChunksDataProvider().saveChunkData(null, chunks[2][0], chunks[2][0].getPosition(), this, game);
-
-                chunks[0][0].dispose();
-                chunks[1][0].dispose();
-                chunks[2][0].dispose();
-
-                chunks[0][0].moveAndCopy(move_factor_x, move_factor_y, chunks[0][1]);
-                chunks[1][0].moveAndCopy(move_factor_x, move_factor_y, chunks[1][1]);
-                chunks[2][0].moveAndCopy(move_factor_x, move_factor_y, chunks[2][1]);
-
-                chunks[0][1].moveAndCopy(move_factor_x, move_factor_y, chunks[0][2]);
-                chunks[1][1].moveAndCopy(move_factor_x, move_factor_y, chunks[1][2]);
-                chunks[2][1].moveAndCopy(move_factor_x, move_factor_y, chunks[2][2]);
-
-                chunks[0][2].move(move_factor_x, move_factor_y);
-                chunks[1][2].move(move_factor_x, move_factor_y);
-                chunks[2][2].move(move_factor_x, move_factor_y);
-            } else if(move_factor_x == 0 && move_factor_y == -1) {
-                //down
-                if(chunks[0][2].isSaveRequest())
-                    getChunksDataProvider().saveChunkData(null, chunks[0][2], chunks[0][2].getPosition(), this, game);
-                if(chunks[1][2].isSaveRequest())
-                    getChunksDataProvider().saveChunkData(null, chunks[1][2], chunks[1][2].getPosition(), this, game);
-                if(chunks[2][2].isSaveRequest())
-                    getChunksDataProvider().saveChunkData(null, chunks[2][2], chunks[2][2].getPosition(), this, game);
-
-                chunks[0][2].dispose();
-                chunks[1][2].dispose();
-                chunks[2][2].dispose();
-
-                chunks[0][2].moveAndCopy(move_factor_x, move_factor_y, chunks[0][1]);
-                chunks[1][2].moveAndCopy(move_factor_x, move_factor_y, chunks[1][1]);
-                chunks[2][2].moveAndCopy(move_factor_x, move_factor_y, chunks[2][1]);
-
-                chunks[0][1].moveAndCopy(move_factor_x, move_factor_y, chunks[0][0]);
-                chunks[1][1].moveAndCopy(move_factor_x, move_factor_y, chunks[1][0]);
-                chunks[2][1].moveAndCopy(move_factor_x, move_factor_y, chunks[2][0]);
-
-                chunks[0][0].move(move_factor_x, move_factor_y);
-                chunks[1][0].move(move_factor_x, move_factor_y);
-                chunks[2][0].move(move_factor_x, move_factor_y);
-            }
-            /* CHUNKS DIAGONAL MOVING */
-            else if(move_factor_x == 1 && move_factor_y == 1) {
-                //right up
-                if(chunks[0][0].isSaveRequest())
-                    getChunksDataProvider().saveChunkData(null, chunks[0][0], chunks[0][0].getPosition(), this, game);
-                if(chunks[1][0].isSaveRequest())
-                    getChunksDataProvider().saveChunkData(null, chunks[1][0], chunks[1][0].getPosition(), this, game);
-                if(chunks[2][0].isSaveRequest())
-                    getChunksDataProvider().saveChunkData(null, chunks[2][0], chunks[2][0].getPosition(), this, game);
-                if(chunks[0][1].isSaveRequest())
-                    getChunksDataProvider().saveChunkData(null, chunks[0][1], chunks[0][1].getPosition(), this, game);
-                if(chunks[0][2].isSaveRequest())
-                    getChunksDataProvider().saveChunkData(null, chunks[0][2], chunks[0][2].getPosition(), this, game);
-
-                chunks[0][0].dispose();
-                chunks[1][0].dispose();
-                chunks[2][0].dispose();
-                chunks[0][1].dispose();
-                chunks[0][2].dispose();
-
-                //copy
-                chunks[0][0].moveAndCopy(move_factor_x, move_factor_y, chunks[1][1]);
-                chunks[1][0].moveAndCopy(move_factor_x, move_factor_y, chunks[2][1]);
-
-                chunks[0][1].moveAndCopy(move_factor_x, move_factor_y, chunks[1][2]);
-                chunks[1][1].moveAndCopy(move_factor_x, move_factor_y, chunks[2][2]);
-
-                //load
-                chunks[2][0].move(move_factor_x, move_factor_y);
-                chunks[2][1].move(move_factor_x, move_factor_y);
-
-                chunks[1][2].move(move_factor_x, move_factor_y);
-                chunks[2][2].move(move_factor_x, move_factor_y);
-
-                chunks[0][2].move(move_factor_x, move_factor_y);
-            } else if(move_factor_x == -1 && move_factor_y == 1) {
-                //left up
-                if(chunks[0][0].isSaveRequest())
-                    getChunksDataProvider().saveChunkData(null, chunks[0][0], chunks[0][0].getPosition(), this, game);
-                if(chunks[1][0].isSaveRequest())
-                    getChunksDataProvider().saveChunkData(null, chunks[1][0], chunks[1][0].getPosition(), this, game);
-                if(chunks[2][0].isSaveRequest())
-                    getChunksDataProvider().saveChunkData(null, chunks[2][0], chunks[2][0].getPosition(), this, game);
-                if(chunks[2][1].isSaveRequest())
-                    getChunksDataProvider().saveChunkData(null, chunks[2][1], chunks[2][1].getPosition(), this, game);
-                if(chunks[2][2].isSaveRequest())
-                    getChunksDataProvider().saveChunkData(null, chunks[2][2], chunks[2][2].getPosition(), this, game);
-
-                chunks[0][0].dispose();
-                chunks[1][0].dispose();
-                chunks[2][0].dispose();
-                chunks[2][1].dispose();
-                chunks[2][2].dispose();
-
-                //copy
-                chunks[1][0].moveAndCopy(move_factor_x, move_factor_y, chunks[0][1]);
-                chunks[2][0].moveAndCopy(move_factor_x, move_factor_y, chunks[1][1]);
-
-                chunks[2][1].moveAndCopy(move_factor_x, move_factor_y, chunks[1][2]);
-                chunks[1][1].moveAndCopy(move_factor_x, move_factor_y, chunks[0][2]);
-
-                //load
-                chunks[0][0].move(move_factor_x, move_factor_y);
-                chunks[0][1].move(move_factor_x, move_factor_y);
-                chunks[0][2].move(move_factor_x, move_factor_y);
-
-                chunks[1][2].move(move_factor_x, move_factor_y);
-                chunks[2][2].move(move_factor_x, move_factor_y);
-            } else if(move_factor_x == 1 && move_factor_y == -1) {
-                //right down
-                if(chunks[0][0].isSaveRequest())
-                    getChunksDataProvider().saveChunkData(null, chunks[0][0], chunks[0][0].getPosition(), this, game);
-                if(chunks[0][1].isSaveRequest())
-                    getChunksDataProvider().saveChunkData(null, chunks[0][1], chunks[0][1].getPosition(), this, game);
-                if(chunks[0][2].isSaveRequest())
-                    getChunksDataProvider().saveChunkData(null, chunks[0][2], chunks[0][2].getPosition(), this, game);
-                if(chunks[1][2].isSaveRequest())
-                    getChunksDataProvider().saveChunkData(null, chunks[1][2], chunks[1][2].getPosition(), this, game);
-                if(chunks[2][2].isSaveRequest())
-                    getChunksDataProvider().saveChunkData(null, chunks[2][2], chunks[2][2].getPosition(), this, game);
-
-                chunks[0][0].dispose();
-                chunks[0][1].dispose();
-                chunks[0][2].dispose();
-                chunks[1][2].dispose();
-                chunks[2][2].dispose();
-
-                //copy
-                chunks[0][2].moveAndCopy(move_factor_x, move_factor_y, chunks[1][1]);
-                chunks[1][2].moveAndCopy(move_factor_x, move_factor_y, chunks[2][1]);
-
-                chunks[0][1].moveAndCopy(move_factor_x, move_factor_y, chunks[1][0]);
-                chunks[1][1].moveAndCopy(move_factor_x, move_factor_y, chunks[2][0]);
-
-                //load
-                chunks[0][0].move(move_factor_x, move_factor_y);
-                chunks[1][0].move(move_factor_x, move_factor_y);
-                chunks[2][0].move(move_factor_x, move_factor_y);
-
-                chunks[2][1].move(move_factor_x, move_factor_y);
-                chunks[2][2].move(move_factor_x, move_factor_y);
-            } else if(move_factor_x == -1 && move_factor_y == -1) {
-                //left down
-                if(chunks[2][0].isSaveRequest())
-                    getChunksDataProvider().saveChunkData(null, chunks[2][0], chunks[2][0].getPosition(), this, game);
-                if(chunks[2][1].isSaveRequest())
-                    getChunksDataProvider().saveChunkData(null, chunks[2][1], chunks[2][1].getPosition(), this, game);
-                if(chunks[2][2].isSaveRequest())
-                    getChunksDataProvider().saveChunkData(null, chunks[2][2], chunks[2][2].getPosition(), this, game);
-                if(chunks[0][2].isSaveRequest())
-                    getChunksDataProvider().saveChunkData(null, chunks[0][2], chunks[0][2].getPosition(), this, game);
-                if(chunks[1][2].isSaveRequest())
-                    getChunksDataProvider().saveChunkData(null, chunks[1][2], chunks[1][2].getPosition(), this, game);
-
-                chunks[2][0].dispose();
-                chunks[2][1].dispose();
-                chunks[2][2].dispose();
-                chunks[0][2].dispose();
-                chunks[1][2].dispose();
-
-                //copy
-                chunks[1][2].moveAndCopy(move_factor_x, move_factor_y, chunks[0][1]);
-                chunks[2][2].moveAndCopy(move_factor_x, move_factor_y, chunks[1][1]);
-                chunks[2][1].moveAndCopy(move_factor_x, move_factor_y, chunks[1][0]);
-                chunks[1][1].moveAndCopy(move_factor_x, move_factor_y, chunks[0][0]);
-
-                //load
-                chunks[0][2].move(move_factor_x, move_factor_y);
-                chunks[0][1].move(move_factor_x, move_factor_y);
-                chunks[0][0].move(move_factor_x, move_factor_y);
-
-                chunks[2][0].move(move_factor_x, move_factor_y);
-                chunks[1][0].move(move_factor_x, move_factor_y);
+            //if new chunks window overlaps old one keep chunks that are still in window and load only new ones
+            if(Math.abs(move_factor_x) < chunks.length && Math.abs(move_factor_y) < chunks[0].length) {
+                shiftChunks(move_factor_x, move_factor_y);
             }
             /* CHUNKS TELEPORTING AND UPDATING STUFF */
             else {
                 //clear all ground light lights because they have to be recalculated again
                 getLightEngine().getGroundLineRenderer().getPositions().clear();
 
-                //this is used if we f.e. teleported so we have to load all 9 chunks
+                //this is used if we f.e. teleported so we have to load all chunks
                 for (int i = 0; i < chunks.length; i++) {
                     for (int j = 0; j < chunks[0].length; j++) {
                         //destroy chunks and its physics bodies because everything needs to be recalculated
@@ -1378,6 +1410,9 @@ public class World {
             }
         }
 
+        //start loading chunks that player is going to see soon
+        chunk_prefetcher.tick(player);
+
         //update server players
         for(int i = 0; i < server_players.size; i++) {
             server_players.get(i).tick(delta);
@@ -1387,7 +1422,9 @@ public class World {
         player.tick(delta);
 
         //physics step
+        long physics_start = Metrics.startTimer();
         physics_engine.tick(delta);
+        Metrics.recordTime(Metrics.PHYSICS_TICK, physics_start);
 
         //update sky
         getPlanetProperties().PLANET_TYPE.PLANET_BACKGROUND.tick(delta);
@@ -1398,6 +1435,73 @@ public class World {
         game.getScreen(Screens.PLANET_GUI_SCREEN_NAME, PlanetGUIScreen.class).tick(delta);
     }
 
+    /**
+     * Move chunks window by given amount of chunks, chunks that are still in window are only moved inside chunks array (they keep their blocks, objects and physics),
+     * chunks that fell out of window are saved, disposed and reused as new chunks on opposite side of window
+     * @param move_x amount of chunks on x axis (abs value has to be smaller than window width)
+     * @param move_y amount of chunks on y axis (abs value has to be smaller than window height)
+     */
+    private void shiftChunks(int move_x, int move_y) {
+        int size_x = chunks.length;
+        int size_y = chunks[0].length;
+
+        //position of new [0][0] chunk (1 = CHUNK_WORLD_SIZE)
+        int origin_x = (int) chunks[0][0].getPosition().x / CHUNK_WORLD_SIZE + move_x;
+        int origin_y = (int) chunks[0][0].getPosition().y / CHUNK_WORLD_SIZE + move_y;
+
+        explorer.world.chunk.WorldChunk[][] shifted = new explorer.world.chunk.WorldChunk[size_x][size_y];
+        Array<explorer.world.chunk.WorldChunk> free_chunks = new Array<explorer.world.chunk.WorldChunk>();
+
+        for(int i = 0; i < size_x; i++) {
+            for(int j = 0; j < size_y; j++) {
+                explorer.world.chunk.WorldChunk chunk = chunks[i][j];
+
+                int new_i = i - move_x;
+                int new_j = j - move_y;
+
+                if(new_i >= 0 && new_i < size_x && new_j >= 0 && new_j < size_y) {
+                    shifted[new_i][new_j] = chunk;
+                } else {
+                    if(chunk.isSaveRequest())
+                        getChunksDataProvider().saveChunkData(null, chunk, chunk.getPosition(), this, game);
+
+                    chunk.dispose();
+                    free_chunks.add(chunk);
+                }
+            }
+        }
+
+        //fill holes with chunks that fell out of window
+        boolean[][] have_to_load = new boolean[size_x][size_y];
+
+        for(int i = 0; i < size_x; i++) {
+            for(int j = 0; j < size_y; j++) {
+                if(shifted[i][j] == null) {
+                    shifted[i][j] = free_chunks.pop();
+                    have_to_load[i][j] = true;
+                }
+            }
+        }
+
+        //update chunks array before loading starts because loading uses neighbour chunks
+        for(int i = 0; i < size_x; i++) {
+            System.arraycopy(shifted[i], 0, chunks[i], 0, size_y);
+        }
+
+        for(int i = 0; i < size_x; i++) {
+            for(int j = 0; j < size_y; j++) {
+                if(!have_to_load[i][j])
+                    continue;
+
+                explorer.world.chunk.WorldChunk chunk = chunks[i][j];
+                int chunk_x = (int) chunk.getPosition().x / CHUNK_WORLD_SIZE;
+                int chunk_y = (int) chunk.getPosition().y / CHUNK_WORLD_SIZE;
+
+                chunk.move(origin_x + i - chunk_x, origin_y + j - chunk_y);
+            }
+        }
+    }
+
     /**
      * Render world
      * @param batch sprite batch instance
@@ -1407,7 +1511,9 @@ public class World {
             return;
 
         //first light map
+        long light_start = Metrics.startTimer();
         light_engine.render(batch);
+        Metrics.recordTime(Metrics.LIGHT_RENDER, light_start);
 
         //now rendering sprites combined with light map
         batch.setShader(combine_shader);
@@ -1429,12 +1535,14 @@ public class World {
         //next render world
         batch.setProjectionMatrix(game.getMainCamera().combined);
 
+        long chunks_start = Metrics.startTimer();
         for(int i = 0; i < chunks.length; i++) {
             for(int j = 0; j < chunks[0].length; j++) {
                 WorldChunk chunk = chunks[i][j];
                 chunk.render(batch);
             }
         }
+        Metrics.recordTime(Metrics.CHUNKS_RENDER, chunks_start);
 
         //render server players
         for(int i = 0; i < server_players.size; i++) {
@@ -1470,9 +1578,9 @@ public class World {
 
                 //pseudo render chunk
                 /*shape_renderer.setColor(Color.BLUE);
-                for(int ii = 0; ii < chunk.getBlocks().length; ii++) {
-                    for(int jj = 0; jj < chunk.getBlocks()[0].length; jj++) {
-                        int block = chunk.getBlocks()[ii][jj].getForegroundBlock();
+                for(int ii = 0; ii < World.CHUNK_SIZE; ii++) {
+                    for(int jj = 0; jj < World.CHUNK_SIZE; jj++) {
+                        int block = chunk.getBlocks().getForegroundBlockID(ii, jj);
 
                         //if is not air
                         if(block != getBlocks().AIR.getBlockID()) {
@@ -1495,6 +1603,10 @@ public class World {
      * Dispose this world instance (save world info, chunks, dispose shaders, remove server/client listeners etc)
      */
     public void dispose() {
+        //stop generation before chunk files are closed, it will be resumed when planet is loaded next time
+        if(generation_job != null)
+            generation_job.cancel();
+
         if(isInitializated() && player != null)
             player.dispose();
 
@@ -1504,12 +1616,31 @@ public class World {
         if(light_engine != null)
             light_engine.dispose();
 
+        if(chunks != null) {
+            for(int i = 0; i < chunks.length; i++) {
+                for(int j = 0; j < chunks[0].length; j++) {
+                    if(chunks[i][j] != null)
+                        chunks[i][j].disposeLayerTextures();
+                }
+            }
+        }
+
+        if(chunk_prefetcher != null)
+            chunk_prefetcher.cancelAll();
+
+        if(data_provider != null)
+            data_provider.dispose();
+
         if(Game.IS_HOST && listener != null) {
             game.getGameServer().getServer().removeListener(listener);
 
             if(getServerSaveChunkDataRequestsHandler() != null) {
                 getServerSaveChunkDataRequestsHandler().dispose();
             }
+
+            //single player storage is disposed with provider (cache), host one after last pending save was written into it
+            if(chunk_storage != null)
+                chunk_storage.dispose();
         } else if(Game.IS_CLIENT && listener != null) {
             game.getGameClient().getClient().removeListener(listener);
 
@@ -1529,6 +1660,20 @@ public class World {
         return chunks;
     }
 
+    /**
+     * @return chunk in center of chunks window (chunk where player is)
+     */
+    public WorldChunk getCenterChunk() {
+        return chunks[chunks_radius][chunks_radius];
+    }
+
+    /**
+     * @return amount of chunks loaded around center chunk in every direction (chunks window is (radius * 2 + 1) x (radius * 2 + 1))
+     */
+    public int getChunksRadius() {
+        return chunks_radius;
+    }
+
     /**
      * Get physics engine instance
      * @return physics engine
@@ -1561,6 +1706,22 @@ public class World {
         return data_provider;
     }
 
+    /**
+     * Get region files of this planet
+     * @return chunk storage or null if this is client (chunks are stored by server)
+     */
+    public RegionChunkDataProvider getChunkStorage() {
+        return chunk_storage;
+    }
+
+    /**
+     * Get codec used to compress chunk bytes in this world
+     * @return chunk codec
+     */
+    public ChunkCodec getChunkCodec() {
+        return chunk_codec;
+    }
+
     /**
      * Get light engine instance for this world
      * @return light engine instance
@@ -0,0 +1,437 @@
+package explorer.world;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.TimeUtils;
+import com.esotericsoftware.minlog.Log;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import explorer.world.object.WorldObject;
+
+/**
+ * Generation of whole planet (or rectangle of chunks) split into one task per chunk
+ * Workers take next not generated chunk from shared queue until it is empty, so fast workers just take more chunks instead of waiting for slow column stripes
+ * and every chunk of rectangle (width x height) is generated no matter how many workers there are
+ *
+ * Generated chunks are remembered in progress file in world directory (written every SAVE_PROGRESS_INTERVAL chunks and when job is cancelled),
+ * when generation of same planet is started again chunks from progress file are skipped, progress file is deleted after every chunk was generated
+ * Jobs without progress file (f.e. pre-generation around spawn) just start from scratch every time
+ */
+
+public class WorldGenerationJob {
+
+    /**
+     * Generates and saves one chunk, called from many workers at once
+     */
+    public interface ChunkGenerator {
+        /**
+         * @param chunk_x chunk x (1 = World.CHUNK_WORLD_SIZE)
+         * @param chunk_y chunk y (1 = World.CHUNK_WORLD_SIZE)
+         * @return true if chunk was saved, false if it failed (chunk stays in progress file and is generated again on resume)
+         */
+        boolean generate(int chunk_x, int chunk_y);
+    }
+
+    /**
+     * Informed about job state, methods are called from worker threads
+     */
+    public interface Listener {
+        /**
+         * Called after every generated chunk
+         * @param done amount of generated chunks (chunks from resumed progress included)
+         * @param total amount of chunks of planet
+         */
+        void progress(int done, int total);
+
+        /**
+         * Called once after last chunk was generated (not called when job was cancelled)
+         * @param job finished job
+         */
+        void finished(WorldGenerationJob job);
+    }
+
+    /**
+     * Name of progress file in world directory
+     */
+    public static final String PROGRESS_FILE_NAME = "generation.progress";
+
+    /**
+     * "EGPR"
+     */
+    private static final int PROGRESS_MAGIC = 0x45475052;
+
+    /**
+     * Progress file is written after every this amount of generated chunks
+     */
+    public static final int SAVE_PROGRESS_INTERVAL = 64;
+
+    private final String world_dir;
+    private final String progress_file_name;
+
+    private final int from_x, from_y;
+    private final int width, height;
+
+    private final ChunkGenerator generator;
+    private final Listener listener;
+
+    /**
+     * Generated chunks by index (x * height + y), guarded by this
+     */
+    private final boolean[] generated;
+
+    /**
+     * Indexes of chunks that have to be generated and position of next one that wasn't taken by any worker
+     */
+    private int[] queue;
+    private final AtomicInteger next = new AtomicInteger();
+
+    private final AtomicInteger done_count = new AtomicInteger();
+    private final AtomicInteger failed_count = new AtomicInteger();
+    private final AtomicInteger running_workers = new AtomicInteger();
+
+    private Thread[] workers;
+    private int worker_priority = Thread.NORM_PRIORITY;
+    private volatile boolean cancelled;
+    private volatile boolean finished;
+
+    private long start_time;
+
+    /**
+     * Create new job which generates whole planet, nothing is generated until start() is called
+     * @param world_dir world directory (where progress file is stored)
+     * @param width planet width in chunks
+     * @param height planet height in chunks
+     * @param generator generator of single chunk
+     * @param listener listener informed about progress
+     */
+    public WorldGenerationJob(String world_dir, int width, int height, ChunkGenerator generator, Listener listener) {
+        this(world_dir, PROGRESS_FILE_NAME, 0, 0, width, height, generator, listener);
+    }
+
+    /**
+     * Create new job which generates rectangle of chunks, nothing is generated until start() is called
+     * @param world_dir world directory (where progress file is stored)
+     * @param progress_file_name name of progress file in world directory or null if job can't be resumed
+     * @param from_x x of first chunk (chunks x coords are not wrapped around planet, generator has to do it)
+     * @param from_y y of first chunk
+     * @param width width of rectangle in chunks
+     * @param height height of rectangle in chunks
+     * @param generator generator of single chunk
+     * @param listener listener informed about progress
+     */
+    public WorldGenerationJob(String world_dir, String progress_file_name, int from_x, int from_y, int width, int height, ChunkGenerator generator, Listener listener) {
+        this.world_dir = world_dir;
+        this.progress_file_name = progress_file_name;
+        this.from_x = from_x;
+        this.from_y = from_y;
+        this.width = width;
+        this.height = height;
+        this.generator = generator;
+        this.listener = listener;
+
+        generated = new boolean[width * height];
+    }
+
+    /**
+     * Check if generation of planet was started before and wasn't finished
+     * @param world_dir world directory
+     * @return true if there is progress file in world directory
+     */
+    public static boolean hasProgress(String world_dir) {
+        return Gdx.files.local(world_dir + PROGRESS_FILE_NAME).exists();
+    }
+
+    /**
+     * Give up unfinished generation of planet (f.e. when planet is loaded without whole planet generation, missing chunks are then generated when they are needed),
+     * object ids used by already generated chunks stay reserved and progress file is deleted
+     * @param world_dir world directory
+     * @return true if there was progress file
+     */
+    public static boolean abandonProgress(String world_dir) {
+        FileHandle handle = Gdx.files.local(world_dir + PROGRESS_FILE_NAME);
+        if(!handle.exists())
+            return false;
+
+        DataInputStream reader = new DataInputStream(handle.read(128));
+        try {
+            if(reader.readInt() == PROGRESS_MAGIC) {
+                //width, height
+                reader.readInt();
+                reader.readInt();
+
+                int acc_id = reader.readInt();
+                WorldObject.IDAssigner.set(Math.max(acc_id, WorldObject.IDAssigner.accValue()));
+            } else {
+                Log.error("(WorldGenerationJob) Unknown progress file");
+            }
+        } catch(IOException e) {
+            Log.error("(WorldGenerationJob) Failed to read generation progress", e);
+        } finally {
+            try {
+                reader.close();
+            } catch(IOException e) {
+                e.printStackTrace();
+            }
+        }
+
+        handle.delete();
+        Log.info("(WorldGenerationJob) Unfinished planet generation abandoned, missing chunks will be generated when they are needed");
+
+        return true;
+    }
+
+    /**
+     * Load progress file (if there is one) and start workers
+     * @param threads_count amount of worker threads
+     * @return true if generation was resumed from progress file, false if it started from scratch
+     */
+    public boolean start(int threads_count) {
+        boolean resumed = loadProgress();
+
+        //build queue of chunks that still have to be generated
+        int count = 0;
+        queue = new int[generated.length];
+        for(int i = 0; i < generated.length; i++) {
+            if(!generated[i])
+                queue[count++] = i;
+        }
+
+        done_count.set(generated.length - count);
+        start_time = System.currentTimeMillis();
+
+        Log.info("(WorldGenerationJob) Generating " + count + " of " + generated.length + " chunks" + (resumed ? " (resumed)" : "") + " on " + threads_count + " threads");
+
+        if(count == 0) {
+            finish();
+            return resumed;
+        }
+
+        final int queue_size = count;
+        Runnable worker_runnable = new Runnable() {
+            @Override
+            public void run() {
+                work(queue_size);
+            }
+        };
+
+        threads_count = Math.max(1, Math.min(threads_count, count));
+        running_workers.set(threads_count);
+
+        workers = new Thread[threads_count];
+        for(int i = 0; i < threads_count; i++) {
+            workers[i] = new Thread(worker_runnable, "WorldGeneration-Worker-" + i);
+            workers[i].setPriority(worker_priority);
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+
+        return resumed;
+    }
+
+    /**
+     * Set priority of worker threads, has to be called before start()
+     * @param priority thread priority (f.e. Thread.MIN_PRIORITY for generating in background while game is running)
+     */
+    public void setWorkerPriority(int priority) {
+        worker_priority = priority;
+    }
+
+    /**
+     * Stop workers after chunks they are generating right now and write progress file so generation can be resumed later, waits until workers are stopped
+     */
+    public void cancel() {
+        if(finished || cancelled)
+            return;
+
+        cancelled = true;
+
+        if(workers != null) {
+            for(int i = 0; i < workers.length; i++) {
+                try {
+                    workers[i].join();
+                } catch(InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+
+        if(!finished) {
+            saveProgress();
+            Log.info("(WorldGenerationJob) Generation cancelled after " + done_count.get() + " of " + generated.length + " chunks");
+        }
+    }
+
+    private void work(int queue_size) {
+        int index;
+
+        while(!cancelled && (index = next.getAndIncrement()) < queue_size) {
+            int chunk_index = queue[index];
+
+            if(generator.generate(from_x + chunk_index / height, from_y + chunk_index % height)) {
+                int done;
+
+                synchronized (this) {
+                    generated[chunk_index] = true;
+                    done = done_count.incrementAndGet();
+                }
+
+                if(done % SAVE_PROGRESS_INTERVAL == 0)
+                    saveProgress();
+
+                listener.progress(done, generated.length);
+            } else {
+                failed_count.incrementAndGet();
+            }
+        }
+
+        //last worker finishes the job
+        if(running_workers.decrementAndGet() == 0 && !cancelled)
+            finish();
+    }
+
+    private void finish() {
+        if(failed_count.get() > 0) {
+            //keep progress so failed chunks are generated next time this planet is loaded
+            saveProgress();
+            Log.error("(WorldGenerationJob) " + failed_count.get() + " chunks failed to generate" + ((progress_file_name != null) ? ", they will be generated again when planet is loaded next time" : ""));
+        } else if(progress_file_name != null) {
+            Gdx.files.local(world_dir + progress_file_name).delete();
+        }
+
+        Log.info("(WorldGenerationJob) Generated " + done_count.get() + " of " + generated.length + " chunks (Time: " + TimeUtils.timeSinceMillis(start_time) + "ms)");
+
+        finished = true;
+        listener.finished(this);
+    }
+
+    /**
+     * Write progress file: magic, width, height, last assigned object id, generated flags (bit per chunk)
+     */
+    private synchronized void saveProgress() {
+        if(progress_file_name == null)
+            return;
+
+        byte[] bits = new byte[(generated.length + 7) / 8];
+        for(int i = 0; i < generated.length; i++) {
+            if(generated[i])
+                bits[i >> 3] |= 1 << (i & 7);
+        }
+
+        FileHandle temp_handle = Gdx.files.local(world_dir + progress_file_name + ".tmp");
+        DataOutputStream writer = new DataOutputStream(temp_handle.write(false, 128));
+        try {
+            writer.writeInt(PROGRESS_MAGIC);
+            writer.writeInt(width);
+            writer.writeInt(height);
+
+            //objects of generated chunks already have ids, resumed generation has to continue after them
+            writer.writeInt(WorldObject.IDAssigner.accValue());
+
+            writer.write(bits);
+            writer.close();
+
+            temp_handle.moveTo(Gdx.files.local(world_dir + progress_file_name));
+        } catch(IOException e) {
+            Log.error("(WorldGenerationJob) Failed to save generation progress", e);
+        } finally {
+            try {
+                writer.close();
+            } catch(IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Read progress file if there is one
+     * @return true if progress was loaded
+     */
+    private synchronized boolean loadProgress() {
+        if(progress_file_name == null)
+            return false;
+
+        FileHandle handle = Gdx.files.local(world_dir + progress_file_name);
+        if(!handle.exists())
+            return false;
+
+        DataInputStream reader = new DataInputStream(handle.read(128));
+        try {
+            if(reader.readInt() != PROGRESS_MAGIC) {
+                Log.error("(WorldGenerationJob) Unknown progress file, generating from scratch");
+                return false;
+            }
+
+            int saved_width = reader.readInt();
+            int saved_height = reader.readInt();
+
+            if(saved_width != width || saved_height != height) {
+                Log.error("(WorldGenerationJob) Progress file is for planet " + saved_width + "x" + saved_height + " (not " + width + "x" + height + "), generating from scratch");
+                return false;
+            }
+
+            int acc_id = reader.readInt();
+
+            byte[] bits = new byte[(generated.length + 7) / 8];
+            reader.readFully(bits);
+
+            for(int i = 0; i < generated.length; i++)
+                generated[i] = (bits[i >> 3] & (1 << (i & 7))) != 0;
+
+            WorldObject.IDAssigner.set(Math.max(acc_id, WorldObject.IDAssigner.accValue()));
+            return true;
+        } catch(IOException e) {
+            Log.error("(WorldGenerationJob) Failed to load generation progress, generating from scratch", e);
+
+            for(int i = 0; i < generated.length; i++)
+                generated[i] = false;
+
+            return false;
+        } finally {
+            try {
+                reader.close();
+            } catch(IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * @return amount of generated chunks
+     */
+    public int getDoneCount() {
+        return done_count.get();
+    }
+
+    /**
+     * @return amount of chunks of planet (or rectangle)
+     */
+    public int getTotalCount() {
+        return generated.length;
+    }
+
+    /**
+     * @return amount of chunks that failed to generate
+     */
+    public int getFailedCount() {
+        return failed_count.get();
+    }
+
+    /**
+     * @return true if every chunk was generated (or failed)
+     */
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * @return true if job was cancelled before it finished
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
@@ -57,6 +57,11 @@ public class Block {
      */
     protected HashMap<Short, TextureRegion> tile_positions;
 
+    /**
+     * Same regions as in tile_positions but indexed directly by texture id, created on first getTextureRegion() call
+     */
+    private volatile TextureRegion[] texture_regions;
+
     /**
      * determine how block is connecting with other blocks
      */
@@ -140,7 +145,16 @@ public class Block {
      * @return proper TextureRegon for rendering
      */
     public TextureRegion getTextureRegion(short texture_id) {
-        return tile_positions.get(texture_id);
+        TextureRegion[] regions = texture_regions;
+        if(regions == null) {
+            regions = new TextureRegion[COLLIDE_DOWN + 1];
+            for(short i = 0; i < regions.length; i++)
+                regions[i] = tile_positions.get(i);
+
+            texture_regions = regions;
+        }
+
+        return (texture_id >= 0 && texture_id < regions.length) ? regions[texture_id] : null;
     }
 
     /**
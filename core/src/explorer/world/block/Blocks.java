@@ -22,6 +22,11 @@ public class Blocks {
 
     private ConcurrentHashMap<Integer, Block> all_blocks_instances;
 
+    /**
+     * Blocks instances indexed directly by their ids, used by getBlock() which is called for every tile in chunks
+     */
+    private Block[] blocks_lookup;
+
     public explorer.world.block.blocks.AirBlock AIR;
     public explorer.world.block.blocks.DirtBlock DIRT;
     public GrassBlock GRASS;
@@ -52,6 +57,21 @@ public class Blocks {
 
         GRASS_PLANT_BLOCK = new GrassPlantBlock(this, game);
         all_blocks_instances.put(GRASS_PLANT_BLOCK.getBlockID(), GRASS_PLANT_BLOCK);
+
+        createLookupTable();
+    }
+
+    /**
+     * Build array which maps block id to block instance from all registered blocks
+     */
+    private void createLookupTable() {
+        int max_id = 0;
+        for(Integer id : all_blocks_instances.keySet())
+            max_id = Math.max(max_id, id);
+
+        blocks_lookup = new Block[max_id + 1];
+        for(Block block : all_blocks_instances.values())
+            blocks_lookup[block.getBlockID()] = block;
     }
 
     /**
@@ -59,8 +79,8 @@ public class Blocks {
      * @param ID  block ID
      * @return block instance
      */
-    public synchronized Block getBlock(int ID) {
-        Block out = all_blocks_instances.get(ID);
+    public Block getBlock(int ID) {
+        Block out = (ID >= 0 && ID < blocks_lookup.length) ? blocks_lookup[ID] : null;
         if(out == null) {
             out = AIR;
             System.err.println("(Blocks) There is no block with ID: " + ID);
@@ -2,6 +2,8 @@ package explorer.world.block;
 
 import com.badlogic.gdx.graphics.Color;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import explorer.game.framework.Game;
 
 /**
@@ -11,6 +13,11 @@ import explorer.game.framework.Game;
 
 public class CustomColorBlock extends Block {
 
+    /**
+     * Incremented every time color of any block changes, chunks compare it with version their cached tiles were built with
+     */
+    private static final AtomicInteger colors_version = new AtomicInteger();
+
     /**
      * This block color used in render
      */
@@ -32,4 +39,20 @@ public class CustomColorBlock extends Block {
     public Color getBlockColor() {
         return block_color;
     }
+
+    /**
+     * Change this block color, chunks rebuild their cached tiles (see WorldChunk.render())
+     * @param color new render color
+     */
+    public void setBlockColor(Color color) {
+        block_color.set(color);
+        colors_version.incrementAndGet();
+    }
+
+    /**
+     * @return version of blocks colors, changes every time setBlockColor() is called on any block
+     */
+    public static int getColorsVersion() {
+        return colors_version.get();
+    }
 }
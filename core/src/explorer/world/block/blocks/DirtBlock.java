@@ -36,7 +36,7 @@ public class DirtBlock extends PlanetBoundBlock {
         color_pack = new ColorPack();
 
         String colorpack_region_name = world.getPlanetProperties().PLANET_TYPE.BLOCKS_PROPERTIES.getBlockProperties(DirtBlock.class).COLOR_PACK_REGION_NAME;
-        block_color.set(color_pack.load(world.getPlanetProperties().PLANET_FACTOR, game.getAssetsManager().getTextureRegion(colorpack_region_name)));
+        setBlockColor(color_pack.load(world.getPlanetProperties().PLANET_FACTOR, game.getAssetsManager().getTextureRegion(colorpack_region_name)));
 
         //load old_assets.textures
         final int BLOCK_PIXEL_SIZE = 16;
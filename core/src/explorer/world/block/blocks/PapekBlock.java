@@ -73,7 +73,7 @@ public class PapekBlock extends PlanetBoundBlock {
 
         //Tutaj za pomoca wyzej znalezionej scieżki do tekstury od kolor paka w końcu ładujemy naszego kolor paka z dysku
         //Ta zmienna PLANET_FACTOR określa który kolor wybrać jest to unikalana losowa licza dla każdej planety (losowa ale stała więc spoko zawsze będzie taka sama dla danej planety)
-        block_color.set(color_pack.load(world.getPlanetProperties().PLANET_FACTOR, game.getAssetsManager().getTextureRegion(colorpack_region_name)));
+        setBlockColor(color_pack.load(world.getPlanetProperties().PLANET_FACTOR, game.getAssetsManager().getTextureRegion(colorpack_region_name)));
 
         //Poniżej ładujemy wszystkie tekstury (czyli 16) dla bloku dirta
 
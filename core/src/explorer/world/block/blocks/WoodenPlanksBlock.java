@@ -35,7 +35,7 @@ public class WoodenPlanksBlock extends PlanetBoundBlock {
         color_pack = new ColorPack();
 
         String colorpack_region_name = world.getPlanetProperties().PLANET_TYPE.BLOCKS_PROPERTIES.getBlockProperties(WoodenPlanksBlock.class).COLOR_PACK_REGION_NAME;
-        block_color.set(color_pack.load(world.getPlanetProperties().PLANET_FACTOR, game.getAssetsManager().getTextureRegion(colorpack_region_name)));
+        setBlockColor(color_pack.load(world.getPlanetProperties().PLANET_FACTOR, game.getAssetsManager().getTextureRegion(colorpack_region_name)));
 
         //load old_assets.textures
         final int BLOCK_PIXEL_SIZE = 16;
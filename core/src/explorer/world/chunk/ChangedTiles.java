@@ -0,0 +1,66 @@
+package explorer.world.chunk;
+
+import explorer.world.World;
+
+/**
+ * Set of chunk tiles (one bit per tile, one long per column) that have to be recalculated after blocks were changed
+ * Tiles can be marked from any thread, set is taken and cleared at once by drainTo()
+ */
+
+public class ChangedTiles {
+
+    /**
+     * Bit j of columns[i] is set when tile (i, j) was changed
+     */
+    private final long[] columns = new long[World.CHUNK_SIZE];
+
+    private boolean empty = true;
+
+    /**
+     * Mark tile as changed, tiles out of chunk bounds are ignored
+     * @param x local x
+     * @param y local y
+     */
+    public synchronized void mark(int x, int y) {
+        if(!TileHolderTools.inChunkBounds(x, y))
+            return;
+
+        columns[x] |= 1L << y;
+        empty = false;
+    }
+
+    /**
+     * Copy changed tiles to given array and clear this set
+     * @param out array of World.CHUNK_SIZE columns
+     * @return false if no tile was changed (out is not touched then)
+     */
+    public synchronized boolean drainTo(long[] out) {
+        if(empty)
+            return false;
+
+        System.arraycopy(columns, 0, out, 0, columns.length);
+        clear();
+
+        return true;
+    }
+
+    /**
+     * Forget all changed tiles
+     */
+    public synchronized void clear() {
+        for(int i = 0; i < columns.length; i++)
+            columns[i] = 0;
+
+        empty = true;
+    }
+
+    /**
+     * @param columns columns returned by drainTo()
+     * @param x local x
+     * @param y local y
+     * @return true if tile is marked in given columns
+     */
+    public static boolean isMarked(long[] columns, int x, int y) {
+        return (columns[x] & (1L << y)) != 0;
+    }
+}
@@ -0,0 +1,287 @@
+package explorer.world.chunk;
+
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+
+import java.util.Arrays;
+
+import explorer.world.World;
+import explorer.world.block.Block;
+import explorer.world.block.Blocks;
+
+/**
+ * Packed storage of all blocks of one chunk, instead of keeping one object per tile everything is stored in flat primitive arrays
+ * indexed by x * World.CHUNK_SIZE + y, so whole chunk is just 4 short arrays and scans over it are linear in memory
+ */
+
+public class ChunkBlocks {
+
+    /**
+     * Amount of tiles stored in one chunk
+     */
+    public static final int TILES_COUNT = World.CHUNK_SIZE * World.CHUNK_SIZE;
+
+    /**
+     * Blocks instance used to resolve block ids into block instances
+     */
+    private Blocks blocks;
+
+    /**
+     * Foreground & background blocks ids
+     */
+    private short[] foreground_blocks;
+    private short[] background_blocks;
+
+    /**
+     * Foreground & background blocks texture ids (see COLLIDE_ variables in {@link Block})
+     */
+    private short[] foreground_texture_ids;
+    private short[] background_texture_ids;
+
+    /**
+     * Create new chunk blocks storage with every block set to given one
+     * @param blocks blocks instance
+     * @param fill_id block id which will fill whole storage
+     */
+    public ChunkBlocks(Blocks blocks, int fill_id) {
+        this.blocks = blocks;
+
+        foreground_blocks = new short[TILES_COUNT];
+        background_blocks = new short[TILES_COUNT];
+
+        foreground_texture_ids = new short[TILES_COUNT];
+        background_texture_ids = new short[TILES_COUNT];
+
+        fill(fill_id);
+    }
+
+    /**
+     * Get index in packed arrays of block at given local coords
+     * @param x local x (0 - CHUNK_SIZE)
+     * @param y local y (0 - CHUNK_SIZE)
+     * @return index in packed arrays
+     */
+    public static int index(int x, int y) {
+        return x * World.CHUNK_SIZE + y;
+    }
+
+    /**
+     * Set every block (foreground and background) to given id and reset texture ids
+     * @param id new block id
+     */
+    public void fill(int id) {
+        short block_id = (short) id;
+        for(int i = 0; i < TILES_COUNT; i++) {
+            foreground_blocks[i] = block_id;
+            background_blocks[i] = block_id;
+
+            foreground_texture_ids[i] = 0;
+            background_texture_ids[i] = 0;
+        }
+    }
+
+    /**
+     * Copy all data from given storage
+     * @param from storage we are copying from
+     */
+    public void set(ChunkBlocks from) {
+        System.arraycopy(from.foreground_blocks, 0, foreground_blocks, 0, TILES_COUNT);
+        System.arraycopy(from.background_blocks, 0, background_blocks, 0, TILES_COUNT);
+
+        System.arraycopy(from.foreground_texture_ids, 0, foreground_texture_ids, 0, TILES_COUNT);
+        System.arraycopy(from.background_texture_ids, 0, background_texture_ids, 0, TILES_COUNT);
+    }
+
+    /**
+     * Load block ids from paletted layers (texture ids are reset), every palette entry is resolved only once so unknown ids are stored as AIR
+     * @param foreground foreground blocks layer
+     * @param background background blocks layer
+     */
+    public void load(PalettedBlockLayer foreground, PalettedBlockLayer background) {
+        loadLayer(foreground, foreground_blocks);
+        loadLayer(background, background_blocks);
+
+        Arrays.fill(foreground_texture_ids, (short) 0);
+        Arrays.fill(background_texture_ids, (short) 0);
+    }
+
+    private void loadLayer(PalettedBlockLayer layer, short[] to) {
+        short[] resolved_palette = new short[layer.getPaletteSize()];
+        for(int i = 0; i < resolved_palette.length; i++) {
+            resolved_palette[i] = (short) blocks.getBlock(layer.getPaletteEntry(i)).getBlockID();
+        }
+
+        if(layer.isUniform()) {
+            Arrays.fill(to, resolved_palette[0]);
+            return;
+        }
+
+        for(int i = 0; i < TILES_COUNT; i++) {
+            to[i] = resolved_palette[layer.getPaletteIndex(i)];
+        }
+    }
+
+    /**
+     * Create paletted copy of foreground or background block ids (f.e. to save them on other thread)
+     * @param background if true background blocks will be copied
+     * @return new compacted paletted layer
+     */
+    public PalettedBlockLayer toPalettedLayer(boolean background) {
+        short[] from = (background) ? background_blocks : foreground_blocks;
+
+        PalettedBlockLayer layer = new PalettedBlockLayer(from[0]);
+        for(int i = 1; i < TILES_COUNT; i++) {
+            if(from[i] != from[0])
+                layer.set(i, from[i]);
+        }
+
+        return layer;
+    }
+
+    /**
+     * @param x local x
+     * @param y local y
+     * @return foreground block id at given coords
+     */
+    public int getForegroundBlockID(int x, int y) {
+        return foreground_blocks[index(x, y)];
+    }
+
+    /**
+     * @param x local x
+     * @param y local y
+     * @return background block id at given coords
+     */
+    public int getBackgroundBlockID(int x, int y) {
+        return background_blocks[index(x, y)];
+    }
+
+    /**
+     * @param x local x
+     * @param y local y
+     * @param background if true background block id will be returned
+     * @return block id at given coords
+     */
+    public int getBlockID(int x, int y, boolean background) {
+        return (background) ? background_blocks[index(x, y)] : foreground_blocks[index(x, y)];
+    }
+
+    /**
+     * @param x local x
+     * @param y local y
+     * @return foreground block instance READ ONLY DO NOT MODIFY IT!
+     */
+    public Block getForegroundBlock(int x, int y) {
+        return blocks.getBlock(foreground_blocks[index(x, y)]);
+    }
+
+    /**
+     * @param x local x
+     * @param y local y
+     * @return background block instance READ ONLY DO NOT MODIFY IT!
+     */
+    public Block getBackgroundBlock(int x, int y) {
+        return blocks.getBlock(background_blocks[index(x, y)]);
+    }
+
+    /**
+     * @param x local x
+     * @param y local y
+     * @param background if true background block will be returned
+     * @return block instance at given coords
+     */
+    public Block getBlock(int x, int y, boolean background) {
+        return blocks.getBlock(getBlockID(x, y, background));
+    }
+
+    /**
+     * Set foreground block at given coords, unknown ids are stored as AIR
+     * @param x local x
+     * @param y local y
+     * @param id new block id
+     */
+    public void setForegroundBlock(int x, int y, int id) {
+        foreground_blocks[index(x, y)] = (short) blocks.getBlock(id).getBlockID();
+    }
+
+    /**
+     * Set background block at given coords, unknown ids are stored as AIR
+     * @param x local x
+     * @param y local y
+     * @param id new block id
+     */
+    public void setBackgroundBlock(int x, int y, int id) {
+        background_blocks[index(x, y)] = (short) blocks.getBlock(id).getBlockID();
+    }
+
+    /**
+     * Set block at given coords
+     * @param x local x
+     * @param y local y
+     * @param id new block id
+     * @param background if true background block will be set
+     */
+    public void setBlock(int x, int y, int id, boolean background) {
+        if(background)
+            setBackgroundBlock(x, y, id);
+        else
+            setForegroundBlock(x, y, id);
+    }
+
+    /**
+     * @param x local x
+     * @param y local y
+     * @return foreground block texture id
+     */
+    public short getForegroundTextureID(int x, int y) {
+        return foreground_texture_ids[index(x, y)];
+    }
+
+    /**
+     * @param x local x
+     * @param y local y
+     * @return background block texture id
+     */
+    public short getBackgroundTextureID(int x, int y) {
+        return background_texture_ids[index(x, y)];
+    }
+
+    /**
+     * Set foreground block texture id
+     * @param x local x
+     * @param y local y
+     * @param id new texture id
+     */
+    public void setForegroundTextureID(int x, int y, short id) {
+        foreground_texture_ids[index(x, y)] = id;
+    }
+
+    /**
+     * Set background block texture id
+     * @param x local x
+     * @param y local y
+     * @param id new texture id
+     */
+    public void setBackgroundTextureID(int x, int y, short id) {
+        background_texture_ids[index(x, y)] = id;
+    }
+
+    /**
+     * @param x local x
+     * @param y local y
+     * @return texture region of foreground block, resolved from block instance and its texture id
+     */
+    public TextureRegion getForegroundTextureRegion(int x, int y) {
+        int index = index(x, y);
+        return blocks.getBlock(foreground_blocks[index]).getTextureRegion(foreground_texture_ids[index]);
+    }
+
+    /**
+     * @param x local x
+     * @param y local y
+     * @return texture region of background block, resolved from block instance and its texture id
+     */
+    public TextureRegion getBackgroundTextureRegion(int x, int y) {
+        int index = index(x, y);
+        return blocks.getBlock(background_blocks[index]).getTextureRegion(background_texture_ids[index]);
+    }
+}
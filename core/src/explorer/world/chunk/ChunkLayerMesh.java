@@ -0,0 +1,166 @@
+package explorer.world.chunk;
+
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+
+import explorer.world.World;
+
+/**
+ * Prebuilt SpriteBatch vertices of one chunk layer (background or foreground tiles), built once after tiles change
+ * and then drawn every frame by few SpriteBatch.draw(Texture, float[], ...) calls instead of checking and drawing every tile
+ *
+ * Sprites have to be added in order of tile index (see ChunkBlocks.index()), at most one sprite per tile
+ */
+
+public class ChunkLayerMesh {
+
+    /**
+     * Floats per sprite (4 vertices: x, y, color, u, v)
+     */
+    private static final int SPRITE_SIZE = 20;
+
+    private float[] vertices;
+    private Texture[] textures;
+
+    /**
+     * tile_start[tile] = index of first sprite of given tile or of first tile after it that has sprite
+     */
+    private final int[] tile_start;
+
+    private int sprites_count;
+    private int next_tile;
+
+    public ChunkLayerMesh() {
+        vertices = new float[0];
+        textures = new Texture[0];
+
+        tile_start = new int[ChunkBlocks.TILES_COUNT + 1];
+    }
+
+    /**
+     * Start building, old sprites are removed
+     */
+    public void begin() {
+        sprites_count = 0;
+        next_tile = 0;
+    }
+
+    /**
+     * Add sprite of tile
+     * @param tile tile index (see ChunkBlocks.index())
+     * @param region texture region
+     * @param x world x
+     * @param y world y
+     * @param w width
+     * @param h height
+     * @param color packed color (see Color.toFloatBits())
+     */
+    public void add(int tile, TextureRegion region, float x, float y, float w, float h, float color) {
+        for(; next_tile <= tile; next_tile++)
+            tile_start[next_tile] = sprites_count;
+
+        ensureCapacity(sprites_count + 1);
+
+        //same vertices as SpriteBatch.draw(TextureRegion, x, y, w, h) creates
+        float x2 = x + w;
+        float y2 = y + h;
+
+        int idx = sprites_count * SPRITE_SIZE;
+        float[] v = vertices;
+
+        v[idx] = x;
+        v[idx + 1] = y;
+        v[idx + 2] = color;
+        v[idx + 3] = region.getU();
+        v[idx + 4] = region.getV2();
+
+        v[idx + 5] = x;
+        v[idx + 6] = y2;
+        v[idx + 7] = color;
+        v[idx + 8] = region.getU();
+        v[idx + 9] = region.getV();
+
+        v[idx + 10] = x2;
+        v[idx + 11] = y2;
+        v[idx + 12] = color;
+        v[idx + 13] = region.getU2();
+        v[idx + 14] = region.getV();
+
+        v[idx + 15] = x2;
+        v[idx + 16] = y;
+        v[idx + 17] = color;
+        v[idx + 18] = region.getU2();
+        v[idx + 19] = region.getV2();
+
+        textures[sprites_count] = region.getTexture();
+        sprites_count++;
+    }
+
+    /**
+     * Finish building
+     */
+    public void end() {
+        for(; next_tile <= ChunkBlocks.TILES_COUNT; next_tile++)
+            tile_start[next_tile] = sprites_count;
+    }
+
+    /**
+     * Draw sprites of tiles in given local rectangle (inclusive)
+     * @param batch sprite batch instance
+     * @return amount of drawn sprites
+     */
+    public int render(SpriteBatch batch, int from_x, int to_x, int from_y, int to_y) {
+        if(sprites_count == 0 || from_x > to_x || from_y > to_y)
+            return 0;
+
+        //whole columns are stored one after another so they can be drawn at once
+        if(from_y == 0 && to_y == World.CHUNK_SIZE - 1)
+            return render(batch, tile_start[ChunkBlocks.index(from_x, 0)], tile_start[ChunkBlocks.index(to_x, to_y) + 1]);
+
+        int drawn = 0;
+        for(int x = from_x; x <= to_x; x++)
+            drawn += render(batch, tile_start[ChunkBlocks.index(x, from_y)], tile_start[ChunkBlocks.index(x, to_y) + 1]);
+
+        return drawn;
+    }
+
+    /**
+     * @return amount of sprites in mesh
+     */
+    public int getSpritesCount() {
+        return sprites_count;
+    }
+
+    private int render(SpriteBatch batch, int start, int end) {
+        //one draw call for every run of sprites with same texture
+        int i = start;
+        while(i < end) {
+            Texture texture = textures[i];
+
+            int j = i + 1;
+            while(j < end && textures[j] == texture)
+                j++;
+
+            batch.draw(texture, vertices, i * SPRITE_SIZE, (j - i) * SPRITE_SIZE);
+            i = j;
+        }
+
+        return end - start;
+    }
+
+    private void ensureCapacity(int sprites) {
+        if(textures.length >= sprites)
+            return;
+
+        int capacity = Math.min(Math.max(256, textures.length * 2), ChunkBlocks.TILES_COUNT);
+
+        float[] new_vertices = new float[capacity * SPRITE_SIZE];
+        System.arraycopy(vertices, 0, new_vertices, 0, sprites_count * SPRITE_SIZE);
+        vertices = new_vertices;
+
+        Texture[] new_textures = new Texture[capacity];
+        System.arraycopy(textures, 0, new_textures, 0, sprites_count);
+        textures = new_textures;
+    }
+}
@@ -0,0 +1,200 @@
+package explorer.world.chunk;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.glutils.FrameBuffer;
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.math.Vector2;
+
+import explorer.world.World;
+
+/**
+ * One chunk layer (background or foreground tiles) rendered once into frame buffer texture, then chunk layer is drawn as single quad
+ * Texture resolution follows camera zoom (see getPixelsPerBlock()) so zoomed out chunks use small textures, texture is drawn again
+ * when layer content changes (edits, block colors) or when needed resolution changes
+ * All textures together can take at most MEMORY_BUDGET bytes of video memory, layers that don't fit into budget are rendered by their meshes
+ *
+ * Disabled by default, enable it by ENABLED_PROPERTY (f.e. -Dexplorer.chunk_layer_textures=true)
+ */
+
+public class ChunkLayerTexture {
+
+    /**
+     * System property which enables rendering chunk layers to textures
+     */
+    public static final String ENABLED_PROPERTY = "explorer.chunk_layer_textures";
+
+    public static final boolean ENABLED = Boolean.getBoolean(ENABLED_PROPERTY);
+
+    /**
+     * Resolution of block textures, there is no point to use bigger texture for one block
+     */
+    public static final int MAX_PIXELS_PER_BLOCK = 16;
+
+    /**
+     * System property which can be used to change video memory budget of all layer textures in bytes (f.e. -Dexplorer.chunk_layer_textures_memory=134217728)
+     */
+    public static final String MEMORY_BUDGET_PROPERTY = "explorer.chunk_layer_textures_memory";
+
+    /**
+     * Default budget, 16 layers with full resolution (4MB each)
+     */
+    public static final long DEFAULT_MEMORY_BUDGET = 64 * 1024 * 1024;
+
+    public static final long MEMORY_BUDGET = Long.getLong(MEMORY_BUDGET_PROPERTY, DEFAULT_MEMORY_BUDGET);
+
+    /**
+     * Video memory used by frame buffers of all layer textures in bytes, used only from GL thread
+     */
+    private static long memory_usage;
+
+    private FrameBuffer frame_buffer;
+
+    /**
+     * Resolution and content version of current texture, -1 if nothing was drawn yet
+     */
+    private int pixels_per_block = -1;
+    private int content_version = -1;
+
+    /**
+     * Batch state saved by begin()
+     */
+    private ShaderProgram batch_shader;
+    private Matrix4 batch_projection;
+
+    private Matrix4 projection;
+
+    public ChunkLayerTexture() {
+        batch_projection = new Matrix4();
+        projection = new Matrix4();
+    }
+
+    /**
+     * Get texture resolution needed for given zoom, one block has World.BLOCK_SIZE / zoom pixels on screen
+     * @param zoom main camera zoom
+     * @return pixels per one block (power of two between 1 and MAX_PIXELS_PER_BLOCK)
+     */
+    public static int getPixelsPerBlock(float zoom) {
+        int screen_pixels = (int) Math.ceil(World.BLOCK_SIZE / Math.max(zoom, .0001f));
+
+        return MathUtils.clamp(MathUtils.nextPowerOfTwo(screen_pixels), 1, MAX_PIXELS_PER_BLOCK);
+    }
+
+    /**
+     * @param content_version version of layer content (incremented every time layer content changes)
+     * @param pixels_per_block needed resolution
+     * @return true if texture has to be drawn again (see begin() and end())
+     */
+    public boolean needRedraw(int content_version, int pixels_per_block) {
+        return frame_buffer == null || this.content_version != content_version || this.pixels_per_block != pixels_per_block;
+    }
+
+    /**
+     * Start drawing layer into texture, everything drawn by batch until end() goes into texture with default shader
+     * Batch has to be already drawing, its shader and projection are restored by end()
+     * @param batch sprite batch instance
+     * @param chunk_position world position of chunk
+     * @param pixels_per_block texture resolution
+     * @return false if texture doesn't fit into MEMORY_BUDGET (nothing was started and layer has to be rendered other way)
+     */
+    public boolean begin(SpriteBatch batch, Vector2 chunk_position, int pixels_per_block) {
+        if(frame_buffer == null || this.pixels_per_block != pixels_per_block) {
+            dispose();
+
+            long size_in_bytes = getSizeInBytes(pixels_per_block);
+            if(memory_usage + size_in_bytes > MEMORY_BUDGET)
+                return false;
+
+            int size = World.CHUNK_SIZE * pixels_per_block;
+
+            frame_buffer = new FrameBuffer(Pixmap.Format.RGBA8888, size, size, false);
+            frame_buffer.getColorBufferTexture().setFilter(Texture.TextureFilter.Nearest, Texture.TextureFilter.Nearest);
+
+            this.pixels_per_block = pixels_per_block;
+            memory_usage += size_in_bytes;
+        }
+
+        batch.flush();
+
+        batch_shader = batch.getShader();
+        batch_projection.set(batch.getProjectionMatrix());
+
+        batch.setShader(null);
+
+        frame_buffer.begin();
+        Gdx.gl.glClearColor(0, 0, 0, 0);
+        Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
+
+        batch.setProjectionMatrix(projection.setToOrtho2D(chunk_position.x, chunk_position.y, World.CHUNK_WORLD_SIZE, World.CHUNK_WORLD_SIZE));
+        return true;
+    }
+
+    /**
+     * Finish drawing layer into texture and restore batch state
+     * @param batch sprite batch instance
+     * @param content_version version of drawn layer content
+     */
+    public void end(SpriteBatch batch, int content_version) {
+        batch.flush();
+        frame_buffer.end();
+
+        batch.setShader(batch_shader);
+        batch.setProjectionMatrix(batch_projection);
+        batch_shader = null;
+
+        this.content_version = content_version;
+    }
+
+    /**
+     * Draw part of texture with given local tiles rectangle (inclusive)
+     * @param batch sprite batch instance
+     * @param chunk_position world position of chunk
+     * @return amount of drawn quads
+     */
+    public int render(SpriteBatch batch, Vector2 chunk_position, int from_x, int to_x, int from_y, int to_y) {
+        if(frame_buffer == null || from_x > to_x || from_y > to_y)
+            return 0;
+
+        int tiles_w = to_x - from_x + 1;
+        int tiles_h = to_y - from_y + 1;
+
+        //frame buffer texture is upside down so flip it
+        batch.draw(frame_buffer.getColorBufferTexture(), chunk_position.x + from_x * World.BLOCK_SIZE, chunk_position.y + from_y * World.BLOCK_SIZE, tiles_w * World.BLOCK_SIZE, tiles_h * World.BLOCK_SIZE,
+                from_x * pixels_per_block, from_y * pixels_per_block, tiles_w * pixels_per_block, tiles_h * pixels_per_block, false, true);
+
+        return 1;
+    }
+
+    /**
+     * Free frame buffer, next begin() creates new one
+     */
+    public void dispose() {
+        if(frame_buffer != null) {
+            frame_buffer.dispose();
+            memory_usage -= getSizeInBytes(pixels_per_block);
+        }
+
+        frame_buffer = null;
+        pixels_per_block = -1;
+        content_version = -1;
+    }
+
+    /**
+     * @return video memory used by all layer textures in bytes
+     */
+    public static long getMemoryUsage() {
+        return memory_usage;
+    }
+
+    private static long getSizeInBytes(int pixels_per_block) {
+        long size = World.CHUNK_SIZE * pixels_per_block;
+
+        //RGBA8888
+        return size * size * 4;
+    }
+}
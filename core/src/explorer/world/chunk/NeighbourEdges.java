@@ -0,0 +1,83 @@
+package explorer.world.chunk;
+
+import explorer.world.World;
+
+/**
+ * Copy of blocks ids on borders of chunk neighbours (column or row that touches given chunk), taken once before autotiling,
+ * so autotiling doesn't look into other chunks (which can be loading or changing at the same time) for every border tile
+ * Neighbours out of chunks window or still loading are missing and their blocks never connect
+ */
+
+public class NeighbourEdges {
+
+    /**
+     * Sides
+     */
+    public static final int LEFT = 0;
+    public static final int RIGHT = 1;
+    public static final int DOWN = 2;
+    public static final int UP = 3;
+
+    /**
+     * Edges by side, null if neighbour is missing
+     */
+    private final short[][] foreground_edges = new short[4][];
+    private final short[][] background_edges = new short[4][];
+
+    /**
+     * Take snapshot of neighbour borders of given chunk
+     * @param chunk chunk
+     * @param world world instance
+     * @return snapshot
+     */
+    public static NeighbourEdges capture(WorldChunk chunk, World world) {
+        NeighbourEdges out = new NeighbourEdges();
+
+        out.copyEdge(LEFT, TileHolderTools.getNeighbourChunk(-1, 0, chunk, world), World.CHUNK_SIZE - 1, -1);
+        out.copyEdge(RIGHT, TileHolderTools.getNeighbourChunk(World.CHUNK_SIZE, 0, chunk, world), 0, -1);
+        out.copyEdge(DOWN, TileHolderTools.getNeighbourChunk(0, -1, chunk, world), -1, World.CHUNK_SIZE - 1);
+        out.copyEdge(UP, TileHolderTools.getNeighbourChunk(0, World.CHUNK_SIZE, chunk, world), -1, 0);
+
+        return out;
+    }
+
+    /**
+     * @param side side (LEFT, RIGHT, DOWN, UP)
+     * @param index y for LEFT/RIGHT, x for DOWN/UP
+     * @param background true to get background block id
+     * @return block id on neighbour border or -1 if neighbour is missing
+     */
+    public int getBlockID(int side, int index, boolean background) {
+        short[] edge = (background) ? background_edges[side] : foreground_edges[side];
+
+        if(edge == null)
+            return -1;
+
+        return edge[index];
+    }
+
+    /**
+     * @param x fixed local x of copied column or -1 when copying row
+     * @param y fixed local y of copied row or -1 when copying column
+     */
+    private void copyEdge(int side, WorldChunk neighbour, int x, int y) {
+        if(neighbour == null || neighbour.isDirty())
+            return;
+
+        ChunkBlocks blocks = neighbour.getBlocks();
+
+        short[] foreground = new short[World.CHUNK_SIZE];
+        short[] background = new short[World.CHUNK_SIZE];
+
+        for(int i = 0; i < World.CHUNK_SIZE; i++) {
+            int block_x = (x < 0) ? i : x;
+            int block_y = (y < 0) ? i : y;
+
+            foreground[i] = (short) blocks.getForegroundBlockID(block_x, block_y);
+            background[i] = (short) blocks.getBackgroundBlockID(block_x, block_y);
+        }
+
+        foreground_edges[side] = foreground;
+        background_edges[side] = background;
+    }
+}
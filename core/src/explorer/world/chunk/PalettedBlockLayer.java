@@ -0,0 +1,383 @@
+package explorer.world.chunk;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+import explorer.world.World;
+
+/**
+ * One layer (foreground or background) of chunk blocks stored as palette of block ids + bit packed indices to that palette
+ * Uniform layers (f.e. all air chunks over the ground or all dirt ones under it) are stored as just one palette entry without any indices,
+ * layers with more block types use 1/2/4/8 (or 16 if palette is really big) bits per block
+ */
+
+public class PalettedBlockLayer {
+
+    /**
+     * Amount of blocks stored in one layer
+     */
+    private static final int BLOCKS_COUNT = World.CHUNK_SIZE * World.CHUNK_SIZE;
+
+    /**
+     * Block ids used in this layer, only first palette_size entries are valid
+     */
+    private short[] palette;
+    private int palette_size;
+
+    /**
+     * Bits per one block index, 0 means that layer is uniform and every block is palette[0]
+     */
+    private int bits;
+
+    /**
+     * Packed palette indices, one long holds 64 / bits indices
+     */
+    private long[] data;
+
+    /**
+     * Create new uniform layer
+     * @param fill_id block id which fills whole layer
+     */
+    public PalettedBlockLayer(int fill_id) {
+        palette = new short[4];
+        fill(fill_id);
+    }
+
+    /**
+     * Copy constructor
+     * @param from layer we are copying from
+     */
+    public PalettedBlockLayer(PalettedBlockLayer from) {
+        palette = Arrays.copyOf(from.palette, from.palette.length);
+        palette_size = from.palette_size;
+        bits = from.bits;
+        data = (from.data != null) ? Arrays.copyOf(from.data, from.data.length) : null;
+    }
+
+    /**
+     * Set whole layer to one block id, this is O(1) operation
+     * @param id block id
+     */
+    public void fill(int id) {
+        palette[0] = (short) id;
+        palette_size = 1;
+        bits = 0;
+        data = null;
+    }
+
+    /**
+     * Set run of blocks to one block id, palette is searched only once for whole run
+     * @param from_index first block index (see {@link ChunkBlocks#index(int, int)})
+     * @param to_index last block index (exclusive)
+     * @param id block id
+     */
+    public void fill(int from_index, int to_index, int id) {
+        if(from_index == 0 && to_index == BLOCKS_COUNT) {
+            fill(id);
+            return;
+        }
+
+        int palette_index = indexOf(id);
+
+        if(palette_index == -1) {
+            palette_index = addToPalette(id);
+        }
+
+        if(bits == 0)
+            return;
+
+        for(int i = from_index; i < to_index; i++) {
+            setPaletteIndex(i, palette_index);
+        }
+    }
+
+    /**
+     * @param x local x
+     * @param y local y
+     * @return block id at given local coords
+     */
+    public int get(int x, int y) {
+        return get(ChunkBlocks.index(x, y));
+    }
+
+    /**
+     * @param index index of block (see {@link ChunkBlocks#index(int, int)})
+     * @return block id at given index
+     */
+    public int get(int index) {
+        if(bits == 0)
+            return palette[0];
+
+        return palette[getPaletteIndex(index)];
+    }
+
+    /**
+     * Set block at given local coords
+     * @param x local x
+     * @param y local y
+     * @param id new block id
+     */
+    public void set(int x, int y, int id) {
+        set(ChunkBlocks.index(x, y), id);
+    }
+
+    /**
+     * Set block at given index
+     * @param index index of block (see {@link ChunkBlocks#index(int, int)})
+     * @param id new block id
+     */
+    public void set(int index, int id) {
+        int palette_index = indexOf(id);
+
+        if(palette_index == -1) {
+            //new block id so add it to palette, this could change bits per block
+            palette_index = addToPalette(id);
+        }
+
+        if(bits == 0)
+            return;
+
+        setPaletteIndex(index, palette_index);
+    }
+
+    /**
+     * @return true if every block in this layer is same one
+     */
+    public boolean isUniform() {
+        return bits == 0;
+    }
+
+    /**
+     * @return amount of bits used to store one block
+     */
+    public int getBitsPerBlock() {
+        return bits;
+    }
+
+    /**
+     * @return amount of entries in palette
+     */
+    public int getPaletteSize() {
+        return palette_size;
+    }
+
+    /**
+     * @param index palette index
+     * @return block id stored under given palette index
+     */
+    public int getPaletteEntry(int index) {
+        return palette[index];
+    }
+
+    /**
+     * @param index index of block (see {@link ChunkBlocks#index(int, int)})
+     * @return index to palette of block at given index
+     */
+    public int getPaletteIndex(int index) {
+        if(bits == 0)
+            return 0;
+
+        return getPaletteIndex(data, bits, index);
+    }
+
+    private static int getPaletteIndex(long[] data, int bits, int index) {
+        int bit_index = index * bits;
+        long word = data[bit_index >>> 6];
+        return (int) ((word >>> (bit_index & 63)) & ((1L << bits) - 1L));
+    }
+
+    /**
+     * Remove palette entries that are not used anymore and use the smallest possible amount of bits per block
+     * (so if every block is same again layer becomes uniform)
+     */
+    public void compact() {
+        if(bits == 0)
+            return;
+
+        //count used palette entries
+        int[] usage = new int[palette_size];
+        for(int i = 0; i < BLOCKS_COUNT; i++) {
+            usage[getPaletteIndex(i)]++;
+        }
+
+        int[] remap = new int[palette_size];
+        short[] new_palette = new short[palette.length];
+        int new_palette_size = 0;
+
+        for(int i = 0; i < palette_size; i++) {
+            if(usage[i] > 0) {
+                remap[i] = new_palette_size;
+                new_palette[new_palette_size++] = palette[i];
+            }
+        }
+
+        if(new_palette_size == palette_size && bitsFor(palette_size) == bits)
+            return;
+
+        int new_bits = bitsFor(new_palette_size);
+        long[] new_data = (new_bits > 0) ? new long[(BLOCKS_COUNT * new_bits) / 64] : null;
+
+        if(new_bits > 0) {
+            for(int i = 0; i < BLOCKS_COUNT; i++) {
+                setPaletteIndex(new_data, new_bits, i, remap[getPaletteIndex(i)]);
+            }
+        }
+
+        palette = new_palette;
+        palette_size = new_palette_size;
+        bits = new_bits;
+        data = new_data;
+    }
+
+    /**
+     * Save this layer (palette + packed indices) to given output, layer is compacted before writing
+     * @param output data output
+     * @throws IOException
+     */
+    public void write(DataOutput output) throws IOException {
+        compact();
+
+        output.writeByte(bits);
+        output.writeShort(palette_size);
+
+        for(int i = 0; i < palette_size; i++) {
+            output.writeShort(palette[i]);
+        }
+
+        if(bits > 0) {
+            for(int i = 0; i < data.length; i++) {
+                output.writeLong(data[i]);
+            }
+        }
+    }
+
+    /**
+     * Load layer saved by write() method, data comes from disk and from other players so everything is validated before layer is changed
+     * @param input data input
+     * @throws IOException if data is not valid layer (unsupported bits per block, too small bits for palette, index out of palette)
+     */
+    public void read(DataInput input) throws IOException {
+        int new_bits = input.readUnsignedByte();
+        int new_palette_size = input.readUnsignedShort();
+
+        //getPaletteIndex() expects that index never crosses two longs, so only widths that divide 64 are valid
+        if(new_palette_size == 0 || !isValidBits(new_bits) || bitsFor(new_palette_size) > new_bits) {
+            throw new IOException("Invalid chunk layer (bits: " + new_bits + " palette size: " + new_palette_size + ")");
+        }
+
+        short[] new_palette = new short[Math.max(4, new_palette_size)];
+        for(int i = 0; i < new_palette_size; i++) {
+            new_palette[i] = input.readShort();
+        }
+
+        long[] new_data = null;
+        if(new_bits > 0) {
+            new_data = new long[(BLOCKS_COUNT * new_bits) / 64];
+            for(int i = 0; i < new_data.length; i++) {
+                new_data[i] = input.readLong();
+            }
+
+            //index out of palette would silently become zero padded palette entry (or crash later)
+            for(int i = 0; i < BLOCKS_COUNT; i++) {
+                int palette_index = getPaletteIndex(new_data, new_bits, i);
+
+                if(palette_index >= new_palette_size)
+                    throw new IOException("Invalid chunk layer (block " + i + " has palette index " + palette_index + ", palette size: " + new_palette_size + ")");
+            }
+        }
+
+        palette = new_palette;
+        palette_size = new_palette_size;
+        bits = new_bits;
+        data = new_data;
+    }
+
+    /**
+     * Rough amount of memory used by this layer
+     * @return size in bytes
+     */
+    public int getSizeInBytes() {
+        return palette.length * 2 + ((data != null) ? data.length * 8 : 0);
+    }
+
+    private int indexOf(int id) {
+        for(int i = 0; i < palette_size; i++) {
+            if(palette[i] == id)
+                return i;
+        }
+
+        return -1;
+    }
+
+    private int addToPalette(int id) {
+        if(palette_size == palette.length) {
+            palette = Arrays.copyOf(palette, palette.length * 2);
+        }
+
+        int palette_index = palette_size;
+        palette[palette_size++] = (short) id;
+
+        int needed_bits = bitsFor(palette_size);
+        if(needed_bits > bits) {
+            resize(needed_bits);
+        }
+
+        return palette_index;
+    }
+
+    private void resize(int new_bits) {
+        long[] new_data = new long[(BLOCKS_COUNT * new_bits) / 64];
+
+        //if layer was uniform all indices are 0 so new data array is already valid
+        if(bits > 0) {
+            for(int i = 0; i < BLOCKS_COUNT; i++) {
+                setPaletteIndex(new_data, new_bits, i, getPaletteIndex(i));
+            }
+        }
+
+        bits = new_bits;
+        data = new_data;
+    }
+
+    private void setPaletteIndex(int index, int palette_index) {
+        setPaletteIndex(data, bits, index, palette_index);
+    }
+
+    private static void setPaletteIndex(long[] data, int bits, int index, int palette_index) {
+        int bit_index = index * bits;
+        int word_index = bit_index >>> 6;
+        int shift = bit_index & 63;
+        long mask = ((1L << bits) - 1L) << shift;
+
+        data[word_index] = (data[word_index] & ~mask) | (((long) palette_index << shift) & mask);
+    }
+
+    /**
+     * @param bits bits per block
+     * @return true if bits is one of widths produced by bitsFor()
+     */
+    private static boolean isValidBits(int bits) {
+        return bits == 0 || bits == 1 || bits == 2 || bits == 4 || bits == 8 || bits == 16;
+    }
+
+    /**
+     * @param palette_size palette size
+     * @return amount of bits needed to store index to palette of given size (0, 1, 2, 4, 8 or 16)
+     */
+    private static int bitsFor(int palette_size) {
+        if(palette_size <= 1)
+            return 0;
+        else if(palette_size <= 2)
+            return 1;
+        else if(palette_size <= 4)
+            return 2;
+        else if(palette_size <= 16)
+            return 4;
+        else if(palette_size <= 256)
+            return 8;
+
+        return 16;
+    }
+}
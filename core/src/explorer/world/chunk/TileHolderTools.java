@@ -21,10 +21,10 @@ public class TileHolderTools {
      * @param tiles_data data of chunk
      * @return
      */
-    public static synchronized boolean canPlaceLight(int x, int y, int move_x, int move_y, World world, TileHolder[][] tiles_data) {
+    public static boolean canPlaceLight(int x, int y, int move_x, int move_y, World world, ChunkBlocks tiles_data) {
         if(inChunkBounds(x + move_x, y + move_y)) {
-            if(!tiles_data[x][y].getForegroundBlock().isBlockingGroundLight() && !tiles_data[x][y].getBackgroundBlock().isBlockingGroundLight()) {
-                if (tiles_data[x + move_x][y + move_y].getForegroundBlock().isBlockingGroundLight() || tiles_data[x + move_x][y + move_y].getBackgroundBlock().isBlockingGroundLight()) {
+            if(!tiles_data.getForegroundBlock(x, y).isBlockingGroundLight() && !tiles_data.getBackgroundBlock(x, y).isBlockingGroundLight()) {
+                if (tiles_data.getForegroundBlock(x + move_x, y + move_y).isBlockingGroundLight() || tiles_data.getBackgroundBlock(x + move_x, y + move_y).isBlockingGroundLight()) {
                     return true;
                 }
             }
@@ -34,262 +34,115 @@ public class TileHolderTools {
         return false;
     }
 
-    public static synchronized short getTileTextureID(TileHolder[][] tiles_data,
-                                                    Block this_block, int i, int j, boolean background, WorldChunk chunk, World world) {
+    /**
+     * Neighbour mask bits, set when neighbour block connects with given block (same group and not air)
+     */
+    public static final int MASK_LEFT = 1;
+    public static final int MASK_RIGHT = 2;
+    public static final int MASK_UP = 4;
+    public static final int MASK_DOWN = 8;
+
+    /**
+     * Texture id for every neighbour mask
+     */
+    private static final short[] TEXTURE_IDS = new short[16];
+
+    static {
+        TEXTURE_IDS[0] = Block.COLLIDE_NONE;
+        TEXTURE_IDS[MASK_LEFT] = Block.COLLIDE_LEFT;
+        TEXTURE_IDS[MASK_RIGHT] = Block.COLLIDE_RIGHT;
+        TEXTURE_IDS[MASK_UP] = Block.COLLIDE_UP;
+        TEXTURE_IDS[MASK_DOWN] = Block.COLLIDE_DOWN;
+        TEXTURE_IDS[MASK_LEFT | MASK_RIGHT] = Block.COLLIDE_LEFT_RIGHT;
+        TEXTURE_IDS[MASK_LEFT | MASK_UP] = Block.COLLIDE_LEFT_UP;
+        TEXTURE_IDS[MASK_LEFT | MASK_DOWN] = Block.COLLIDE_LEFT_DOWN;
+        TEXTURE_IDS[MASK_RIGHT | MASK_UP] = Block.COLLIDE_UP_RIGHT;
+        TEXTURE_IDS[MASK_RIGHT | MASK_DOWN] = Block.COLLIDE_RIGHT_DOWN;
+        TEXTURE_IDS[MASK_UP | MASK_DOWN] = Block.COLLIDE_UP_DOWN;
+        TEXTURE_IDS[MASK_LEFT | MASK_RIGHT | MASK_UP] = Block.COLLIDE_LEFT_UP_RIGHT;
+        TEXTURE_IDS[MASK_LEFT | MASK_RIGHT | MASK_DOWN] = Block.COLLIDE_LEFT_DOWN_RIGHT;
+        TEXTURE_IDS[MASK_LEFT | MASK_UP | MASK_DOWN] = Block.COLLIDE_LEFT_UP_DOWN;
+        TEXTURE_IDS[MASK_RIGHT | MASK_UP | MASK_DOWN] = Block.COLLIDE_UP_RIGHT_DOWN;
+        TEXTURE_IDS[MASK_LEFT | MASK_RIGHT | MASK_UP | MASK_DOWN] = Block.COLLIDE_ALL_SIDES;
+    }
+
+    /**
+     * Calculate texture id (see COLLIDE_ variables in {@link Block}) of block, uses only given data so many chunks can be autotiled at the same time
+     * @param tiles_data blocks of chunk
+     * @param this_block block which texture id is calculated
+     * @param i local x
+     * @param j local y
+     * @param background true if block is background one
+     * @param edges snapshot of neighbour chunks borders
+     * @param world world instance
+     * @return texture id
+     */
+    public static short getTileTextureID(ChunkBlocks tiles_data, Block this_block, int i, int j, boolean background, NeighbourEdges edges, World world) {
         if(this_block == null)
             return 0;
 
         // if group is to connect with nothing then we have only one option
-        if (this_block.getBlockGroup().equals(Block.BlockGroup.CONNECT_WITH_NOTHING)) {
+        if(this_block.getBlockGroup() == Block.BlockGroup.CONNECT_WITH_NOTHING)
             return Block.COLLIDE_NONE;
-        }
-
-        // check if blocks collide on all sides
-        else if (tileCollide(tiles_data, this_block, -1 + i, 0 + j, background, chunk, world)
-                && tileCollide(tiles_data, this_block, 1 + i, 0 + j, background, chunk, world)
-                && tileCollide(tiles_data, this_block, 0 + i, 1 + j, background, chunk, world)
-                && tileCollide(tiles_data, this_block, 0 + i, -1 + j,
-                background, chunk, world)) {
-
-            return Block.COLLIDE_ALL_SIDES;
-        }
-
-        // check if block collide on left right down
-        else if (tileCollide(tiles_data, this_block, -1 + i, 0 + j, background, chunk, world)
-                && tileCollide(tiles_data, this_block, 1 + i, 0 + j, background, chunk, world)
-                && tileCollide(tiles_data, this_block, 0 + i, -1 + j,
-                background, chunk, world)) {
-
-            return Block.COLLIDE_LEFT_DOWN_RIGHT;
-        }
-
-        // check if block collide on left right up
-        else if (tileCollide(tiles_data, this_block, -1 + i, 0 + j, background, chunk, world)
-                && tileCollide(tiles_data, this_block, 1 + i, 0 + j, background, chunk, world)
-                && tileCollide(tiles_data, this_block, 0 + i, 1 + j, background, chunk, world)) {
-
-           return Block.COLLIDE_LEFT_UP_RIGHT;
-        }
-
-        // check if block collide on up right down
-        else if (tileCollide(tiles_data, this_block, 0 + i, 1 + j, background, chunk, world)
-                && tileCollide(tiles_data, this_block, 1 + i, 0 + j, background, chunk, world)
-                && tileCollide(tiles_data, this_block, 0 + i, -1 + j,
-                background, chunk, world)) {
-
-            return Block.COLLIDE_UP_RIGHT_DOWN;
-        }
-
-        // check if block collide on up left down
-        else if (tileCollide(tiles_data, this_block, 0 + i, 1 + j, background, chunk, world)
-                && tileCollide(tiles_data, this_block, -1 + i, 0 + j,
-                background, chunk, world)
-                && tileCollide(tiles_data, this_block, 0 + i, -1 + j,
-                background, chunk, world)) {
-
-            return Block.COLLIDE_LEFT_UP_DOWN;
-        }
-
-        // check if block collide on left right
-        else if (tileCollide(tiles_data, this_block, -1 + i, 0 + j, background, chunk, world)
-                && tileCollide(tiles_data, this_block, 1 + i, 0 + j, background, chunk, world)) {
-
-            return Block.COLLIDE_LEFT_RIGHT;
-        }
-
-        // check if block collide on up down
-        else if (tileCollide(tiles_data, this_block, 0 + i, 1 + j, background, chunk, world)
-                && tileCollide(tiles_data, this_block, 0 + i, -1 + j,
-                background, chunk, world)) {
-
-            return Block.COLLIDE_UP_DOWN;
-        }
-
-        // check if block collide on left up
-        else if (tileCollide(tiles_data, this_block, 0 + i, 1 + j, background, chunk, world)
-                && tileCollide(tiles_data, this_block, -1 + i, 0 + j,
-                background, chunk, world)) {
-
-            return Block.COLLIDE_LEFT_UP;
-        }
-
-        // check if block collide on up right
-        else if (tileCollide(tiles_data, this_block, 1 + i, 0 + j, background, chunk, world)
-                && tileCollide(tiles_data, this_block, 0 + i, 1 + j, background, chunk, world)) {
-
-            return Block.COLLIDE_UP_RIGHT;
-        }
-
-        // check if block collide on right down
-        else if (tileCollide(tiles_data, this_block, 1 + i, 0 + j, background, chunk, world)
-                && tileCollide(tiles_data, this_block, 0 + i, -1 + j,
-                background, chunk, world)) {
-
-            return Block.COLLIDE_RIGHT_DOWN;
-        }
-
-        // check if block collide on left down
-        else if (tileCollide(tiles_data, this_block, -1 + i, 0 + j, background, chunk, world)
-                && tileCollide(tiles_data, this_block, 0 + i, -1 + j,
-                background, chunk, world)) {
-
-            return Block.COLLIDE_LEFT_DOWN;
-        }
-
-        // check if block collide on left only
-        else if (tileCollide(tiles_data, this_block, -1 + i, 0 + j, background, chunk, world)) {
-
-            return Block.COLLIDE_LEFT;
-        }
 
-        // check if block collide on right only
-        else if (tileCollide(tiles_data, this_block, 1 + i, 0 + j, background, chunk, world)) {
-            return Block.COLLIDE_RIGHT;
-        }
-
-        // check if block collide on down
-        else if (tileCollide(tiles_data, this_block, 0 + i, -1 + j, background, chunk, world)) {
-            return Block.COLLIDE_DOWN;
-        }
-
-        // check if block collide on up
-        else if (tileCollide(tiles_data, this_block, 0 + i, 1 + j, background, chunk, world)) {
-            return Block.COLLIDE_UP;
-        }
-
-        else {
-            return Block.COLLIDE_NONE;
-        }
+        return TEXTURE_IDS[getNeighbourMask(tiles_data, this_block, i, j, background, edges, world)];
     }
 
-    public static synchronized TextureRegion getTileTexture(TileHolder[][] tiles_data,
-                                        Block this_block, int i, int j, boolean background, WorldChunk chunk, World world) {
-
-        TextureRegion out = this_block.getTextureRegion(getTileTextureID(tiles_data, this_block, i, j, background, chunk, world));
-        return out;
-
-        /*TextureRegion final_region = null;
-
-        // if group is to connect with nothing then we have only one option
-        if (this_block.getBlockGroup().equals(Block.BlockGroup.CONNECT_WITH_NOTHING)) {
-            final_region = this_block.getTextureRegion(Block.COLLIDE_NONE);
-        }
-
-        // check if blocks collide on all sides
-        else if (tileCollide(tiles_data, this_block, -1 + i, 0 + j, background, chunk, world)
-                && tileCollide(tiles_data, this_block, 1 + i, 0 + j, background, chunk, world)
-                && tileCollide(tiles_data, this_block, 0 + i, 1 + j, background, chunk, world)
-                && tileCollide(tiles_data, this_block, 0 + i, -1 + j,
-                background, chunk, world)) {
-            final_region = this_block.getTextureRegion(Block.COLLIDE_ALL_SIDES);
-        }
-
-        // check if block collide on left right down
-        else if (tileCollide(tiles_data, this_block, -1 + i, 0 + j, background, chunk, world)
-                && tileCollide(tiles_data, this_block, 1 + i, 0 + j, background, chunk, world)
-                && tileCollide(tiles_data, this_block, 0 + i, -1 + j,
-                background, chunk, world)) {
-            final_region = this_block
-                    .getTextureRegion(Block.COLLIDE_LEFT_DOWN_RIGHT);
-        }
-
-        // check if block collide on left right up
-        else if (tileCollide(tiles_data, this_block, -1 + i, 0 + j, background, chunk, world)
-                && tileCollide(tiles_data, this_block, 1 + i, 0 + j, background, chunk, world)
-                && tileCollide(tiles_data, this_block, 0 + i, 1 + j, background, chunk, world)) {
-            final_region = this_block
-                    .getTextureRegion(Block.COLLIDE_LEFT_UP_RIGHT);
-        }
-
-        // check if block collide on up right down
-        else if (tileCollide(tiles_data, this_block, 0 + i, 1 + j, background, chunk, world)
-                && tileCollide(tiles_data, this_block, 1 + i, 0 + j, background, chunk, world)
-                && tileCollide(tiles_data, this_block, 0 + i, -1 + j,
-                background, chunk, world)) {
-            final_region = this_block
-                    .getTextureRegion(Block.COLLIDE_UP_RIGHT_DOWN);
-        }
-
-        // check if block collide on up left down
-        else if (tileCollide(tiles_data, this_block, 0 + i, 1 + j, background, chunk, world)
-                && tileCollide(tiles_data, this_block, -1 + i, 0 + j,
-                background, chunk, world)
-                && tileCollide(tiles_data, this_block, 0 + i, -1 + j,
-                background, chunk, world)) {
-            final_region = this_block
-                    .getTextureRegion(Block.COLLIDE_LEFT_UP_DOWN);
-        }
-
-        // check if block collide on left right
-        else if (tileCollide(tiles_data, this_block, -1 + i, 0 + j, background, chunk, world)
-                && tileCollide(tiles_data, this_block, 1 + i, 0 + j, background, chunk, world)) {
-            final_region = this_block.getTextureRegion(Block.COLLIDE_LEFT_RIGHT);
-        }
-
-        // check if block collide on up down
-        else if (tileCollide(tiles_data, this_block, 0 + i, 1 + j, background, chunk, world)
-                && tileCollide(tiles_data, this_block, 0 + i, -1 + j,
-                background, chunk, world)) {
-            final_region = this_block.getTextureRegion(Block.COLLIDE_UP_DOWN);
-        }
-
-        // check if block collide on left up
-        else if (tileCollide(tiles_data, this_block, 0 + i, 1 + j, background, chunk, world)
-                && tileCollide(tiles_data, this_block, -1 + i, 0 + j,
-                background, chunk, world)) {
-            final_region = this_block.getTextureRegion(Block.COLLIDE_LEFT_UP);
-        }
-
-        // check if block collide on up right
-        else if (tileCollide(tiles_data, this_block, 1 + i, 0 + j, background, chunk, world)
-                && tileCollide(tiles_data, this_block, 0 + i, 1 + j, background, chunk, world)) {
-            final_region = this_block.getTextureRegion(Block.COLLIDE_UP_RIGHT);
-        }
-
-        // check if block collide on right down
-        else if (tileCollide(tiles_data, this_block, 1 + i, 0 + j, background, chunk, world)
-                && tileCollide(tiles_data, this_block, 0 + i, -1 + j,
-                background, chunk, world)) {
-            final_region = this_block.getTextureRegion(Block.COLLIDE_RIGHT_DOWN);
-        }
-
-        // check if block collide on left down
-        else if (tileCollide(tiles_data, this_block, -1 + i, 0 + j, background, chunk, world)
-                && tileCollide(tiles_data, this_block, 0 + i, -1 + j,
-                background, chunk, world)) {
-            final_region = this_block.getTextureRegion(Block.COLLIDE_LEFT_DOWN);
-        }
-
-        // check if block collide on left only
-        else if (tileCollide(tiles_data, this_block, -1 + i, 0 + j, background, chunk, world)) {
-            final_region = this_block.getTextureRegion(Block.COLLIDE_LEFT);
-        }
-
-        // check if block collide on right only
-        else if (tileCollide(tiles_data, this_block, 1 + i, 0 + j, background, chunk, world)) {
-            final_region = this_block.getTextureRegion(Block.COLLIDE_RIGHT);
-        }
+    /**
+     * Same as getTileTextureID() with snapshot but takes snapshot of neighbours on its own, when calculating more tiles take snapshot once and use other version
+     */
+    public static short getTileTextureID(ChunkBlocks tiles_data, Block this_block, int i, int j, boolean background, WorldChunk chunk, World world) {
+        return getTileTextureID(tiles_data, this_block, i, j, background, NeighbourEdges.capture(chunk, world), world);
+    }
 
-        // check if block collide on down
-        else if (tileCollide(tiles_data, this_block, 0 + i, -1 + j, background, chunk, world)) {
-            final_region = this_block.getTextureRegion(Block.COLLIDE_DOWN);
-        }
+    /**
+     * Get mask of neighbours (MASK_ variables) that connect with given block
+     * @param tiles_data blocks of chunk
+     * @param this_block block
+     * @param i local x
+     * @param j local y
+     * @param background true if block is background one
+     * @param edges snapshot of neighbour chunks borders
+     * @param world world instance
+     * @return neighbour mask (0 - 15)
+     */
+    public static int getNeighbourMask(ChunkBlocks tiles_data, Block this_block, int i, int j, boolean background, NeighbourEdges edges, World world) {
+        int left = (i > 0) ? tiles_data.getBlockID(i - 1, j, background) : edges.getBlockID(NeighbourEdges.LEFT, j, background);
+        int right = (i < World.CHUNK_SIZE - 1) ? tiles_data.getBlockID(i + 1, j, background) : edges.getBlockID(NeighbourEdges.RIGHT, j, background);
+        int down = (j > 0) ? tiles_data.getBlockID(i, j - 1, background) : edges.getBlockID(NeighbourEdges.DOWN, i, background);
+        int up = (j < World.CHUNK_SIZE - 1) ? tiles_data.getBlockID(i, j + 1, background) : edges.getBlockID(NeighbourEdges.UP, i, background);
+
+        int mask = 0;
+        if(connects(this_block, left, world))
+            mask |= MASK_LEFT;
+        if(connects(this_block, right, world))
+            mask |= MASK_RIGHT;
+        if(connects(this_block, up, world))
+            mask |= MASK_UP;
+        if(connects(this_block, down, world))
+            mask |= MASK_DOWN;
+
+        return mask;
+    }
 
-        // check if block collide on up
-        else if (tileCollide(tiles_data, this_block, 0 + i, 1 + j, background, chunk, world)) {
-            final_region = this_block.getTextureRegion(Block.COLLIDE_UP);
-        }
+    public static TextureRegion getTileTexture(ChunkBlocks tiles_data, Block this_block, int i, int j, boolean background, WorldChunk chunk, World world) {
+        return this_block.getTextureRegion(getTileTextureID(tiles_data, this_block, i, j, background, chunk, world));
+    }
 
-        else {
-            final_region = this_block.getTextureRegion(Block.COLLIDE_NONE);
-        }
+    /**
+     * @param this_block block
+     * @param other_id id of neighbour block, -1 if neighbour is unknown
+     * @return true if neighbour block is not air and is in same group as this_block
+     */
+    private static boolean connects(Block this_block, int other_id, World world) {
+        if(other_id < 0 || other_id == world.getBlocks().AIR.getBlockID())
+            return false;
 
-        // finally
-        return final_region;*/
+        return world.getBlocks().getBlock(other_id).getBlockGroup() == this_block.getBlockGroup();
     }
 
     // func used to avoid exceptions
-    public static synchronized boolean inChunkBounds(int x, int y) {
+    public static boolean inChunkBounds(int x, int y) {
         if(World.CHUNK_SIZE - 1 < x || 0 > x) {
             return false;
         } else if (World.CHUNK_SIZE - 1 < y || 0 > y) {
@@ -305,7 +158,7 @@ public class TileHolderTools {
      * @param world
      * @return
      */
-    public static synchronized boolean inWorldBounds(int chunk_x, int chunk_y, World world) {
+    public static boolean inWorldBounds(int chunk_x, int chunk_y, World world) {
         if(world.getWorldChunks().length <= chunk_x || chunk_x < 0) {
             return false;
         }
@@ -322,7 +175,7 @@ public class TileHolderTools {
      * @param x
      * @return
      */
-    public static synchronized int getNeighbourLocalX(int x) {
+    public static int getNeighbourLocalX(int x) {
         if(x < 0) {
             x = World.CHUNK_SIZE + x;
             return x;
@@ -340,7 +193,7 @@ public class TileHolderTools {
      * @param y
      * @return
      */
-    public static synchronized int getNeighbourLocalY(int y) {
+    public static int getNeighbourLocalY(int y) {
         if(y < 0) {
             //down
             y = World.CHUNK_SIZE + y;
@@ -362,7 +215,7 @@ public class TileHolderTools {
      * @param world
      * @return
      */
-    public static synchronized WorldChunk getNeighbourChunk(int x, int y, WorldChunk chunk, World world) {
+    public static WorldChunk getNeighbourChunk(int x, int y, WorldChunk chunk, World world) {
         int zero_chunk_pos_x = (int) world.getWorldChunks()[0][0].getPosition().x / World.CHUNK_WORLD_SIZE;
         int zero_chunk_pos_y = (int) world.getWorldChunks()[0][0].getPosition().y / World.CHUNK_WORLD_SIZE;
 
@@ -414,7 +267,7 @@ public class TileHolderTools {
      * @param world
      * @return
      */
-    public static synchronized Block getBlock(int x, int y, boolean background, WorldChunk chunk, World world) {
+    public static Block getBlock(int x, int y, boolean background, WorldChunk chunk, World world) {
         int zero_chunk_pos_x = (int) world.getWorldChunks()[0][0].getPosition().x / World.CHUNK_WORLD_SIZE;
         int zero_chunk_pos_y = (int) world.getWorldChunks()[0][0].getPosition().y / World.CHUNK_WORLD_SIZE;
 
@@ -430,9 +283,9 @@ public class TileHolderTools {
             //left
             WorldChunk other_chunk = world.getWorldChunks()[this_chunk_x - 1][this_chunk_y];
             if(background) {
-                return other_chunk.getBlocks()[x][y].getBackgroundBlock();
+                return other_chunk.getBlocks().getBackgroundBlock(x, y);
             } else {
-                return other_chunk.getBlocks()[x][y].getForegroundBlock();
+                return other_chunk.getBlocks().getForegroundBlock(x, y);
             }
         } else if(x >= World.CHUNK_SIZE) {
             //right
@@ -444,9 +297,9 @@ public class TileHolderTools {
 
             WorldChunk other_chunk = world.getWorldChunks()[this_chunk_x + 1][this_chunk_y];
             if(background) {
-                return other_chunk.getBlocks()[x][y].getBackgroundBlock();
+                return other_chunk.getBlocks().getBackgroundBlock(x, y);
             } else {
-                return other_chunk.getBlocks()[x][y].getForegroundBlock();
+                return other_chunk.getBlocks().getForegroundBlock(x, y);
             }
         } else if(y < 0) {
             //down
@@ -458,9 +311,9 @@ public class TileHolderTools {
 
             WorldChunk other_chunk = world.getWorldChunks()[this_chunk_x][this_chunk_y - 1];
             if(background) {
-                return other_chunk.getBlocks()[x][y].getBackgroundBlock();
+                return other_chunk.getBlocks().getBackgroundBlock(x, y);
             } else {
-                return other_chunk.getBlocks()[x][y].getForegroundBlock();
+                return other_chunk.getBlocks().getForegroundBlock(x, y);
             }
         } else if(y >= World.CHUNK_SIZE) {
             //up
@@ -472,175 +325,12 @@ public class TileHolderTools {
 
             WorldChunk other_chunk = world.getWorldChunks()[this_chunk_x][this_chunk_y + 1];
             if(background) {
-                return other_chunk.getBlocks()[x][y].getBackgroundBlock();
+                return other_chunk.getBlocks().getBackgroundBlock(x, y);
             } else {
-                return other_chunk.getBlocks()[x][y].getForegroundBlock();
+                return other_chunk.getBlocks().getForegroundBlock(x, y);
             }
         }
 
         return null;
     }
-
-    // func return if given tile collide with tile on xy uses short two dim
-    // array
-    private static synchronized boolean tileCollide(TileHolder[][] tiles_data, Block this_block,
-                                int x, int y, boolean background, WorldChunk chunk, World world) {
-
-        if(!inChunkBounds(x, y)) {
-            //first find from which chunk we have to get data
-
-            //calc this chunk in array position
-            int zero_chunk_pos_x = (int) world.getWorldChunks()[0][0].getPosition().x / World.CHUNK_WORLD_SIZE;
-            int zero_chunk_pos_y = (int) world.getWorldChunks()[0][0].getPosition().y / World.CHUNK_WORLD_SIZE;
-
-            int this_chunk_x = ((int) chunk.getPosition().x / World.CHUNK_WORLD_SIZE) - zero_chunk_pos_x;
-            int this_chunk_y = ((int) chunk.getPosition().y / World.CHUNK_WORLD_SIZE) - zero_chunk_pos_y;
-
-            if(x < 0) {
-                x = World.CHUNK_SIZE + x;
-
-                if(!inWorldBounds(this_chunk_x - 1, this_chunk_y, world))
-                    return false;
-
-                //left
-                WorldChunk other_chunk = world.getWorldChunks()[this_chunk_x - 1][this_chunk_y];
-                if(background) {
-                    if (other_chunk.getBlocks()[x][y].getBackgroundBlock().getBlockID() != world.getBlocks().AIR.getBlockID()) {
-                        if (other_chunk.getBlocks()[x][y].getBackgroundBlock().getBlockGroup().equals(this_block.getBlockGroup())) {
-                            return true;
-                        } else {
-                            return false;
-                        }
-                    } else {
-                        return false;
-                    }
-                } else {
-                    if (other_chunk.getBlocks()[x][y].getForegroundBlock().getBlockID() != world.getBlocks().AIR.getBlockID()) {
-                        if(other_chunk.getBlocks()[x][y].getForegroundBlock().getBlockGroup().equals(this_block.getBlockGroup())) {
-                            return true;
-                        } else {
-                            return false;
-                        }
-                    } else {
-                        return false;
-                    }
-                }
-            } else if(x >= World.CHUNK_SIZE) {
-                //right
-                x -= World.CHUNK_SIZE;
-
-                if (!inWorldBounds(this_chunk_x + 1, this_chunk_y, world)) {
-                    return false;
-                }
-
-                WorldChunk other_chunk = world.getWorldChunks()[this_chunk_x + 1][this_chunk_y];
-                if(background) {
-                    if (other_chunk.getBlocks()[x][y].getBackgroundBlock().getBlockID() != world.getBlocks().AIR.getBlockID()) {
-                        if (other_chunk.getBlocks()[x][y].getBackgroundBlock().getBlockGroup().equals(this_block.getBlockGroup())) {
-                            return true;
-                        } else {
-                            return false;
-                        }
-                    } else {
-                        return false;
-                    }
-                } else {
-                    if (other_chunk.getBlocks()[x][y].getForegroundBlock().getBlockID() != world.getBlocks().AIR.getBlockID()) {
-                        if(other_chunk.getBlocks()[x][y].getForegroundBlock().getBlockGroup().equals(this_block.getBlockGroup())) {
-                            return true;
-                        } else {
-                            return false;
-                        }
-                    } else {
-                        return false;
-                    }
-                }
-            } else if(y < 0) {
-                //down
-                y = World.CHUNK_SIZE + y;
-
-                if (!inWorldBounds(this_chunk_x, this_chunk_y - 1, world)) {
-                    return false;
-                }
-
-                WorldChunk other_chunk = world.getWorldChunks()[this_chunk_x][this_chunk_y - 1];
-                if(background) {
-                    if (other_chunk.getBlocks()[x][y].getBackgroundBlock().getBlockID() != world.getBlocks().AIR.getBlockID()) {
-                        if (other_chunk.getBlocks()[x][y].getBackgroundBlock().getBlockGroup().equals(this_block.getBlockGroup())) {
-                            return true;
-                        } else {
-                            return false;
-                        }
-                    } else {
-                        return false;
-                    }
-                } else {
-                    if (other_chunk.getBlocks()[x][y].getForegroundBlock().getBlockID() != world.getBlocks().AIR.getBlockID()) {
-                        if(other_chunk.getBlocks()[x][y].getForegroundBlock().getBlockGroup().equals(this_block.getBlockGroup())) {
-                            return true;
-                        } else {
-                            return false;
-                        }
-                    } else {
-                        return false;
-                    }
-                }
-            } else if(y >= World.CHUNK_SIZE) {
-                //up
-                y -= World.CHUNK_SIZE;
-
-                if (!inWorldBounds(this_chunk_x, this_chunk_y + 1, world)) {
-                    return false;
-                }
-
-                WorldChunk other_chunk = world.getWorldChunks()[this_chunk_x][this_chunk_y + 1];
-                if(background) {
-                    if (other_chunk.getBlocks()[x][y].getBackgroundBlock().getBlockID() != world.getBlocks().AIR.getBlockID()) {
-                        if (other_chunk.getBlocks()[x][y].getBackgroundBlock().getBlockGroup().equals(this_block.getBlockGroup())) {
-                            return true;
-                        } else {
-                            return false;
-                        }
-                    } else {
-                        return false;
-                    }
-                } else {
-                    if (other_chunk.getBlocks()[x][y].getForegroundBlock().getBlockID() != world.getBlocks().AIR.getBlockID()) {
-                        if(other_chunk.getBlocks()[x][y].getForegroundBlock().getBlockGroup().equals(this_block.getBlockGroup())) {
-                            return true;
-                        } else {
-                            return false;
-                        }
-                    } else {
-                        return false;
-                    }
-                }
-            }
-
-            return false;
-        } else {
-            if (!background) {
-                if (tiles_data[x][y].getForegroundBlock().getBlockID() != world.getBlocks().AIR.getBlockID()) {
-                    if (tiles_data[x][y].getForegroundBlock().getBlockGroup().equals(this_block.getBlockGroup())) {
-                        return true;
-                    } else {
-                        return false;
-                    }
-                } else {
-                    return false;
-                }
-            } else {
-                if (tiles_data[x][y].getBackgroundBlock().getBlockID() != world.getBlocks().AIR.getBlockID()) {
-                    if (tiles_data[x][y].getBackgroundBlock().getBlockGroup().equals(this_block.getBlockGroup())) {
-                        return true;
-                    } else {
-                        return false;
-                    }
-                } else {
-                    return false;
-                }
-            }
-        }
-    }
 }
-
@@ -7,6 +7,7 @@ import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
 import com.badlogic.gdx.utils.TimeUtils;
 import com.esotericsoftware.minlog.Log;
 
@@ -15,12 +16,17 @@ import org.apache.commons.lang3.SerializationUtils;
 import java.io.Serializable;
 import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import explorer.game.framework.Game;
 import explorer.game.framework.utils.math.MathHelper;
+import explorer.game.framework.utils.metrics.Metrics;
 import explorer.network.NetworkClasses;
 import explorer.network.NetworkHelper;
+import explorer.world.BlockEditBatch;
 import explorer.world.ChunkDataProvider;
+import explorer.world.ChunkIOScheduler;
 import explorer.world.World;
 import explorer.world.block.Block;
 import explorer.world.block.CustomColorBlock;
@@ -36,7 +42,10 @@ import explorer.world.object.objects.player.Player;
 
 public class WorldChunk extends StaticWorldObject {
 
-    public static final boolean YIELD = true;
+    /**
+     * Max time (in nanoseconds) that chunk loading can hold chunk I/O worker before it lets other tasks run (see LoadingTask)
+     */
+    public static final long LOADING_SLICE_BUDGET = 2 * 1000000L;
 
     /**
      * Offset of color when block is rendering as background (use it like normal_color.minus(BACKGROUND_COLOR_OFFSET))
@@ -56,7 +65,7 @@ public class WorldChunk extends StaticWorldObject {
     /**
      * All blocks of this chunk
      */
-    private TileHolder[][] blocks;
+    private volatile ChunkBlocks blocks;
 
     /**
      * All objects on that chunk
@@ -90,6 +99,54 @@ public class WorldChunk extends StaticWorldObject {
      */
     private Future<?> loading_future;
 
+    /**
+     * Incremented on every move, used to stop loading of data that was requested before last move
+     */
+    private AtomicInteger loading_id;
+
+    /**
+     * Loading task which finished preparing data and waits for publishLoadedData()
+     */
+    private AtomicReference<LoadingTask> loaded_task;
+
+    /**
+     * Tiles changed by setBlock() which textures / ground lights have to be calculated again in updateChangedTiles()
+     */
+    private ChangedTiles changed_textures;
+    private ChangedTiles changed_lights;
+
+    /**
+     * Temp array used by updateChangedTiles()
+     */
+    private long[] changed_columns;
+
+    /**
+     * Cached vertices of tiles (see rebuildMeshes()), built again when tiles change or chunk moves
+     */
+    private ChunkLayerMesh background_mesh;
+    private ChunkLayerMesh foreground_mesh;
+
+    /**
+     * Tiles with blocks that use their own rendering (not cached)
+     */
+    private IntArray background_custom_tiles;
+    private IntArray foreground_custom_tiles;
+
+    private volatile boolean meshes_dirty;
+    private Vector2 meshes_position;
+    private int meshes_colors_version;
+
+    /**
+     * Incremented every time meshes are built, layer textures compare it with version they were drawn from
+     */
+    private int meshes_version;
+
+    /**
+     * Tiles layers rendered to textures, used only when ChunkLayerTexture.ENABLED
+     */
+    private ChunkLayerTexture background_texture;
+    private ChunkLayerTexture foreground_texture;
+
     public WorldChunk(Vector2 position, World world, Game game) {
         super(position, world, game);
 
@@ -97,6 +154,25 @@ public class WorldChunk extends StaticWorldObject {
 
         is_dirty = new AtomicBoolean();
         need_save = new AtomicBoolean();
+        loading_id = new AtomicInteger();
+        loaded_task = new AtomicReference<LoadingTask>();
+
+        changed_textures = new ChangedTiles();
+        changed_lights = new ChangedTiles();
+        changed_columns = new long[World.CHUNK_SIZE];
+
+        background_mesh = new ChunkLayerMesh();
+        foreground_mesh = new ChunkLayerMesh();
+        background_custom_tiles = new IntArray();
+        foreground_custom_tiles = new IntArray();
+
+        meshes_dirty = true;
+        meshes_position = new Vector2();
+
+        if(ChunkLayerTexture.ENABLED) {
+            background_texture = new ChunkLayerTexture();
+            foreground_texture = new ChunkLayerTexture();
+        }
 
         getWH().set(World.CHUNK_WORLD_SIZE, World.CHUNK_WORLD_SIZE);
 
@@ -108,12 +184,7 @@ public class WorldChunk extends StaticWorldObject {
         object_bounding_rectangle = new Rectangle();
 
         //init blocks
-        blocks = new TileHolder[World.CHUNK_SIZE][World.CHUNK_SIZE];
-        for(int i = 0; i < World.CHUNK_SIZE; i++) {
-            for(int j = 0; j < World.CHUNK_SIZE; j++) {
-                blocks[i][j] = new TileHolder(world.getBlocks().AIR, world.getBlocks().AIR);
-            }
-        }
+        blocks = new ChunkBlocks(world.getBlocks(), world.getBlocks().AIR.getBlockID());
 
         objects = new Array<WorldObject>();
     }
@@ -203,6 +274,9 @@ public class WorldChunk extends StaticWorldObject {
             loading_future.cancel(true);
         }
 
+        //continuations of older loading (see LoadingTask) stop themselves when they see that id changed
+        final int id = loading_id.incrementAndGet();
+
         final long loading_start = System.nanoTime();
 
         //first update this chunk position
@@ -214,162 +288,214 @@ public class WorldChunk extends StaticWorldObject {
         //next get data for "new chunk"
         ChunkDataProvider provider = world.getChunksDataProvider();
 
+        final Vector2 loading_position = new Vector2(getPosition());
+
         loading_future = provider.getChunkData(new ChunkDataProvider.DataLoaded() {
             @Override
             public void loaded(ChunkDataProvider.ChunkData data) {
+                //first compare positions of chunk if not equal stop loading data,
+                //because it means that player moved fast and this result is some old random one
+                //and loading it like normal would cause serious bug where chunk would be totally broken (old & new data would mix and make total mess)
+                Vector2 loaded_position = data.chunk_loaded_position;
 
-                boolean started_creating_physics_body = false;
+                Vector2 this_pos = new Vector2(getPosition());
+                this_pos.x %= world.getPlanetProperties().PLANET_SIZE * World.CHUNK_WORLD_SIZE;
 
-                try {
-                    //first compare positions of chunk if not equal stop loading data,
-                    //because it means that player moved fast and this result is some old random one
-                    //and loading it like normal would cause serious bug where chunk would be totally broken (old & new data would mix and make total mess)
-                    Vector2 loaded_position = data.chunk_loaded_position;
+                if(!loaded_position.equals(this_pos)) {
+                    System.err.println("Loaded wrong chunk file (position check failed)!" + "(acc pos: " + this_pos + " loaded pos: " + loaded_position + ")");
 
-                    Vector2 this_pos = new Vector2(getPosition());
-                    this_pos.x %= world.getPlanetProperties().PLANET_SIZE * World.CHUNK_WORLD_SIZE;
-
-                    if(!loaded_position.equals(this_pos)) {
-                        System.err.println("Loaded wrong chunk file (position check failed)!" + "(acc pos: " + this_pos + " loaded pos: " + loaded_position + ")");
-
-                        //call chunk to load proper chunk now
-                        move(0, 0);
-
-                        throw new InterruptedException();
-                    }
+                    //call chunk to load proper chunk now
+                    move(0, 0);
+                    return;
+                }
 
-                    //reset save flag
-                    need_save.set(false);
+                new LoadingTask(data, id, loading_position, loading_start).run();
+            }
+        }, new Vector2(getPosition()), world, game);
+    }
 
-                    //copy new data
-                    for (int i = 0; i < blocks.length; i++) {
-                        for (int j = 0; j < blocks[0].length; j++) {
-                            blocks[i][j].setForegroundBlock(world.getBlocks().getBlock(data.foreground_blocks[i][j]));
-                            blocks[i][j].setBackgroundBlock(world.getBlocks().getBlock(data.background_blocks[i][j]));
+    /**
+     * Prepares loaded data in detached buffer (blocks with textures, objects, ground lights) in small steps, chunk itself is not touched until
+     * whole buffer is ready, then GL thread swaps it in at once in publishLoadedData() so nobody can see half loaded chunk
+     *
+     * When slice takes longer than LOADING_SLICE_BUDGET task submits itself again to chunk I/O scheduler and continues from step where it stopped,
+     * so one chunk never holds worker for long time and more important chunks (center one) don't have to wait until whole chunk is processed
+     */
+    private class LoadingTask implements Runnable {
+
+        private static final int STEP_BLOCKS = 0;
+        private static final int STEP_TEXTURES = 1;
+        private static final int STEP_GROUND_LIGHT = 2;
+        private static final int STEP_DONE = 3;
+
+        private final ChunkDataProvider.ChunkData data;
+        private final int id;
+        private final Vector2 loading_position;
+        private final long loading_start;
+
+        /**
+         * Detached buffer
+         */
+        private ChunkBlocks loaded_blocks;
+        private Array<Vector2> loaded_ground_lights;
+
+        /**
+         * Neighbours borders used by autotiling
+         */
+        private NeighbourEdges edges;
+
+        private int step = STEP_BLOCKS;
+
+        /**
+         * Next column of blocks in STEP_TEXTURES and STEP_GROUND_LIGHT
+         */
+        private int column;
+
+        /**
+         * Time spent in STEP_TEXTURES (in all slices)
+         */
+        private long autotile_time;
+
+        LoadingTask(ChunkDataProvider.ChunkData data, int id, Vector2 loading_position, long loading_start) {
+            this.data = data;
+            this.id = id;
+            this.loading_position = loading_position;
+            this.loading_start = loading_start;
+        }
 
-                            if(Thread.interrupted()) {
-                                throw new InterruptedException();
-                            }
-                        }
-                    }
+        @Override
+        public void run() {
+            long slice_end = System.nanoTime() + LOADING_SLICE_BUDGET;
 
-                    if(Thread.interrupted()) {
+            try {
+                while(step != STEP_DONE) {
+                    //check if loading is interrupted or chunk was moved somewhere else
+                    if(Thread.interrupted() || loading_id.get() != id) {
                         throw new InterruptedException();
                     }
 
-                    //copy objects
-                    objects.clear();
-                    for (int i = 0; i < data.objects.size; i++) {
-                        if(Thread.interrupted()) {
-                            throw new InterruptedException();
-                        }
+                    switch(step) {
+                        case STEP_BLOCKS:
+                            loaded_blocks = new ChunkBlocks(world.getBlocks(), world.getBlocks().AIR.getBlockID());
+                            loaded_blocks.load(data.foreground_blocks, data.background_blocks);
 
-                        WorldObject o = data.objects.get(i);
+                            loaded_ground_lights = new Array<Vector2>();
 
-                        //because dynamic world object will move or smth there is almost 100% possibility that this chunk have to be saved after
-                        if (!need_save.get())
-                            if (o instanceof DynamicWorldObject)
-                                need_save.set(true);
+                            edges = NeighbourEdges.capture(WorldChunk.this, world);
 
-                        o.setParentChunk(WorldChunk.this);
-                        objects.add(o);
-                        o.addedToWorld();
-                    }
+                            step = STEP_TEXTURES;
+                            break;
 
-                    if(Thread.interrupted()) {
-                        throw new InterruptedException();
-                    }
-
-                    //calculate blocks old_assets.textures
-                    updateBlocksTextures();
-
-                    if(Thread.interrupted()) {
-                        throw new InterruptedException();
-                    }
+                        case STEP_TEXTURES:
+                            //calculate blocks textures
+                            long autotile_start = System.nanoTime();
+                            updateBlocksTextures(loaded_blocks, edges, column++);
+                            autotile_time += System.nanoTime() - autotile_start;
 
-                    //calculate ground point lights
-                    calculateGroundLight();
+                            if(column == World.CHUNK_SIZE) {
+                                column = 0;
+                                step = STEP_GROUND_LIGHT;
 
-                    if(Thread.interrupted()) {
-                        throw new InterruptedException();
-                    }
+                                Metrics.recordNanos(Metrics.CHUNK_AUTOTILE, autotile_time);
+                            }
+                            break;
 
-                    //update center chunk border blocks old_assets.textures
-                    world.getWorldChunks()[1][1].updateTexturesOnChunkBorders();
+                        case STEP_GROUND_LIGHT:
+                            //calculate ground point lights
+                            calculateGroundLight(loaded_blocks, column++, loaded_ground_lights);
 
-                    if(Thread.interrupted()) {
-                        throw new InterruptedException();
+                            if(column == World.CHUNK_SIZE) {
+                                column = 0;
+                                step = STEP_DONE;
+                            }
+                            break;
                     }
 
-                    //add chunk objects to physics engine
-                    world.getPhysicsEngine().addWorldObjects(objects);
-
-                    //set creating physics stuff flag
-                    started_creating_physics_body = true;
-
-                    if(Thread.interrupted()) {
-                        throw new InterruptedException();
-                    }
+                    //slice used its time so let worker take more important task and continue later
+                    if(step != STEP_DONE && System.nanoTime() > slice_end) {
+                        ChunkIOScheduler.Priority priority = ChunkIOScheduler.getLoadPriority(world, loading_position);
+                        if(game.getChunkIOScheduler().submit(this, priority) != null)
+                            return;
+
+                        //PREFETCH lane rejects also when it is full, chunk out of chunks window is not needed now so just drop this task
+                        //(chunk gets new position and new loading task when window moves, its data will be read again)
+                        if(priority == ChunkIOScheduler.Priority.PREFETCH) {
+                            Log.debug("(WorldChunk) Loading of chunk out of chunks window dropped, prefetch lane is full");
+                            return;
+                        }
 
-                    if (WorldChunk.YIELD) {
-                        Thread.yield();
+                        //CENTER & VISIBLE lanes reject only when scheduler is not accepting tasks (game is closing) so just continue
+                        slice_end = System.nanoTime() + LOADING_SLICE_BUDGET;
                     }
+                }
 
-                    //loading completed so change dirty flag
-                    is_dirty.set(false);
-
-                    long end_time = System.nanoTime();
-                    Log.debug("(WorldChunk) Total loading time: " + TimeUtils.nanosToMillis(end_time - loading_start) + " milis");
-                } catch(Exception e) {
-                    Log.debug("(WorldChunk) Loading exception: " + e.getClass().getSimpleName());
+                //everything is ready, GL thread will swap it in
+                loaded_task.set(this);
 
-                    //if creating physics stuff flag is true and task was aborted we have to clean loaded mess up
-                    if(started_creating_physics_body) {
-                        world.getPhysicsEngine().removeWorldObjects(objects);
-                    }
-                }
+                Log.debug("(WorldChunk) Loading time (without publishing): " + TimeUtils.nanosToMillis(System.nanoTime() - loading_start) + " milis");
+            } catch(Exception e) {
+                Log.debug("(WorldChunk) Loading exception: " + e.getClass().getSimpleName());
             }
-        }, new Vector2(getPosition()), world, game);
+        }
     }
 
     /**
-     * Instead of loading from data provider just copy all data from given chunk
-     * @param chunks_x one unit of this equals one World.CHUNK_WORLD_SIZE
-     * @param chunks_y one unit of this equals one World.CHUNK_WORLD_SIZE
-     * @param copy_from copying from
+     * Swap data prepared by loading task into this chunk, has to be called from GL thread (the one that ticks and renders chunks)
+     * @return true if new data was published
      */
-    public void moveAndCopy(int chunks_x, int chunks_y, WorldChunk copy_from) {
-        if(loading_future != null && !loading_future.isDone()) {
-            Log.debug("(WorldChunk) Aborting loading task!");
-            loading_future.cancel(true);
-        }
+    public boolean publishLoadedData() {
+        LoadingTask task = loaded_task.getAndSet(null);
 
-        //first update this chunk position
-        getPosition().add(chunks_x * World.CHUNK_WORLD_SIZE, chunks_y * World.CHUNK_WORLD_SIZE);
+        //nothing ready or data of chunk position that is no longer valid
+        if(task == null || task.id != loading_id.get())
+            return false;
 
-        //mark as dirty
-        is_dirty.set(true);
+        blocks = task.loaded_blocks;
 
-        //copy blocks data
-        for(int i = 0; i < blocks.length; i++) {
-            for(int j = 0; j < blocks[0].length; j++) {
-                blocks[i][j].set(copy_from.blocks[i][j]);
-            }
-        }
+        //changes of old data are not valid anymore
+        changed_textures.clear();
+        changed_lights.clear();
+
+        invalidateMeshes();
+
+        //objects were created for position from move(), chunk could be moved around planet since then (see moveToPosition())
+        Vector2 objects_offset = new Vector2(getPosition()).sub(task.loading_position);
+
+        need_save.set(false);
 
-        //copy objects
         objects.clear();
-        for(int i = 0; i < copy_from.getObjects().size; i++) {
-            WorldObject o = copy_from.getObjects().get(i);
+        for(int i = 0; i < task.data.objects.size; i++) {
+            WorldObject o = task.data.objects.get(i);
+
+            //because dynamic world object will move or smth there is almost 100% possibility that this chunk have to be saved after
+            if(!need_save.get())
+                if(o instanceof DynamicWorldObject)
+                    need_save.set(true);
+
+            if(!objects_offset.isZero())
+                o.move(objects_offset);
 
             o.setParentChunk(this);
             objects.add(o);
+            o.addedToWorld();
         }
 
-        need_save.set(copy_from.isSaveRequest());
+        world.getPhysicsEngine().addWorldObjects(objects);
+
+        world.getLightEngine().getGroundLineRenderer().removeChunkBoundLights(this);
+        addGroundLights(task.loaded_ground_lights);
+
+        //neighbours could be loaded after textures were calculated and their borders depend on this chunk
+        updateTexturesOnChunkBorders();
+        updateNeighbourBorders();
 
-        //copying completed so not dirty anymore
+        //loading completed so change dirty flag
         is_dirty.set(false);
+
+        Metrics.recordTime(Metrics.CHUNK_LOAD, task.loading_start);
+
+        Log.debug("(WorldChunk) Total loading time: " + TimeUtils.nanosToMillis(System.nanoTime() - task.loading_start) + " milis");
+        return true;
     }
 
     /**
@@ -381,89 +507,48 @@ public class WorldChunk extends StaticWorldObject {
      * @param notify_network if true packet with information about block set will be send to other clients to notify them (if game is host or client)
      */
     public void setBlock(int x, int y, int new_id, boolean background, boolean notify_network) {
-        int last_id;
-        if(!background) {
-            last_id = blocks[x][y].getForegroundBlock().getBlockID();
-            blocks[x][y].setForegroundBlock(world.getBlocks().getBlock(new_id));
-        } else {
-            last_id = blocks[x][y].getBackgroundBlock().getBlockID();
-            blocks[x][y].setBackgroundBlock(world.getBlocks().getBlock(new_id));
+        if(!notify_network) {
+            setBlock(x, y, new_id, background, null);
+            return;
         }
 
-        //update blocks textures around
-        int area_size = 4;
-        boolean update_other_border = false;
-        for(int i = x - (area_size / 2); i < x + (area_size / 2); i++) {
-            for(int j = y - (area_size / 2); j < y + (area_size / 2); j++) {
-                if(!inChunkBounds(i, j)) {
-                    //update other chunks on borders to achieve nice blocks connecting effect
-                    update_other_border = true;
-                    continue;
-                }
-
-                Block this_block_background = blocks[i][j].getBackgroundBlock();
-                Block this_block_foreground = blocks[i][j].getForegroundBlock();
-
-                if(background) {
-                    short texture_id = TileHolderTools.getTileTextureID(blocks, this_block_background, i, j, true, this, world);
-
-                    blocks[i][j].setBackgroundBlockTextureID(texture_id);
-                    blocks[i][j].setBackgroundTextureRegion(this_block_background.getTextureRegion(texture_id));
-                } else {
-                    short texture_id = TileHolderTools.getTileTextureID(blocks, this_block_foreground, i, j, false, this, world);
-
-                    blocks[i][j].setForegroundBlockTextureID(texture_id);
-                    blocks[i][j].setForegroundTextureRegion(this_block_foreground.getTextureRegion(texture_id));
-                }
-
-                if(YIELD)
-                    Thread.yield();
-            }
+        //block and blocks removed because of it go in one packet
+        BlockEditBatch changes = world.getSingleBlockEdit();
+        synchronized (changes) {
+            setBlock(x, y, new_id, background, changes);
+            changes.sendChanges();
         }
+    }
 
-        //update other chunks borders if there is need for it
-        if(update_other_border) {
-            for(int chunk_x = 0; chunk_x < world.getWorldChunks().length; chunk_x++){
-                for(int chunk_y = 0; chunk_y < world.getWorldChunks()[0].length; chunk_y++) {
-
-                    if(world.getWorldChunks()[chunk_x][chunk_y] != this)
-                        world.getWorldChunks()[chunk_x][chunk_y].updateTexturesOnChunkBorders();
-                }
-            }
+    /**
+     * Set block to new one, textures and ground lights are calculated later for all changes at once (see updateChangedTiles())
+     * @param x x in local cords
+     * @param y y in local cords
+     * @param new_id new block id
+     * @param background if true background block will be set to new one
+     * @param changes batch which collects changed blocks to send them to other players or null if they don't have to be sent
+     */
+    public void setBlock(int x, int y, int new_id, boolean background, BlockEditBatch changes) {
+        int last_id;
+        if(!background) {
+            last_id = blocks.getForegroundBlockID(x, y);
+            blocks.setForegroundBlock(x, y, new_id);
+        } else {
+            last_id = blocks.getBackgroundBlockID(x, y);
+            blocks.setBackgroundBlock(x, y, new_id);
         }
 
-        //update ground lights
-        world.getLightEngine().getGroundLineRenderer().removeChunkBoundLights(this);
-        calculateGroundLight();
+        //textures of changed block and its neighbours (also ones in neighbour chunk) and ground lights around have to be calculated again,
+        //this is done for all changes at once in updateChangedTiles()
+        markChangedTile(x, y);
+        markChangedTile(x - 1, y);
+        markChangedTile(x + 1, y);
+        markChangedTile(x, y - 1);
+        markChangedTile(x, y + 1);
 
-        //send this information to other players if needed
-        if(notify_network) {
-            if(Game.IS_HOST) {
-                NetworkClasses.BlockChangedPacket block_changed_packet = new NetworkClasses.BlockChangedPacket();
-                block_changed_packet.background = background;
-                block_changed_packet.block_x = x;
-                block_changed_packet.block_y = y;
-                block_changed_packet.new_block_id = new_id;
-
-                block_changed_packet.chunk_x = getGlobalChunkXIndex();
-                block_changed_packet.chunk_y = getGlobalChunkYIndex();
-
-                //because we are the server we can send this info directly to other players
-                game.getGameServer().getServer().sendToAllTCP(block_changed_packet);
-            } else if(Game.IS_CLIENT) {
-                NetworkClasses.BlockChangedPacket block_changed_packet = new NetworkClasses.BlockChangedPacket();
-                block_changed_packet.background = background;
-                block_changed_packet.block_x = x;
-                block_changed_packet.block_y = y;
-                block_changed_packet.new_block_id = new_id;
-
-                block_changed_packet.chunk_x = getGlobalChunkXIndex();
-                block_changed_packet.chunk_y = getGlobalChunkYIndex();
-
-                //send this info to server
-                game.getGameClient().getClient().sendTCP(block_changed_packet);
-            }
-        }
+        //remember change to send it to other players
+        if(changes != null)
+            changes.addAppliedChange(this, x, y, new_id, background);
 
         //because chunk was changed we need to save it to a file again
         need_save.set(true);
@@ -472,9 +557,9 @@ public class WorldChunk extends StaticWorldObject {
         if(last_id != new_id && new_id == world.getBlocks().AIR.getBlockID()) {
             //block_under
             if(inChunkBounds(x, y + 1)) {
-                Block block_over = (background) ? getBlocks()[x][y + 1].getBackgroundBlock() : getBlocks()[x][y + 1].getForegroundBlock();
+                Block block_over = getBlocks().getBlock(x, y + 1, background);
                 if(block_over.needBlockUnder()) {
-                    setBlock(x, y + 1, world.getBlocks().AIR.getBlockID(), background, notify_network);
+                    setBlock(x, y + 1, world.getBlocks().AIR.getBlockID(), background, changes);
                 }
             } else {
                 Block block_over = TileHolderTools.getBlock(x, y + 1, background, this, world);
@@ -484,7 +569,7 @@ public class WorldChunk extends StaticWorldObject {
                         WorldChunk parent_chunk = TileHolderTools.getNeighbourChunk(x, y + 1, this, world);
 
                         if(parent_chunk != null) {
-                            parent_chunk.setBlock(TileHolderTools.getNeighbourLocalX(x), TileHolderTools.getNeighbourLocalY(y + 1), world.getBlocks().AIR.getBlockID(), background, notify_network);
+                            parent_chunk.setBlock(TileHolderTools.getNeighbourLocalX(x), TileHolderTools.getNeighbourLocalY(y + 1), world.getBlocks().AIR.getBlockID(), background, changes);
                         }
                     }
                 }
@@ -492,9 +577,9 @@ public class WorldChunk extends StaticWorldObject {
 
             //block_over
             if(inChunkBounds(x, y - 1)) {
-                Block block_over = (background) ? getBlocks()[x][y - 1].getBackgroundBlock() : getBlocks()[x][y - 1].getForegroundBlock();
+                Block block_over = getBlocks().getBlock(x, y - 1, background);
                 if(block_over.needBlockOver()) {
-                    setBlock(x, y - 1, world.getBlocks().AIR.getBlockID(), background, notify_network);
+                    setBlock(x, y - 1, world.getBlocks().AIR.getBlockID(), background, changes);
                 }
             } else {
                 Block block_over = TileHolderTools.getBlock(x, y - 1, background, this, world);
@@ -504,7 +589,7 @@ public class WorldChunk extends StaticWorldObject {
                         WorldChunk parent_chunk = TileHolderTools.getNeighbourChunk(x, y - 1, this, world);
 
                         if(parent_chunk != null) {
-                            parent_chunk.setBlock(TileHolderTools.getNeighbourLocalX(x), TileHolderTools.getNeighbourLocalY(y - 1), world.getBlocks().AIR.getBlockID(), background, notify_network);
+                            parent_chunk.setBlock(TileHolderTools.getNeighbourLocalX(x), TileHolderTools.getNeighbourLocalY(y - 1), world.getBlocks().AIR.getBlockID(), background, changes);
                         }
                     }
                 }
@@ -512,6 +597,72 @@ public class WorldChunk extends StaticWorldObject {
         }
     }
 
+    /**
+     * Mark tile texture and ground light to be calculated again, tiles out of this chunk are marked in neighbour chunk
+     * @param x local x (can be out of chunk bounds by one block)
+     * @param y local y (can be out of chunk bounds by one block)
+     */
+    private void markChangedTile(int x, int y) {
+        if(inChunkBounds(x, y)) {
+            changed_textures.mark(x, y);
+
+            //ground light depends only on blocks in this chunk (see TileHolderTools.canPlaceLight())
+            changed_lights.mark(x, y);
+            return;
+        }
+
+        WorldChunk neighbour = TileHolderTools.getNeighbourChunk(x, y, this, world);
+        if(neighbour != null)
+            neighbour.changed_textures.mark(TileHolderTools.getNeighbourLocalX(x), TileHolderTools.getNeighbourLocalY(y));
+    }
+
+    /**
+     * Calculate textures and ground lights of tiles changed since last call (see setBlock()), has to be called from GL thread
+     */
+    public void updateChangedTiles() {
+        //loading chunk gets completely new data anyway
+        if(isDirty())
+            return;
+
+        if(changed_textures.drainTo(changed_columns)) {
+            ChunkBlocks target = blocks;
+            NeighbourEdges edges = NeighbourEdges.capture(this, world);
+
+            for(int i = 0; i < World.CHUNK_SIZE; i++) {
+                long column = changed_columns[i];
+
+                while(column != 0) {
+                    int j = Long.numberOfTrailingZeros(column);
+                    column &= column - 1;
+
+                    updateBlockTextures(target, edges, i, j);
+                }
+            }
+
+            invalidateMeshes();
+        }
+
+        if(changed_lights.drainTo(changed_columns)) {
+            world.getLightEngine().getGroundLineRenderer().removeChunkBoundLights(this, changed_columns);
+
+            ChunkBlocks from = blocks;
+            Array<Vector2> positions = new Array<Vector2>();
+
+            for(int i = 0; i < World.CHUNK_SIZE; i++) {
+                long column = changed_columns[i];
+
+                while(column != 0) {
+                    int j = Long.numberOfTrailingZeros(column);
+                    column &= column - 1;
+
+                    calculateGroundLight(from, i, j, positions);
+                }
+            }
+
+            addGroundLights(positions);
+        }
+    }
+
     /**
      * Same as setBlock but this method checks if new block will collide with any objects, blocks etc.
      * @param x x in local cords
@@ -544,7 +695,7 @@ public class WorldChunk extends StaticWorldObject {
         float block_y = (y * World.BLOCK_SIZE) + getPosition().y;
 
         //check if on given x,y is actually some block already if true we can't place block if its can_place_other_block_on flag set to false
-        Block acc_block = (background) ? getBlocks()[x][y].getBackgroundBlock() : getBlocks()[x][y].getForegroundBlock();
+        Block acc_block = getBlocks().getBlock(x, y, background);
         if(!acc_block.canPlaceOtherBlockOn()) {
             return false;
         }
@@ -553,7 +704,7 @@ public class WorldChunk extends StaticWorldObject {
         Block new_block = world.getBlocks().getBlock(new_block_id);
         if(new_block.needBlockUnder()) {
             if(inChunkBounds(x, y - 1)) {
-                Block block_under = (background) ? getBlocks()[x][y - 1].getBackgroundBlock() : getBlocks()[x][y - 1].getForegroundBlock();
+                Block block_under = getBlocks().getBlock(x, y - 1, background);
 
                 if(block_under.getBlockID() == world.getBlocks().AIR.getBlockID()) {
                     return false;
@@ -572,7 +723,7 @@ public class WorldChunk extends StaticWorldObject {
 
         if(new_block.needBlockOver()) {
             if(inChunkBounds(x, y + 1)) {
-                Block block_over = (background) ? getBlocks()[x][y + 1].getBackgroundBlock() : getBlocks()[x][y + 1].getForegroundBlock();
+                Block block_over = getBlocks().getBlock(x, y + 1, background);
 
                 if(block_over.getBlockID() == world.getBlocks().AIR.getBlockID()) {
                     return false;
@@ -619,30 +770,14 @@ public class WorldChunk extends StaticWorldObject {
     }
 
     /**
-     * Function for smoothing blocks (nice connections effect)
+     * Smooth one column of blocks (nice connections effect)
+     * @param target blocks which textures are updated (this chunk blocks or detached loading buffer)
+     * @param edges snapshot of neighbours borders
+     * @param i local x of column
      */
-    private void updateBlocksTextures() {
-        for(int i = 0; i < World.CHUNK_SIZE; i++) {
-            for(int j = 0; j < World.CHUNK_SIZE; j++) {
-                Block this_block_background = blocks[i][j].getBackgroundBlock();
-                Block this_block_foreground = blocks[i][j].getForegroundBlock();
-
-                if(this_block_foreground == null || this_block_background == null)
-                    continue;
-
-                short background_block_texture_id = TileHolderTools.getTileTextureID(blocks, this_block_background, i, j, true, this, world);
-                short foreground_block_texture_id = TileHolderTools.getTileTextureID(blocks, this_block_foreground, i, j, false, this, world);
-
-                blocks[i][j].setBackgroundBlockTextureID(background_block_texture_id);
-                blocks[i][j].setForegroundBlockTextureID(foreground_block_texture_id);
-
-                blocks[i][j].setBackgroundTextureRegion(this_block_background.getTextureRegion(background_block_texture_id));//TileHolderTools.getTileTexture(blocks, this_block_background, i, j, true, this, world));
-                blocks[i][j].setForegroundTextureRegion(this_block_foreground.getTextureRegion(foreground_block_texture_id));
-
-                if(YIELD)
-                    Thread.yield();
-            }
-        }
+    private void updateBlocksTextures(ChunkBlocks target, NeighbourEdges edges, int i) {
+        for(int j = 0; j < World.CHUNK_SIZE; j++)
+            updateBlockTextures(target, edges, i, j);
     }
 
     /**
@@ -650,62 +785,102 @@ public class WorldChunk extends StaticWorldObject {
      * used by other chunks when block is set on their border so old_assets.textures of blocks on nearby chunk must be recalculated too
      */
     public void updateTexturesOnChunkBorders() {
+        ChunkBlocks target = blocks;
+        NeighbourEdges edges = NeighbourEdges.capture(this, world);
+
         for(int i = 0; i < World.CHUNK_SIZE; i++) {
-            for (int j = 0; j < World.CHUNK_SIZE; j++) {
-                if(i == 0 || j == 0 || i == World.CHUNK_SIZE - 1 || j == World.CHUNK_SIZE - 1) {
-                    Block this_block_background = blocks[i][j].getBackgroundBlock();
-                    Block this_block_foreground = blocks[i][j].getForegroundBlock();
+            updateBlockTextures(target, edges, i, 0);
+            updateBlockTextures(target, edges, i, World.CHUNK_SIZE - 1);
+        }
 
-                    if(this_block_foreground == null || this_block_background == null)
-                        continue;
+        for(int j = 1; j < World.CHUNK_SIZE - 1; j++) {
+            updateBlockTextures(target, edges, 0, j);
+            updateBlockTextures(target, edges, World.CHUNK_SIZE - 1, j);
+        }
 
-                    short background_block_texture_id = TileHolderTools.getTileTextureID(blocks, this_block_background, i, j, true, this, world);
-                    short foreground_block_texture_id = TileHolderTools.getTileTextureID(blocks, this_block_foreground, i, j, false, this, world);
+        invalidateMeshes();
+    }
+
+    /**
+     * Update borders of four direct neighbours of this chunk
+     */
+    private void updateNeighbourBorders() {
+        WorldChunk[] neighbours = {
+                TileHolderTools.getNeighbourChunk(-1, 0, this, world),
+                TileHolderTools.getNeighbourChunk(World.CHUNK_SIZE, 0, this, world),
+                TileHolderTools.getNeighbourChunk(0, -1, this, world),
+                TileHolderTools.getNeighbourChunk(0, World.CHUNK_SIZE, this, world)
+        };
+
+        for(int i = 0; i < neighbours.length; i++) {
+            if(neighbours[i] != null && !neighbours[i].isDirty())
+                neighbours[i].updateTexturesOnChunkBorders();
+        }
+    }
 
-                    blocks[i][j].setBackgroundBlockTextureID(background_block_texture_id);
-                    blocks[i][j].setForegroundBlockTextureID(foreground_block_texture_id);
+    private void updateBlockTextures(ChunkBlocks target, NeighbourEdges edges, int i, int j) {
+        Block this_block_background = target.getBackgroundBlock(i, j);
+        Block this_block_foreground = target.getForegroundBlock(i, j);
 
-                    blocks[i][j].setBackgroundTextureRegion(this_block_background.getTextureRegion(background_block_texture_id));//TileHolderTools.getTileTexture(blocks, this_block_background, i, j, true, this, world));
-                    blocks[i][j].setForegroundTextureRegion(this_block_foreground.getTextureRegion(foreground_block_texture_id));//TileHolderTools.getTileTexture(blocks, this_block_foreground, i, j, false, this, world));
+        short background_block_texture_id = TileHolderTools.getTileTextureID(target, this_block_background, i, j, true, edges, world);
+        short foreground_block_texture_id = TileHolderTools.getTileTextureID(target, this_block_foreground, i, j, false, edges, world);
 
-                    if(YIELD)
-                        Thread.yield();
-                }
-            }
-        }
+        target.setBackgroundTextureID(i, j, background_block_texture_id);
+        target.setForegroundTextureID(i, j, foreground_block_texture_id);
     }
 
     /**
      * Function for calculating point lights on ground
      */
     private void calculateGroundLight() {
-        for(int i = 0; i < World.CHUNK_SIZE; i++) {
-            for (int j = 0; j < World.CHUNK_SIZE; j++) {
-                Block foreground = blocks[i][j].getForegroundBlock();
-                Block background = blocks[i][j].getBackgroundBlock();
-
-                //if block is not blocking light
-                if(!foreground.isBlockingGroundLight() && !background.isBlockingGroundLight()) {
-                    float half_block = World.BLOCK_SIZE / 2;
-
-                    //
-                    if(TileHolderTools.canPlaceLight(i, j, 0, -1, world, blocks)) {
-                        world.getLightEngine().getGroundLineRenderer().addPosition(new Vector2(getPosition()).add(i * World.BLOCK_SIZE + half_block, j * World.BLOCK_SIZE + half_block));
-                    } else if(TileHolderTools.canPlaceLight(i, j, 0, 1, world, blocks)) {
-                        world.getLightEngine().getGroundLineRenderer().addPosition(new Vector2(getPosition()).add(i * World.BLOCK_SIZE + half_block, j * World.BLOCK_SIZE + half_block));
-                    } else if(TileHolderTools.canPlaceLight(i, j, 1, 0, world, blocks)) {
-                        world.getLightEngine().getGroundLineRenderer().addPosition(new Vector2(getPosition()).add(i * World.BLOCK_SIZE + half_block, j * World.BLOCK_SIZE + half_block));
-                    } else if(TileHolderTools.canPlaceLight(i, j, -1, 0, world, blocks)) {
-                        world.getLightEngine().getGroundLineRenderer().addPosition(new Vector2(getPosition()).add(i * World.BLOCK_SIZE + half_block, j * World.BLOCK_SIZE + half_block));
-                    }
-                }
+        Array<Vector2> positions = new Array<Vector2>();
+        for(int i = 0; i < World.CHUNK_SIZE; i++)
+            calculateGroundLight(blocks, i, positions);
+
+        addGroundLights(positions);
+    }
 
-                if(YIELD)
-                    Thread.yield();
+    /**
+     * Calculate point lights on ground in one column of blocks
+     * @param from blocks used to calculate lights
+     * @param i local x of column
+     * @param out array where lights positions (relative to chunk position) are added
+     */
+    private void calculateGroundLight(ChunkBlocks from, int i, Array<Vector2> out) {
+        for (int j = 0; j < World.CHUNK_SIZE; j++)
+            calculateGroundLight(from, i, j, out);
+    }
+
+    /**
+     * Calculate point light on ground of one block
+     * @param from blocks used to calculate light
+     * @param i local x
+     * @param j local y
+     * @param out array where light position (relative to chunk position) is added
+     */
+    private void calculateGroundLight(ChunkBlocks from, int i, int j, Array<Vector2> out) {
+        Block foreground = from.getForegroundBlock(i, j);
+        Block background = from.getBackgroundBlock(i, j);
+
+        //if block is not blocking light
+        if(!foreground.isBlockingGroundLight() && !background.isBlockingGroundLight()) {
+            if(TileHolderTools.canPlaceLight(i, j, 0, -1, world, from) || TileHolderTools.canPlaceLight(i, j, 0, 1, world, from)
+                    || TileHolderTools.canPlaceLight(i, j, 1, 0, world, from) || TileHolderTools.canPlaceLight(i, j, -1, 0, world, from)) {
+                float half_block = World.BLOCK_SIZE / 2;
+                out.add(new Vector2(i * World.BLOCK_SIZE + half_block, j * World.BLOCK_SIZE + half_block));
             }
         }
     }
 
+    /**
+     * Add ground lights to light engine
+     * @param positions lights positions relative to chunk position
+     */
+    private void addGroundLights(Array<Vector2> positions) {
+        for(int i = 0; i < positions.size; i++)
+            world.getLightEngine().getGroundLineRenderer().addPosition(new Vector2(getPosition()).add(positions.get(i)));
+    }
+
     /**
      * Very useful function to protect from exceptions
      * @param x local x (0 - CHUNK_SIZE)
@@ -780,141 +955,145 @@ public class WorldChunk extends StaticWorldObject {
 
     public int blocks_rendered;
 
-    @Override
-    public void render(SpriteBatch batch) {
-        blocks_rendered = 0;
-
-        int chunk_x_camera = (int) (game.getMainCamera().position.x - getPosition().x) / World.BLOCK_SIZE;
-        int chunk_y_camera = (int) (game.getMainCamera().position.y - getPosition().y) / World.BLOCK_SIZE;
-
-        int screen_width_blocks = (int) Math.ceil(game.getMainViewport().getScreenWidth() * game.getMainCamera().zoom / World.BLOCK_SIZE) + 1;
-        int screen_height_blocks = (int) Math.ceil(game.getMainViewport().getScreenHeight() * game.getMainCamera().zoom / World.BLOCK_SIZE) + 1;
-
-        //update culling rectangle
-        screen_bounding_rectangle.set(game.getMainCamera().position.x - (game.getMainViewport().getWorldWidth() * game.getMainCamera().zoom) / 2, game.getMainCamera().position.y - (game.getMainViewport().getWorldHeight() * game.getMainCamera().zoom) / 2, game.getMainViewport().getWorldWidth() * game.getMainCamera().zoom, game.getMainViewport().getWorldHeight() * game.getMainCamera().zoom);
+    /**
+     * Build cached vertices of background and foreground tiles again (and list of tiles with custom rendering)
+     */
+    private void rebuildMeshes() {
+        meshes_dirty = false;
+        meshes_position.set(getPosition());
+        meshes_colors_version = CustomColorBlock.getColorsVersion();
+        meshes_version++;
 
-        //store air id
+        ChunkBlocks blocks = this.blocks;
         int AIR_ID = world.getBlocks().AIR.getBlockID();
 
-        if(chunk_x_camera + (screen_width_blocks / 2) < 0 || chunk_y_camera + (screen_height_blocks / 2) < 0) {
-            return;
+        background_mesh.begin();
+        foreground_mesh.begin();
+        background_custom_tiles.clear();
+        foreground_custom_tiles.clear();
 
-        }
-        if(chunk_x_camera - (screen_width_blocks / 2) > World.CHUNK_SIZE || chunk_y_camera - (screen_height_blocks / 2) > World.CHUNK_SIZE) {
-            return;
-        }
+        float default_background_color = temp_color.set(1, 1, 1, 1).sub(BACKGROUND_COLOR_OFFSET).toFloatBits();
+        float default_foreground_color = Color.WHITE.toFloatBits();
 
-        //background
-        for(int i = -screen_width_blocks / 2; i < (screen_width_blocks / 2) + 1; i++) {
-            for(int j = -screen_height_blocks / 2; j < (screen_height_blocks / 2) + 1; j++) {
-                if(!inChunkBounds(i + chunk_x_camera, j + chunk_y_camera))
-                    continue;
+        for(int x = 0; x < World.CHUNK_SIZE; x++) {
+            for(int y = 0; y < World.CHUNK_SIZE; y++) {
+                int tile = ChunkBlocks.index(x, y);
 
-                TileHolder holder = blocks[i + chunk_x_camera][j + chunk_y_camera];
+                float block_x = getPosition().x + World.BLOCK_SIZE * x;
+                float block_y = getPosition().y + World.BLOCK_SIZE * y;
 
-                if(holder.getBackgroundBlock().getBlockID() == AIR_ID)
-                    continue;
+                Block foreground_block = blocks.getForegroundBlock(x, y);
 
-                boolean render = true;
-                if(holder.getForegroundBlock().getBlockID() != AIR_ID)
-                    render = false;
+                //background
+                if(blocks.getBackgroundBlockID(x, y) != AIR_ID) {
+                    boolean render = true;
+                    if(foreground_block.getBlockID() != AIR_ID)
+                        render = false;
 
-                if(holder.getForegroundBlock().needBackgroundBlockRendered()) {
-                    render = true;
-                } else if(holder.getForegroundBlock().needBackgroundBlockRenderedIfNotFullySurrounded()) {
-                    if(holder.getForegroundBlockTextureID() != Block.COLLIDE_ALL_SIDES) {
+                    if(foreground_block.needBackgroundBlockRendered()) {
                         render = true;
+                    } else if(foreground_block.needBackgroundBlockRenderedIfNotFullySurrounded()) {
+                        if(blocks.getForegroundTextureID(x, y) != Block.COLLIDE_ALL_SIDES) {
+                            render = true;
+                        }
                     }
-                }
 
-                if(!render)
-                    continue;
+                    if(render) {
+                        Block block = blocks.getBackgroundBlock(x, y);
 
-                //first check if this background block don't have flag set to true that forces its rendering independently on others blocks
-                /*if(!holder.getBackgroundBlock().needBackgroundBlockRendered()) {
+                        if(block instanceof CustomRenderingBlock) {
+                            background_custom_tiles.add(tile);
+                        } else {
+                            TextureRegion block_region = block.getTextureRegion(blocks.getBackgroundTextureID(x, y));
 
-                    //in this moment we know that this background tile is not an air block
-                    if (holder.getForegroundBlock().needBackgroundBlockRenderedIfNotFullySurrounded() && holder.getForegroundBlock().getBlockID() != AIR_ID) {
-                        boolean render = false;
+                            if(block_region != null) {
+                                float color = default_background_color;
+                                if(block instanceof CustomColorBlock)
+                                    color = temp_color.set(((CustomColorBlock) block).getBlockColor()).sub(BACKGROUND_COLOR_OFFSET).toFloatBits();
 
-                        //in this piece of code check if holder needs background block rendered if is not fully surrounded by other blocks with what it can connect
-                        //check if block over or under or on left or on right don't have foreground block (have but AIR) and background block is not air
-                        //if true render this background block to prevent empty pixels on screen where should be block texture (it happends if some pixel on block texture alpha is 0)
-
-                        //check for block on right
-                        if (inChunkBounds(i + chunk_x_camera + 1, j + chunk_y_camera)) {
-                            TileHolder holder_right = blocks[i + chunk_x_camera + 1][j + chunk_y_camera];
-
-                            if (holder_right.getForegroundBlock().getBlockID() == AIR_ID && holder_right.getBackgroundBlock().getBlockID() != AIR_ID) {
-                                render = true;
+                                background_mesh.add(tile, block_region, block_x, block_y, World.BLOCK_SIZE, World.BLOCK_SIZE, color);
                             }
                         }
+                    }
+                }
 
-                        //if still don't want to render check block on left
-                        if (!render) {
-                            if (inChunkBounds(i + chunk_x_camera - 1, j + chunk_y_camera)) {
-                                TileHolder holder_left = blocks[i + chunk_x_camera - 1][j + chunk_y_camera];
+                //foreground
+                if(foreground_block.getBlockID() != AIR_ID) {
+                    if(foreground_block instanceof CustomRenderingBlock) {
+                        foreground_custom_tiles.add(tile);
+                    } else {
+                        TextureRegion block_region = foreground_block.getTextureRegion(blocks.getForegroundTextureID(x, y));
 
-                                if (holder_left.getForegroundBlock().getBlockID() == AIR_ID && holder_left.getBackgroundBlock().getBlockID() != AIR_ID) {
-                                    render = true;
-                                }
-                            }
+                        if(block_region != null) {
+                            float color = default_foreground_color;
+                            if(foreground_block instanceof CustomColorBlock)
+                                color = ((CustomColorBlock) foreground_block).getBlockColor().toFloatBits();
+
+                            foreground_mesh.add(tile, block_region, block_x, block_y, World.BLOCK_SIZE, World.BLOCK_SIZE, color);
                         }
+                    }
+                }
+            }
+        }
 
-                        //if still don't want to render check block over
-                        if (!render) {
-                            if (inChunkBounds(i + chunk_x_camera, j + chunk_y_camera + 1)) {
-                                TileHolder holder_up = blocks[i + chunk_x_camera][j + chunk_y_camera + 1];
+        background_mesh.end();
+        foreground_mesh.end();
+    }
 
-                                if (holder_up.getForegroundBlock().getBlockID() == AIR_ID && holder_up.getBackgroundBlock().getBlockID() != AIR_ID) {
-                                    render = true;
-                                }
-                            }
-                        }
+    /**
+     * Mark cached tiles vertices as old, they will be built again before next render
+     */
+    public void invalidateMeshes() {
+        meshes_dirty = true;
+    }
 
-                        //if still don't want to render check block under
-                        if (!render) {
-                            if (inChunkBounds(i + chunk_x_camera, j + chunk_y_camera - 1)) {
-                                TileHolder holder_down = blocks[i + chunk_x_camera][j + chunk_y_camera - 1];
+    @Override
+    public void render(SpriteBatch batch) {
+        blocks_rendered = 0;
 
-                                if (holder_down.getForegroundBlock().getBlockID() == AIR_ID && holder_down.getBackgroundBlock().getBlockID() != AIR_ID) {
-                                    render = true;
-                                }
-                            }
-                        }
+        int chunk_x_camera = (int) (game.getMainCamera().position.x - getPosition().x) / World.BLOCK_SIZE;
+        int chunk_y_camera = (int) (game.getMainCamera().position.y - getPosition().y) / World.BLOCK_SIZE;
 
-                        //if don't have to render skip this background block
-                        if (!render)
-                            continue;
+        int screen_width_blocks = (int) Math.ceil(game.getMainViewport().getScreenWidth() * game.getMainCamera().zoom / World.BLOCK_SIZE) + 1;
+        int screen_height_blocks = (int) Math.ceil(game.getMainViewport().getScreenHeight() * game.getMainCamera().zoom / World.BLOCK_SIZE) + 1;
 
-                    }
-                    //here if block don't have needBackgroundBlockIfNotFullySurrounded flag set to true and foreground block is not air we are sure that we don't have to render this background block
-                    else if (!holder.getForegroundBlock().needBackgroundBlockRenderedIfNotFullySurrounded() && holder.getForegroundBlock().getBlockID() != AIR_ID) {
-                        continue;
-                    }
-                }*/
+        //update culling rectangle
+        screen_bounding_rectangle.set(game.getMainCamera().position.x - (game.getMainViewport().getWorldWidth() * game.getMainCamera().zoom) / 2, game.getMainCamera().position.y - (game.getMainViewport().getWorldHeight() * game.getMainCamera().zoom) / 2, game.getMainViewport().getWorldWidth() * game.getMainCamera().zoom, game.getMainViewport().getWorldHeight() * game.getMainCamera().zoom);
 
-                Block block = holder.getBackgroundBlock();
-                if(block instanceof CustomColorBlock) {
-                    CustomColorBlock cblock = (CustomColorBlock) block;
-                    batch.setColor(temp_color.set(cblock.getBlockColor()).sub(BACKGROUND_COLOR_OFFSET));
-                }
+        if(chunk_x_camera + (screen_width_blocks / 2) < 0 || chunk_y_camera + (screen_height_blocks / 2) < 0) {
+            return;
 
-                if(!(block instanceof CustomRenderingBlock)) {
-                    TextureRegion block_region = holder.getBackgroundTextureRegion();
-                    if (block_region != null) {
-                        batch.draw(block_region, getPosition().x + World.BLOCK_SIZE * (i + chunk_x_camera), getPosition().y + World.BLOCK_SIZE * (j + chunk_y_camera), World.BLOCK_SIZE, World.BLOCK_SIZE);
-                    }
-                } else {
-                    ((CustomRenderingBlock) block).render(batch, holder.getBackgroundBlockTextureID(), getPosition().x + World.BLOCK_SIZE * (i + chunk_x_camera), getPosition().y + World.BLOCK_SIZE * (j + chunk_y_camera), World.BLOCK_SIZE, World.BLOCK_SIZE, true);
-                }
+        }
+        if(chunk_x_camera - (screen_width_blocks / 2) > World.CHUNK_SIZE || chunk_y_camera - (screen_height_blocks / 2) > World.CHUNK_SIZE) {
+            return;
+        }
 
-                blocks_rendered++;
+        //tiles changed, chunk moved or blocks colors changed since last build
+        if(meshes_dirty || !meshes_position.equals(getPosition()) || meshes_colors_version != CustomColorBlock.getColorsVersion())
+            rebuildMeshes();
 
-                batch.setColor(temp_color.set(1, 1, 1, 1).sub(BACKGROUND_COLOR_OFFSET));
-            }
+        //visible tiles
+        int from_x = Math.max(0, chunk_x_camera - screen_width_blocks / 2);
+        int to_x = Math.min(World.CHUNK_SIZE - 1, chunk_x_camera + screen_width_blocks / 2);
+        int from_y = Math.max(0, chunk_y_camera - screen_height_blocks / 2);
+        int to_y = Math.min(World.CHUNK_SIZE - 1, chunk_y_camera + screen_height_blocks / 2);
+
+        //draw layers into textures again if their content or needed resolution changed, layers which don't fit into textures budget are rendered by meshes
+        boolean background_textured = false;
+        boolean foreground_textured = false;
+        if(ChunkLayerTexture.ENABLED) {
+            int pixels_per_block = ChunkLayerTexture.getPixelsPerBlock(game.getMainCamera().zoom);
+
+            background_textured = updateLayerTexture(batch, background_texture, true, pixels_per_block);
+            foreground_textured = updateLayerTexture(batch, foreground_texture, false, pixels_per_block);
         }
 
+        //background
+        if(background_textured)
+            blocks_rendered += background_texture.render(batch, getPosition(), from_x, to_x, from_y, to_y);
+        else
+            blocks_rendered += renderLayer(batch, true, from_x, to_x, from_y, to_y);
+
         //in between render chunk objects
         for(int i = 0; i < objects.size; i++) {
             WorldObject o = objects.get(i);
@@ -926,37 +1105,79 @@ public class WorldChunk extends StaticWorldObject {
         }
 
         //next render foreground tiles
-        for(int i = -screen_width_blocks / 2; i < (screen_width_blocks / 2) + 1; i++) {
-            for(int j = -screen_height_blocks / 2; j < (screen_height_blocks / 2) + 1; j++) {
-                if(!inChunkBounds(i + chunk_x_camera, j + chunk_y_camera))
-                    continue;
+        if(foreground_textured)
+            blocks_rendered += foreground_texture.render(batch, getPosition(), from_x, to_x, from_y, to_y);
+        else
+            blocks_rendered += renderLayer(batch, false, from_x, to_x, from_y, to_y);
 
-                TileHolder holder = blocks[i + chunk_x_camera][j + chunk_y_camera];
+        //System.out.println("Blocks rendered count: " + blocks_rendered);
+    }
 
-                if(holder.getForegroundBlock().getBlockID() == AIR_ID)
-                    continue;
+    /**
+     * Draw layer into its texture if layer content or needed resolution changed
+     * @return true if texture is up to date, false if it doesn't fit into textures budget (see ChunkLayerTexture.MEMORY_BUDGET)
+     */
+    private boolean updateLayerTexture(SpriteBatch batch, ChunkLayerTexture texture, boolean background, int pixels_per_block) {
+        if(!texture.needRedraw(meshes_version, pixels_per_block))
+            return true;
 
-                Block block = holder.getForegroundBlock();
-                if(block instanceof CustomColorBlock) {
-                    CustomColorBlock cblock = (CustomColorBlock) block;
-                    batch.setColor(cblock.getBlockColor().r, cblock.getBlockColor().g, cblock.getBlockColor().b, cblock.getBlockColor().a);
-                }
+        if(!texture.begin(batch, getPosition(), pixels_per_block))
+            return false;
 
-                if(!(block instanceof CustomRenderingBlock)) {
-                    TextureRegion block_region = holder.getForegroundTextureRegion();
-                    if (block_region != null) {
-                        batch.draw(block_region, getPosition().x + World.BLOCK_SIZE * (i + chunk_x_camera), getPosition().y + World.BLOCK_SIZE * (j + chunk_y_camera), World.BLOCK_SIZE, World.BLOCK_SIZE);
-                    }
-                } else {
-                    ((CustomRenderingBlock) block).render(batch, holder.getForegroundBlockTextureID(), getPosition().x + World.BLOCK_SIZE * (i + chunk_x_camera), getPosition().y + World.BLOCK_SIZE * (j + chunk_y_camera), World.BLOCK_SIZE, World.BLOCK_SIZE, false);
-                }
+        renderLayer(batch, background, 0, World.CHUNK_SIZE - 1, 0, World.CHUNK_SIZE - 1);
+        texture.end(batch, meshes_version);
+
+        return true;
+    }
+
+    /**
+     * Render tiles of one layer in given local rectangle (inclusive)
+     * @return amount of rendered blocks
+     */
+    private int renderLayer(SpriteBatch batch, boolean background, int from_x, int to_x, int from_y, int to_y) {
+        ChunkLayerMesh mesh = (background) ? background_mesh : foreground_mesh;
+        IntArray custom_tiles = (background) ? background_custom_tiles : foreground_custom_tiles;
 
-                blocks_rendered++;
-                batch.setColor(1f, 1f, 1f, 1f);
+        return mesh.render(batch, from_x, to_x, from_y, to_y) + renderCustomTiles(batch, custom_tiles, background, from_x, to_x, from_y, to_y);
+    }
+
+    /**
+     * Render visible blocks that have their own rendering method (see {@link CustomRenderingBlock}), they can't be cached
+     * @return amount of rendered blocks
+     */
+    private int renderCustomTiles(SpriteBatch batch, IntArray tiles, boolean background, int from_x, int to_x, int from_y, int to_y) {
+        int rendered = 0;
+
+        for(int i = 0; i < tiles.size; i++) {
+            int x = tiles.get(i) / World.CHUNK_SIZE;
+            int y = tiles.get(i) % World.CHUNK_SIZE;
+
+            if(x < from_x || x > to_x || y < from_y || y > to_y)
+                continue;
+
+            Block block = blocks.getBlock(x, y, background);
+            if(!(block instanceof CustomRenderingBlock))
+                continue;
+
+            if(block instanceof CustomColorBlock) {
+                Color color = ((CustomColorBlock) block).getBlockColor();
+
+                if(background)
+                    batch.setColor(temp_color.set(color).sub(BACKGROUND_COLOR_OFFSET));
+                else
+                    batch.setColor(color);
+            } else if(background) {
+                batch.setColor(temp_color.set(1, 1, 1, 1).sub(BACKGROUND_COLOR_OFFSET));
             }
+
+            short texture_id = (background) ? blocks.getBackgroundTextureID(x, y) : blocks.getForegroundTextureID(x, y);
+            ((CustomRenderingBlock) block).render(batch, texture_id, getPosition().x + World.BLOCK_SIZE * x, getPosition().y + World.BLOCK_SIZE * y, World.BLOCK_SIZE, World.BLOCK_SIZE, background);
+
+            batch.setColor(1f, 1f, 1f, 1f);
+            rendered++;
         }
 
-        //System.out.println("Blocks rendered count: " + blocks_rendered);
+        return rendered;
     }
 
     /**
@@ -1012,6 +1233,17 @@ public class WorldChunk extends StaticWorldObject {
             objects.get(i).dispose();
     }
 
+    /**
+     * Free textures of tiles layers (see ChunkLayerTexture), has to be called from GL thread when chunk won't be rendered anymore
+     */
+    public void disposeLayerTextures() {
+        if(background_texture != null)
+            background_texture.dispose();
+
+        if(foreground_texture != null)
+            foreground_texture.dispose();
+    }
+
     /**
      * Get instance of this chunk loading future to get info about this process (is done, in progress, never started etc), may be null
      * @return loading future instance
@@ -1029,9 +1261,9 @@ public class WorldChunk extends StaticWorldObject {
     }
 
     /**
-     * @return array of blocks holders
+     * @return packed storage of this chunk blocks
      */
-    public TileHolder[][] getBlocks() {
+    public ChunkBlocks getBlocks() {
         return blocks;
     }
 
@@ -0,0 +1,116 @@
+package explorer.world.codec;
+
+import java.io.IOException;
+
+/**
+ * Compression used for chunk bytes (chunk files, region records and chunk network packets)
+ *
+ * Encoded bytes describe themselves so data written with any codec can be decoded without knowing which codec world uses:
+ * - deflate data is plain zlib stream (same as chunks written before codecs existed), zlib stream always starts with ZLIB_HEADER byte
+ * - other codecs start with their ID byte which is never equal to ZLIB_HEADER
+ */
+
+public abstract class ChunkCodec {
+
+    /**
+     * First byte of every zlib stream (deflate method, 32K window)
+     */
+    public static final int ZLIB_HEADER = 0x78;
+
+    /**
+     * Codecs IDs (first byte of encoded data)
+     */
+    public static final byte RAW_ID = 1;
+    public static final byte LZ4_ID = 3;
+
+    /**
+     * System property which can be used to choose codec for new worlds (f.e. -Dexplorer.chunk_codec=lz4)
+     */
+    public static final String CODEC_PROPERTY = "explorer.chunk_codec";
+
+    /**
+     * Codec used when nothing else was chosen
+     */
+    public static final String DEFAULT_CODEC = "deflate";
+
+    /**
+     * Maximum size of decoded (serialized) chunk data, block layers of chunk take at most few tens of KB in any format version
+     * so everything above that are objects, decoding refuses data that would be bigger (length in corrupted or malicious header)
+     * and serializer refuses to write chunk that couldn't be decoded again
+     */
+    public static final int MAX_DECODED_SIZE = 4 * 1024 * 1024;
+
+    /**
+     * @return codec name (which can be passed to forName())
+     */
+    public abstract String getName();
+
+    /**
+     * Compress given data
+     * @param data data
+     * @return encoded data
+     */
+    public abstract byte[] encode(byte[] data);
+
+    /**
+     * Decompress data encoded by any codec
+     * @param encoded encoded data
+     * @return decoded data
+     * @throws IOException if data is corrupted or was encoded by unknown codec
+     */
+    public static byte[] decode(byte[] encoded) throws IOException {
+        if(encoded == null || encoded.length == 0)
+            throw new IOException("Empty chunk data");
+
+        int id = encoded[0] & 0xFF;
+
+        if(id == ZLIB_HEADER)
+            return DeflateChunkCodec.inflate(encoded);
+        else if(id == RAW_ID)
+            return RawChunkCodec.unwrap(encoded);
+        else if(id == LZ4_ID)
+            return LZ4ChunkCodec.decompress(encoded);
+
+        throw new IOException("Unknown chunk codec: " + id);
+    }
+
+    /**
+     * Get codec by its name
+     * @param name codec name: "raw", "lz4", "deflate" or "deflate:level" (level 0 - 9)
+     * @return codec instance or null if there is no codec with given name
+     */
+    public static ChunkCodec forName(String name) {
+        if(name == null)
+            return null;
+
+        name = name.trim().toLowerCase();
+
+        if(name.equals("raw")) {
+            return new RawChunkCodec();
+        } else if(name.equals("lz4")) {
+            return new LZ4ChunkCodec();
+        } else if(name.equals("deflate")) {
+            return new DeflateChunkCodec(DeflateChunkCodec.DEFAULT_LEVEL);
+        } else if(name.startsWith("deflate:")) {
+            try {
+                int level = Integer.parseInt(name.substring("deflate:".length()));
+
+                if(level >= 0 && level <= 9)
+                    return new DeflateChunkCodec(level);
+            } catch(NumberFormatException e) {
+                return null;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * @return codec chosen by CODEC_PROPERTY system property or default one if property is not set/is invalid
+     */
+    public static ChunkCodec getDefault() {
+        ChunkCodec codec = forName(System.getProperty(CODEC_PROPERTY));
+
+        return (codec != null) ? codec : forName(DEFAULT_CODEC);
+    }
+}
@@ -0,0 +1,78 @@
+package explorer.world.codec;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Zlib (deflate) codec with selectable compression level, output is plain zlib stream so it is compatible with chunks saved before codecs existed
+ */
+
+public class DeflateChunkCodec extends ChunkCodec {
+
+    public static final int DEFAULT_LEVEL = Deflater.DEFAULT_COMPRESSION;
+
+    /**
+     * Compression level (0 - 9 or DEFAULT_LEVEL)
+     */
+    private int level;
+
+    public DeflateChunkCodec(int level) {
+        this.level = level;
+    }
+
+    @Override
+    public String getName() {
+        return (level == DEFAULT_LEVEL) ? "deflate" : "deflate:" + level;
+    }
+
+    @Override
+    public byte[] encode(byte[] data) {
+        Deflater deflater = new Deflater(level);
+        deflater.setInput(data);
+        deflater.finish();
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream(Math.max(64, data.length / 2));
+        byte[] buffer = new byte[1024];
+
+        while(!deflater.finished()) {
+            int count = deflater.deflate(buffer);
+            output.write(buffer, 0, count);
+        }
+
+        //release native zlib memory right now instead of waiting for finalizer
+        deflater.end();
+
+        return output.toByteArray();
+    }
+
+    static byte[] inflate(byte[] encoded) throws IOException {
+        Inflater inflater = new Inflater();
+        inflater.setInput(encoded);
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream((int) Math.min((long) encoded.length * 4, MAX_DECODED_SIZE));
+        byte[] buffer = new byte[1024];
+
+        try {
+            while(!inflater.finished()) {
+                int count = inflater.inflate(buffer);
+
+                if(count == 0 && !inflater.finished() && (inflater.needsInput() || inflater.needsDictionary()))
+                    throw new IOException("Unexpected end of zlib data");
+
+                if(output.size() + count > MAX_DECODED_SIZE)
+                    throw new IOException("Inflated chunk data is bigger than " + MAX_DECODED_SIZE + " bytes");
+
+                output.write(buffer, 0, count);
+            }
+        } catch(DataFormatException e) {
+            throw new IOException("Invalid zlib data", e);
+        } finally {
+            inflater.end();
+        }
+
+        return output.toByteArray();
+    }
+}
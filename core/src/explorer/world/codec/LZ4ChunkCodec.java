@@ -0,0 +1,208 @@
+package explorer.world.codec;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Pure java LZ4 block format codec, compresses worse than deflate but decompression is just copying bytes around which is many times faster
+ *
+ * Encoded data: LZ4_ID byte, original length (4 bytes, big endian), LZ4 block
+ */
+
+public class LZ4ChunkCodec extends ChunkCodec {
+
+    private static final int MIN_MATCH = 4;
+
+    /**
+     * Last LAST_LITERALS bytes are always literals and match can't start in last MATCH_FIND_LIMIT bytes (LZ4 block format rules)
+     */
+    private static final int LAST_LITERALS = 5;
+    private static final int MATCH_FIND_LIMIT = 12;
+
+    private static final int MAX_OFFSET = 65535;
+
+    private static final int HASH_LOG = 12;
+
+    private static final int HEADER_SIZE = 5;
+
+    @Override
+    public String getName() {
+        return "lz4";
+    }
+
+    @Override
+    public byte[] encode(byte[] data) {
+        byte[] out = new byte[HEADER_SIZE + data.length + (data.length / 255) + 16];
+
+        out[0] = LZ4_ID;
+        out[1] = (byte) (data.length >>> 24);
+        out[2] = (byte) (data.length >>> 16);
+        out[3] = (byte) (data.length >>> 8);
+        out[4] = (byte) data.length;
+
+        int length = compress(data, out, HEADER_SIZE);
+
+        return Arrays.copyOf(out, length);
+    }
+
+    private static int compress(byte[] src, byte[] dst, int dst_offset) {
+        int[] hash_table = new int[1 << HASH_LOG];
+        Arrays.fill(hash_table, -1);
+
+        int anchor = 0;
+        int ip = 0;
+        int op = dst_offset;
+
+        int match_limit = src.length - MATCH_FIND_LIMIT;
+
+        while(ip < match_limit) {
+            int sequence = readInt(src, ip);
+            int hash = hash(sequence);
+
+            int ref = hash_table[hash];
+            hash_table[hash] = ip;
+
+            if(ref < 0 || ip - ref > MAX_OFFSET || readInt(src, ref) != sequence) {
+                ip++;
+                continue;
+            }
+
+            //extend match as far as we can (leaving space for last literals)
+            int match_length = MIN_MATCH;
+            int max_match_length = src.length - LAST_LITERALS - ip;
+
+            while(match_length < max_match_length && src[ref + match_length] == src[ip + match_length])
+                match_length++;
+
+            op = writeSequence(src, anchor, ip - anchor, ip - ref, match_length, dst, op);
+
+            ip += match_length;
+            anchor = ip;
+        }
+
+        return writeLastLiterals(src, anchor, src.length - anchor, dst, op);
+    }
+
+    private static int writeSequence(byte[] src, int literals_start, int literals_length, int offset, int match_length, byte[] dst, int op) {
+        int token_position = op++;
+        int match_length_code = match_length - MIN_MATCH;
+
+        op = writeLength(literals_length, dst, op);
+
+        System.arraycopy(src, literals_start, dst, op, literals_length);
+        op += literals_length;
+
+        //offset in little endian
+        dst[op++] = (byte) offset;
+        dst[op++] = (byte) (offset >>> 8);
+
+        op = writeLength(match_length_code, dst, op);
+
+        dst[token_position] = (byte) ((Math.min(literals_length, 15) << 4) | Math.min(match_length_code, 15));
+
+        return op;
+    }
+
+    private static int writeLastLiterals(byte[] src, int literals_start, int literals_length, byte[] dst, int op) {
+        dst[op++] = (byte) (Math.min(literals_length, 15) << 4);
+
+        op = writeLength(literals_length, dst, op);
+
+        System.arraycopy(src, literals_start, dst, op, literals_length);
+        return op + literals_length;
+    }
+
+    /**
+     * Write extra length bytes if length doesn't fit into 4 bits of token
+     */
+    private static int writeLength(int length, byte[] dst, int op) {
+        if(length < 15)
+            return op;
+
+        length -= 15;
+        while(length >= 255) {
+            dst[op++] = (byte) 255;
+            length -= 255;
+        }
+        dst[op++] = (byte) length;
+
+        return op;
+    }
+
+    static byte[] decompress(byte[] encoded) throws IOException {
+        if(encoded.length < HEADER_SIZE)
+            throw new IOException("LZ4 chunk data is too short");
+
+        int length = ((encoded[1] & 0xFF) << 24) | ((encoded[2] & 0xFF) << 16) | ((encoded[3] & 0xFF) << 8) | (encoded[4] & 0xFF);
+        if(length < 0 || length > MAX_DECODED_SIZE)
+            throw new IOException("Invalid LZ4 chunk data length: " + length);
+
+        byte[] dst = new byte[length];
+
+        int ip = HEADER_SIZE;
+        int op = 0;
+
+        try {
+            while(true) {
+                int token = encoded[ip++] & 0xFF;
+
+                //literals
+                int literals_length = token >>> 4;
+                if(literals_length == 15) {
+                    int b;
+                    do {
+                        b = encoded[ip++] & 0xFF;
+                        literals_length += b;
+                    } while(b == 255);
+                }
+
+                if(op + literals_length > length || ip + literals_length > encoded.length)
+                    throw new IOException("Corrupted LZ4 chunk data (literals out of bounds)");
+
+                System.arraycopy(encoded, ip, dst, op, literals_length);
+                ip += literals_length;
+                op += literals_length;
+
+                //last sequence contains only literals
+                if(ip >= encoded.length)
+                    break;
+
+                //match
+                int offset = (encoded[ip++] & 0xFF) | ((encoded[ip++] & 0xFF) << 8);
+
+                int match_length = token & 0x0F;
+                if(match_length == 15) {
+                    int b;
+                    do {
+                        b = encoded[ip++] & 0xFF;
+                        match_length += b;
+                    } while(b == 255);
+                }
+                match_length += MIN_MATCH;
+
+                int ref = op - offset;
+                if(offset == 0 || ref < 0 || op + match_length > length)
+                    throw new IOException("Corrupted LZ4 chunk data (match out of bounds)");
+
+                //byte by byte because match can overlap with bytes we are writing right now
+                for(int i = 0; i < match_length; i++)
+                    dst[op++] = dst[ref++];
+            }
+        } catch(ArrayIndexOutOfBoundsException e) {
+            throw new IOException("Corrupted LZ4 chunk data (unexpected end)");
+        }
+
+        if(op != length)
+            throw new IOException("Corrupted LZ4 chunk data (decoded " + op + " bytes instead of " + length + ")");
+
+        return dst;
+    }
+
+    private static int readInt(byte[] src, int i) {
+        return (src[i] & 0xFF) | ((src[i + 1] & 0xFF) << 8) | ((src[i + 2] & 0xFF) << 16) | ((src[i + 3] & 0xFF) << 24);
+    }
+
+    private static int hash(int sequence) {
+        return (sequence * -1640531535) >>> (32 - HASH_LOG);
+    }
+}
@@ -0,0 +1,29 @@
+package explorer.world.codec;
+
+/**
+ * Codec which doesn't compress anything, fastest option for hosts that care only about CPU time
+ */
+
+public class RawChunkCodec extends ChunkCodec {
+
+    @Override
+    public String getName() {
+        return "raw";
+    }
+
+    @Override
+    public byte[] encode(byte[] data) {
+        byte[] out = new byte[data.length + 1];
+        out[0] = RAW_ID;
+        System.arraycopy(data, 0, out, 1, data.length);
+
+        return out;
+    }
+
+    static byte[] unwrap(byte[] encoded) {
+        byte[] out = new byte[encoded.length - 1];
+        System.arraycopy(encoded, 1, out, 0, out.length);
+
+        return out;
+    }
+}
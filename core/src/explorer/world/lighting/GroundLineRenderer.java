@@ -8,6 +8,7 @@ import com.badlogic.gdx.utils.DelayedRemovalArray;
 
 import explorer.game.framework.Game;
 import explorer.world.World;
+import explorer.world.chunk.ChangedTiles;
 import explorer.world.chunk.WorldChunk;
 import explorer.world.lighting.lights.PointLight;
 
@@ -93,6 +94,32 @@ public class GroundLineRenderer {
         lights_positions.end();
     }
 
+    /**
+     * Remove ground lights of given chunk tiles only, used after blocks were changed
+     * @param chunk chunk from which ground light have to be removed
+     * @param columns changed tiles of chunk (see {@link ChangedTiles})
+     */
+    public synchronized void removeChunkBoundLights(WorldChunk chunk, long[] columns) {
+        chunk_rectangle.set(chunk.getPosition().x, chunk.getPosition().y, World.CHUNK_WORLD_SIZE, World.CHUNK_WORLD_SIZE);
+
+        lights_positions.begin();
+
+        for(int i = 0; i < lights_positions.size; i++) {
+            Vector2 position = lights_positions.get(i);
+
+            if(!chunk_rectangle.contains(position))
+                continue;
+
+            int x = Math.min((int) ((position.x - chunk.getPosition().x) / World.BLOCK_SIZE), World.CHUNK_SIZE - 1);
+            int y = Math.min((int) ((position.y - chunk.getPosition().y) / World.BLOCK_SIZE), World.CHUNK_SIZE - 1);
+
+            if(ChangedTiles.isMarked(columns, x, y))
+                lights_positions.removeIndex(i);
+        }
+
+        lights_positions.end();
+    }
+
     /**
      * Add new ground light position
      * @param pos new position
@@ -260,8 +260,8 @@ public class LightEngine {
         int block_y = (int) ((chunk_object.getPosition().y + chunk_object.getWH().y / 2) - chunk.getPosition().y) / World.BLOCK_SIZE;
 
         if (WorldChunk.inChunkBounds(block_x, block_y)) {
-            if (chunk.getBlocks()[block_x][block_y].getForegroundBlock().getBlockID() != world.getBlocks().AIR.getBlockID()
-                    || chunk.getBlocks()[block_x][block_y].getBackgroundBlock().getBlockID() != world.getBlocks().AIR.getBlockID()) {
+            if (chunk.getBlocks().getForegroundBlockID(block_x, block_y) != world.getBlocks().AIR.getBlockID()
+                    || chunk.getBlocks().getBackgroundBlockID(block_x, block_y) != world.getBlocks().AIR.getBlockID()) {
                 //because our object overlaps with some block we will not render any light
                 return false;
             }
@@ -17,6 +17,7 @@ import explorer.game.Helper;
 import explorer.game.framework.Game;
 import explorer.game.framework.utils.math.PositionInterpolator;
 import explorer.game.framework.utils.math.RotationInterpolator;
+import explorer.game.framework.utils.metrics.Metrics;
 import explorer.game.screen.screens.Screens;
 import explorer.game.screen.screens.menu.SelectPlayerScreen;
 import explorer.game.screen.screens.planet.PlanetGUIScreen;
@@ -62,8 +63,9 @@ public class Player extends DynamicWorldObject {
     private ServerPlayer representing_player;
     private Vector2 last_position_clone;
 
-    //current center chunk pos
+    //current center chunk pos and chunks window radius
     private Vector2 current_center_chunk_pos;
+    private int current_chunks_radius = World.DEFAULT_CHUNKS_RADIUS;
     private float on_current_chunk_time;
 
     //interpolating
@@ -167,9 +169,11 @@ public class Player extends DynamicWorldObject {
                 position_update_packet.tcp = false;
                 position_update_packet.on_current_chunk_time = on_current_chunk_time;
 
-                if(!world.getWorldChunks()[1][1].isDirty()) {
-                    position_update_packet.center_chunk_x = world.getWorldChunks()[1][1].getPosition().x;
-                    position_update_packet.center_chunk_y = world.getWorldChunks()[1][1].getPosition().y;
+                position_update_packet.chunks_radius = world.getChunksRadius();
+
+                if(!world.getCenterChunk().isDirty()) {
+                    position_update_packet.center_chunk_x = world.getCenterChunk().getPosition().x;
+                    position_update_packet.center_chunk_y = world.getCenterChunk().getPosition().y;
 
                     last_center_chunk_x = position_update_packet.center_chunk_x;
                     last_center_chunk_y = position_update_packet.center_chunk_y;
@@ -254,7 +258,7 @@ public class Player extends DynamicWorldObject {
         makeBlockPointerListener();
 
         //because player is always on center of map
-        setParentChunk(w.getWorldChunks()[1][1]);
+        setParentChunk(w.getCenterChunk());
 
         game.getMainCamera().position.set(position.x, position.y, 0);
         game.getMainCamera().update();
@@ -415,6 +419,13 @@ public class Player extends DynamicWorldObject {
                     game.getGameClient().disconnect();
                 }
 
+                //metrics overlay & dump
+                if(keycode == Input.Keys.F3) {
+                    Metrics.setOverlayVisible(!Metrics.isOverlayVisible());
+                } else if(keycode == Input.Keys.F4) {
+                    Metrics.dump();
+                }
+
                 return false;
             }
 
@@ -464,6 +475,7 @@ public class Player extends DynamicWorldObject {
 
             getPlayerRenderer().setDirection(pos_update.direction);
             current_center_chunk_pos.set(pos_update.center_chunk_x, pos_update.center_chunk_y);
+            current_chunks_radius = pos_update.chunks_radius;
             on_current_chunk_time = pos_update.on_current_chunk_time;
 
             interpolator.interpolate(pos_update.x, pos_update.y, System.currentTimeMillis());
@@ -659,7 +671,7 @@ public class Player extends DynamicWorldObject {
         if(getParentChunk() != null && !getParentChunk().isDirty())
             on_current_chunk_time += delta * 1000f;
 
-        //find parent chunk (because chunk[1][1] is not always players parent chunk because of delayed loading chunks system)
+        //find parent chunk (because center chunk is not always players parent chunk because of delayed loading chunks system)
         for(int i = 0; i < world.getWorldChunks().length; i++) {
             for(int j = 0; j < world.getWorldChunks()[0].length; j++) {
                 WorldChunk chunk = world.getWorldChunks()[i][j];
@@ -668,7 +680,7 @@ public class Player extends DynamicWorldObject {
                 if(chunk_rect.contains(getPosition().x + getWH().x / 2f, getPosition().y + getWH().y / 2f)) {
                     setParentChunk(chunk);
 
-                    if(chunk == world.getWorldChunks()[1][1] && chunk != last_parent_chunk) {
+                    if(chunk == world.getCenterChunk() && chunk != last_parent_chunk) {
                         on_current_chunk_time = 0;
                     }
                     last_parent_chunk = chunk;
@@ -723,15 +735,15 @@ public class Player extends DynamicWorldObject {
         if(hitting_block) {
             Block block;
             if (is_foreground_placing)
-                block = chunk.getBlocks()[x][y].getForegroundBlock();
+                block = chunk.getBlocks().getForegroundBlock(x, y);
             else
-                block = chunk.getBlocks()[x][y].getBackgroundBlock();
+                block = chunk.getBlocks().getBackgroundBlock(x, y);
 
             if(last_x != x || last_y != y || is_foreground_placing != last_is_foreground_placing) {
                 if(is_foreground_placing)
-                    block_hardness = chunk.getBlocks()[x][y].getForegroundBlock().getHardness();
+                    block_hardness = chunk.getBlocks().getForegroundBlock(x, y).getHardness();
                 else
-                    block_hardness = chunk.getBlocks()[x][y].getBackgroundBlock().getHardness();
+                    block_hardness = chunk.getBlocks().getBackgroundBlock(x, y).getHardness();
 
                 last_arm_angle = getPlayerRenderer().getArmAngle();
                 block_loot_spawned = false;
@@ -953,4 +965,12 @@ public class Player extends DynamicWorldObject {
     public Vector2 getCurrentCenterChunkPosition() {
         return current_center_chunk_pos;
     }
+
+    /**
+     * Used on server side when deciding which player should send chunk data packet
+     * @return radius of chunks window of player represented by this clone
+     */
+    public int getCurrentChunksRadius() {
+        return current_chunks_radius;
+    }
 }
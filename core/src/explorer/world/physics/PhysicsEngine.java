@@ -191,7 +191,7 @@ public class PhysicsEngine {
 				boolean resolved = false;
 
 				if(WorldChunk.inChunkBounds(block_x_object_center, block_y_object_center)) {
-					Block colliding_block = dynamic_object.getParentChunk().getBlocks()[block_x_object_center][block_y_object_center].getForegroundBlock();
+					Block colliding_block = dynamic_object.getParentChunk().getBlocks().getForegroundBlock(block_x_object_center, block_y_object_center);
 
 					//if colliding block is collidable we have problem and we have to lift our object
 					if(colliding_block.isCollidable()) {
@@ -375,7 +375,7 @@ public class PhysicsEngine {
 			return TileHolderTools.getBlock(x, y, false, parent_chunk, world);
 		}
 
-		return parent_chunk.getBlocks()[x][y].getForegroundBlock();
+		return parent_chunk.getBlocks().getForegroundBlock(x, y);
 	}
 
 	/**
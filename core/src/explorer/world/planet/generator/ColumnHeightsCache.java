@@ -0,0 +1,70 @@
+package explorer.world.planet.generator;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import explorer.world.World;
+
+/**
+ * Per planet cache of terrain heights by block column (HeightsGenerator.generateHeight(x, 0)),
+ * heights are computed once for whole chunk column when some column of it is needed for the first time, after that height is just array lookup
+ *
+ * Covers chunk columns from -1 to planet width (generators look one block over planet start/end), heights outside of that are computed every time
+ * Can be used from many threads at once, chunk column computed by two threads at same time just ends with same values
+ */
+
+public class ColumnHeightsCache {
+
+    private final HeightsGenerator heights_generator;
+    private final int planet_width;
+
+    /**
+     * Heights of chunk columns by (chunk x + 1), null if chunk column wasn't computed yet
+     */
+    private final AtomicReferenceArray<float[]> chunk_columns;
+
+    /**
+     * Create new cache, nothing is computed until heights are requested
+     * @param heights_generator generator of heights, its parameters can't be changed after cache is created
+     * @param planet_width planet width in chunks
+     */
+    public ColumnHeightsCache(HeightsGenerator heights_generator, int planet_width) {
+        this.heights_generator = heights_generator;
+        this.planet_width = planet_width;
+
+        chunk_columns = new AtomicReferenceArray<float[]>(planet_width + 2);
+    }
+
+    /**
+     * Get terrain height of block column
+     * @param x block x (1 = one block, not wrapped around planet)
+     * @return same value as HeightsGenerator.generateHeight(x, 0)
+     */
+    public float getHeight(int x) {
+        //floor division so columns before planet start go to chunk -1
+        int chunk_x = (x >= 0) ? x / World.CHUNK_SIZE : -((-x - 1) / World.CHUNK_SIZE) - 1;
+
+        if(chunk_x < -1 || chunk_x > planet_width)
+            return heights_generator.generateHeight(x, 0);
+
+        return getChunkHeights(chunk_x)[x - chunk_x * World.CHUNK_SIZE];
+    }
+
+    /**
+     * Get terrain heights of all block columns of chunk column, computed now if they weren't computed before
+     * @param chunk_x chunk x (1 = World.CHUNK_WORLD_SIZE, from -1 to planet width)
+     * @return World.CHUNK_SIZE heights, array is shared so don't change it
+     */
+    public float[] getChunkHeights(int chunk_x) {
+        float[] heights = chunk_columns.get(chunk_x + 1);
+
+        if(heights == null) {
+            heights = new float[World.CHUNK_SIZE];
+            for(int i = 0; i < World.CHUNK_SIZE; i++)
+                heights[i] = heights_generator.generateHeight(chunk_x * World.CHUNK_SIZE + i, 0);
+
+            chunk_columns.set(chunk_x + 1, heights);
+        }
+
+        return heights;
+    }
+}
@@ -2,12 +2,87 @@ package explorer.world.planet.generator;
 
 import java.util.Random;
 
+/**
+ * Heights of terrain by octaves of smoothed value noise
+ * Noise functions don't change any state so one instance can be used from many threads at once (as long as parameters aren't changed meanwhile)
+ *
+ * Octave frequencies/amplitudes and cosine interpolation weights are precomputed into tables (see Tables), and every interpolated sample
+ * reads 4x4 lattice noise values once instead of 36 times, heights are bit-identical to computing everything directly so existing worlds keep their terrain
+ */
+
 public class HeightsGenerator {
 	 
     public float AMPLITUDE = 75f;
     public int OCTAVES = 5;
     public float ROUGHNESS = 0.3f;
  
+    /**
+     * java.util.Random linear congruential generator constants (see getNoise())
+     */
+    private static final long RANDOM_MULTIPLIER = 0x5DEECE66DL;
+    private static final long RANDOM_ADDEND = 0xBL;
+    private static final long RANDOM_MASK = (1L << 48) - 1;
+
+    /**
+     * Interpolation weights are precomputed only up to this amount of octaves (2^(octaves - 1) * 2 weights), more octaves compute weights directly
+     */
+    private static final int MAX_WEIGHTS_OCTAVES = 12;
+
+    /**
+     * Values derived from parameters, immutable so they can be shared between threads, replaced when parameters change
+     *
+     * Sample coords of octave i are (x * 2^i / 2^(octaves - 1)) so their fractional part (interpolation blend) is always k / 2^(octaves - 1),
+     * weights has cosine weight for every such k (negative ones included because casting to int rounds negative coords towards zero)
+     */
+    private static class Tables {
+        final float amplitude;
+        final int octaves;
+        final float roughness;
+
+        final float[] frequencies;
+        final float[] amplitudes;
+
+        //blend * weights_scale = k, weight of k is at weights[k + weights_offset], null if there are too many octaves
+        final float weights_scale;
+        final int weights_offset;
+        final float[] weights;
+
+        Tables(float amplitude, int octaves, float roughness) {
+            this.amplitude = amplitude;
+            this.octaves = octaves;
+            this.roughness = roughness;
+
+            //same expressions as before tables existed so values are bit-identical
+            float d = (float) Math.pow(2, octaves - 1);
+
+            frequencies = new float[Math.max(0, octaves)];
+            amplitudes = new float[Math.max(0, octaves)];
+            for(int i = 0; i < octaves; i++) {
+                frequencies[i] = (float) (Math.pow(2, i) / d);
+                amplitudes[i] = (float) Math.pow(roughness, i) * amplitude;
+            }
+
+            weights_scale = d;
+
+            if(octaves >= 1 && octaves <= MAX_WEIGHTS_OCTAVES) {
+                int size = (int) d;
+
+                weights_offset = size - 1;
+                weights = new float[size * 2 - 1];
+                for(int k = -size + 1; k < size; k++)
+                    weights[k + weights_offset] = getWeight((float) k / d);
+            } else {
+                weights_offset = 0;
+                weights = null;
+            }
+        }
+    }
+
+    private volatile Tables tables;
+
+    /**
+     * Used only to pick random seed (constructor without seed, reset()), never by noise functions
+     */
     private Random random = new Random();
     private int seed;
     private int xOffset = 0;
@@ -37,49 +112,96 @@ public class HeightsGenerator {
     }
  
     public float generateHeight(int x, int z) {
+        Tables tables = getTables();
+
         float total = 0;
-        float d = (float) Math.pow(2, OCTAVES-1);
-        for(int i = 0; i < OCTAVES; i++){
-            float freq = (float) (Math.pow(2, i) / d);
-            float amp = (float) Math.pow(ROUGHNESS, i) * AMPLITUDE;
-            total += getInterpolatedNoise((x+xOffset)*freq, (z + zOffset)*freq) * amp;
+        for(int i = 0; i < tables.octaves; i++){
+            float freq = tables.frequencies[i];
+            total += getInterpolatedNoise((x+xOffset)*freq, (z + zOffset)*freq, tables) * tables.amplitudes[i];
         }
         return total;
     }
-     
-    private float getInterpolatedNoise(float x, float z){
+
+    /**
+     * @return tables for current parameters
+     */
+    private Tables getTables() {
+        Tables current = tables;
+
+        if(current == null || current.amplitude != AMPLITUDE || current.octaves != OCTAVES || current.roughness != ROUGHNESS) {
+            current = new Tables(AMPLITUDE, OCTAVES, ROUGHNESS);
+            tables = current;
+        }
+
+        return current;
+    }
+
+    private float getInterpolatedNoise(float x, float z, Tables tables){
         int intX = (int) x;
         int intZ = (int) z;
         float fracX = x - intX;
         float fracZ = z - intZ;
-         
-        float v1 = getSmoothNoise(intX, intZ);
-        float v2 = getSmoothNoise(intX + 1, intZ);
-        float v3 = getSmoothNoise(intX, intZ + 1);
-        float v4 = getSmoothNoise(intX + 1, intZ + 1);
-        float i1 = interpolate(v1, v2, fracX);
-        float i2 = interpolate(v3, v4, fracX);
-        return interpolate(i1, i2, fracZ);
+
+        //lattice noise around sample (n<column><row>, column/row 0 = intX/intZ - 1), every smooth noise below uses 9 of these
+        float n00 = getNoise(intX - 1, intZ - 1), n10 = getNoise(intX, intZ - 1), n20 = getNoise(intX + 1, intZ - 1), n30 = getNoise(intX + 2, intZ - 1);
+        float n01 = getNoise(intX - 1, intZ), n11 = getNoise(intX, intZ), n21 = getNoise(intX + 1, intZ), n31 = getNoise(intX + 2, intZ);
+        float n02 = getNoise(intX - 1, intZ + 1), n12 = getNoise(intX, intZ + 1), n22 = getNoise(intX + 1, intZ + 1), n32 = getNoise(intX + 2, intZ + 1);
+        float n03 = getNoise(intX - 1, intZ + 2), n13 = getNoise(intX, intZ + 2), n23 = getNoise(intX + 1, intZ + 2), n33 = getNoise(intX + 2, intZ + 2);
+
+        float v1 = getSmoothNoise(n00, n20, n02, n22, n01, n21, n10, n12, n11);
+        float v2 = getSmoothNoise(n10, n30, n12, n32, n11, n31, n20, n22, n21);
+        float v3 = getSmoothNoise(n01, n21, n03, n23, n02, n22, n11, n13, n12);
+        float v4 = getSmoothNoise(n11, n31, n13, n33, n12, n32, n21, n23, n22);
+        float i1 = interpolate(v1, v2, fracX, tables);
+        float i2 = interpolate(v3, v4, fracX, tables);
+        return interpolate(i1, i2, fracZ, tables);
     }
-     
-    private float interpolate(float a, float b, float blend){
-        double theta = blend * Math.PI;
-        float f = (float)(1f - Math.cos(theta)) * 0.5f;
+
+    private float interpolate(float a, float b, float blend, Tables tables){
+        float f;
+
+        //blend is k / weights_scale for all coords that fit into float exactly, anything else (huge coords) computes weight directly
+        float scaled = blend * tables.weights_scale;
+        int k = (int) scaled;
+        if(tables.weights != null && k == scaled)
+            f = tables.weights[k + tables.weights_offset];
+        else
+            f = getWeight(blend);
+
         return a * (1f - f) + b * f;
     }
- 
-    private float getSmoothNoise(int x, int z) {
-        float corners = (getNoise(x - 1, z - 1) + getNoise(x + 1, z - 1) + getNoise(x - 1, z + 1)
-                + getNoise(x + 1, z + 1)) / 16f;
-        float sides = (getNoise(x - 1, z) + getNoise(x + 1, z) + getNoise(x, z - 1)
-                + getNoise(x, z + 1)) / 8f;
-        float center = getNoise(x, z) / 4f;
-        return corners + sides + center;
+
+    /**
+     * Cosine interpolation weight
+     */
+    private static float getWeight(float blend) {
+        double theta = blend * Math.PI;
+        return (float)(1f - Math.cos(theta)) * 0.5f;
+    }
+
+    /**
+     * Smoothed noise of lattice point from noise of its neighbours (summed in same order as always so result is bit-identical)
+     */
+    private static float getSmoothNoise(float left_bottom, float right_bottom, float left_top, float right_top, float left, float right, float bottom, float top, float center) {
+        float corners = (left_bottom + right_bottom + left_top + right_top) / 16f;
+        float sides = (left + right + bottom + top) / 8f;
+        return corners + sides + center / 4f;
     }
  
+    /**
+     * Pure hash of given coords, same value as java.util.Random seeded with (x * 49632 + z * 325176 + seed) returns from first nextFloat(),
+     * but without shared Random instance so it can be called from many threads at once
+     * @return noise value in range <-1, 1)
+     */
     public float getNoise(int x, int z) {
-        random.setSeed(x * 49632 + z * 325176 + seed);
-        return random.nextFloat() * 2f - 1f;
+        //Random.setSeed() scrambling
+        long state = ((long) (x * 49632 + z * 325176 + seed) ^ RANDOM_MULTIPLIER) & RANDOM_MASK;
+
+        //Random.next(24) used by nextFloat()
+        state = (state * RANDOM_MULTIPLIER + RANDOM_ADDEND) & RANDOM_MASK;
+        float value = (int) (state >>> (48 - 24)) / (float) (1 << 24);
+
+        return value * 2f - 1f;
     }
 
     public float getNoise01(int x, int z) {
@@ -2,12 +2,19 @@ package explorer.world.planet.generator;
 
 import com.badlogic.gdx.math.Vector2;
 
+import java.io.IOException;
+
 import explorer.game.framework.Game;
 import explorer.world.ChunkDataProvider;
+import explorer.world.ChunkDataSerializer;
 import explorer.world.World;
 
 /**
  * World generator base class
+ *
+ * Generators are reentrant: getChunkData() (and generateChunkBytes()) are called from many generating threads at once,
+ * so they must not be synchronized and must not change any generator state, everything generator keeps has to be read only after constructor
+ * (noise functions included, see HeightsGenerator.getNoise())
  * Created by RYZEN on 07.10.2017.
  */
 
@@ -21,9 +28,24 @@ public abstract class WorldGenerator {
         this.game = game;
     }
 
+    /**
+     * Generate chunk, has to be thread safe without locking (see class description)
+     * @param chunk_position world pos of chunk
+     * @return new chunk data
+     */
     public abstract ChunkDataProvider.ChunkData getChunkData(Vector2 chunk_position);
 
-    public abstract void generateAndSaveChunk(String chunk_path, Vector2 chunk_position);
+    /**
+     * Generate chunk and serialize it into chunk bytes encoded by world chunk codec (same as chunk file content)
+     * @param chunk_position world pos of chunk
+     * @return chunk bytes
+     * @throws IOException
+     */
+    public byte[] generateChunkBytes(Vector2 chunk_position) throws IOException {
+        ChunkDataProvider.ChunkData data = getChunkData(chunk_position);
+
+        return ChunkDataSerializer.toBytes(data.foreground_blocks, data.background_blocks, data.objects, (int) chunk_position.x / World.CHUNK_WORLD_SIZE, (int) chunk_position.y / World.CHUNK_WORLD_SIZE, true, world.getChunkCodec());
+    }
 
     /**
      * Get maximum value of world height in chunks
@@ -1,12 +1,7 @@
 package explorer.world.planet.generator.generators;
 
-import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.math.Vector2;
 
-import java.io.DataOutputStream;
-import java.io.IOException;
-import java.util.zip.DeflaterOutputStream;
-
 import explorer.game.framework.Game;
 import explorer.game.framework.utils.math.FastNoise;
 import explorer.world.ChunkDataProvider;
@@ -17,6 +12,7 @@ import explorer.world.object.objects.TestDynamicObject;
 import explorer.world.object.objects.TreeObject;
 import explorer.world.object.objects.earthlike.WitheredTree1Object;
 import explorer.world.planet.PlanetProperties;
+import explorer.world.planet.generator.ColumnHeightsCache;
 import explorer.world.planet.generator.HeightsGenerator;
 import explorer.world.planet.generator.WorldGenerator;
 
@@ -26,8 +22,12 @@ import explorer.world.planet.generator.WorldGenerator;
 
 public class TestWorldGenerator extends WorldGenerator {
 
-    private HeightsGenerator heights_generator;
-    private FastNoise noise, cave_noise;
+    //read only after constructor, noise functions don't change any state so chunks can be generated on many threads at once
+    private final HeightsGenerator heights_generator;
+    private final FastNoise noise, cave_noise;
+
+    //terrain heights are computed once per chunk column and shared by all chunks of that column and by getPlayerSpawn()
+    private final ColumnHeightsCache heights_cache;
 
     private final float MAX_AMPLITUDE = 100f;
     private final float MIN_AMPLITUDE = 50f;
@@ -56,17 +56,19 @@ public class TestWorldGenerator extends WorldGenerator {
         heights_generator = new HeightsGenerator(AMPLITUDE, OCTAVES, ROUGHNESS, properties.PLANET_SEED);
         noise = new FastNoise(properties.PLANET_SEED);
         cave_noise = new FastNoise(properties.PLANET_SEED + 1);
+
+        heights_cache = new ColumnHeightsCache(heights_generator, properties.PLANET_SIZE);
     }
 
     private int getHeight(int x, int chunk_pos_x) {
         final int height_offset = 200;
-        int y = (int) heights_generator.generateHeight(x + (chunk_pos_x * World.CHUNK_SIZE), 0) + height_offset;
+        int y = (int) heights_cache.getHeight(x + (chunk_pos_x * World.CHUNK_SIZE)) + height_offset;
 
         return y;
     }
 
     @Override
-    public synchronized ChunkDataProvider.ChunkData getChunkData(Vector2 chunk_position) {
+    public ChunkDataProvider.ChunkData getChunkData(Vector2 chunk_position) {
         ChunkDataProvider.ChunkData out = new ChunkDataProvider.ChunkData();
 
         int chunk_pos_x = (int) chunk_position.x / World.CHUNK_WORLD_SIZE;
@@ -77,7 +79,7 @@ public class TestWorldGenerator extends WorldGenerator {
 
         final int AIR = world.getBlocks().AIR.getBlockID();
 
-        for (int i = 0; i < out.foreground_blocks.length; i++) {
+        for (int i = 0; i < World.CHUNK_SIZE; i++) {
             int y = getHeight(i, chunk_pos_x);
             int last_y = getHeight(i - 1, chunk_pos_x);
             int next_y = getHeight(i + 1, chunk_pos_x);
@@ -95,31 +97,31 @@ public class TestWorldGenerator extends WorldGenerator {
                 y = (int) (first_y + ((first_chunk_first_y - first_y) * percentage)) + (int) ((first_y - y) * .5f);
             }
 
-            for (int j = 0; j < out.foreground_blocks[0].length; j++) {
+            for (int j = 0; j < World.CHUNK_SIZE; j++) {
                 int global_block_y = (j + (chunk_pos_y * World.CHUNK_SIZE));
                 int global_block_x = (i + (chunk_pos_x * World.CHUNK_SIZE));
 
                 //place ground blocks
                 if (global_block_y > y) {
-                    out.foreground_blocks[i][j] = world.getBlocks().AIR.getBlockID();
-                    out.background_blocks[i][j] = AIR;
+                    out.foreground_blocks.set(i, j, world.getBlocks().AIR.getBlockID());
+                    out.background_blocks.set(i, j, AIR);
                 } else if (global_block_y == y) {
-                    out.foreground_blocks[i][j] = world.getBlocks().GRASS.getBlockID();
-                    out.background_blocks[i][j] = world.getBlocks().DIRT.getBlockID();
+                    out.foreground_blocks.set(i, j, world.getBlocks().GRASS.getBlockID());
+                    out.background_blocks.set(i, j, world.getBlocks().DIRT.getBlockID());
                 } else {
-                    out.foreground_blocks[i][j] = world.getBlocks().DIRT.getBlockID();
-                    out.background_blocks[i][j] = world.getBlocks().DIRT.getBlockID();
+                    out.foreground_blocks.set(i, j, world.getBlocks().DIRT.getBlockID());
+                    out.background_blocks.set(i, j, world.getBlocks().DIRT.getBlockID());
 
                     //this part of code makes that grass is everywhere on ground line
                     if((global_block_y > last_y || global_block_y > next_y) && global_block_y < y) {
-                        out.foreground_blocks[i][j] = world.getBlocks().GRASS.getBlockID();
+                        out.foreground_blocks.set(i, j, world.getBlocks().GRASS.getBlockID());
                     }
                 }
 
                 //place some grass plants on grass block
                 if(global_block_y == y + 1 && (noise.GetNoise(global_block_x, global_block_y) + 1f) / 2f > .3f) {
-                    out.foreground_blocks[i][j] = world.getBlocks().GRASS_PLANT_BLOCK.getBlockID();
-                    out.background_blocks[i][j] = AIR;
+                    out.foreground_blocks.set(i, j, world.getBlocks().GRASS_PLANT_BLOCK.getBlockID());
+                    out.background_blocks.set(i, j, AIR);
                 }
 
                 //dig caves
@@ -127,7 +129,7 @@ public class TestWorldGenerator extends WorldGenerator {
                 final float cave_scale = 1f;
                 float cave = noise.GetPerlin(global_block_x * cave_scale, global_block_y * cave_scale) + 1f;
                 if(cave > 1.1f && cave < 1.2f) {
-                    out.foreground_blocks[i][j] = AIR;
+                    out.foreground_blocks.set(i, j, AIR);
                     is_cave = true;
                 }
 
@@ -137,6 +139,10 @@ public class TestWorldGenerator extends WorldGenerator {
             }
         }
 
+        //drop palette entries which were overwritten (f.e. air in full dirt chunk) so uniform chunks stay uniform
+        out.foreground_blocks.compact();
+        out.background_blocks.compact();
+
         //assign ids to objects
         for(int i = 0; i < out.objects.size; i++) {
             out.objects.get(i).OBJECT_ID = WorldObject.IDAssigner.next();
@@ -165,75 +171,6 @@ public class TestWorldGenerator extends WorldGenerator {
         }
     }
 
-    @Override
-    public void generateAndSaveChunk(String chunk_path, Vector2 chunk_position) {
-        ChunkDataProvider.ChunkData data = getChunkData(chunk_position);//properties.PLANET_TYPE.PLANET_GENERATOR.getChunkData(chunk_position);
-
-        try {
-            DeflaterOutputStream output = new DeflaterOutputStream(Gdx.files.local(chunk_path).write(false, 1024));
-            DataOutputStream data_output = new DataOutputStream(output);
-
-            //save chunk pos
-            data_output.writeInt((int) chunk_position.x / World.CHUNK_WORLD_SIZE);
-            data_output.writeInt((int) chunk_position.y / World.CHUNK_WORLD_SIZE);
-
-            //save blocks
-            for(int i = 0; i < data.foreground_blocks.length; i++) {
-                for(int j = 0; j < data.foreground_blocks[0].length; j++) {
-                    data_output.writeInt(data.foreground_blocks[i][j]);
-                    data_output.writeInt(data.background_blocks[i][j]);
-                }
-            }
-
-            //objects part
-            int objects_count = 0;
-            for(int i = 0; i < data.objects.size; i++)
-                if(data.objects.get(i).isSaveable())
-                    objects_count++;
-
-            data_output.writeInt(objects_count);
-
-            for(WorldObject object : data.objects) {
-                if(!object.isSaveable())
-                    continue;
-
-                String class_name = object.getClass().getName();
-                data_output.writeUTF(class_name);
-
-                //save position
-                data_output.writeFloat(object.getPosition().x);
-                data_output.writeFloat(object.getPosition().y);
-
-                //save object id
-                data_output.writeInt(object.OBJECT_ID);
-
-                //check if we have to save properties
-                if(object.getObjectProperties() == null) {
-                    //save info that this object does not contain any properties
-                    data_output.writeBoolean(false);
-                } else {
-                    //save info that this object have some properties that were saved
-                    data_output.writeBoolean(true);
-
-                    //write info about amount of properties
-                    data_output.writeInt(object.getObjectProperties().size());
-
-                    for(String key : object.getObjectProperties().keySet()) {
-                        String val = object.getObjectProperties().get(key);
-
-                        //save key, val couple
-                        data_output.writeUTF(key);
-                        data_output.writeUTF(val);
-                    }
-                }
-            }
-
-            output.close();
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-    }
-
     @Override
     public int getMaxHeight() {
         return 5;